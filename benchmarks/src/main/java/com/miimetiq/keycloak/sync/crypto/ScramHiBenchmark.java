@@ -0,0 +1,68 @@
+package com.miimetiq.keycloak.sync.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ScramHi} with the JCE PBKDF2 implementation ({@code PBKDF2WithHmacSHA*})
+ * for SHA-256 and SHA-512 at 4096 and 8192 iterations.
+ * <p>
+ * Run with: {@code java -jar target/benchmarks.jar ScramHiBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScramHiBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"SHA-256", "SHA-512"})
+    String hash;
+
+    @Param({"4096", "8192"})
+    int iterations;
+
+    ScramHi hi;
+    SecretKeyFactory keyFactory;
+    byte[] salt;
+    byte[] passwordBytes;
+    int keyLengthBits;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        hi = new ScramHi(hash);
+        keyFactory = SecretKeyFactory.getInstance("PBKDF2WithHmac" + hash.replace("-", ""));
+        keyLengthBits = "SHA-512".equals(hash) ? 512 : 256;
+        salt = ScramCredentialGenerator.generateSalt();
+        passwordBytes = PASSWORD.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] scramHi() {
+        return hi.hi(passwordBytes, salt, iterations);
+    }
+
+    @Benchmark
+    public byte[] jce() throws GeneralSecurityException {
+        return keyFactory.generateSecret(new PBEKeySpec(PASSWORD.toCharArray(), salt, iterations, keyLengthBits))
+                .getEncoded();
+    }
+}
@@ -0,0 +1,119 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the webhook queue lane implementations under 1, 4 and 16 producer threads.
+ * <p>
+ * Producers enqueue into a single lane while one consumer drains it in batches, as an
+ * {@link EventProcessor} worker does. Throughput of the {@code enqueue} and {@code drain}
+ * methods is reported per group; rejected offers (queue full) count as operations too.
+ * <p>
+ * Run with: {@code java -jar target/benchmarks.jar EventQueueBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class EventQueueBenchmark {
+
+    @Param({"linked", "ring"})
+    String implementation;
+
+    @Param({"1024"})
+    int capacity;
+
+    EventQueueService queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new EventQueueService();
+        queue.implementation = implementation;
+        queue.queueCapacity = capacity;
+        queue.overflowStrategy = "REJECT";
+        queue.laneCount = 1;
+        queue.meterRegistry = new SimpleMeterRegistry();
+        queue.eventMapper = new EventMapper();
+        queue.init();
+    }
+
+    /**
+     * Per-thread event, pre-partitioned so enqueue measures only the queue.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        WebhookEvent event;
+
+        @Setup
+        public void setUp() {
+            event = new WebhookEvent("benchmark", new KeycloakAdminEvent());
+            event.setPartitionKey("benchmark");
+            event.setSequence(1);
+        }
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public boolean enqueue1(Producer producer) {
+        return queue.enqueue(producer.event);
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public List<WebhookEvent> drain1() {
+        return drain();
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(4)
+    public boolean enqueue4(Producer producer) {
+        return queue.enqueue(producer.event);
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(1)
+    public List<WebhookEvent> drain4() {
+        return drain();
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(16)
+    public boolean enqueue16(Producer producer) {
+        return queue.enqueue(producer.event);
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(1)
+    public List<WebhookEvent> drain16() {
+        return drain();
+    }
+
+    private List<WebhookEvent> drain() {
+        return queue.drainLane(0, 64, 0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,505 @@
+package com.miimetiq.keycloak.spi;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.spi.PasswordWebhookSender.PasswordEvent;
+import org.jboss.logging.Logger;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, encrypted, append-only outbox for password events the agent could not take.
+ *
+ * Records are appended to a single file as [length][IV][AES-GCM ciphertext of the JSON
+ * events], so passwords never reach the disk in clear text. The first 8 bytes of the file
+ * hold the offset of the oldest record not yet replayed. A drain thread replays records in
+ * order and retries failed deliveries with exponential backoff and jitter. Fully drained
+ * files are truncated. Once replayed records take up half the size budget, the pending
+ * tail is copied to a new file that atomically replaces the old one.
+ *
+ * Live records are limited to the configured maximum size; events beyond it are dropped
+ * and counted. Appends are not forced to disk on the caller's thread; the drain thread
+ * flushes them shortly afterwards, so a Keycloak crash loses nothing already appended,
+ * while an operating system crash may lose the most recent appends.
+ *
+ * The key is taken from the outbox-key option (Base64 AES key). Without it, a random key
+ * is generated once into an owner-only key file next to the outbox. That key only protects
+ * against readers of the outbox file alone, not of its directory or backups of it, so a
+ * warning is logged on every start until outbox-key is set.
+ */
+public class PasswordOutbox implements PasswordOutboxMXBean, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(PasswordOutbox.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<PasswordEvent>> EVENTS = new TypeReference<>() {
+    };
+
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final String MBEAN_NAME = "com.miimetiq.keycloak.spi:type=PasswordOutbox";
+
+    /**
+     * Delivers replayed events.
+     */
+    interface Delivery {
+        /**
+         * @throws IOException if the events could not be delivered and should be retried
+         */
+        void deliver(List<PasswordEvent> events) throws IOException, InterruptedException;
+    }
+
+    private final PasswordWebhookSender.Settings settings;
+    private final Delivery delivery;
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+    private final Path path;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong replayFailures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong corrupt = new AtomicLong();
+
+    // Guarded by this
+    private FileChannel channel;
+    private long readOffset;
+    private long size;
+    private int pendingRecords;
+    private boolean dirty;
+
+    private volatile boolean running = true;
+    private final Thread drainer;
+
+    public PasswordOutbox(PasswordWebhookSender.Settings settings, Delivery delivery)
+            throws IOException, GeneralSecurityException {
+        this.settings = settings;
+        this.delivery = delivery;
+
+        Path dir = Path.of(settings.outboxDir);
+        Files.createDirectories(dir);
+        this.key = loadKey(dir.resolve("outbox.key"), settings.outboxKey);
+        this.path = dir.resolve("outbox.log");
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        restrictToOwner(path);
+        recover();
+        registerMBean();
+
+        drainer = new Thread(this::runDrainer, "password-sync-outbox");
+        drainer.setDaemon(true);
+        drainer.start();
+
+        LOG.infof("PasswordOutbox opened at %s: %d pending record(s), max %d bytes",
+                path, pendingRecords, settings.outboxMaxBytes);
+    }
+
+    /**
+     * Appends events for later replay.
+     *
+     * @param events the undelivered events
+     * @return false if the events were dropped because the outbox is full or failed
+     */
+    public boolean append(List<PasswordEvent> events) {
+        byte[] record;
+        try {
+            record = encrypt(events);
+        } catch (GeneralSecurityException | IOException e) {
+            LOG.errorf(e, "Could not encrypt %d password event(s) for the outbox", events.size());
+            dropped.addAndGet(events.size());
+            return false;
+        }
+
+        synchronized (this) {
+            try {
+                long length = LENGTH_BYTES + record.length;
+                if (!running || (size - readOffset) + length > settings.outboxMaxBytes) {
+                    LOG.warnf("Password outbox full or closed, dropping %d event(s)", events.size());
+                    dropped.addAndGet(events.size());
+                    return false;
+                }
+                if (size + length > HEADER_BYTES + settings.outboxMaxBytes) {
+                    compact();
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate((int) length);
+                buffer.putInt(record.length).put(record).flip();
+                write(buffer, size);
+                size += length;
+                pendingRecords++;
+                dirty = true;
+                appended.addAndGet(events.size());
+                notifyAll();
+                return true;
+            } catch (IOException e) {
+                LOG.errorf(e, "Could not append %d password event(s) to the outbox", events.size());
+                dropped.addAndGet(events.size());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Whether all appended events have been replayed.
+     */
+    public synchronized boolean isEmpty() {
+        return readOffset == size;
+    }
+
+    @Override
+    public void close() {
+        // Woken rather than interrupted: an interrupt during file I/O closes the channel
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            drainer.join(5000);
+            if (drainer.isAlive()) {
+                drainer.interrupt();
+                drainer.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                LOG.warnf("Could not close password outbox: %s", e.getMessage());
+            }
+        }
+        unregisterMBean();
+        if (pendingRecords > 0) {
+            LOG.infof("PasswordOutbox closed with %d pending record(s), replayed on next start", pendingRecords);
+        }
+    }
+
+    private void runDrainer() {
+        long backoffMs = settings.outboxBackoffInitialMs;
+        while (running) {
+            try {
+                byte[] record = next();
+                if (record == null) {
+                    continue;
+                }
+
+                List<PasswordEvent> events;
+                try {
+                    events = decrypt(record);
+                } catch (GeneralSecurityException | IOException e) {
+                    LOG.errorf("Skipping unreadable password outbox record: %s", e.getMessage());
+                    corrupt.incrementAndGet();
+                    commit(record.length);
+                    continue;
+                }
+
+                try {
+                    delivery.deliver(events);
+                } catch (IOException e) {
+                    replayFailures.incrementAndGet();
+                    long delay = ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1);
+                    LOG.debugf("Password outbox replay failed, retrying in %dms: %s", delay, e.getMessage());
+                    pause(delay);
+                    backoffMs = Math.min(backoffMs * 2, settings.outboxBackoffMaxMs);
+                    continue;
+                }
+
+                replayed.addAndGet(events.size());
+                backoffMs = settings.outboxBackoffInitialMs;
+                if (commit(record.length)) {
+                    LOG.infof("Password outbox drained (%d event(s) replayed in total)", replayed.get());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                LOG.errorf(e, "Password outbox drain failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits out a replay backoff, returning early on close.
+     */
+    private synchronized void pause(long delayMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        long remaining = delayMs;
+        while (running && remaining > 0) {
+            wait(remaining);
+            remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        }
+    }
+
+    /**
+     * Waits for the oldest pending record, flushing appends while idle.
+     *
+     * @return the record's IV and ciphertext, or null to re-check the running flag
+     */
+    private synchronized byte[] next() throws IOException, InterruptedException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+        if (readOffset == size) {
+            wait(1000);
+            return null;
+        }
+
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+        read(length, readOffset);
+        ByteBuffer record = ByteBuffer.allocate(length.flip().getInt());
+        read(record, readOffset + LENGTH_BYTES);
+        return record.array();
+    }
+
+    /**
+     * Marks the oldest record as replayed.
+     *
+     * @return true if the outbox is now empty
+     */
+    private synchronized boolean commit(int recordLength) throws IOException {
+        readOffset += LENGTH_BYTES + recordLength;
+        pendingRecords--;
+        if (readOffset == size) {
+            channel.truncate(HEADER_BYTES);
+            size = HEADER_BYTES;
+            readOffset = HEADER_BYTES;
+        }
+        writeHeader();
+        channel.force(false);
+
+        if (readOffset - HEADER_BYTES > settings.outboxMaxBytes / 2) {
+            compact();
+        }
+        return readOffset == size;
+    }
+
+    /**
+     * Replaces the file by one holding only the pending records.
+     */
+    private void compact() throws IOException {
+        if (readOffset == HEADER_BYTES) {
+            return;
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            target.write(ByteBuffer.allocate(HEADER_BYTES).putLong(0, HEADER_BYTES));
+            long position = readOffset;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            target.force(true);
+        }
+        restrictToOwner(compacted);
+
+        channel.close();
+        try {
+            Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        size = channel.size();
+        readOffset = HEADER_BYTES;
+        dirty = false;
+    }
+
+    /**
+     * Reads the header and drops a record left incomplete by a crash.
+     */
+    private void recover() throws IOException {
+        size = channel.size();
+        if (size < HEADER_BYTES) {
+            channel.truncate(0);
+            size = HEADER_BYTES;
+            readOffset = HEADER_BYTES;
+            writeHeader();
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        read(header, 0);
+        readOffset = Math.max(HEADER_BYTES, Math.min(header.flip().getLong(), size));
+
+        long position = readOffset;
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+        while (position + LENGTH_BYTES <= size) {
+            read(length.clear(), position);
+            int recordLength = length.flip().getInt();
+            if (recordLength <= IV_BYTES || position + LENGTH_BYTES + recordLength > size) {
+                break;
+            }
+            position += LENGTH_BYTES + recordLength;
+            pendingRecords++;
+        }
+        if (position < size) {
+            LOG.warnf("Truncating incomplete password outbox record at offset %d", position);
+            channel.truncate(position);
+            size = position;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        write(ByteBuffer.allocate(HEADER_BYTES).putLong(0, readOffset), 0);
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void read(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of password outbox at offset " + position);
+            }
+            position += read;
+        }
+    }
+
+    private byte[] encrypt(List<PasswordEvent> events) throws GeneralSecurityException, IOException {
+        byte[] plaintext = MAPPER.writeValueAsBytes(events);
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            byte[] record = Arrays.copyOf(iv, IV_BYTES + plaintext.length + TAG_BITS / 8);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, IV_BYTES));
+            cipher.doFinal(plaintext, 0, plaintext.length, record, IV_BYTES);
+            return record;
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private List<PasswordEvent> decrypt(byte[] record) throws GeneralSecurityException, IOException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, IV_BYTES));
+        byte[] plaintext = cipher.doFinal(record, IV_BYTES, record.length - IV_BYTES);
+        try {
+            return MAPPER.readValue(plaintext, EVENTS);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private static SecretKey loadKey(Path keyFile, String configured) throws IOException {
+        if (configured != null && !configured.isBlank()) {
+            return new SecretKeySpec(Base64.getDecoder().decode(configured.trim()), "AES");
+        }
+        LOG.warnf("Password outbox key is stored in %s next to the encrypted passwords; anyone able to "
+                + "read that directory can decrypt them. Set outbox-key to keep the key elsewhere", keyFile);
+        if (!Files.exists(keyFile)) {
+            byte[] generated = new byte[32];
+            new SecureRandom().nextBytes(generated);
+            try {
+                Files.createFile(keyFile);
+                restrictToOwner(keyFile);
+                Files.write(keyFile, Base64.getEncoder().encode(generated));
+                LOG.infof("Generated password outbox key at %s", keyFile);
+            } catch (FileAlreadyExistsException e) {
+                // Created concurrently; use the existing key
+            } finally {
+                Arrays.fill(generated, (byte) 0);
+            }
+        }
+        return new SecretKeySpec(Base64.getDecoder().decode(Files.readString(keyFile).trim()), "AES");
+    }
+
+    private static void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            LOG.debugf("Cannot restrict permissions of %s on this file system", file);
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            LOG.warnf("Could not register password outbox metrics: %s", e.getMessage());
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOG.debugf("Could not unregister password outbox metrics: %s", e.getMessage());
+        }
+    }
+
+    @Override
+    public long getAppendedEvents() {
+        return appended.get();
+    }
+
+    @Override
+    public long getReplayedEvents() {
+        return replayed.get();
+    }
+
+    @Override
+    public long getReplayFailures() {
+        return replayFailures.get();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getCorruptRecords() {
+        return corrupt.get();
+    }
+
+    @Override
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    @Override
+    public synchronized long getPendingBytes() {
+        return size - readOffset;
+    }
+}
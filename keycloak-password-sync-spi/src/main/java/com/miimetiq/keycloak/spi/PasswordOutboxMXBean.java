@@ -0,0 +1,43 @@
+package com.miimetiq.keycloak.spi;
+
+/**
+ * Replay metrics of the password outbox, registered as
+ * {@code com.miimetiq.keycloak.spi:type=PasswordOutbox} on the platform MBean server.
+ */
+public interface PasswordOutboxMXBean {
+
+    /**
+     * Events written to the outbox because they could not be delivered directly.
+     */
+    long getAppendedEvents();
+
+    /**
+     * Events delivered from the outbox.
+     */
+    long getReplayedEvents();
+
+    /**
+     * Replay attempts that failed and were retried after a backoff.
+     */
+    long getReplayFailures();
+
+    /**
+     * Events lost because the outbox was full or could not be written.
+     */
+    long getDroppedEvents();
+
+    /**
+     * Records skipped because they could not be decrypted or parsed.
+     */
+    long getCorruptRecords();
+
+    /**
+     * Records waiting to be replayed.
+     */
+    int getPendingRecords();
+
+    /**
+     * Bytes of records waiting to be replayed.
+     */
+    long getPendingBytes();
+}
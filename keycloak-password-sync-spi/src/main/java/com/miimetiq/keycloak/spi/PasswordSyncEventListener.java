@@ -12,18 +12,14 @@ import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.UserModel;
 
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-
 /**
  * Event listener that intercepts password-related admin events and sends
  * plaintext passwords to the sync-agent via webhook.
  *
  * This listener retrieves passwords from the ThreadLocal context set by
  * PasswordSyncHashProviderSimple and queries Keycloak for usernames when
- * not available in the event representation.
+ * not available in the event representation. Delivery is left to the
+ * factory's {@link PasswordWebhookSender}.
  */
 public class PasswordSyncEventListener implements EventListenerProvider {
 
@@ -31,13 +27,11 @@ public class PasswordSyncEventListener implements EventListenerProvider {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private final KeycloakSession session;
-    private final String webhookUrl;
+    private final PasswordWebhookSender sender;
 
-    public PasswordSyncEventListener(KeycloakSession session) {
+    public PasswordSyncEventListener(KeycloakSession session, PasswordWebhookSender sender) {
         this.session = session;
-        this.webhookUrl = System.getProperty("password.sync.webhook.url",
-                "http://agent.example:57010/api/webhook/password");
-        LOG.infof("PasswordSyncEventListener initialized with webhook URL: %s", webhookUrl);
+        this.sender = sender;
     }
 
     @Override
@@ -171,47 +165,10 @@ public class PasswordSyncEventListener implements EventListenerProvider {
     }
 
     private void sendPasswordWebhook(String realmId, String username, String userId, String password) {
-        try {
-            URL url = new URL(webhookUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-            String jsonPayload = String.format(
-                    "{\"realmId\":\"%s\",\"username\":\"%s\",\"userId\":\"%s\",\"password\":\"%s\"}",
-                    escapeJson(realmId),
-                    escapeJson(username),
-                    escapeJson(userId),
-                    escapeJson(password)
-            );
-
-            try (OutputStream os = conn.getOutputStream()) {
-                os.write(jsonPayload.getBytes(StandardCharsets.UTF_8));
-            }
-
-            int responseCode = conn.getResponseCode();
-            if (responseCode >= 200 && responseCode < 300) {
-                LOG.infof("Successfully sent password webhook for user: %s", username);
-            } else {
-                LOG.warnf("Webhook returned non-2xx status: %d for user: %s", responseCode, username);
-            }
-
-            conn.disconnect();
-        } catch (Exception e) {
-            LOG.errorf(e, "Error sending password webhook for user: %s", username);
-        }
-    }
-
-    private String escapeJson(String value) {
-        if (value == null) {
-            return "";
+        // Queued for the sender threads; never blocks the admin request
+        if (sender.submit(new PasswordWebhookSender.PasswordEvent(realmId, username, userId, password))) {
+            LOG.debugf("Queued password webhook for user: %s", username);
         }
-        return value.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
     }
 
     @Override
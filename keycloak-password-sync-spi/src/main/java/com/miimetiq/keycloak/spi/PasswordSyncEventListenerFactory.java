@@ -1,5 +1,6 @@
 package com.miimetiq.keycloak.spi;
 
+import org.jboss.logging.Logger;
 import org.keycloak.Config;
 import org.keycloak.events.EventListenerProvider;
 import org.keycloak.events.EventListenerProviderFactory;
@@ -11,20 +12,67 @@ import org.keycloak.models.KeycloakSessionFactory;
  *
  * This factory creates event listener instances that intercept password-related
  * admin events and send them to the sync-agent webhook.
+ *
+ * The factory owns the {@link PasswordWebhookSender} shared by all listeners, configured
+ * through the SPI options below (e.g. {@code --spi-events-listener-password-sync-listener-webhook-url}):
+ * webhook-url (or the {@code password.sync.webhook.url} system property), batch-url,
+ * queue-capacity, sender-threads, connect-timeout-ms, read-timeout-ms, batch-size and
+ * batch-linger-ms. Undeliverable events go to the sender's {@link PasswordOutbox}, set up
+ * by outbox-enabled, outbox-dir, outbox-key, outbox-max-bytes, outbox-backoff-initial-ms
+ * and outbox-backoff-max-ms.
  */
 public class PasswordSyncEventListenerFactory implements EventListenerProviderFactory {
 
+    private static final Logger LOG = Logger.getLogger(PasswordSyncEventListenerFactory.class);
+
     private static final String PROVIDER_ID = "password-sync-listener";
 
+    private PasswordWebhookSender sender;
+
     @Override
     public EventListenerProvider create(KeycloakSession session) {
         // Pass session to enable querying Keycloak for usernames
-        return new PasswordSyncEventListener(session);
+        return new PasswordSyncEventListener(session, sender);
     }
 
     @Override
     public void init(Config.Scope config) {
-        // No initialization needed
+        PasswordWebhookSender.Settings settings = new PasswordWebhookSender.Settings();
+        settings.webhookUrl = config.get("webhook-url",
+                System.getProperty("password.sync.webhook.url", settings.webhookUrl));
+        settings.batchUrl = config.get("batch-url", settings.webhookUrl + "/batch");
+        settings.queueCapacity = config.getInt("queue-capacity", settings.queueCapacity);
+        settings.senderThreads = config.getInt("sender-threads", settings.senderThreads);
+        settings.connectTimeoutMs = config.getLong("connect-timeout-ms", settings.connectTimeoutMs);
+        settings.readTimeoutMs = config.getLong("read-timeout-ms", settings.readTimeoutMs);
+        settings.batchSize = config.getInt("batch-size", settings.batchSize);
+        settings.batchLingerMs = config.getLong("batch-linger-ms", settings.batchLingerMs);
+
+        if (config.getBoolean("outbox-enabled", true)) {
+            String home = System.getProperty("kc.home.dir");
+            String defaultDir = home != null
+                    ? home + "/data/password-sync-outbox"
+                    : System.getProperty("java.io.tmpdir") + "/password-sync-outbox";
+            settings.outboxDir = config.get("outbox-dir", defaultDir);
+            settings.outboxKey = config.get("outbox-key");
+            settings.outboxMaxBytes = config.getLong("outbox-max-bytes", settings.outboxMaxBytes);
+            settings.outboxBackoffInitialMs = config.getLong("outbox-backoff-initial-ms",
+                    settings.outboxBackoffInitialMs);
+            settings.outboxBackoffMaxMs = config.getLong("outbox-backoff-max-ms", settings.outboxBackoffMaxMs);
+        }
+
+        try {
+            sender = new PasswordWebhookSender(settings);
+        } catch (Exception e) {
+            LOG.errorf(e, "Could not open password outbox at %s, undeliverable events will be dropped",
+                    settings.outboxDir);
+            settings.outboxDir = null;
+            try {
+                sender = new PasswordWebhookSender(settings);
+            } catch (Exception unexpected) {
+                throw new IllegalStateException("Could not start password webhook sender", unexpected);
+            }
+        }
     }
 
     @Override
@@ -34,7 +82,9 @@ public class PasswordSyncEventListenerFactory implements EventListenerProviderFa
 
     @Override
     public void close() {
-        // No resources to close
+        if (sender != null) {
+            sender.close();
+        }
     }
 
     @Override
@@ -0,0 +1,344 @@
+package com.miimetiq.keycloak.spi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Delivers password events to the sync-agent webhook off Keycloak's request threads.
+ *
+ * Events are put on bounded queues and sent by a small pool of daemon sender threads
+ * sharing one HttpClient, which keeps connections to the agent alive between requests.
+ * Each sender has its own queue and events are routed by username, so all events of one
+ * user are sent by the same thread, one request after the other, and reach the agent in
+ * the order they happened; the agent always keeps the latest password. Replays from the
+ * outbox wait for direct deliveries in progress, so an event that overflowed into the
+ * outbox is never delivered before an older one that was already being sent.
+ *
+ * Events that cannot be delivered (agent unreachable, timeout, 5xx, 408 or 429) or that
+ * find the queue full are written to the {@link PasswordOutbox} and replayed from there
+ * once the agent is reachable. While the outbox holds events, new events are appended
+ * behind them, so an older password is never replayed over a newer one. Without an
+ * outbox such events are dropped, and the agent's reconciliation then writes a random
+ * password until the next reset. Other 4xx responses are not retried.
+ *
+ * With a batch size above 1, a sender waits up to the batch linger time for more events
+ * and posts them together as a JSON array to the agent's bulk endpoint. The bulk endpoint
+ * answers 200 with a result per event; if the agent rejected any of them because its
+ * password store was full, the whole batch is treated like a 503 and retried, which sends
+ * the events it did store once more. Events it reported as invalid are logged and dropped.
+ */
+public class PasswordWebhookSender implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(PasswordWebhookSender.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Settings settings;
+    private final URI webhookUri;
+    private final URI batchUri;
+    private final HttpClient client;
+    private final List<BlockingQueue<PasswordEvent>> queues = new ArrayList<>();
+    private final List<Thread> senders = new ArrayList<>();
+    private final PasswordOutbox outbox;
+    // Read-held by senders delivering directly, write-held by outbox replays
+    private final ReadWriteLock deliveryLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running = true;
+
+    public PasswordWebhookSender(Settings settings) throws IOException, GeneralSecurityException {
+        this.settings = settings;
+        this.webhookUri = URI.create(settings.webhookUrl);
+        this.batchUri = URI.create(settings.batchUrl);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.connectTimeoutMs))
+                .build();
+        this.outbox = settings.outboxDir != null && !settings.outboxDir.isBlank()
+                ? new PasswordOutbox(settings, this::replay)
+                : null;
+
+        int threads = Math.max(1, settings.senderThreads);
+        int capacity = Math.max(1, (settings.queueCapacity + threads - 1) / threads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<PasswordEvent> queue = new ArrayBlockingQueue<>(capacity);
+            queues.add(queue);
+            Thread sender = new Thread(() -> runSender(queue), "password-sync-sender-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+
+        LOG.infof("PasswordWebhookSender started: url=%s, queue=%d, threads=%d, batch size=%d",
+                settings.webhookUrl, settings.queueCapacity, settings.senderThreads, settings.batchSize);
+    }
+
+    /**
+     * Queues an event for delivery without blocking.
+     *
+     * @param event the password event
+     * @return false if the event was dropped because the sender is closed, or its queue is
+     *         full and the outbox could not take it
+     */
+    public boolean submit(PasswordEvent event) {
+        if (running && queueFor(event).offer(event)) {
+            return true;
+        }
+        if (running && outbox != null) {
+            LOG.debugf("Password webhook queue full, writing event for user %s to the outbox", event.username);
+            return outbox.append(List.of(event));
+        }
+        LOG.warnf("Password webhook queue full or closed, dropping event for user: %s", event.username);
+        return false;
+    }
+
+    /**
+     * Number of events waiting to be sent.
+     */
+    public int getQueuedCount() {
+        int queued = 0;
+        for (BlockingQueue<PasswordEvent> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Queue of the sender that handles all events of the event's user.
+     */
+    private BlockingQueue<PasswordEvent> queueFor(PasswordEvent event) {
+        int hash = event.username != null ? event.username.hashCode() : 0;
+        return queues.get(Math.floorMod(hash, queues.size()));
+    }
+
+    /**
+     * Stops accepting events and gives the senders a moment to deliver what is queued;
+     * events still queued afterwards are kept in the outbox.
+     */
+    @Override
+    public void close() {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.closeTimeoutMs);
+        for (Thread sender : senders) {
+            try {
+                sender.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            sender.interrupt();
+        }
+
+        List<PasswordEvent> remaining = new ArrayList<>();
+        for (BlockingQueue<PasswordEvent> queue : queues) {
+            queue.drainTo(remaining);
+        }
+        if (!remaining.isEmpty() && (outbox == null || !outbox.append(remaining))) {
+            LOG.warnf("PasswordWebhookSender closed with %d undelivered event(s)", remaining.size());
+        }
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    private void runSender(BlockingQueue<PasswordEvent> queue) {
+        List<PasswordEvent> batch = new ArrayList<>(settings.batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PasswordEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                if (settings.batchSize > 1) {
+                    fillBatch(queue, batch);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.errorf(e, "Error sending password webhook for %d event(s)", batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds queued events to a batch until it is full or the linger time has passed.
+     */
+    private void fillBatch(BlockingQueue<PasswordEvent> queue, List<PasswordEvent> batch)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.batchLingerMs);
+        while (batch.size() < settings.batchSize) {
+            queue.drainTo(batch, settings.batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= settings.batchSize || remaining <= 0) {
+                return;
+            }
+            PasswordEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Delivers a batch directly, or through the outbox if it holds older events or delivery fails.
+     */
+    private void send(List<PasswordEvent> batch) throws InterruptedException {
+        // Held while checking the outbox and delivering, so a replay cannot overtake this batch
+        deliveryLock.readLock().lock();
+        try {
+            if (outbox != null && !outbox.isEmpty()) {
+                outbox.append(batch);
+                return;
+            }
+            deliver(batch);
+        } catch (IOException e) {
+            if (outbox != null) {
+                LOG.warnf("Could not deliver %d password event(s), keeping them in the outbox: %s",
+                        batch.size(), e.getMessage());
+                outbox.append(batch);
+            } else {
+                LOG.errorf("Could not deliver %d password event(s), dropping them: %s", batch.size(), e.getMessage());
+            }
+        } finally {
+            deliveryLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Delivers events replayed from the outbox once no sender is delivering directly.
+     */
+    private void replay(List<PasswordEvent> events) throws IOException, InterruptedException {
+        deliveryLock.writeLock().lockInterruptibly();
+        try {
+            deliver(events);
+        } finally {
+            deliveryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Posts events to the agent.
+     *
+     * @throws IOException if the agent did not take the events and they should be retried
+     */
+    private void deliver(List<PasswordEvent> batch) throws IOException, InterruptedException {
+        boolean bulk = batch.size() > 1;
+        byte[] body = MAPPER.writeValueAsBytes(bulk ? batch : batch.get(0));
+        HttpRequest request = HttpRequest.newBuilder(bulk ? batchUri : webhookUri)
+                .timeout(Duration.ofMillis(settings.readTimeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            if (bulk) {
+                checkBatchResults(batch, response.body());
+                LOG.infof("Successfully sent password webhook batch of %d event(s)", batch.size());
+            } else {
+                LOG.infof("Successfully sent password webhook for user: %s", batch.get(0).username);
+            }
+        } else if (status >= 500 || status == 408 || status == 429) {
+            throw new IOException("Webhook returned status " + status);
+        } else {
+            LOG.warnf("Webhook returned non-2xx status: %d for %d event(s), not retrying", status, batch.size());
+        }
+    }
+
+    /**
+     * Checks the per-event results of a bulk request.
+     *
+     * @throws IOException if the agent rejected events because its password store was full
+     */
+    private static void checkBatchResults(List<PasswordEvent> batch, byte[] body) throws IOException {
+        JsonNode results;
+        try {
+            results = MAPPER.readTree(body).path("results");
+        } catch (IOException e) {
+            LOG.debugf("Could not read password webhook batch response: %s", e.getMessage());
+            return;
+        }
+
+        int rejected = 0;
+        for (JsonNode result : results) {
+            String status = result.path("status").asText();
+            if ("REJECTED".equals(status)) {
+                rejected++;
+            } else if ("INVALID".equals(status)) {
+                LOG.warnf("Webhook rejected invalid password event for user %s: %s",
+                        result.path("username").asText(null), result.path("error").asText(null));
+            }
+        }
+        if (rejected > 0) {
+            throw new IOException("Webhook rejected " + rejected + " of " + batch.size() + " event(s): "
+                    + "password store is full");
+        }
+    }
+
+    /**
+     * Password event as posted to the agent.
+     */
+    public static class PasswordEvent {
+        public String realmId;
+        public String username;
+        public String userId;
+        public String password;
+
+        public PasswordEvent() {
+        }
+
+        public PasswordEvent(String realmId, String username, String userId, String password) {
+            this.realmId = realmId;
+            this.username = username;
+            this.userId = userId;
+            this.password = password;
+        }
+
+        @Override
+        public String toString() {
+            // Don't log password!
+            return String.format("PasswordEvent{realmId='%s', username='%s', userId='%s', password=***}",
+                    realmId, username, userId);
+        }
+    }
+
+    /**
+     * Sender configuration.
+     */
+    public static class Settings {
+        public String webhookUrl = "http://agent.example:57010/api/webhook/password";
+        public String batchUrl = webhookUrl + "/batch";
+        public int queueCapacity = 1000;
+        public int senderThreads = 2;
+        public long connectTimeoutMs = 2000;
+        public long readTimeoutMs = 5000;
+        public int batchSize = 1;
+        public long batchLingerMs = 50;
+        public long closeTimeoutMs = 5000;
+        public String outboxDir;
+        public String outboxKey;
+        public long outboxMaxBytes = 64L * 1024 * 1024;
+        public long outboxBackoffInitialMs = 1000;
+        public long outboxBackoffMaxMs = 60000;
+    }
+}
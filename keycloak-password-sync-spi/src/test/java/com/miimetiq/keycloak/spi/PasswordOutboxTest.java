@@ -0,0 +1,235 @@
+package com.miimetiq.keycloak.spi;
+
+import com.miimetiq.keycloak.spi.PasswordWebhookSender.PasswordEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordOutbox on a temporary directory. Outboxes that must keep their
+ * records use a delivery that always fails with a backoff longer than the test.
+ */
+class PasswordOutboxTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final PasswordOutbox.Delivery AGENT_DOWN = events -> {
+        throw new IOException("agent down");
+    };
+
+    @TempDir
+    Path dir;
+
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testRecordsAreFramedAndEncrypted() throws Exception {
+        // When
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), AGENT_DOWN)) {
+            assertTrue(outbox.append(List.of(event(0))));
+            assertTrue(outbox.append(List.of(event(1), event(2))));
+            assertEquals(2, outbox.getPendingRecords());
+            assertEquals(3, outbox.getAppendedEvents());
+        }
+
+        // Then: header with the oldest pending offset, then [length][IV][ciphertext] per record
+        byte[] file = Files.readAllBytes(log());
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        assertEquals(Long.BYTES, buffer.getLong());
+        int records = 0;
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            assertTrue(length > 12 + 16, "Record must hold an IV and a GCM tag");
+            buffer.position(buffer.position() + length);
+            records++;
+        }
+        assertEquals(2, records);
+        assertFalse(new String(file, StandardCharsets.ISO_8859_1).contains("password-"),
+                "Passwords must not reach the disk in clear text");
+    }
+
+    @Test
+    void testTornTrailingRecordIsDroppedOnRecovery() throws Exception {
+        // Given: three records, the last one cut short as by a crash during the append
+        long intact;
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), AGENT_DOWN)) {
+            outbox.append(List.of(event(0)));
+            outbox.append(List.of(event(1)));
+            intact = Long.BYTES + outbox.getPendingBytes();
+            outbox.append(List.of(event(2)));
+        }
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        // When
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), AGENT_DOWN)) {
+            // Then
+            assertEquals(2, outbox.getPendingRecords());
+            assertEquals(intact, Files.size(log()));
+        }
+
+        // And: the intact records are still replayed
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), this::record)) {
+            waitUntil(outbox::isEmpty);
+            assertEquals(List.of("user-00", "user-01"), delivered);
+            assertEquals(0, outbox.getCorruptRecords());
+        }
+    }
+
+    @Test
+    void testReplayedPrefixIsCompactedAway() throws Exception {
+        // Given: 14 records of equal size
+        long recordBytes;
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), AGENT_DOWN)) {
+            for (int i = 0; i < 14; i++) {
+                outbox.append(List.of(event(i)));
+            }
+            recordBytes = outbox.getPendingBytes() / 14;
+        }
+
+        // When: replaying 9 of them, more than half of a 16-record budget, before the agent fails again
+        AtomicInteger accepted = new AtomicInteger();
+        PasswordOutbox.Delivery flaky = events -> {
+            if (accepted.incrementAndGet() > 9) {
+                throw new IOException("agent down");
+            }
+            record(events);
+        };
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(16 * recordBytes), flaky)) {
+            waitUntil(() -> outbox.getPendingRecords() == 5);
+
+            // Then: the file only holds the header and the pending tail
+            assertEquals(Long.BYTES + 5 * recordBytes, Files.size(log()));
+            assertEquals(Long.BYTES, header());
+            assertFalse(Files.exists(dir.resolve("outbox.log.compact")));
+        }
+
+        // And: the pending tail replays after a restart
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), this::record)) {
+            waitUntil(outbox::isEmpty);
+        }
+        assertEquals(14, delivered.size());
+        assertEquals("user-13", delivered.get(13));
+    }
+
+    @Test
+    void testEventsBeyondMaxBytesAreDropped() throws Exception {
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1000), AGENT_DOWN)) {
+            // When: appending until the outbox refuses
+            int accepted = 0;
+            while (outbox.append(List.of(event(accepted)))) {
+                accepted++;
+            }
+
+            // Then
+            assertTrue(accepted > 0);
+            assertEquals(accepted, outbox.getPendingRecords());
+            assertTrue(outbox.getPendingBytes() <= 1000);
+            assertTrue(outbox.getPendingBytes() + outbox.getPendingBytes() / accepted > 1000);
+            assertEquals(1, outbox.getDroppedEvents());
+            assertFalse(outbox.append(List.of(event(accepted), event(accepted + 1))));
+            assertEquals(3, outbox.getDroppedEvents());
+        }
+    }
+
+    @Test
+    void testRecordsAreReplayedInAppendOrderAcrossRestarts() throws Exception {
+        // Given: records of varying batch sizes left over from before a restart
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), AGENT_DOWN)) {
+            outbox.append(List.of(event(0)));
+            outbox.append(List.of(event(1), event(2), event(3)));
+            outbox.append(List.of(event(4), event(5)));
+        }
+
+        // When: the agent is back and more events arrive while replaying
+        try (PasswordOutbox outbox = new PasswordOutbox(settings(1 << 20), this::record)) {
+            outbox.append(List.of(event(6)));
+            outbox.append(List.of(event(7), event(8)));
+            waitUntil(outbox::isEmpty);
+
+            // Then
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 9; i++) {
+                expected.add(String.format("user-%02d", i));
+            }
+            assertEquals(expected, delivered);
+            assertTrue(outbox.isEmpty());
+            assertEquals(Long.BYTES, Files.size(log()));
+        }
+    }
+
+    @Test
+    void testGeneratedKeyIsReusedAfterRestart() throws Exception {
+        // Given: no configured key
+        PasswordWebhookSender.Settings settings = settings(1 << 20);
+        settings.outboxKey = null;
+        try (PasswordOutbox outbox = new PasswordOutbox(settings, AGENT_DOWN)) {
+            outbox.append(List.of(event(0)));
+        }
+        assertTrue(Files.exists(dir.resolve("outbox.key")));
+
+        // When
+        try (PasswordOutbox outbox = new PasswordOutbox(settings, this::record)) {
+            waitUntil(outbox::isEmpty);
+
+            // Then
+            assertEquals(List.of("user-00"), delivered);
+            assertEquals(0, outbox.getCorruptRecords());
+        }
+    }
+
+    private PasswordWebhookSender.Settings settings(long maxBytes) {
+        PasswordWebhookSender.Settings settings = new PasswordWebhookSender.Settings();
+        settings.outboxDir = dir.toString();
+        settings.outboxKey = KEY;
+        settings.outboxMaxBytes = maxBytes;
+        settings.outboxBackoffInitialMs = 60_000;
+        settings.outboxBackoffMaxMs = 60_000;
+        return settings;
+    }
+
+    private void record(List<PasswordEvent> events) {
+        events.forEach(event -> delivered.add(event.username));
+    }
+
+    private static PasswordEvent event(int i) {
+        String suffix = String.format("%02d", i);
+        return new PasswordEvent("master", "user-" + suffix, "id-" + suffix, "password-" + suffix);
+    }
+
+    private Path log() {
+        return dir.resolve("outbox.log");
+    }
+
+    private long header() throws IOException {
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Long.BYTES);
+            channel.read(header, 0);
+            return header.flip().getLong();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+}
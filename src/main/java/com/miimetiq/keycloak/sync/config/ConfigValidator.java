@@ -121,6 +121,25 @@ public class ConfigValidator {
         if (kafkaConfig.connectionTimeoutMs() <= 0) {
             errors.add("kafka.connection-timeout-ms must be positive");
         }
+
+        // Validate SCRAM alteration pipelining
+        if (kafkaConfig.scramChunkSize() <= 0) {
+            errors.add("KAFKA_SCRAM_CHUNK_SIZE must be positive");
+        }
+
+        if (kafkaConfig.scramMaxInFlightChunks() <= 0) {
+            errors.add("KAFKA_SCRAM_MAX_IN_FLIGHT_CHUNKS must be positive");
+        }
+
+        if (kafkaConfig.scramLimiterMinLimit() <= 0
+                || kafkaConfig.scramLimiterMaxLimit() < kafkaConfig.scramLimiterMinLimit()) {
+            errors.add("KAFKA_SCRAM_LIMITER_MIN_LIMIT must be positive and not above KAFKA_SCRAM_LIMITER_MAX_LIMIT");
+        }
+
+        double backoffRatio = kafkaConfig.scramLimiterBackoffRatio();
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            errors.add("KAFKA_SCRAM_LIMITER_BACKOFF_RATIO must be between 0 and 1");
+        }
     }
 
     private void validateKeycloakConfig(List<String> errors) {
@@ -177,6 +196,11 @@ public class ConfigValidator {
         if (reconcileConfig.pageSize() > 10000) {
             errors.add("RECONCILE_PAGE_SIZE should not exceed 10000 for performance reasons");
         }
+
+        // Validate fetch parallelism
+        if (reconcileConfig.fetchParallelism() <= 0) {
+            errors.add("RECONCILE_FETCH_PARALLELISM must be positive");
+        }
     }
 
     private void validateRetentionConfig(List<String> errors) {
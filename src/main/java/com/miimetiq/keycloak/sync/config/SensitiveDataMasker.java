@@ -1,5 +1,12 @@
 package com.miimetiq.keycloak.sync.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,6 +34,15 @@ public class SensitiveDataMasker {
         Pattern.compile("(password\\s*=\\s*[\"']?)([^\"'\\s;]+)", Pattern.CASE_INSENSITIVE)
     };
 
+    // JSON fields whose values are masked by maskJson
+    private static final Pattern SENSITIVE_FIELD =
+            Pattern.compile(".*(password|secret|token|api[_-]?key).*", Pattern.CASE_INSENSITIVE);
+
+    // JSON fields removed by maskJson, e.g. the credentials[] of a Keycloak user representation
+    private static final String CREDENTIALS_FIELD = "credentials";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private SensitiveDataMasker() {
         // Utility class
     }
@@ -63,6 +79,51 @@ public class SensitiveDataMasker {
         return result;
     }
 
+    /**
+     * Masks sensitive data in a JSON document such as a Keycloak resource representation.
+     * <p>
+     * {@code credentials} fields are removed and the values of password, secret, token and
+     * API key fields are masked, at any depth. Input that is not JSON is masked with
+     * {@link #mask(String)}.
+     *
+     * @param json the JSON document potentially containing sensitive data
+     * @return the document with sensitive data removed or masked
+     */
+    public static String maskJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return json;
+        }
+
+        try {
+            JsonNode root = MAPPER.readTree(json);
+            if (root == null || !root.isContainerNode()) {
+                return mask(json);
+            }
+            maskNode(root);
+            return MAPPER.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            return mask(json);
+        }
+    }
+
+    private static void maskNode(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            object.remove(CREDENTIALS_FIELD);
+            List<String> names = new ArrayList<>();
+            object.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                JsonNode value = object.get(name);
+                if (value.isValueNode() && !value.isNull() && SENSITIVE_FIELD.matcher(name).matches()) {
+                    object.put(name, MASK);
+                } else {
+                    maskNode(value);
+                }
+            }
+        } else if (node.isArray()) {
+            node.forEach(SensitiveDataMasker::maskNode);
+        }
+    }
+
     /**
      * Creates a masked string representation of a configuration value.
      * Useful for logging configuration without exposing sensitive data.
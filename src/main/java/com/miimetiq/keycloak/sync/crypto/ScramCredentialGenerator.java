@@ -2,20 +2,37 @@ package com.miimetiq.keycloak.sync.crypto;
 
 import com.miimetiq.keycloak.sync.domain.ScramCredential;
 import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.crypto.Mac;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generates SCRAM credentials following RFC 5802 specification.
@@ -26,10 +43,19 @@ import java.util.Objects;
  * <p>
  * The SCRAM credential generation process:
  * 1. Generate random salt (32 bytes)
- * 2. Compute SaltedPassword = PBKDF2(password, salt, iterations)
+ * 2. Compute SaltedPassword = Hi(password, salt, iterations), i.e. PBKDF2 ({@link ScramHi})
  * 3. Compute ClientKey = HMAC(SaltedPassword, "Client Key")
  * 4. Compute StoredKey = H(ClientKey)
  * 5. Compute ServerKey = HMAC(SaltedPassword, "Server Key")
+ * <p>
+ * JCA instances and key buffers are cached per thread and mechanism, so generating many
+ * credentials on a pool of threads avoids repeated provider lookups and allocations.
+ * <p>
+ * {@link #generateBatch} spreads large batches over a shared pool of
+ * {@code scram.batch.parallelism} threads, capped to {@code scram.batch.cpu-budget} of the
+ * available processors so that a big batch leaves cores for the HTTP event loop. Reconciliation
+ * and the webhook executor do not use it: the Kafka admin client derives their credentials on
+ * the {@code ScramDerivationPool}, which is capped by the same budget.
  *
  * @see <a href="https://tools.ietf.org/html/rfc5802">RFC 5802</a>
  */
@@ -38,16 +64,55 @@ public class ScramCredentialGenerator {
 
     private static final int DEFAULT_ITERATIONS = 4096;
     private static final int SALT_LENGTH_BYTES = 32;
-    private static final String CLIENT_KEY_TEXT = "Client Key";
-    private static final String SERVER_KEY_TEXT = "Server Key";
+    private static final byte[] CLIENT_KEY_BYTES = "Client Key".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SERVER_KEY_BYTES = "Server Key".getBytes(StandardCharsets.UTF_8);
+    private static final Base64.Encoder BASE64 = Base64.getEncoder();
+
+    // Reused JCA instances per thread and mechanism, see CryptoContext
+    private static final ThreadLocal<Map<ScramMechanism, CryptoContext>> CONTEXTS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(ScramMechanism.class));
+
+    // SecureRandom is thread-safe; one instance serves every generator and salt
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    @ConfigProperty(name = "scram.batch.parallelism", defaultValue = "0")
+    int batchParallelism = 0;
 
-    private final SecureRandom secureRandom;
+    @ConfigProperty(name = "scram.batch.cpu-budget", defaultValue = "0.5")
+    double batchCpuBudget = 0.5;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    // Batch progress, exported as metrics when running as a bean
+    private final AtomicLong batchPending = new AtomicLong();
+    private final Map<ScramMechanism, AtomicLong> batchGenerated = new EnumMap<>(ScramMechanism.class);
+
+    private ExecutorService batchPool;
 
     /**
-     * Creates a new SCRAM credential generator with a secure random number generator.
+     * Creates a new SCRAM credential generator.
      */
     public ScramCredentialGenerator() {
-        this.secureRandom = new SecureRandom();
+        for (ScramMechanism mechanism : ScramMechanism.values()) {
+            batchGenerated.put(mechanism, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("sync_scram_batch_pending", batchPending, AtomicLong::get)
+                .description("SCRAM credentials of running batches not generated yet")
+                .register(meterRegistry);
+        batchGenerated.forEach((mechanism, count) ->
+                FunctionCounter.builder("sync_scram_batch_credentials_total", count, AtomicLong::get)
+                        .description("SCRAM credentials generated by batches")
+                        .tag("mechanism", mechanism.name())
+                        .register(meterRegistry));
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        shutdown();
     }
 
     /**
@@ -100,103 +165,268 @@ public class ScramCredentialGenerator {
         return generate(password, iterations, ScramMechanism.SCRAM_SHA_512, "SHA-512", "HmacSHA512");
     }
 
+    /**
+     * Generates a credential of the given mechanism.
+     *
+     * @param password   the plaintext password
+     * @param mechanism  the SCRAM mechanism
+     * @param iterations the number of PBKDF2 iterations
+     * @return the SCRAM credential
+     */
+    public ScramCredential generate(String password, ScramMechanism mechanism, int iterations) {
+        return switch (mechanism) {
+            case SCRAM_SHA_256 -> generateScramSha256(password, iterations);
+            case SCRAM_SHA_512 -> generateScramSha512(password, iterations);
+        };
+    }
+
+    /**
+     * Generates credentials for many principals in parallel.
+     * <p>
+     * The batch is worked off by up to {@link #getBatchParallelism()} threads of a pool shared by
+     * all batches, so concurrent batches together stay within the CPU budget. Cancelling the
+     * returned future stops the batch after the credentials currently being derived; progress is
+     * exported as {@code sync_scram_batch_credentials_total} and {@code sync_scram_batch_pending}.
+     *
+     * @param passwords  plaintext passwords keyed by principal
+     * @param mechanism  the SCRAM mechanism
+     * @param iterations the number of PBKDF2 iterations
+     * @return future completed with the credentials keyed by principal, in the passwords' iteration
+     *         order; completed exceptionally with a {@link ScramGenerationException} if any fails
+     */
+    public CompletableFuture<Map<String, ScramCredential>> generateBatch(Map<String, String> passwords,
+                                                                        ScramMechanism mechanism, int iterations) {
+        Objects.requireNonNull(passwords, "passwords must not be null");
+        Objects.requireNonNull(mechanism, "mechanism must not be null");
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+
+        CompletableFuture<Map<String, ScramCredential>> result = new CompletableFuture<>();
+        List<Map.Entry<String, String>> entries = new ArrayList<>(passwords.entrySet());
+        int size = entries.size();
+        if (size == 0) {
+            result.complete(new LinkedHashMap<>());
+            return result;
+        }
+
+        ScramCredential[] credentials = new ScramCredential[size];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger generated = new AtomicInteger();
+        int workers = Math.min(size, getBatchParallelism());
+        AtomicInteger running = new AtomicInteger(workers);
+        AtomicLong mechanismCount = batchGenerated.get(mechanism);
+        batchPending.addAndGet(size);
+
+        Runnable worker = () -> {
+            String principal = null;
+            try {
+                int index;
+                // Stops early once the batch is cancelled or another worker failed
+                while (!result.isDone() && (index = next.getAndIncrement()) < size) {
+                    principal = entries.get(index).getKey();
+                    credentials[index] = generate(entries.get(index).getValue(), mechanism, iterations);
+                    generated.incrementAndGet();
+                    batchPending.decrementAndGet();
+                    mechanismCount.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(new ScramGenerationException(
+                        "Failed to generate SCRAM credential for principal '" + principal + "'", e));
+            } finally {
+                if (running.decrementAndGet() == 0) {
+                    batchPending.addAndGet(-(size - generated.get()));
+                    if (!result.isDone()) {
+                        Map<String, ScramCredential> byPrincipal = new LinkedHashMap<>();
+                        for (int i = 0; i < size; i++) {
+                            byPrincipal.put(entries.get(i).getKey(), credentials[i]);
+                        }
+                        result.complete(byPrincipal);
+                    }
+                }
+            }
+        };
+
+        ExecutorService pool = batchPool();
+        for (int i = 0; i < workers; i++) {
+            try {
+                pool.execute(worker);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new ScramGenerationException("SCRAM batch pool is shut down", e));
+                // Account for the workers that will never run
+                for (int j = i; j < workers; j++) {
+                    if (running.decrementAndGet() == 0) {
+                        batchPending.addAndGet(-(size - generated.get()));
+                    }
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Threads a batch may use: {@code scram.batch.parallelism} (all processors if 0), capped to
+     * {@code scram.batch.cpu-budget} of the available processors and at least one.
+     *
+     * @return the effective batch parallelism
+     */
+    public int getBatchParallelism() {
+        return budgetedParallelism(batchParallelism, batchCpuBudget);
+    }
+
+    /**
+     * Threads a pool deriving SCRAM credentials may use: {@code requested} (all processors if 0),
+     * capped to {@code cpuBudget} of the available processors and at least one.
+     *
+     * @param requested the configured thread count, or 0
+     * @param cpuBudget share of the available processors, between 0 and 1
+     * @return the effective parallelism
+     */
+    public static int budgetedParallelism(int requested, double cpuBudget) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int threads = requested > 0 ? requested : processors;
+        int budget = (int) Math.floor(processors * Math.clamp(cpuBudget, 0.0, 1.0));
+        return Math.max(1, Math.min(threads, budget));
+    }
+
+    private synchronized ExecutorService batchPool() {
+        if (batchPool == null) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            batchPool = Executors.newFixedThreadPool(getBatchParallelism(), runnable -> {
+                Thread thread = new Thread(runnable, "scram-batch-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchPool;
+    }
+
+    /**
+     * Stops the batch pool; batches still queued fail, running ones finish their current credentials.
+     */
+    synchronized void shutdown() {
+        if (batchPool != null) {
+            batchPool.shutdownNow();
+        }
+    }
+
     /**
      * Generates a SCRAM credential with specified mechanism and algorithms.
      */
     private ScramCredential generate(String password, int iterations, ScramMechanism mechanism,
                                      String hashAlgorithm, String hmacAlgorithm) {
+        byte[] saltedPassword = null;
         try {
+            CryptoContext context = context(mechanism, hashAlgorithm, hmacAlgorithm);
+
             // Step 1: Generate random salt
             byte[] salt = generateSalt();
 
             // Step 2: Compute SaltedPassword using PBKDF2
-            byte[] saltedPassword = pbkdf2(password, salt, iterations, hashAlgorithm);
+            saltedPassword = pbkdf2(context, password, salt, iterations);
 
             // Step 3: Compute ClientKey = HMAC(SaltedPassword, "Client Key")
-            byte[] clientKey = hmac(saltedPassword, CLIENT_KEY_TEXT, hmacAlgorithm);
+            context.mac.init(new SecretKeySpec(saltedPassword, hmacAlgorithm));
+            context.mac.update(CLIENT_KEY_BYTES);
+            context.mac.doFinal(context.clientKey, 0);
 
             // Step 4: Compute StoredKey = H(ClientKey)
-            byte[] storedKey = hash(clientKey, hashAlgorithm);
+            context.digest.update(context.clientKey);
+            context.digest.digest(context.storedKey, 0, context.storedKey.length);
 
-            // Step 5: Compute ServerKey = HMAC(SaltedPassword, "Server Key")
-            byte[] serverKey = hmac(saltedPassword, SERVER_KEY_TEXT, hmacAlgorithm);
+            // Step 5: Compute ServerKey = HMAC(SaltedPassword, "Server Key"); doFinal keeps the key
+            context.mac.update(SERVER_KEY_BYTES);
+            context.mac.doFinal(context.serverKey, 0);
 
             // Encode all values to Base64
-            String storedKeyBase64 = Base64.getEncoder().encodeToString(storedKey);
-            String serverKeyBase64 = Base64.getEncoder().encodeToString(serverKey);
-            String saltBase64 = Base64.getEncoder().encodeToString(salt);
+            String storedKeyBase64 = BASE64.encodeToString(context.storedKey);
+            String serverKeyBase64 = BASE64.encodeToString(context.serverKey);
+            String saltBase64 = BASE64.encodeToString(salt);
 
             return new ScramCredential(mechanism, storedKeyBase64, serverKeyBase64, saltBase64, iterations);
 
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | InvalidKeyException e) {
+        } catch (GeneralSecurityException e) {
             throw new ScramGenerationException("Failed to generate SCRAM credential", e);
+        } finally {
+            if (saltedPassword != null) {
+                Arrays.fill(saltedPassword, (byte) 0);
+            }
         }
     }
 
+    /**
+     * Returns the calling thread's crypto context for a mechanism, creating it on first use.
+     */
+    private static CryptoContext context(ScramMechanism mechanism, String hashAlgorithm, String hmacAlgorithm)
+            throws NoSuchAlgorithmException {
+        Map<ScramMechanism, CryptoContext> contexts = CONTEXTS.get();
+        CryptoContext context = contexts.get(mechanism);
+        if (context == null) {
+            context = new CryptoContext(hashAlgorithm, hmacAlgorithm);
+            contexts.put(mechanism, context);
+        }
+        return context;
+    }
+
     /**
      * Generates a cryptographically secure random salt.
+     * <p>
+     * Also used for credentials whose SaltedPassword is derived by the Kafka admin client
+     * from the password and this salt.
      *
      * @return random salt bytes
      */
-    private byte[] generateSalt() {
+    public static byte[] generateSalt() {
         byte[] salt = new byte[SALT_LENGTH_BYTES];
-        secureRandom.nextBytes(salt);
+        SECURE_RANDOM.nextBytes(salt);
         return salt;
     }
 
     /**
      * Computes PBKDF2 (Password-Based Key Derivation Function 2) hash.
      *
-     * @param password      the password to hash
-     * @param salt          the salt
-     * @param iterations    the number of iterations
-     * @param hashAlgorithm the hash algorithm (SHA-256 or SHA-512)
-     * @return the derived key
+     * @param context    the thread's crypto context of the mechanism
+     * @param password   the password to hash
+     * @param salt       the salt
+     * @param iterations the number of iterations
+     * @return the derived key, as long as the hash output
      */
-    private byte[] pbkdf2(String password, byte[] salt, int iterations, String hashAlgorithm)
-            throws NoSuchAlgorithmException, InvalidKeySpecException {
-
-        String pbkdf2Algorithm = "PBKDF2WithHmac" + hashAlgorithm.replace("-", "");
-        SecretKeyFactory factory = SecretKeyFactory.getInstance(pbkdf2Algorithm);
-
-        // Key length should match the hash algorithm output size
-        int keyLength = hashAlgorithm.equals("SHA-256") ? 256 : 512;
-
-        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyLength);
+    private byte[] pbkdf2(CryptoContext context, String password, byte[] salt, int iterations) {
+        byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
         try {
-            return factory.generateSecret(spec).getEncoded();
+            return context.hi.hi(passwordBytes, salt, iterations);
         } finally {
-            spec.clearPassword();
+            Arrays.fill(passwordBytes, (byte) 0);
         }
     }
 
     /**
-     * Computes HMAC (Hash-based Message Authentication Code).
-     *
-     * @param key           the key
-     * @param message       the message to authenticate
-     * @param hmacAlgorithm the HMAC algorithm (HmacSHA256 or HmacSHA512)
-     * @return the HMAC result
+     * Per-thread, per-mechanism JCA instances and output buffers.
+     * <p>
+     * Provider lookups in {@code getInstance} are comparatively expensive, so each thread keeps
+     * its own {@link ScramHi} engine, {@link Mac} and {@link MessageDigest} (none of which is
+     * thread-safe) and reuses them; the Mac is re-keyed per credential and the digest resets
+     * after each use. The key buffers are overwritten by every credential and only read before
+     * the next one starts on the same thread.
      */
-    private byte[] hmac(byte[] key, String message, String hmacAlgorithm)
-            throws NoSuchAlgorithmException, InvalidKeyException {
+    private static final class CryptoContext {
 
-        Mac mac = Mac.getInstance(hmacAlgorithm);
-        SecretKeySpec keySpec = new SecretKeySpec(key, hmacAlgorithm);
-        mac.init(keySpec);
-        return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
-    }
+        final ScramHi hi;
+        final Mac mac;
+        final MessageDigest digest;
+        final byte[] clientKey;
+        final byte[] storedKey;
+        final byte[] serverKey;
 
-    /**
-     * Computes a cryptographic hash.
-     *
-     * @param data          the data to hash
-     * @param hashAlgorithm the hash algorithm (SHA-256 or SHA-512)
-     * @return the hash result
-     */
-    private byte[] hash(byte[] data, String hashAlgorithm) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance(hashAlgorithm);
-        return digest.digest(data);
+        CryptoContext(String hashAlgorithm, String hmacAlgorithm) throws NoSuchAlgorithmException {
+            hi = new ScramHi(hashAlgorithm);
+            mac = Mac.getInstance(hmacAlgorithm);
+            digest = MessageDigest.getInstance(hashAlgorithm);
+            clientKey = new byte[mac.getMacLength()];
+            storedKey = new byte[digest.getDigestLength()];
+            serverKey = new byte[mac.getMacLength()];
+        }
     }
 
     /**
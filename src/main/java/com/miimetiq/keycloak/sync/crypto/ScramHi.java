@@ -0,0 +1,140 @@
+package com.miimetiq.keycloak.sync.crypto;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The {@code Hi()} function of RFC 5802: PBKDF2 with HMAC as PRF, producing one output block.
+ * <p>
+ * HMAC(K, m) = H((K XOR opad) || H((K XOR ipad) || m)). A generic HMAC re-hashes both padded key
+ * blocks on every call, i.e. twice per PBKDF2 iteration. Here two digests are primed with the
+ * padded key blocks once per password, and each iteration continues from copies of the primed
+ * states, so an iteration costs two compressions instead of four for SHA-256 and SHA-512.
+ * <p>
+ * The copies are clones of the JDK digests rather than a hand-written compression function,
+ * because the JDK's SHA-2 compression runs as a CPU intrinsic; apart from the returned key, all
+ * buffers are allocated once per instance. Instances are not thread-safe.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc5802#section-2.2">RFC 5802 section 2.2</a>
+ */
+final class ScramHi {
+
+    private static final byte IPAD = 0x36;
+    private static final byte OPAD = 0x5c;
+
+    // INT(1): Hi() only computes the first PBKDF2 block
+    private static final byte[] BLOCK_INDEX = {0, 0, 0, 1};
+
+    private final MessageDigest innerKeyed;
+    private final MessageDigest outerKeyed;
+    private final int blockSize;
+    private final int length;
+    private final byte[] pad;
+    private final byte[] u;
+
+    /**
+     * Creates an engine for a SHA-2 digest.
+     *
+     * @param hashAlgorithm SHA-256 or SHA-512
+     * @throws NoSuchAlgorithmException if the digest is not available
+     */
+    ScramHi(String hashAlgorithm) throws NoSuchAlgorithmException {
+        innerKeyed = MessageDigest.getInstance(hashAlgorithm);
+        outerKeyed = MessageDigest.getInstance(hashAlgorithm);
+        length = innerKeyed.getDigestLength();
+        blockSize = length > 32 ? 128 : 64;
+        pad = new byte[blockSize];
+        u = new byte[length];
+    }
+
+    /**
+     * Computes SaltedPassword = Hi(password, salt, iterations).
+     *
+     * @param password   the normalized password bytes (UTF-8)
+     * @param salt       the salt
+     * @param iterations the iteration count, at least 1
+     * @return a new array holding the derived key; the caller should clear it after use
+     */
+    byte[] hi(byte[] password, byte[] salt, int iterations) {
+        byte[] result = new byte[length];
+        try {
+            prime(password);
+
+            // U1 = HMAC(password, salt || INT(1))
+            MessageDigest inner = copy(innerKeyed);
+            inner.update(salt);
+            inner.update(BLOCK_INDEX);
+            inner.digest(u, 0, length);
+            outerHash(u);
+
+            System.arraycopy(u, 0, result, 0, length);
+
+            // Ui = HMAC(password, Ui-1); result = U1 XOR ... XOR Ui
+            for (int i = 1; i < iterations; i++) {
+                inner = copy(innerKeyed);
+                inner.update(u);
+                inner.digest(u, 0, length);
+                outerHash(u);
+                for (int j = 0; j < length; j++) {
+                    result[j] ^= u[j];
+                }
+            }
+            return result;
+        } catch (DigestException e) {
+            Arrays.fill(result, (byte) 0);
+            throw new IllegalStateException("Digest output buffer too small", e);
+        } finally {
+            innerKeyed.reset();
+            outerKeyed.reset();
+            Arrays.fill(u, (byte) 0);
+        }
+    }
+
+    /**
+     * Primes both digests with the padded key blocks of a password.
+     */
+    private void prime(byte[] password) {
+        // Keys longer than a block are replaced by their hash
+        byte[] key = password.length > blockSize ? innerKeyed.digest(password) : password;
+        try {
+            innerKeyed.reset();
+            outerKeyed.reset();
+
+            Arrays.fill(pad, IPAD);
+            for (int i = 0; i < key.length; i++) {
+                pad[i] ^= key[i];
+            }
+            innerKeyed.update(pad);
+
+            Arrays.fill(pad, OPAD);
+            for (int i = 0; i < key.length; i++) {
+                pad[i] ^= key[i];
+            }
+            outerKeyed.update(pad);
+        } finally {
+            Arrays.fill(pad, (byte) 0);
+            if (key != password) {
+                Arrays.fill(key, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Completes an HMAC whose inner hash is in {@code buffer}: buffer = H((K XOR opad) || buffer).
+     */
+    private void outerHash(byte[] buffer) throws DigestException {
+        MessageDigest outer = copy(outerKeyed);
+        outer.update(buffer, 0, length);
+        outer.digest(buffer, 0, length);
+    }
+
+    private static MessageDigest copy(MessageDigest primed) {
+        try {
+            return (MessageDigest) primed.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(primed.getAlgorithm() + " digest cannot be cloned", e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.miimetiq.keycloak.sync.dashboard;
 
+import com.miimetiq.keycloak.sync.config.SensitiveDataMasker;
 import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
 import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
+import com.miimetiq.keycloak.sync.domain.entity.WebhookDeadLetter;
 import com.miimetiq.keycloak.sync.domain.enums.OpType;
 import com.miimetiq.keycloak.sync.domain.enums.OperationResult;
 import com.miimetiq.keycloak.sync.repository.SyncBatchRepository;
 import com.miimetiq.keycloak.sync.repository.SyncOperationRepository;
+import com.miimetiq.keycloak.sync.repository.WebhookDeadLetterRepository;
 import com.miimetiq.keycloak.sync.service.RetentionService;
 import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
@@ -29,7 +32,7 @@ import java.util.stream.Collectors;
 
 /**
  * REST endpoint for dashboard data.
- * Provides summary statistics, operations timeline, and batch history.
+ * Provides summary statistics, operations timeline, batch history, and dead-lettered webhook events.
  */
 @Path("/api")
 @Produces(MediaType.APPLICATION_JSON)
@@ -45,6 +48,9 @@ public class DashboardResource {
     @Inject
     SyncBatchRepository batchRepository;
 
+    @Inject
+    WebhookDeadLetterRepository deadLetterRepository;
+
     @Inject
     RetentionService retentionService;
 
@@ -324,6 +330,62 @@ public class DashboardResource {
         }
     }
 
+    /**
+     * Get paginated dead-lettered webhook events.
+     *
+     * @param page      page number (0-indexed, default: 0)
+     * @param pageSize  page size (default: 20)
+     * @param principal filter by principal (optional)
+     * @return paginated dead letters
+     */
+    @GET
+    @Path("/dead-letters")
+    @Operation(
+        summary = "Get paginated dead letters",
+        description = "Returns paginated list of webhook events that failed permanently after all retries, newest first"
+    )
+    @APIResponses({
+        @APIResponse(
+            responseCode = "200",
+            description = "Dead letters retrieved successfully",
+            content = @Content(schema = @Schema(implementation = DeadLettersPageResponse.class))
+        ),
+        @APIResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public Response getDeadLetters(
+            @Parameter(description = "Page number (0-indexed)", example = "0")
+            @QueryParam("page") @DefaultValue("0") int page,
+            @Parameter(description = "Page size", example = "20")
+            @QueryParam("pageSize") @DefaultValue("20") int pageSize,
+            @Parameter(description = "Filter by principal username", example = "john.doe")
+            @QueryParam("principal") String principal) {
+
+        LOG.debugf("GET /api/dead-letters requested: page=%d, pageSize=%d, principal=%s", page, pageSize, principal);
+
+        try {
+            String filter = principal != null && !principal.trim().isEmpty() ? principal : null;
+            List<WebhookDeadLetter> deadLetters = deadLetterRepository.findPaged(filter, page, pageSize);
+            long total = deadLetterRepository.countByPrincipal(filter);
+
+            List<DeadLetterResponse> deadLetterResponses = deadLetters.stream()
+                    .map(this::toDeadLetterResponse)
+                    .collect(Collectors.toList());
+
+            return Response.ok(new DeadLettersPageResponse(deadLetterResponses, page, pageSize, total)).build();
+
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to retrieve dead letters: %s", e.getMessage());
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse("Failed to retrieve dead letters: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     // Helper methods
 
     /**
@@ -379,6 +441,24 @@ public class DashboardResource {
         );
     }
 
+    /**
+     * Convert WebhookDeadLetter entity to DeadLetterResponse DTO, masking secrets in the payload.
+     */
+    private DeadLetterResponse toDeadLetterResponse(WebhookDeadLetter deadLetter) {
+        return new DeadLetterResponse(
+                deadLetter.getId(),
+                deadLetter.getCorrelationId(),
+                deadLetter.getPartitionKey(),
+                deadLetter.getResourceType(),
+                deadLetter.getOperationType(),
+                deadLetter.getAttempts(),
+                deadLetter.getErrorCode(),
+                deadLetter.getErrorMessage(),
+                deadLetter.getFailedAt(),
+                SensitiveDataMasker.mask(deadLetter.getPayload())
+        );
+    }
+
     /**
      * Error response DTO.
      */
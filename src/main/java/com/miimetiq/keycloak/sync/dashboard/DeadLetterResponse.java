@@ -0,0 +1,77 @@
+package com.miimetiq.keycloak.sync.dashboard;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a dead-lettered webhook event.
+ * Represents a webhook event that failed permanently after all retries.
+ */
+public class DeadLetterResponse {
+    /**
+     * Unique dead letter ID
+     */
+    public Long id;
+
+    /**
+     * Correlation ID of the webhook event
+     */
+    public String correlationId;
+
+    /**
+     * Principal the event applied to
+     */
+    public String principal;
+
+    /**
+     * Keycloak resource type (e.g., USER)
+     */
+    public String resourceType;
+
+    /**
+     * Keycloak operation type (e.g., CREATE, UPDATE, DELETE)
+     */
+    public String operationType;
+
+    /**
+     * Number of attempts made
+     */
+    public Integer attempts;
+
+    /**
+     * Error code of the last attempt
+     */
+    public String errorCode;
+
+    /**
+     * Error message of the last attempt
+     */
+    public String errorMessage;
+
+    /**
+     * When the event was given up
+     */
+    public LocalDateTime failedAt;
+
+    /**
+     * Serialized Keycloak admin event
+     */
+    public String payload;
+
+    public DeadLetterResponse() {
+    }
+
+    public DeadLetterResponse(Long id, String correlationId, String principal, String resourceType,
+                              String operationType, Integer attempts, String errorCode,
+                              String errorMessage, LocalDateTime failedAt, String payload) {
+        this.id = id;
+        this.correlationId = correlationId;
+        this.principal = principal;
+        this.resourceType = resourceType;
+        this.operationType = operationType;
+        this.attempts = attempts;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        this.failedAt = failedAt;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,45 @@
+package com.miimetiq.keycloak.sync.dashboard;
+
+import java.util.List;
+
+/**
+ * Response DTO for paginated dead letters list.
+ */
+public class DeadLettersPageResponse {
+    /**
+     * List of dead letters for the current page
+     */
+    public List<DeadLetterResponse> deadLetters;
+
+    /**
+     * Current page number (0-indexed)
+     */
+    public int page;
+
+    /**
+     * Page size
+     */
+    public int pageSize;
+
+    /**
+     * Total number of dead letters matching the filters
+     */
+    public long total;
+
+    /**
+     * Total number of pages
+     */
+    public int totalPages;
+
+    public DeadLettersPageResponse() {
+    }
+
+    public DeadLettersPageResponse(List<DeadLetterResponse> deadLetters, int page,
+                                   int pageSize, long total) {
+        this.deadLetters = deadLetters;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.total = total;
+        this.totalPages = (int) Math.ceil((double) total / pageSize);
+    }
+}
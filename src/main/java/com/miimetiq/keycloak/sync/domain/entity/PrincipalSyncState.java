@@ -0,0 +1,205 @@
+package com.miimetiq.keycloak.sync.domain.entity;
+
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Entity representing the last credential state written to Kafka for a single principal.
+ * <p>
+ * Reconciliation consults this table to decide whether a Keycloak user actually changed
+ * since the previous cycle. Only principals whose identity, enabled flag, mechanism set
+ * or password changed are re-upserted; everything else is skipped.
+ */
+@Entity
+@Table(name = "principal_sync_state")
+public class PrincipalSyncState {
+
+    private static final String MECHANISM_SEPARATOR = ",";
+
+    @Id
+    @Column(name = "principal")
+    private String principal;
+
+    @Column(name = "keycloak_user_id", nullable = false)
+    private String keycloakUserId;
+
+    @Column(name = "enabled", nullable = false)
+    private Boolean enabled;
+
+    @Column(name = "mechanisms", nullable = false)
+    private String mechanisms;
+
+    @Column(name = "credential_version", nullable = false)
+    private Long credentialVersion = 0L;
+
+    @Column(name = "last_synced_at", nullable = false)
+    private LocalDateTime lastSyncedAt;
+
+    // Constructors
+
+    public PrincipalSyncState() {
+        // Default constructor required by JPA
+    }
+
+    public PrincipalSyncState(String principal, String keycloakUserId, Boolean enabled,
+                              Set<ScramMechanism> mechanisms, LocalDateTime lastSyncedAt) {
+        this.principal = principal;
+        this.keycloakUserId = keycloakUserId;
+        this.enabled = enabled;
+        this.mechanisms = encodeMechanisms(mechanisms);
+        this.credentialVersion = 0L;
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    // Getters and Setters
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public String getKeycloakUserId() {
+        return keycloakUserId;
+    }
+
+    public void setKeycloakUserId(String keycloakUserId) {
+        this.keycloakUserId = keycloakUserId;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getMechanisms() {
+        return mechanisms;
+    }
+
+    public void setMechanisms(String mechanisms) {
+        this.mechanisms = mechanisms;
+    }
+
+    public Long getCredentialVersion() {
+        return credentialVersion;
+    }
+
+    public void setCredentialVersion(Long credentialVersion) {
+        this.credentialVersion = credentialVersion;
+    }
+
+    public LocalDateTime getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(LocalDateTime lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    // Helper methods
+
+    /**
+     * Gets the mechanism set as enum values.
+     *
+     * @return set of SCRAM mechanisms last written for this principal
+     */
+    public Set<ScramMechanism> getMechanismSet() {
+        if (mechanisms == null || mechanisms.isBlank()) {
+            return EnumSet.noneOf(ScramMechanism.class);
+        }
+        return Arrays.stream(mechanisms.split(MECHANISM_SEPARATOR))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(ScramMechanism::valueOf)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ScramMechanism.class)));
+    }
+
+    /**
+     * Records a successful credential write, bumping the credential version.
+     *
+     * @param keycloakUserId the Keycloak user ID the credential was written for
+     * @param enabled        the enabled flag at write time
+     * @param mechanisms     the mechanisms that were written
+     * @param timestamp      when the write was acknowledged by Kafka
+     */
+    public void recordSync(String keycloakUserId, boolean enabled,
+                           Collection<ScramMechanism> mechanisms, LocalDateTime timestamp) {
+        this.keycloakUserId = keycloakUserId;
+        this.enabled = enabled;
+        this.mechanisms = encodeMechanisms(mechanisms);
+        this.credentialVersion = credentialVersion == null ? 1L : credentialVersion + 1;
+        this.lastSyncedAt = timestamp;
+    }
+
+    /**
+     * Checks whether the given user attributes and mechanism set match this state.
+     *
+     * @param keycloakUserId the current Keycloak user ID
+     * @param enabled        the current enabled flag
+     * @param mechanisms     the mechanisms that should exist for the principal
+     * @return true if nothing changed since the last sync
+     */
+    public boolean matches(String keycloakUserId, boolean enabled, Collection<ScramMechanism> mechanisms) {
+        return Objects.equals(this.keycloakUserId, keycloakUserId)
+                && Boolean.valueOf(enabled).equals(this.enabled)
+                && getMechanismSet().equals(toEnumSet(mechanisms));
+    }
+
+    private static String encodeMechanisms(Collection<ScramMechanism> mechanisms) {
+        if (mechanisms == null) {
+            return "";
+        }
+        // EnumSet iteration order is stable, so equal sets always encode identically
+        return toEnumSet(mechanisms).stream()
+                .map(Enum::name)
+                .collect(Collectors.joining(MECHANISM_SEPARATOR));
+    }
+
+    private static Set<ScramMechanism> toEnumSet(Collection<ScramMechanism> mechanisms) {
+        Set<ScramMechanism> set = EnumSet.noneOf(ScramMechanism.class);
+        if (mechanisms != null) {
+            set.addAll(mechanisms);
+        }
+        return set;
+    }
+
+    // equals, hashCode, and toString
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PrincipalSyncState that = (PrincipalSyncState) o;
+        return Objects.equals(principal, that.principal);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(principal);
+    }
+
+    @Override
+    public String toString() {
+        return "PrincipalSyncState{" +
+                "principal='" + principal + '\'' +
+                ", keycloakUserId='" + keycloakUserId + '\'' +
+                ", enabled=" + enabled +
+                ", mechanisms='" + mechanisms + '\'' +
+                ", credentialVersion=" + credentialVersion +
+                ", lastSyncedAt=" + lastSyncedAt +
+                '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.miimetiq.keycloak.sync.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity representing a webhook event that failed permanently.
+ * <p>
+ * Dead letters keep the serialized Keycloak admin event and the last error so that
+ * failed events can be inspected and handled manually.
+ */
+@Entity
+@Table(name = "webhook_dead_letter")
+public class WebhookDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "correlation_id", nullable = false)
+    private String correlationId;
+
+    @Column(name = "partition_key")
+    private String partitionKey;
+
+    @Column(name = "resource_type")
+    private String resourceType;
+
+    @Column(name = "operation_type")
+    private String operationType;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "error_code")
+    private String errorCode;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    // Constructors
+
+    public WebhookDeadLetter() {
+        // Default constructor required by JPA
+    }
+
+    public WebhookDeadLetter(String correlationId, String partitionKey, String resourceType,
+                             String operationType, String payload, Integer attempts, LocalDateTime failedAt) {
+        this.correlationId = correlationId;
+        this.partitionKey = partitionKey;
+        this.resourceType = resourceType;
+        this.operationType = operationType;
+        this.payload = payload;
+        this.attempts = attempts;
+        this.failedAt = failedAt;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public void setOperationType(String operationType) {
+        this.operationType = operationType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(LocalDateTime failedAt) {
+        this.failedAt = failedAt;
+    }
+
+    // equals, hashCode, and toString
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebhookDeadLetter that = (WebhookDeadLetter) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookDeadLetter{" +
+                "id=" + id +
+                ", correlationId='" + correlationId + '\'' +
+                ", partitionKey='" + partitionKey + '\'' +
+                ", attempts=" + attempts +
+                ", errorCode='" + errorCode + '\'' +
+                ", failedAt=" + failedAt +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package com.miimetiq.keycloak.sync.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity representing a webhook event accepted into the durable event log.
+ * <p>
+ * The record holds the serialized Keycloak admin event until it has been processed,
+ * so that events survive restarts and can wait on disk while the in-memory queue is full.
+ */
+@Entity
+@Table(name = "webhook_event_log")
+public class WebhookEventRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "correlation_id", nullable = false)
+    private String correlationId;
+
+    @Column(name = "partition_key")
+    private String partitionKey;
+
+    @Column(name = "sequence", nullable = false)
+    private Long sequence;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // Constructors
+
+    public WebhookEventRecord() {
+        // Default constructor required by JPA
+    }
+
+    public WebhookEventRecord(String correlationId, String partitionKey, Long sequence, String payload,
+                              LocalDateTime receivedAt) {
+        this.correlationId = correlationId;
+        this.partitionKey = partitionKey;
+        this.sequence = sequence;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    // equals, hashCode, and toString
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebhookEventRecord that = (WebhookEventRecord) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookEventRecord{" +
+                "id=" + id +
+                ", correlationId='" + correlationId + '\'' +
+                ", partitionKey='" + partitionKey + '\'' +
+                ", receivedAt=" + receivedAt +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package com.miimetiq.keycloak.sync.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity representing a pending retry of a failed webhook event.
+ * <p>
+ * The record holds the serialized Keycloak admin event together with its retry state
+ * and due time, so that scheduled retries survive restarts.
+ */
+@Entity
+@Table(name = "webhook_retry")
+public class WebhookRetryRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "correlation_id", nullable = false)
+    private String correlationId;
+
+    @Column(name = "partition_key")
+    private String partitionKey;
+
+    @Column(name = "sequence", nullable = false)
+    private Long sequence;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "retry_count", nullable = false)
+    private Integer retryCount;
+
+    @Column(name = "last_delay_ms", nullable = false)
+    private Long lastDelayMs;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    // Constructors
+
+    public WebhookRetryRecord() {
+        // Default constructor required by JPA
+    }
+
+    public WebhookRetryRecord(String correlationId, String partitionKey, Long sequence, String payload,
+                              Integer retryCount, Long lastDelayMs, LocalDateTime dueAt) {
+        this.correlationId = correlationId;
+        this.partitionKey = partitionKey;
+        this.sequence = sequence;
+        this.payload = payload;
+        this.retryCount = retryCount;
+        this.lastDelayMs = lastDelayMs;
+        this.dueAt = dueAt;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(Integer retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    public Long getLastDelayMs() {
+        return lastDelayMs;
+    }
+
+    public void setLastDelayMs(Long lastDelayMs) {
+        this.lastDelayMs = lastDelayMs;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    // equals, hashCode, and toString
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebhookRetryRecord that = (WebhookRetryRecord) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookRetryRecord{" +
+                "id=" + id +
+                ", correlationId='" + correlationId + '\'' +
+                ", partitionKey='" + partitionKey + '\'' +
+                ", sequence=" + sequence +
+                ", retryCount=" + retryCount +
+                ", dueAt=" + dueAt +
+                '}';
+    }
+}
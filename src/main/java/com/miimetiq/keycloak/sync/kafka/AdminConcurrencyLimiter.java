@@ -0,0 +1,258 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the SCRAM alteration requests in flight against Kafka.
+ * <p>
+ * Every alteration request of the agent, from reconciliation and from the webhook pipeline,
+ * takes a permit before it is sent and returns it with the request's latency and whether
+ * the controller signalled overload. The latency is measured from when the request was
+ * handed to the admin client (see {@link Permit#markSent()}), so time spent waiting for a
+ * derivation thread and deriving salted passwords locally is not mistaken for controller
+ * latency. The limit is adjusted from these samples:
+ * <ul>
+ *   <li>{@code aimd} (default) - grows by {@code 1/limit} per fast, successful request and is
+ *       multiplied by {@code kafka.scram-limiter-backoff-ratio} when a request fails with a
+ *       retriable error or takes longer than {@code kafka.scram-limiter-latency-threshold-ms}</li>
+ *   <li>{@code vegas} - estimates the requests queued at the controller from the ratio of the
+ *       lowest latency seen to the current one, growing the limit while fewer than
+ *       {@value #VEGAS_ALPHA} are queued and shrinking it above {@value #VEGAS_BETA}; errors
+ *       back off as with aimd</li>
+ *   <li>{@code fixed} - keeps the initial limit</li>
+ * </ul>
+ * The limit grows only while requests actually use at least half of it, so an idle agent
+ * does not drift to the maximum.
+ */
+@ApplicationScoped
+public class AdminConcurrencyLimiter {
+
+    private static final Logger LOG = Logger.getLogger(AdminConcurrencyLimiter.class);
+
+    static final int VEGAS_ALPHA = 3;
+    static final int VEGAS_BETA = 6;
+
+    // Samples after which vegas forgets its no-load latency, so a permanently slower cluster is re-learned
+    private static final int VEGAS_PROBE_SAMPLES = 1000;
+
+    /**
+     * Algorithms adjusting the limit.
+     */
+    enum Algorithm {
+        AIMD,
+        VEGAS,
+        FIXED
+    }
+
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private Algorithm algorithm;
+    private int minLimit;
+    private int maxLimit;
+    private long latencyThresholdNanos;
+    private double backoffRatio;
+    private long acquireTimeoutNanos;
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private long noLoadRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    private Counter overloadCounter;
+
+    @PostConstruct
+    void init() {
+        algorithm = parseAlgorithm(kafkaConfig.scramLimiterAlgorithm());
+        minLimit = Math.max(1, kafkaConfig.scramLimiterMinLimit());
+        maxLimit = Math.max(minLimit, kafkaConfig.scramLimiterMaxLimit());
+        limit = Math.clamp(kafkaConfig.scramLimiterInitialLimit(), minLimit, maxLimit);
+        latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(kafkaConfig.scramLimiterLatencyThresholdMs());
+        backoffRatio = kafkaConfig.scramLimiterBackoffRatio();
+        acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(kafkaConfig.defaultApiTimeoutMs());
+
+        Gauge.builder("sync_kafka_admin_limit", this, AdminConcurrencyLimiter::getLimit)
+                .description("Current limit of SCRAM alteration requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("sync_kafka_admin_in_flight", this, AdminConcurrencyLimiter::getInFlight)
+                .description("SCRAM alteration requests currently in flight")
+                .register(meterRegistry);
+        overloadCounter = Counter.builder("sync_kafka_admin_overload_total")
+                .description("SCRAM alteration requests that made the limiter back off")
+                .register(meterRegistry);
+
+        LOG.infof("Kafka admin concurrency limiter: %s, initial limit %d (min %d, max %d)",
+                algorithm.name().toLowerCase(Locale.ROOT), getLimit(), minLimit, maxLimit);
+    }
+
+    private static Algorithm parseAlgorithm(String name) {
+        try {
+            return Algorithm.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            LOG.warnf("Unknown kafka.scram-limiter-algorithm '%s', using 'aimd'", name);
+            return Algorithm.AIMD;
+        }
+    }
+
+    /**
+     * Takes a permit for one alteration request, waiting while the limit is reached.
+     *
+     * @return the permit; it must be released exactly once when the request completes
+     * @throws AdminLimitException if no permit frees up within the default API timeout, or if interrupted
+     */
+    public Permit acquire() {
+        lock.lock();
+        try {
+            long remaining = acquireTimeoutNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    throw new AdminLimitException("Timed out waiting for a Kafka admin permit (limit "
+                            + (int) limit + ")", null);
+                }
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+            inFlight++;
+            return new Permit(System.nanoTime());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdminLimitException("Interrupted while waiting for a Kafka admin permit", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            int inFlightBefore = inFlight--;
+            double previous = limit;
+            limit = Math.clamp(adjust(previous, rttNanos, overloaded, inFlightBefore), minLimit, maxLimit);
+
+            if ((int) limit < (int) previous) {
+                overloadCounter.increment();
+                LOG.debugf("Kafka admin limit decreased to %.1f (latency %dms, overloaded=%s)",
+                        limit, TimeUnit.NANOSECONDS.toMillis(rttNanos), overloaded);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double adjust(double current, long rttNanos, boolean overloaded, int inFlightBefore) {
+        boolean saturated = inFlightBefore * 2 >= current;
+        return switch (algorithm) {
+            case FIXED -> current;
+            case AIMD -> {
+                if (overloaded || rttNanos > latencyThresholdNanos) {
+                    yield current * backoffRatio;
+                }
+                yield saturated ? current + 1.0 / current : current;
+            }
+            case VEGAS -> {
+                if (++samples >= VEGAS_PROBE_SAMPLES) {
+                    samples = 0;
+                    noLoadRttNanos = Long.MAX_VALUE;
+                }
+                if (overloaded) {
+                    yield current * backoffRatio;
+                }
+                noLoadRttNanos = Math.min(noLoadRttNanos, Math.max(1, rttNanos));
+                double queued = current * (1 - (double) noLoadRttNanos / Math.max(1, rttNanos));
+                if (queued > VEGAS_BETA) {
+                    yield current - 1;
+                }
+                yield queued < VEGAS_ALPHA && saturated ? current + 1 : current;
+            }
+        };
+    }
+
+    /**
+     * Current concurrency limit.
+     *
+     * @return requests allowed in flight
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests currently holding a permit.
+     *
+     * @return requests in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Permit for one alteration request.
+     */
+    public final class Permit {
+
+        private volatile long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Restarts the latency measurement once the request has actually been sent, for requests
+         * that do local work between taking the permit and sending.
+         */
+        public void markSent() {
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Returns the permit and feeds the request's outcome into the limit.
+         * Releasing a permit more than once has no effect.
+         *
+         * @param overloaded whether the request failed in a way that indicates an overloaded controller
+         */
+        public void release(boolean overloaded) {
+            if (released.compareAndSet(false, true)) {
+                AdminConcurrencyLimiter.this.release(System.nanoTime() - startNanos, overloaded);
+            }
+        }
+    }
+
+    /**
+     * Exception thrown when a permit cannot be obtained.
+     */
+    public static class AdminLimitException extends RuntimeException {
+        public AdminLimitException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -86,4 +86,78 @@ public interface KafkaConfig {
      */
     @WithDefault("60000")
     int defaultApiTimeoutMs();
+
+    /**
+     * Maximum number of principals per alterUserScramCredentials request.
+     * Large sync plans are split into chunks of this size.
+     * Can be overridden with KAFKA_SCRAM_CHUNK_SIZE environment variable.
+     */
+    @WithDefault("500")
+    int scramChunkSize();
+
+    /**
+     * Maximum number of SCRAM alteration chunks awaiting a broker response at once.
+     * Can be overridden with KAFKA_SCRAM_MAX_IN_FLIGHT_CHUNKS environment variable.
+     */
+    @WithDefault("4")
+    int scramMaxInFlightChunks();
+
+    /**
+     * Algorithm adapting the number of SCRAM alteration requests in flight across the agent:
+     * aimd, vegas or fixed.
+     * Can be overridden with KAFKA_SCRAM_LIMITER_ALGORITHM environment variable.
+     */
+    @WithDefault("aimd")
+    String scramLimiterAlgorithm();
+
+    /**
+     * Concurrency limit the adaptive limiter starts with (and keeps when fixed).
+     * Can be overridden with KAFKA_SCRAM_LIMITER_INITIAL_LIMIT environment variable.
+     */
+    @WithDefault("4")
+    int scramLimiterInitialLimit();
+
+    /**
+     * Lowest concurrency limit the adaptive limiter backs off to.
+     * Can be overridden with KAFKA_SCRAM_LIMITER_MIN_LIMIT environment variable.
+     */
+    @WithDefault("1")
+    int scramLimiterMinLimit();
+
+    /**
+     * Highest concurrency limit the adaptive limiter grows to.
+     * Can be overridden with KAFKA_SCRAM_LIMITER_MAX_LIMIT environment variable.
+     */
+    @WithDefault("32")
+    int scramLimiterMaxLimit();
+
+    /**
+     * Request latency above which the aimd limiter treats the controller as overloaded.
+     * Can be overridden with KAFKA_SCRAM_LIMITER_LATENCY_THRESHOLD_MS environment variable.
+     */
+    @WithDefault("5000")
+    long scramLimiterLatencyThresholdMs();
+
+    /**
+     * Factor the limit is multiplied with on overload.
+     * Can be overridden with KAFKA_SCRAM_LIMITER_BACKOFF_RATIO environment variable.
+     */
+    @WithDefault("0.9")
+    double scramLimiterBackoffRatio();
+
+    /**
+     * How long described SCRAM credentials are cached per principal, in milliseconds; 0 disables the cache.
+     * Can be overridden with KAFKA_SCRAM_CACHE_TTL_MS environment variable.
+     */
+    @WithDefault("10000")
+    long scramCacheTtlMs();
+
+    /**
+     * Threads of the pool that builds SCRAM upsert requests, where the admin client derives each
+     * SaltedPassword with PBKDF2; 0 uses one thread per available processor. Capped to
+     * {@code scram.batch.cpu-budget} of the available processors.
+     * Can be overridden with KAFKA_SCRAM_DERIVATION_PARALLELISM environment variable.
+     */
+    @WithDefault("0")
+    int scramDerivationParallelism();
 }
@@ -1,5 +1,6 @@
 package com.miimetiq.keycloak.sync.kafka;
 
+import com.miimetiq.keycloak.sync.crypto.ScramCredentialGenerator;
 import com.miimetiq.keycloak.sync.domain.ScramCredential;
 import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
 import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
@@ -14,16 +15,27 @@ import org.apache.kafka.clients.admin.UserScramCredentialAlteration;
 import org.apache.kafka.clients.admin.UserScramCredentialDeletion;
 import org.apache.kafka.clients.admin.UserScramCredentialUpsertion;
 import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.ResourceNotFoundException;
 import org.apache.kafka.common.errors.UnsupportedVersionException;
 import org.jboss.logging.Logger;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service for managing SCRAM credentials in Kafka using the AdminClient API.
@@ -36,6 +48,10 @@ import java.util.concurrent.ExecutionException;
  * - Upsert (create/update) SCRAM credentials with SHA-256 or SHA-512
  * - Delete SCRAM credentials by mechanism
  * - Batch operations for multiple principals
+ * - Chunked, pipelined alterations with a bounded number of in-flight requests
+ * - Adaptive agent-wide limit on alteration requests in flight ({@link AdminConcurrencyLimiter})
+ * - Short-TTL cache of described credentials kept current by our own alterations ({@link ScramCredentialCache})
+ * - Chunks with upserts are built on a bounded pool that derives their salted passwords ({@link ScramDerivationPool})
  * - Comprehensive error handling and logging
  */
 @ApplicationScoped
@@ -49,6 +65,18 @@ public class KafkaScramManager {
     @Inject
     SyncMetrics syncMetrics;
 
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @Inject
+    AdminConcurrencyLimiter adminLimiter;
+
+    @Inject
+    ScramCredentialCache credentialCache;
+
+    @Inject
+    ScramDerivationPool derivationPool;
+
     /**
      * Describes SCRAM credentials for all users in Kafka.
      * <p>
@@ -75,6 +103,7 @@ public class KafkaScramManager {
         LOG.infof("Describing SCRAM credentials for %s",
                 principals == null || principals.isEmpty() ? "all users" : principals.size() + " users");
 
+        long startedAt = System.nanoTime();
         Timer.Sample sample = syncMetrics.startAdminOpTimer();
         try {
             DescribeUserScramCredentialsResult result;
@@ -95,6 +124,11 @@ public class KafkaScramManager {
 
             LOG.infof("Successfully described SCRAM credentials for %d users", credentials.size());
             syncMetrics.recordAdminOpDuration(sample, "describe");
+            if (principals == null || principals.isEmpty()) {
+                credentialCache.loadAll(startedAt, credentials);
+            } else {
+                credentialCache.load(startedAt, principals, credentials);
+            }
             return credentials;
 
         } catch (ExecutionException e) {
@@ -117,6 +151,72 @@ public class KafkaScramManager {
         }
     }
 
+    /**
+     * Describes SCRAM credentials for specific users, omitting users that have none.
+     * <p>
+     * Unlike {@link #describeUserScramCredentials(List)}, an unknown principal does not fail
+     * the whole request; it is simply absent from the returned map.
+     *
+     * @param principals list of principal names to describe (must not be empty)
+     * @return map of principal to list of SCRAM credential info, for principals that have credentials
+     * @throws KafkaScramException if the operation fails for any other reason
+     */
+    public Map<String, List<ScramCredentialInfo>> describeExistingUserScramCredentials(List<String> principals) {
+        long startedAt = System.nanoTime();
+        Timer.Sample sample = syncMetrics.startAdminOpTimer();
+        try {
+            DescribeUserScramCredentialsResult result = adminClient.describeUserScramCredentials(principals);
+
+            Map<String, List<ScramCredentialInfo>> credentials = new HashMap<>();
+            for (String principal : principals) {
+                try {
+                    credentials.put(principal,
+                            new ArrayList<>(result.description(principal).get().credentialInfos()));
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof ResourceNotFoundException)) {
+                        throw e;
+                    }
+                    LOG.debugf("User '%s' has no SCRAM credentials", principal);
+                }
+            }
+            credentialCache.load(startedAt, principals, credentials);
+            return credentials;
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            LOG.errorf(e, "Failed to describe SCRAM credentials");
+            throw new KafkaScramException("Failed to describe SCRAM credentials: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaScramException("Operation interrupted while describing SCRAM credentials", e);
+        } finally {
+            syncMetrics.recordAdminOpDuration(sample, "describe");
+        }
+    }
+
+    /**
+     * Describes SCRAM credentials for specific users, answering from the credential cache where possible.
+     * <p>
+     * Only principals that are not cached (or whose entry expired) are described, with a
+     * single targeted request; like {@link #describeExistingUserScramCredentials(List)},
+     * principals without credentials are absent from the returned map.
+     *
+     * @param principals list of principal names to describe (must not be empty)
+     * @return map of principal to list of SCRAM credential info, for principals that have credentials
+     * @throws KafkaScramException if the targeted describe fails
+     */
+    public Map<String, List<ScramCredentialInfo>> describeCachedUserScramCredentials(List<String> principals) {
+        Map<String, List<ScramCredentialInfo>> credentials = new HashMap<>();
+        List<String> misses = credentialCache.lookup(principals, credentials);
+        credentials.values().removeIf(List::isEmpty);
+
+        if (!misses.isEmpty()) {
+            LOG.debugf("SCRAM credential cache miss for %d of %d principal(s)", misses.size(), principals.size());
+            credentials.putAll(describeExistingUserScramCredentials(misses));
+        }
+        return credentials;
+    }
+
     /**
      * Upserts (creates or updates) a SCRAM credential for a single user with a password.
      *
@@ -144,46 +244,93 @@ public class KafkaScramManager {
      */
     public AlterUserScramCredentialsResult upsertUserScramCredentials(Map<String, CredentialSpec> credentials) {
         LOG.infof("Upserting SCRAM credentials for %d user(s)", credentials.size());
+        return alterUserScramCredentials(buildUpsertions(credentials));
+    }
+
+    /**
+     * Upserts SCRAM credentials in chunks, streaming results back per chunk.
+     * <p>
+     * See {@link #alterUserScramCredentialsChunked(List, ChunkListener)} for the pipelining semantics.
+     *
+     * @param credentials map of principal to credential spec (mechanism, password, iterations)
+     * @param listener    callback invoked on the calling thread as each chunk completes (may be null)
+     * @return map of principal to any error that occurred (empty if all succeeded)
+     */
+    public Map<String, Throwable> upsertUserScramCredentialsChunked(Map<String, CredentialSpec> credentials,
+                                                                     ChunkListener listener) {
+        LOG.infof("Upserting SCRAM credentials for %d user(s) in chunks", credentials.size());
+        return alterUserScramCredentialsChunked(buildUpsertions(credentials), listener);
+    }
 
+    /**
+     * Converts credential specs into Kafka upsertion alterations.
+     *
+     * @param credentials map of principal to credential spec
+     * @return list of upsertions, in map iteration order
+     */
+    public List<UserScramCredentialAlteration> buildUpsertions(Map<String, CredentialSpec> credentials) {
         List<UserScramCredentialAlteration> alterations = new ArrayList<>();
 
         for (Map.Entry<String, CredentialSpec> entry : credentials.entrySet()) {
             String principal = entry.getKey();
             CredentialSpec spec = entry.getValue();
 
-            // Convert our ScramMechanism enum to Kafka's mechanism type
-            org.apache.kafka.clients.admin.ScramMechanism kafkaMechanism =
-                    convertToKafkaScramMechanism(spec.mechanism);
+            // One upsertion per mechanism; Kafka applies all alterations of a user together
+            for (Map.Entry<ScramMechanism, Integer> mechanism : spec.mechanisms.entrySet()) {
+                // Convert our ScramMechanism enum to Kafka's mechanism type
+                org.apache.kafka.clients.admin.ScramMechanism kafkaMechanism =
+                        convertToKafkaScramMechanism(mechanism.getKey());
 
-            ScramCredentialInfo credentialInfo = new ScramCredentialInfo(kafkaMechanism, spec.iterations);
+                ScramCredentialInfo credentialInfo = new ScramCredentialInfo(kafkaMechanism, mechanism.getValue());
 
-            UserScramCredentialUpsertion upsertion = new UserScramCredentialUpsertion(
-                    principal,
-                    credentialInfo,
-                    spec.password
-            );
+                // Salt from our generator; the admin client derives SaltedPassword from it when the request is built
+                UserScramCredentialUpsertion upsertion = new UserScramCredentialUpsertion(
+                        principal,
+                        credentialInfo,
+                        spec.password.getBytes(StandardCharsets.UTF_8),
+                        ScramCredentialGenerator.generateSalt()
+                );
 
-            alterations.add(upsertion);
+                alterations.add(upsertion);
 
-            LOG.debugf("Prepared upsert for principal '%s' with mechanism %s, iterations %d",
-                    principal, spec.mechanism, spec.iterations);
+                LOG.debugf("Prepared upsert for principal '%s' with mechanism %s, iterations %d",
+                        principal, mechanism.getKey(), mechanism.getValue());
+            }
         }
 
-        return alterUserScramCredentials(alterations);
+        return alterations;
     }
 
     /**
-     * Specification for a SCRAM credential to be created/updated.
+     * Specification for the SCRAM credentials of a principal to be created/updated.
+     * <p>
+     * A spec may cover several mechanisms derived from the same password; {@code mechanism}
+     * and {@code iterations} describe the first of them.
      */
     public static class CredentialSpec {
         public final ScramMechanism mechanism;
         public final String password;
         public final int iterations;
+        public final Map<ScramMechanism, Integer> mechanisms;
 
         public CredentialSpec(ScramMechanism mechanism, String password, int iterations) {
-            this.mechanism = mechanism;
+            this(password, Map.of(mechanism, iterations));
+        }
+
+        /**
+         * @param password   the password to derive the credentials from
+         * @param mechanisms iterations per mechanism to write (must not be empty)
+         */
+        public CredentialSpec(String password, Map<ScramMechanism, Integer> mechanisms) {
+            if (mechanisms.isEmpty()) {
+                throw new IllegalArgumentException("At least one SCRAM mechanism is required");
+            }
+            Map<ScramMechanism, Integer> ordered = new EnumMap<>(mechanisms);
+            Map.Entry<ScramMechanism, Integer> first = ordered.entrySet().iterator().next();
+            this.mechanism = first.getKey();
+            this.iterations = first.getValue();
             this.password = password;
-            this.iterations = iterations;
+            this.mechanisms = Collections.unmodifiableMap(ordered);
         }
     }
 
@@ -208,7 +355,31 @@ public class KafkaScramManager {
      */
     public AlterUserScramCredentialsResult deleteUserScramCredentials(Map<String, List<ScramMechanism>> deletions) {
         LOG.infof("Deleting SCRAM credentials for %d user(s)", deletions.size());
+        return alterUserScramCredentials(buildDeletions(deletions));
+    }
+
+    /**
+     * Deletes SCRAM credentials in chunks, streaming results back per chunk.
+     * <p>
+     * See {@link #alterUserScramCredentialsChunked(List, ChunkListener)} for the pipelining semantics.
+     *
+     * @param deletions map of principal to list of mechanisms to delete
+     * @param listener  callback invoked on the calling thread as each chunk completes (may be null)
+     * @return map of principal to any error that occurred (empty if all succeeded)
+     */
+    public Map<String, Throwable> deleteUserScramCredentialsChunked(Map<String, List<ScramMechanism>> deletions,
+                                                                     ChunkListener listener) {
+        LOG.infof("Deleting SCRAM credentials for %d user(s) in chunks", deletions.size());
+        return alterUserScramCredentialsChunked(buildDeletions(deletions), listener);
+    }
 
+    /**
+     * Converts a deletion map into Kafka deletion alterations.
+     *
+     * @param deletions map of principal to list of mechanisms to delete
+     * @return list of deletions, in map iteration order
+     */
+    public List<UserScramCredentialAlteration> buildDeletions(Map<String, List<ScramMechanism>> deletions) {
         List<UserScramCredentialAlteration> alterations = new ArrayList<>();
 
         for (Map.Entry<String, List<ScramMechanism>> entry : deletions.entrySet()) {
@@ -227,7 +398,7 @@ public class KafkaScramManager {
             }
         }
 
-        return alterUserScramCredentials(alterations);
+        return alterations;
     }
 
     /**
@@ -259,10 +430,13 @@ public class KafkaScramManager {
 
         // Start appropriate timer based on predominant operation type
         String opType = upserts > deletes ? "upsert" : "delete";
+        AdminConcurrencyLimiter.Permit permit = null;
         Timer.Sample sample = syncMetrics.startAdminOpTimer();
 
         try {
+            permit = adminLimiter.acquire();
             AlterUserScramCredentialsResult result = adminClient.alterUserScramCredentials(alterations);
+            onCompletion(permit, alterations, result.values());
 
             LOG.infof("Submitted %d upsert(s) and %d deletion(s) to Kafka", upserts, deletes);
             syncMetrics.recordAdminOpDuration(sample, opType);
@@ -270,12 +444,388 @@ public class KafkaScramManager {
             return result;
 
         } catch (Exception e) {
+            if (permit != null) {
+                // Local failures (invalid arguments, derivation errors) say nothing about the controller
+                permit.release(isOverload(e));
+            }
             syncMetrics.recordAdminOpDuration(sample, opType);
             LOG.errorf(e, "Failed to alter SCRAM credentials");
             throw new KafkaScramException("Failed to alter SCRAM credentials: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Alters SCRAM credentials in chunks with a bounded number of in-flight requests.
+     * <p>
+     * Alterations are grouped by principal (all mechanisms of a principal stay in the same
+     * request) and split into chunks of at most {@code kafka.scram-chunk-size} principals.
+     * Up to {@code kafka.scram-max-in-flight-chunks} chunks are submitted concurrently; as
+     * soon as any chunk completes, its per-principal results are handed to the listener on
+     * the calling thread and the next chunk is submitted. Each chunk also takes a permit of
+     * the agent-wide {@link AdminConcurrencyLimiter}, so concurrent callers together stay within
+     * its adaptive limit. A chunk that fails to submit or times out only fails the principals
+     * it contains.
+     *
+     * @param alterations list of credential alterations (upserts or deletions)
+     * @param listener    callback invoked on the calling thread as each chunk completes (may be null)
+     * @return map of principal to any error that occurred (empty if all succeeded)
+     */
+    public Map<String, Throwable> alterUserScramCredentialsChunked(List<UserScramCredentialAlteration> alterations,
+                                                                   ChunkListener listener) {
+        if (alterations == null || alterations.isEmpty()) {
+            LOG.debug("No alterations provided, nothing to submit");
+            return Collections.emptyMap();
+        }
+
+        AlterationPipeline pipeline = openPipeline(listener);
+        pipeline.submit(alterations);
+        return pipeline.finish();
+    }
+
+    /**
+     * Opens a pipeline that accepts alterations incrementally.
+     * <p>
+     * Callers that produce alterations over time (for example page by page while
+     * reading Keycloak) can submit each batch as soon as it is ready, so Kafka writes
+     * overlap with the producer. The in-flight limit is shared across all submissions
+     * of the pipeline, and the listener is only ever invoked on the thread calling
+     * {@code submit}, {@code drainCompleted} or {@code finish}.
+     *
+     * @param listener callback invoked as each chunk completes (may be null)
+     * @return a new pipeline; call {@link AlterationPipeline#finish()} to wait for completion
+     */
+    public AlterationPipeline openPipeline(ChunkListener listener) {
+        return new AlterationPipeline(listener,
+                Math.max(1, kafkaConfig.scramChunkSize()),
+                Math.max(1, kafkaConfig.scramMaxInFlightChunks()));
+    }
+
+    /**
+     * Submits a single chunk and arranges for its per-principal results to be queued on completion.
+     * <p>
+     * The limiter permit is taken on the calling thread, so a saturated controller still holds
+     * back the caller. Chunks containing upserts are then handed to the {@link ScramDerivationPool},
+     * since the admin client derives their salted passwords while building the request; the
+     * permit's latency is only measured from when that call returned, so local derivation does
+     * not count as controller latency.
+     */
+    private void submitChunk(int index, List<UserScramCredentialAlteration> chunk, BlockingQueue<ChunkResult> completed) {
+        Set<String> principals = new LinkedHashSet<>();
+        for (UserScramCredentialAlteration alteration : chunk) {
+            principals.add(alteration.user());
+        }
+
+        String opType = operationType(chunk);
+        Timer.Sample sample = syncMetrics.startAdminOpTimer();
+
+        AdminConcurrencyLimiter.Permit permit;
+        try {
+            permit = adminLimiter.acquire();
+        } catch (Exception e) {
+            failChunk(index, principals, sample, opType, null, e, completed);
+            return;
+        }
+
+        if ("delete".equals(opType)) {
+            try {
+                awaitChunk(index, chunk, principals, adminClient.alterUserScramCredentials(chunk),
+                        sample, opType, permit, completed);
+            } catch (Exception e) {
+                failChunk(index, principals, sample, opType, permit, e, completed);
+            }
+            return;
+        }
+
+        try {
+            derivationPool.submit(() -> {
+                AlterUserScramCredentialsResult sent = adminClient.alterUserScramCredentials(chunk);
+                permit.markSent();
+                return sent;
+            }).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                    failChunk(index, principals, sample, opType, permit, cause, completed);
+                } else {
+                    awaitChunk(index, chunk, principals, result, sample, opType, permit, completed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failChunk(index, principals, sample, opType, permit, e, completed);
+        }
+    }
+
+    /**
+     * Queues a chunk whose request could not be sent as failed for all of its principals.
+     * Only overload errors shrink the limit; a request that failed locally (e.g. a shut-down
+     * derivation pool or a derivation error) never reached the controller.
+     */
+    private void failChunk(int index, Set<String> principals, Timer.Sample sample, String opType,
+                           AdminConcurrencyLimiter.Permit permit, Throwable error,
+                           BlockingQueue<ChunkResult> completed) {
+        if (permit != null) {
+            permit.release(isOverload(error));
+        }
+        syncMetrics.recordAdminOpDuration(sample, opType);
+        LOG.errorf(error, "Failed to submit SCRAM alteration chunk %d", index);
+        Map<String, Throwable> chunkErrors = new HashMap<>();
+        principals.forEach(principal -> chunkErrors.put(principal, error));
+        completed.add(new ChunkResult(index, principals, chunkErrors));
+    }
+
+    /**
+     * Arranges for the per-principal results of a sent chunk to be queued once all have completed.
+     */
+    private void awaitChunk(int index, List<UserScramCredentialAlteration> chunk, Set<String> principals,
+                            AlterUserScramCredentialsResult result, Timer.Sample sample, String opType,
+                            AdminConcurrencyLimiter.Permit chunkPermit, BlockingQueue<ChunkResult> completed) {
+        Map<String, KafkaFuture<Void>> futures = result.values();
+        KafkaFuture.allOf(futures.values().toArray(new KafkaFuture<?>[0])).whenComplete((ignored, failure) -> {
+            syncMetrics.recordAdminOpDuration(sample, opType);
+            Map<String, Throwable> chunkErrors = new HashMap<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    chunkErrors.put(entry.getKey(), e.getCause());
+                } catch (Exception e) {
+                    chunkErrors.put(entry.getKey(), e);
+                }
+            }
+            chunkPermit.release(chunkErrors.values().stream().anyMatch(KafkaScramManager::isOverload));
+            updateCache(chunk, chunkErrors);
+            completed.add(new ChunkResult(index, principals, chunkErrors));
+        });
+    }
+
+    /**
+     * Returns the limiter permit of a request and updates the credential cache once all its
+     * per-principal futures have completed.
+     */
+    private void onCompletion(AdminConcurrencyLimiter.Permit permit, List<UserScramCredentialAlteration> alterations,
+                              Map<String, KafkaFuture<Void>> futures) {
+        KafkaFuture.allOf(futures.values().toArray(new KafkaFuture<?>[0])).whenComplete((ignored, failure) -> {
+            Map<String, Throwable> errors = new HashMap<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    errors.put(entry.getKey(), e.getCause());
+                } catch (Exception e) {
+                    errors.put(entry.getKey(), e);
+                }
+            }
+            permit.release(errors.values().stream().anyMatch(KafkaScramManager::isOverload));
+            updateCache(alterations, errors);
+        });
+    }
+
+    /**
+     * Applies completed alterations to the credential cache; principals that failed are invalidated,
+     * since a failed request may still have been partially applied.
+     */
+    private void updateCache(List<UserScramCredentialAlteration> alterations, Map<String, Throwable> errors) {
+        for (UserScramCredentialAlteration alteration : alterations) {
+            String principal = alteration.user();
+            if (errors.containsKey(principal)) {
+                credentialCache.invalidate(principal);
+            } else if (alteration instanceof UserScramCredentialUpsertion upsertion) {
+                credentialCache.upserted(principal, upsertion.credentialInfo().mechanism(),
+                        upsertion.credentialInfo().iterations());
+            } else if (alteration instanceof UserScramCredentialDeletion deletion) {
+                credentialCache.deleted(principal, deletion.mechanism());
+            }
+        }
+    }
+
+    /**
+     * Whether a per-principal error indicates an overloaded or unavailable controller
+     * (timeouts, throttling, controller moves) rather than a problem with the credential.
+     */
+    static boolean isOverload(Throwable error) {
+        return error instanceof RetriableException || error instanceof InterruptedException;
+    }
+
+    /**
+     * Admin-op timer label for a chunk: "upsert" or "delete", or "alter" when the chunk mixes both.
+     */
+    private static String operationType(List<UserScramCredentialAlteration> chunk) {
+        boolean upserts = false;
+        boolean deletions = false;
+        for (UserScramCredentialAlteration alteration : chunk) {
+            if (alteration instanceof UserScramCredentialUpsertion) {
+                upserts = true;
+            } else {
+                deletions = true;
+            }
+        }
+        return upserts && deletions ? "alter" : upserts ? "upsert" : "delete";
+    }
+
+    /**
+     * Splits alterations into chunks of at most {@code chunkSize} principals,
+     * keeping all alterations of a principal together and preserving order.
+     */
+    static List<List<UserScramCredentialAlteration>> partitionByPrincipal(
+            List<UserScramCredentialAlteration> alterations, int chunkSize) {
+        Map<String, List<UserScramCredentialAlteration>> byPrincipal = new LinkedHashMap<>();
+        for (UserScramCredentialAlteration alteration : alterations) {
+            byPrincipal.computeIfAbsent(alteration.user(), k -> new ArrayList<>()).add(alteration);
+        }
+
+        List<List<UserScramCredentialAlteration>> chunks = new ArrayList<>();
+        List<UserScramCredentialAlteration> current = new ArrayList<>();
+        int principalsInChunk = 0;
+        for (List<UserScramCredentialAlteration> principalAlterations : byPrincipal.values()) {
+            if (principalsInChunk == chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                principalsInChunk = 0;
+            }
+            current.addAll(principalAlterations);
+            principalsInChunk++;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * Incremental, bounded submission of SCRAM alterations.
+     * <p>
+     * Not thread-safe: a pipeline is meant to be driven by a single caller thread,
+     * which is also where chunk results are delivered to the listener.
+     */
+    public final class AlterationPipeline {
+
+        private final ChunkListener listener;
+        private final int chunkSize;
+        private final int maxInFlight;
+        private final BlockingQueue<ChunkResult> completed = new LinkedBlockingQueue<>();
+        private final Map<String, Throwable> errors = new HashMap<>();
+        private int submitted;
+        private int finished;
+
+        private AlterationPipeline(ChunkListener listener, int chunkSize, int maxInFlight) {
+            this.listener = listener;
+            this.chunkSize = chunkSize;
+            this.maxInFlight = maxInFlight;
+        }
+
+        /**
+         * Submits credential upserts, blocking only while the in-flight limit is reached.
+         *
+         * @param credentials map of principal to credential spec
+         */
+        public void submitUpserts(Map<String, CredentialSpec> credentials) {
+            submit(buildUpsertions(credentials));
+        }
+
+        /**
+         * Submits credential deletions, blocking only while the in-flight limit is reached.
+         *
+         * @param deletions map of principal to list of mechanisms to delete
+         */
+        public void submitDeletions(Map<String, List<ScramMechanism>> deletions) {
+            submit(buildDeletions(deletions));
+        }
+
+        /**
+         * Submits alterations in chunks, blocking only while the in-flight limit is reached.
+         *
+         * @param alterations list of credential alterations (upserts or deletions)
+         */
+        public void submit(List<UserScramCredentialAlteration> alterations) {
+            if (alterations == null || alterations.isEmpty()) {
+                return;
+            }
+
+            List<List<UserScramCredentialAlteration>> chunks = partitionByPrincipal(alterations, chunkSize);
+            LOG.debugf("Submitting %d SCRAM credential alteration(s) in %d chunk(s), max %d in flight",
+                    alterations.size(), chunks.size(), maxInFlight);
+
+            for (List<UserScramCredentialAlteration> chunk : chunks) {
+                // Keep at most maxInFlight chunks outstanding
+                while (submitted - finished >= maxInFlight) {
+                    dispatch(takeCompleted());
+                }
+                submitChunk(submitted++, chunk, completed);
+            }
+            drainCompleted();
+        }
+
+        /**
+         * Delivers the results of all chunks that already completed, without blocking.
+         */
+        public void drainCompleted() {
+            ChunkResult result;
+            while ((result = completed.poll()) != null) {
+                dispatch(result);
+            }
+        }
+
+        /**
+         * Waits for every submitted chunk to complete and delivers the remaining results.
+         *
+         * @return map of principal to any error that occurred (empty if all succeeded)
+         */
+        public Map<String, Throwable> finish() {
+            while (finished < submitted) {
+                dispatch(takeCompleted());
+            }
+
+            if (errors.isEmpty()) {
+                LOG.infof("All %d chunk(s) of SCRAM credential alterations completed successfully", submitted);
+            } else {
+                LOG.warnf("%d principal(s) failed across %d chunk(s) of SCRAM credential alterations",
+                        errors.size(), submitted);
+            }
+            return errors;
+        }
+
+        private ChunkResult takeCompleted() {
+            try {
+                return completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KafkaScramException("Interrupted while waiting for SCRAM credential alterations", e);
+            }
+        }
+
+        private void dispatch(ChunkResult result) {
+            finished++;
+            errors.putAll(result.errors);
+
+            LOG.debugf("SCRAM alteration chunk %d completed: %d principal(s), %d error(s)",
+                    result.index, result.principals.size(), result.errors.size());
+
+            if (listener != null) {
+                listener.onChunkComplete(result.principals, result.errors);
+            }
+        }
+    }
+
+    /**
+     * Callback receiving the results of one completed alteration chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        /**
+         * Called on the thread that invoked the chunked alteration once a chunk completes.
+         *
+         * @param principals the principals contained in the chunk, in submission order
+         * @param errors     map of principal to error for the failed principals of the chunk
+         */
+        void onChunkComplete(Set<String> principals, Map<String, Throwable> errors);
+    }
+
+    /**
+     * Per-principal outcome of one alteration chunk.
+     */
+    private record ChunkResult(int index, Set<String> principals, Map<String, Throwable> errors) {
+    }
+
     /**
      * Waits for all alterations in a result to complete and checks for errors.
      * <p>
@@ -326,6 +876,47 @@ public class KafkaScramManager {
         return errors;
     }
 
+    /**
+     * Waits for all alterations in a result to complete and reports errors per principal and mechanism.
+     * <p>
+     * Kafka applies and reports the alterations of a user together, so every mechanism the
+     * request contained for a failed principal carries that principal's error.
+     *
+     * @param result      the alteration result from a previous operation
+     * @param alterations the alterations the result belongs to
+     * @return map of failed principal to the error of each of its altered mechanisms (empty if all succeeded)
+     */
+    public Map<String, Map<ScramMechanism, Throwable>> waitForAlterationsByMechanism(
+            AlterUserScramCredentialsResult result, List<UserScramCredentialAlteration> alterations) {
+        Map<String, Throwable> errors = waitForAlterations(result);
+        if (errors.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Map<ScramMechanism, Throwable>> byMechanism = new LinkedHashMap<>();
+        for (UserScramCredentialAlteration alteration : alterations) {
+            Throwable error = errors.get(alteration.user());
+            if (error != null) {
+                byMechanism.computeIfAbsent(alteration.user(), k -> new EnumMap<>(ScramMechanism.class))
+                        .put(mechanismOf(alteration), error);
+            }
+        }
+        return byMechanism;
+    }
+
+    /**
+     * Domain mechanism an upsertion or deletion applies to.
+     *
+     * @param alteration the alteration
+     * @return its mechanism
+     */
+    public static ScramMechanism mechanismOf(UserScramCredentialAlteration alteration) {
+        org.apache.kafka.clients.admin.ScramMechanism mechanism = alteration instanceof UserScramCredentialUpsertion upsertion
+                ? upsertion.credentialInfo().mechanism()
+                : ((UserScramCredentialDeletion) alteration).mechanism();
+        return ScramMechanism.valueOf(mechanism.name());
+    }
+
     /**
      * Converts our domain ScramMechanism enum to Kafka's ScramMechanism enum.
      *
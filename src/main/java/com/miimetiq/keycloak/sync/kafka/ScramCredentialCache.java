@@ -0,0 +1,222 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.ScramMechanism;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Short-lived, in-process cache of the SCRAM credentials Kafka holds per principal.
+ * <p>
+ * Entries are loaded by describes (a full describe during reconciliation, targeted
+ * describes on cache misses) and kept current by the agent's own successful upserts and
+ * deletions. A principal known to have no credentials is cached as an empty list. Entries
+ * expire {@code kafka.scram-cache-ttl-ms} after they were loaded, which bounds how long a
+ * change made outside the agent can go unnoticed; a TTL of 0 disables the cache.
+ * <p>
+ * A describe only stores principals that were not altered since the describe was started,
+ * so a slow describe cannot overwrite the effect of a concurrent alteration.
+ */
+@ApplicationScoped
+public class ScramCredentialCache {
+
+    private static final Logger LOG = Logger.getLogger(ScramCredentialCache.class);
+
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @Inject
+    SyncMetrics syncMetrics;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private long ttlNanos;
+
+    @PostConstruct
+    void init() {
+        ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, kafkaConfig.scramCacheTtlMs()));
+        Gauge.builder("sync_scram_cache_entries", entries, Map::size)
+                .description("Principals in the SCRAM credential cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the cache is enabled.
+     *
+     * @return false if the TTL is 0
+     */
+    public boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    /**
+     * Looks up principals, splitting them into cached credentials and misses.
+     *
+     * @param principals principals to look up
+     * @param hits       receives the cached credentials of each hit (an empty list for no credentials)
+     * @return principals that are not cached or whose entry expired, in the given order
+     */
+    public List<String> lookup(Collection<String> principals, Map<String, List<ScramCredentialInfo>> hits) {
+        List<String> misses = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String principal : principals) {
+            Entry entry = isEnabled() ? entries.get(principal) : null;
+            if (entry != null && entry.credentials != null && now - entry.expiresAtNanos < 0) {
+                hits.put(principal, entry.credentials);
+            } else {
+                misses.add(principal);
+            }
+        }
+
+        if (!hits.isEmpty()) {
+            syncMetrics.incrementScramCacheLookups("hit", hits.size());
+        }
+        if (!misses.isEmpty()) {
+            syncMetrics.incrementScramCacheLookups("miss", misses.size());
+        }
+        return misses;
+    }
+
+    /**
+     * Stores the result of a describe.
+     *
+     * @param startedAtNanos {@link System#nanoTime()} before the describe was sent
+     * @param principals     principals the describe covered; those absent from the result have no credentials
+     * @param credentials    described credentials per principal
+     */
+    public void load(long startedAtNanos, Collection<String> principals,
+                     Map<String, List<ScramCredentialInfo>> credentials) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String principal : principals) {
+            store(startedAtNanos, principal, credentials.getOrDefault(principal, List.of()));
+        }
+    }
+
+    /**
+     * Replaces the cache with the result of a full describe.
+     *
+     * @param startedAtNanos {@link System#nanoTime()} before the describe was sent
+     * @param credentials    credentials of every principal that has any
+     */
+    public void loadAll(long startedAtNanos, Map<String, List<ScramCredentialInfo>> credentials) {
+        if (!isEnabled()) {
+            return;
+        }
+        // Principals missing from a full describe have no credentials; cached ones are stale
+        entries.entrySet().removeIf(e -> !credentials.containsKey(e.getKey())
+                && e.getValue().versionNanos - startedAtNanos < 0);
+        credentials.forEach((principal, infos) -> store(startedAtNanos, principal, infos));
+        LOG.debugf("SCRAM credential cache loaded with %d principal(s)", credentials.size());
+    }
+
+    private void store(long startedAtNanos, String principal, List<ScramCredentialInfo> credentials) {
+        long now = System.nanoTime();
+        entries.compute(principal, (key, existing) -> {
+            if (existing != null && existing.versionNanos - startedAtNanos > 0) {
+                // Altered or described again while this describe was running; its result may be older
+                return existing;
+            }
+            return new Entry(List.copyOf(credentials), now + ttlNanos, startedAtNanos);
+        });
+    }
+
+    /**
+     * Applies a successful upsert to the cached entry of the principal.
+     *
+     * @param principal  the principal
+     * @param mechanism  upserted mechanism
+     * @param iterations iterations of the new credential
+     */
+    public void upserted(String principal, ScramMechanism mechanism, int iterations) {
+        alter(principal, credentials -> {
+            List<ScramCredentialInfo> updated = new ArrayList<>(credentials.size() + 1);
+            for (ScramCredentialInfo info : credentials) {
+                if (info.mechanism() != mechanism) {
+                    updated.add(info);
+                }
+            }
+            updated.add(new ScramCredentialInfo(mechanism, iterations));
+            return updated;
+        });
+    }
+
+    /**
+     * Applies a successful deletion to the cached entry of the principal.
+     *
+     * @param principal the principal
+     * @param mechanism deleted mechanism
+     */
+    public void deleted(String principal, ScramMechanism mechanism) {
+        alter(principal, credentials -> credentials.stream()
+                .filter(info -> info.mechanism() != mechanism)
+                .toList());
+    }
+
+    /**
+     * Forgets what is known about a principal, e.g. after an alteration with an unknown outcome.
+     *
+     * @param principal the principal
+     */
+    public void invalidate(String principal) {
+        alter(principal, credentials -> null);
+    }
+
+    private void alter(String principal, UnaryOperator<List<ScramCredentialInfo>> change) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.compute(principal, (key, existing) -> {
+            // Without a complete entry the principal's other mechanisms are unknown: keep a marker
+            // so that a describe started before this alteration is not stored
+            List<ScramCredentialInfo> credentials = existing != null && existing.credentials != null
+                    ? change.apply(existing.credentials) : null;
+            long expiresAt = credentials != null ? existing.expiresAtNanos : now + ttlNanos;
+            return new Entry(credentials == null ? null : List.copyOf(credentials), expiresAt, now);
+        });
+    }
+
+    /**
+     * Removes expired entries.
+     */
+    @Scheduled(every = "60s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void evictExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> now - e.getValue().expiresAtNanos >= 0);
+    }
+
+    /**
+     * Number of cached principals, including expired ones not evicted yet.
+     *
+     * @return cache size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cached credentials of a principal; {@code credentials} is null when only an alteration
+     * marker is held. The version is the start of the describe that loaded the entry or the
+     * time of the last alteration.
+     */
+    private record Entry(List<ScramCredentialInfo> credentials, long expiresAtNanos, long versionNanos) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.CredentialSpec;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Resolves which SCRAM mechanisms and iterations are written for a principal.
+ * <p>
+ * Policies from {@link ScramPolicyConfig} are matched in name order against the realm
+ * and principal; principals no policy matches get the default mechanisms. Mechanism
+ * names are accepted as {@code SCRAM-SHA-256}, {@code SCRAM_SHA_256} or {@code SHA-256}.
+ */
+@ApplicationScoped
+public class ScramCredentialPolicy {
+
+    private static final Logger LOG = Logger.getLogger(ScramCredentialPolicy.class);
+
+    // Iteration bounds Kafka accepts for SCRAM credentials
+    private static final int MIN_ITERATIONS = 4096;
+    private static final int MAX_ITERATIONS = 16384;
+
+    @Inject
+    ScramPolicyConfig config;
+
+    private Map<ScramMechanism, Integer> defaults;
+    private List<Rule> rules;
+
+    @PostConstruct
+    void init() {
+        defaults = parseMechanisms("scram.mechanisms", config.mechanisms(), config.iterations());
+
+        List<Rule> parsed = new ArrayList<>();
+        new TreeMap<>(config.policies()).forEach((name, policy) -> {
+            Pattern pattern;
+            try {
+                pattern = policy.principalPattern().map(Pattern::compile).orElse(null);
+            } catch (PatternSyntaxException e) {
+                throw new ScramPolicyException("Invalid principal pattern in SCRAM policy '" + name + "': "
+                        + e.getMessage(), e);
+            }
+            parsed.add(new Rule(name, policy.realm().orElse(null), pattern,
+                    parseMechanisms("scram.policies." + name + ".mechanisms", policy.mechanisms(),
+                            policy.iterations().orElse(config.iterations()))));
+        });
+        rules = List.copyOf(parsed);
+
+        LOG.infof("SCRAM credential policy: default %s, %d named polic%s", defaults, rules.size(),
+                rules.size() == 1 ? "y" : "ies");
+    }
+
+    /**
+     * Mechanisms and iterations to write for a principal.
+     *
+     * @param realm     realm of the principal, may be null
+     * @param principal the principal name
+     * @return iterations per mechanism, in mechanism order; never empty
+     */
+    public Map<ScramMechanism, Integer> resolve(String realm, String principal) {
+        for (Rule rule : rules) {
+            if (rule.matches(realm, principal)) {
+                return rule.mechanisms;
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * Mechanisms to write for a principal.
+     *
+     * @param realm     realm of the principal, may be null
+     * @param principal the principal name
+     * @return the mechanisms, never empty
+     */
+    public Set<ScramMechanism> mechanisms(String realm, String principal) {
+        return resolve(realm, principal).keySet();
+    }
+
+    /**
+     * Builds the credential spec writing every mechanism of the principal's policy.
+     *
+     * @param realm     realm of the principal, may be null
+     * @param principal the principal name
+     * @param password  the password to derive the credentials from
+     * @return the credential spec
+     */
+    public CredentialSpec credentialSpec(String realm, String principal, String password) {
+        return new CredentialSpec(password, resolve(realm, principal));
+    }
+
+    /**
+     * Parses a configured mechanism name.
+     *
+     * @param name e.g. SCRAM-SHA-512, SCRAM_SHA_512 or SHA-512
+     * @return the mechanism
+     * @throws ScramPolicyException if the name is not a supported mechanism
+     */
+    public static ScramMechanism parseMechanism(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        if (!normalized.startsWith("SCRAM_")) {
+            normalized = "SCRAM_" + normalized;
+        }
+        try {
+            return ScramMechanism.valueOf(normalized);
+        } catch (IllegalArgumentException e) {
+            throw new ScramPolicyException("Unsupported SCRAM mechanism: " + name, e);
+        }
+    }
+
+    private static Map<ScramMechanism, Integer> parseMechanisms(String property, List<String> names, int iterations) {
+        if (iterations < MIN_ITERATIONS || iterations > MAX_ITERATIONS) {
+            throw new ScramPolicyException(property + ": iterations must be between " + MIN_ITERATIONS
+                    + " and " + MAX_ITERATIONS, null);
+        }
+        Map<ScramMechanism, Integer> mechanisms = new EnumMap<>(ScramMechanism.class);
+        for (String name : names) {
+            if (!name.isBlank()) {
+                mechanisms.put(parseMechanism(name), iterations);
+            }
+        }
+        if (mechanisms.isEmpty()) {
+            throw new ScramPolicyException(property + " must name at least one SCRAM mechanism", null);
+        }
+        return Collections.unmodifiableMap(mechanisms);
+    }
+
+    /**
+     * A parsed named policy.
+     */
+    private record Rule(String name, String realm, Pattern principalPattern, Map<ScramMechanism, Integer> mechanisms) {
+
+        boolean matches(String principalRealm, String principal) {
+            return (realm == null || realm.equals(principalRealm))
+                    && (principalPattern == null || principalPattern.matcher(principal).matches());
+        }
+    }
+
+    /**
+     * Exception thrown when the SCRAM policy configuration is invalid.
+     */
+    public static class ScramPolicyException extends RuntimeException {
+        public ScramPolicyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
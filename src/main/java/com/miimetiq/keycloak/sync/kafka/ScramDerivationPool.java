@@ -0,0 +1,105 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import com.miimetiq.keycloak.sync.crypto.ScramCredentialGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool on which SCRAM upsert requests are built.
+ * <p>
+ * Building an upsert request derives SaltedPassword = PBKDF2(password, salt, iterations) for
+ * every upsertion, which the Kafka admin client does on the thread calling
+ * {@code alterUserScramCredentials}. Running those calls here keeps thousands of PBKDF2 rounds
+ * per chunk off the reconciliation and webhook threads and lets the chunks in flight derive
+ * their credentials on separate cores. The pool is sized by
+ * {@code kafka.scram-derivation-parallelism} (one thread per processor by default), capped to
+ * {@code scram.batch.cpu-budget} of the available processors so that a big reconciliation
+ * leaves cores for the HTTP event loop.
+ */
+@ApplicationScoped
+public class ScramDerivationPool {
+
+    private static final Logger LOG = Logger.getLogger(ScramDerivationPool.class);
+
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @ConfigProperty(name = "scram.batch.cpu-budget", defaultValue = "0.5")
+    double cpuBudget = 0.5;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        int parallelism = ScramCredentialGenerator.budgetedParallelism(
+                kafkaConfig.scramDerivationParallelism(), cpuBudget);
+        pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("scram-derivation-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+
+        Gauge.builder("sync_scram_derivation_active", pool, ForkJoinPool::getActiveThreadCount)
+                .description("Threads currently building SCRAM upsert requests")
+                .register(meterRegistry);
+        Gauge.builder("sync_scram_derivation_queued", pool, ForkJoinPool::getQueuedSubmissionCount)
+                .description("SCRAM upsert requests waiting for a derivation thread")
+                .register(meterRegistry);
+
+        LOG.infof("SCRAM derivation pool started with parallelism %d", parallelism);
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        shutdown();
+    }
+
+    /**
+     * Runs a task on the pool.
+     *
+     * @param task the task, typically an alteration call whose upsertions need PBKDF2
+     * @return future completed with the task's result, or exceptionally if it throws
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, pool);
+    }
+
+    /**
+     * Number of derivation threads.
+     *
+     * @return the pool's parallelism
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stops accepting tasks and waits briefly for running ones.
+     */
+    void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOG.warn("SCRAM derivation pool did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SCRAM credential policy configuration.
+ * <p>
+ * Defines which SCRAM mechanisms, with how many iterations, are written for a principal.
+ * Named policies can override the defaults for a realm, for principals matching a
+ * pattern, or both; they are evaluated in name order and the first match wins.
+ * <pre>
+ * scram.mechanisms=SCRAM-SHA-256
+ * scram.policies.legacy-clients.principal-pattern=svc-.*
+ * scram.policies.legacy-clients.mechanisms=SCRAM-SHA-256,SCRAM-SHA-512
+ * scram.policies.legacy-clients.iterations=8192
+ * </pre>
+ */
+@ConfigMapping(prefix = "scram")
+public interface ScramPolicyConfig {
+
+    /**
+     * Mechanisms written for principals no policy matches (comma-separated).
+     * Can be overridden with SCRAM_MECHANISMS environment variable.
+     */
+    @WithDefault("SCRAM-SHA-256")
+    List<String> mechanisms();
+
+    /**
+     * PBKDF2 iterations of credentials written for principals no policy matches.
+     * Can be overridden with SCRAM_ITERATIONS environment variable.
+     */
+    @WithDefault("4096")
+    int iterations();
+
+    /**
+     * Named policies overriding the defaults, evaluated in name order.
+     */
+    Map<String, Policy> policies();
+
+    /**
+     * A mechanism policy for a realm and/or principal pattern.
+     */
+    interface Policy {
+
+        /**
+         * Realm the policy applies to; any realm if absent.
+         */
+        Optional<String> realm();
+
+        /**
+         * Regular expression the whole principal name must match; any principal if absent.
+         */
+        Optional<String> principalPattern();
+
+        /**
+         * Mechanisms written for matching principals (comma-separated).
+         */
+        List<String> mechanisms();
+
+        /**
+         * PBKDF2 iterations for matching principals; the default iterations if absent.
+         */
+        Optional<Integer> iterations();
+    }
+}
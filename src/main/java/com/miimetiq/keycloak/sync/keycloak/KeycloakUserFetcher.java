@@ -10,8 +10,15 @@ import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.UserRepresentation;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,7 +29,9 @@ import java.util.stream.Collectors;
  * <p>
  * Features:
  * - Pagination with configurable page size
- * - Automatic retry with exponential backoff for transient failures
+ * - Streaming page-by-page delivery to bound memory usage
+ * - Optional parallel page fetching with deterministic ordering
+ * - Per-page retry with exponential backoff for transient failures
  * - Filtering of service accounts and technical users
  * - Comprehensive logging of fetch operations
  */
@@ -56,73 +65,224 @@ public class KeycloakUserFetcher {
      * Fetches all users from Keycloak with pagination.
      * <p>
      * This method retrieves all users from the configured realm, filtering out service accounts
-     * and technical users based on username patterns. It uses pagination to handle large user bases
-     * efficiently and implements retry logic for transient failures.
+     * and technical users based on username patterns. It materializes the whole realm in memory;
+     * prefer {@link #fetchUsersPaged(Consumer)} when users can be processed page by page.
      *
      * @return list of all users as KeycloakUserInfo objects
-     * @throws KeycloakFetchException if fetching fails after all retries
+     * @throws KeycloakFetchException if fetching a page fails after all retries
      */
     public List<KeycloakUserInfo> fetchAllUsers() {
+        List<KeycloakUserInfo> allUsers = new ArrayList<>();
+        fetchUsersPaged(allUsers::addAll);
+        return allUsers;
+    }
+
+    /**
+     * Streams users from Keycloak one page at a time.
+     * <p>
+     * Each page is fetched with its own retry and exponential backoff, so a transient failure
+     * only repeats the failing page instead of the whole realm. Every page is converted,
+     * filtered, and handed to the consumer in offset order, which keeps memory bounded by
+     * the pages in flight and lets callers overlap downstream work with the fetch.
+     * With {@code reconcile.fetch-parallelism} above 1, up to that many pages are requested
+     * concurrently. Exceptions thrown by the consumer are not retried and propagate to the caller.
+     *
+     * @param pageConsumer receives each non-empty filtered page, in order
+     * @return the number of users handed to the consumer
+     * @throws KeycloakFetchException if fetching a page fails after all retries
+     */
+    public int fetchUsersPaged(Consumer<List<KeycloakUserInfo>> pageConsumer) {
         String realm = keycloakConfig.realm();
         int pageSize = reconcileConfig.pageSize();
+        int parallelism = reconcileConfig.fetchParallelism();
 
-        LOG.infof("Starting user fetch from Keycloak realm '%s' with page size %d", realm, pageSize);
+        LOG.infof("Starting user fetch from Keycloak realm '%s' with page size %d, parallelism %d",
+                realm, pageSize, Math.max(1, parallelism));
 
-        return retryWithBackoff(() -> {
-            try {
-                RealmResource realmResource = keycloak.realm(realm);
-                UsersResource usersResource = realmResource.users();
+        FetchStats stats = new FetchStats();
+        if (parallelism > 1) {
+            fetchParallel(realm, pageSize, parallelism, pageConsumer, stats);
+        } else {
+            fetchSequential(realm, pageSize, 0, pageConsumer, stats);
+        }
 
-                List<KeycloakUserInfo> allUsers = new ArrayList<>();
-                int offset = 0;
-                int totalFetched = 0;
+        LOG.infof("Successfully fetched %d users from Keycloak realm '%s' (total processed: %d, filtered: %d)",
+                stats.included, realm, stats.fetched, stats.fetched - stats.included);
 
-                while (true) {
-                    LOG.debugf("Fetching users: offset=%d, pageSize=%d", offset, pageSize);
+        return stats.included;
+    }
 
-                    // Fetch page of users
-                    List<UserRepresentation> usersPage = usersResource.list(offset, pageSize);
+    /**
+     * Fetches pages one after another, starting at the given offset, until a short page is returned.
+     */
+    private void fetchSequential(String realm, int pageSize, int startOffset,
+                                 Consumer<List<KeycloakUserInfo>> pageConsumer, FetchStats stats) {
+        int offset = startOffset;
 
-                    if (usersPage == null || usersPage.isEmpty()) {
-                        LOG.debugf("No more users to fetch at offset %d", offset);
-                        break;
-                    }
+        while (true) {
+            final int pageOffset = offset;
+            List<UserRepresentation> usersPage = retryWithBackoff(() -> fetchPage(realm, pageOffset, pageSize));
 
-                    LOG.debugf("Fetched %d users in current page", usersPage.size());
+            if (usersPage == null || usersPage.isEmpty()) {
+                LOG.debugf("No more users to fetch at offset %d", offset);
+                break;
+            }
 
-                    // Convert and filter users
-                    List<KeycloakUserInfo> convertedUsers = usersPage.stream()
-                            .map(this::convertToUserInfo)
-                            .filter(this::shouldIncludeUser)
-                            .collect(Collectors.toList());
+            deliverPage(usersPage, pageConsumer, stats);
 
-                    int filtered = usersPage.size() - convertedUsers.size();
-                    if (filtered > 0) {
-                        LOG.debugf("Filtered out %d service accounts/technical users", filtered);
-                    }
+            // If we got fewer users than page size, we've reached the end
+            if (usersPage.size() < pageSize) {
+                LOG.debugf("Reached end of user list (page size %d < %d)", usersPage.size(), pageSize);
+                break;
+            }
+
+            offset += pageSize;
+        }
+    }
+
+    /**
+     * Fetches pages concurrently based on the realm user count.
+     * <p>
+     * At most {@code parallelism} pages are in flight at once, and pages are delivered strictly
+     * in offset order so the output is identical to a sequential fetch. If the realm grew after
+     * the count was taken (the last expected page is full), the remainder is fetched sequentially.
+     */
+    private void fetchParallel(String realm, int pageSize, int parallelism,
+                               Consumer<List<KeycloakUserInfo>> pageConsumer, FetchStats stats) {
+        int userCount = retryWithBackoff(() -> countUsers(realm));
+        int pageCount = (userCount + pageSize - 1) / pageSize;
 
-                    allUsers.addAll(convertedUsers);
-                    totalFetched += usersPage.size();
+        LOG.debugf("Realm '%s' reports %d users, fetching %d page(s) with parallelism %d",
+                realm, userCount, pageCount, parallelism);
 
-                    // If we got fewer users than page size, we've reached the end
-                    if (usersPage.size() < pageSize) {
-                        LOG.debugf("Reached end of user list (page size %d < %d)", usersPage.size(), pageSize);
-                        break;
-                    }
+        if (pageCount == 0) {
+            fetchSequential(realm, pageSize, 0, pageConsumer, stats);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, pageCount), runnable -> {
+            Thread thread = new Thread(runnable, "keycloak-user-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Deque<Future<List<UserRepresentation>>> window = new ArrayDeque<>();
+            int nextPage = 0;
+            int lastPageSize = 0;
+
+            while (nextPage < pageCount && window.size() < parallelism) {
+                window.add(submitPage(executor, realm, nextPage++, pageSize));
+            }
+
+            while (!window.isEmpty()) {
+                List<UserRepresentation> usersPage = awaitPage(window.poll());
+
+                // Refill the window before handing the page downstream
+                if (nextPage < pageCount) {
+                    window.add(submitPage(executor, realm, nextPage++, pageSize));
+                }
 
-                    offset += pageSize;
+                lastPageSize = usersPage == null ? 0 : usersPage.size();
+                if (lastPageSize > 0) {
+                    deliverPage(usersPage, pageConsumer, stats);
                 }
+            }
 
-                LOG.infof("Successfully fetched %d users from Keycloak realm '%s' (total processed: %d, filtered: %d)",
-                        allUsers.size(), realm, totalFetched, totalFetched - allUsers.size());
+            // Users created after the count was taken spill past the last expected page
+            if (lastPageSize == pageSize) {
+                LOG.debugf("Last expected page was full, continuing sequentially at offset %d",
+                        pageCount * pageSize);
+                fetchSequential(realm, pageSize, pageCount * pageSize, pageConsumer, stats);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                return allUsers;
+    private Future<List<UserRepresentation>> submitPage(ExecutorService executor, String realm,
+                                                        int pageIndex, int pageSize) {
+        int offset = pageIndex * pageSize;
+        return executor.submit(() -> retryWithBackoff(() -> fetchPage(realm, offset, pageSize)));
+    }
 
-            } catch (Exception e) {
-                LOG.errorf(e, "Error fetching users from Keycloak realm '%s'", realm);
-                throw new KeycloakFetchException("Failed to fetch users from Keycloak: " + e.getMessage(), e);
+    private List<UserRepresentation> awaitPage(Future<List<UserRepresentation>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeycloakFetchException("Interrupted while fetching users from Keycloak", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof KeycloakFetchException fetchException) {
+                throw fetchException;
             }
-        });
+            throw new KeycloakFetchException("Failed to fetch users from Keycloak: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Converts, filters and hands a raw page to the consumer.
+     */
+    private void deliverPage(List<UserRepresentation> usersPage, Consumer<List<KeycloakUserInfo>> pageConsumer,
+                             FetchStats stats) {
+        LOG.debugf("Fetched %d users in current page", usersPage.size());
+
+        // Convert and filter users
+        List<KeycloakUserInfo> convertedUsers = usersPage.stream()
+                .map(this::convertToUserInfo)
+                .filter(this::shouldIncludeUser)
+                .collect(Collectors.toList());
+
+        int filtered = usersPage.size() - convertedUsers.size();
+        if (filtered > 0) {
+            LOG.debugf("Filtered out %d service accounts/technical users", filtered);
+        }
+
+        stats.fetched += usersPage.size();
+        stats.included += convertedUsers.size();
+
+        if (!convertedUsers.isEmpty()) {
+            pageConsumer.accept(convertedUsers);
+        }
+    }
+
+    /**
+     * Reads the total number of users in the realm.
+     *
+     * @param realm the realm to count
+     * @return number of users reported by Keycloak
+     * @throws KeycloakFetchException if the request fails
+     */
+    private int countUsers(String realm) {
+        try {
+            Integer count = keycloak.realm(realm).users().count();
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            LOG.errorf(e, "Error counting users in Keycloak realm '%s'", realm);
+            throw new KeycloakFetchException("Failed to count users in Keycloak: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetches a single raw page of users.
+     *
+     * @param realm    the realm to read from
+     * @param offset   index of the first user of the page
+     * @param pageSize maximum number of users to return
+     * @return the raw page, possibly empty
+     * @throws KeycloakFetchException if the request fails
+     */
+    private List<UserRepresentation> fetchPage(String realm, int offset, int pageSize) {
+        LOG.debugf("Fetching users: offset=%d, pageSize=%d", offset, pageSize);
+        try {
+            RealmResource realmResource = keycloak.realm(realm);
+            UsersResource usersResource = realmResource.users();
+            return usersResource.list(offset, pageSize);
+        } catch (Exception e) {
+            LOG.errorf(e, "Error fetching users from Keycloak realm '%s' at offset %d", realm, offset);
+            throw new KeycloakFetchException("Failed to fetch users from Keycloak: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -211,6 +371,14 @@ public class KeycloakUserFetcher {
         );
     }
 
+    /**
+     * Running totals of a single fetch.
+     */
+    private static final class FetchStats {
+        int fetched;
+        int included;
+    }
+
     /**
      * Functional interface for operations that may throw exceptions.
      *
@@ -1,6 +1,7 @@
 package com.miimetiq.keycloak.sync.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -10,6 +11,7 @@ import org.jboss.logging.Logger;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -158,6 +160,20 @@ public class SyncMetrics {
         return Timer.start(registry);
     }
 
+    /**
+     * Increment counter for SCRAM credential cache lookups.
+     *
+     * @param result the lookup result (hit, miss)
+     * @param count the number of principals looked up with this result
+     */
+    public void incrementScramCacheLookups(String result, int count) {
+        Counter.builder("sync_scram_cache_lookups_total")
+                .description("Total number of principals looked up in the SCRAM credential cache")
+                .tag("result", result)
+                .register(registry)
+                .increment(count);
+    }
+
     // ========== Gauges ==========
 
     /**
@@ -248,6 +264,43 @@ public class SyncMetrics {
                 .register(registry));
     }
 
+    /**
+     * Increment counter for webhook operations merged into a pending alteration of the same principal.
+     */
+    public void incrementWebhookCoalesced() {
+        Counter.builder("sync_webhook_coalesced_total")
+                .description("Total number of webhook operations coalesced into a pending alteration")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Record how long a password delivered by the password webhook took to be acknowledged by Kafka.
+     *
+     * @param source the path that wrote it (WEBHOOK, RECONCILE)
+     * @param nanos time from webhook receipt to the Kafka acknowledgement
+     */
+    public void recordPasswordPropagation(String source, long nanos) {
+        Timer.builder("sync_password_propagation_seconds")
+                .description("Time from password webhook receipt to the Kafka acknowledgement of the SCRAM upsert")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the number of principals sent to Kafka in one webhook micro-batch.
+     *
+     * @param size number of principals in the batch
+     */
+    public void recordWebhookBatchSize(int size) {
+        DistributionSummary.builder("sync_webhook_batch_size")
+                .description("Number of principals per webhook micro-batch sent to Kafka")
+                .register(registry)
+                .record(size);
+    }
+
     // ========== Webhook Event Retry Metrics ==========
 
     /**
@@ -265,6 +318,16 @@ public class SyncMetrics {
                 .increment();
     }
 
+    /**
+     * Increment counter for webhook events moved to the dead-letter store.
+     */
+    public void incrementWebhookDeadLetters() {
+        Counter.builder("sync_webhook_dead_letters_total")
+                .description("Total number of webhook events that failed permanently and were dead-lettered")
+                .register(registry)
+                .increment();
+    }
+
     // ========== Retention Metrics ==========
 
     /**
@@ -313,6 +376,67 @@ public class SyncMetrics {
                 retentionMaxBytes.get(), retentionMaxAgeDays.get());
     }
 
+    // ========== Audit Write-Behind Metrics ==========
+
+    /**
+     * Increment counter for audit records that had to wait for queue space.
+     */
+    public void incrementAuditBackpressure() {
+        Counter.builder("sync_audit_backpressure_total")
+                .description("Total number of audit records that waited for write-behind queue space")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Increment counter for audit records dropped because the queue stayed full.
+     *
+     * @param count number of records dropped
+     */
+    public void incrementAuditDropped(int count) {
+        Counter.builder("sync_audit_dropped_total")
+                .description("Total number of audit records dropped due to write-behind queue overflow")
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Increment counter for audit group commits that failed after all retries.
+     *
+     * @param count number of records lost with the failed group
+     */
+    public void incrementAuditWriteFailures(int count) {
+        Counter.builder("sync_audit_write_failures_total")
+                .description("Total number of audit records lost because their group commit failed")
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Start a timer for an audit group commit.
+     *
+     * @return Timer.Sample to stop timing later
+     */
+    public Timer.Sample startAuditFlushTimer() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Stop and record an audit group commit.
+     *
+     * @param sample    the timer sample from startAuditFlushTimer()
+     * @param groupSize number of records written in the group
+     */
+    public void recordAuditFlush(Timer.Sample sample, int groupSize) {
+        sample.stop(Timer.builder("sync_audit_flush_duration_seconds")
+                .description("Duration of audit write-behind group commits")
+                .register(registry));
+        DistributionSummary.builder("sync_audit_group_size")
+                .description("Number of audit records written per group commit")
+                .register(registry)
+                .record(groupSize);
+    }
+
     // ========== Legacy Methods (Backward Compatibility) ==========
 
     /**
@@ -26,6 +26,15 @@ public interface ReconcileConfig {
     @WithDefault("500")
     int pageSize();
 
+    /**
+     * Maximum number of Keycloak user pages fetched concurrently.
+     * When greater than 1, the user count is read first and pages are fetched in parallel,
+     * then delivered in offset order. A value of 1 fetches pages strictly one after another.
+     * Can be overridden with RECONCILE_FETCH_PARALLELISM environment variable.
+     */
+    @WithDefault("4")
+    int fetchParallelism();
+
     /**
      * Enable or disable scheduled reconciliation.
      * When disabled, reconciliation can only be triggered manually via REST endpoint.
@@ -33,4 +42,14 @@ public interface ReconcileConfig {
      */
     @WithDefault("true")
     boolean schedulerEnabled();
+
+    /**
+     * Enable incremental reconciliation.
+     * When enabled, only users whose identity, enabled flag, mechanism set or password
+     * changed since the last successful sync are upserted, based on the principal_sync_state table.
+     * When disabled, the reconcile.always-upsert behavior applies.
+     * Can be overridden with RECONCILE_INCREMENTAL environment variable.
+     */
+    @WithDefault("true")
+    boolean incremental();
 }
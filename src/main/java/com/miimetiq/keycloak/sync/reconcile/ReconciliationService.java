@@ -3,6 +3,7 @@ package com.miimetiq.keycloak.sync.reconcile;
 import com.miimetiq.keycloak.sync.crypto.ScramCredentialGenerator;
 import com.miimetiq.keycloak.sync.domain.KeycloakUserInfo;
 import com.miimetiq.keycloak.sync.domain.ScramCredential;
+import com.miimetiq.keycloak.sync.domain.entity.PrincipalSyncState;
 import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
 import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
 import com.miimetiq.keycloak.sync.domain.enums.OpType;
@@ -11,16 +12,21 @@ import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
 import com.miimetiq.keycloak.sync.kafka.KafkaConfig;
 import com.miimetiq.keycloak.sync.kafka.KafkaScramManager;
 import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.CredentialSpec;
+import com.miimetiq.keycloak.sync.kafka.ScramCredentialPolicy;
 import com.miimetiq.keycloak.sync.keycloak.KeycloakConfig;
 import com.miimetiq.keycloak.sync.keycloak.KeycloakUserFetcher;
 import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.repository.PrincipalSyncStateRepository;
+import com.miimetiq.keycloak.sync.service.AuditWriteBehindService;
+import com.miimetiq.keycloak.sync.webhook.PasswordHandoffStore;
+import com.miimetiq.keycloak.sync.webhook.PasswordHandoffStore.Handoff;
+import com.miimetiq.keycloak.sync.webhook.SyncOperationExecutor;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
-import org.apache.kafka.clients.admin.AlterUserScramCredentialsResult;
 import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.UserScramCredentialAlteration;
 import org.apache.kafka.common.KafkaFuture;
 import org.jboss.logging.Logger;
 
@@ -29,10 +35,13 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Core service that orchestrates the complete reconciliation cycle.
@@ -42,10 +51,19 @@ import java.util.UUID;
  * <p>
  * The reconciliation flow:
  * 1. Generate correlation ID and create sync_batch record
- * 2. Fetch all enabled users from Keycloak
- * 3. Generate random passwords and SCRAM credentials for each user
- * 4. Upsert credentials to Kafka in batch
- * 5. Wait for results and persist each operation (success/error)
+ * 2. Describe the SCRAM principals currently in Kafka
+ * 3. Stream enabled users from Keycloak page by page, diffing each page (skipping unchanged
+ *    principals when incremental mode is enabled) and submitting its upserts right away;
+ *    every mechanism of a principal's {@link ScramCredentialPolicy} is written in the same
+ *    alteration, together with the removal of mechanisms the policy no longer lists.
+ *    Each upserted principal is claimed from the webhook executor until its alteration
+ *    completed; principals the executor is writing or has written during the cycle are left
+ *    to it, and in incremental mode principals that already have every policy mechanism in
+ *    Kafka but no sync state (e.g. created by a password webhook) are adopted as they are
+ *    instead of being overwritten with a random password
+ * 4. Record principal sync state and hand each operation (success/error) to the
+ *    write-behind audit log as Kafka chunks complete
+ * 5. Delete orphaned principals once every Keycloak page has been seen
  * 6. Update sync_batch with final counts
  * 7. Return ReconciliationResult summary
  */
@@ -59,10 +77,6 @@ public class ReconciliationService {
     private static final String PASSWORD_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*";
     private static final SecureRandom RANDOM = new SecureRandom();
 
-    // Default SCRAM mechanism and iterations
-    private static final ScramMechanism DEFAULT_MECHANISM = ScramMechanism.SCRAM_SHA_256;
-    private static final int DEFAULT_ITERATIONS = 4096;
-
     @Inject
     KeycloakUserFetcher keycloakUserFetcher;
 
@@ -79,7 +93,13 @@ public class ReconciliationService {
     KafkaConfig kafkaConfig;
 
     @Inject
-    EntityManager entityManager;
+    ScramCredentialPolicy scramCredentialPolicy;
+
+    @Inject
+    PasswordHandoffStore passwordStore;
+
+    @Inject
+    SyncOperationExecutor syncOperationExecutor;
 
     @Inject
     SyncMetrics syncMetrics;
@@ -87,6 +107,15 @@ public class ReconciliationService {
     @Inject
     SyncDiffEngine syncDiffEngine;
 
+    @Inject
+    ReconcileConfig reconcileConfig;
+
+    @Inject
+    PrincipalSyncStateRepository principalSyncStateRepository;
+
+    @Inject
+    AuditWriteBehindService auditWriteBehindService;
+
     @Inject
     com.miimetiq.keycloak.sync.retention.RetentionScheduler retentionScheduler;
 
@@ -104,6 +133,8 @@ public class ReconciliationService {
         // Step 1: Generate correlation ID and start timing
         String correlationId = generateCorrelationId();
         LocalDateTime startedAt = LocalDateTime.now();
+        long cycleStartNanos = System.nanoTime();
+        syncOperationExecutor.forgetUpsertsBefore(cycleStartNanos);
         Timer.Sample reconciliationTimer = syncMetrics.startReconciliationTimer();
 
         String realm = keycloakConfig.realm();
@@ -111,116 +142,115 @@ public class ReconciliationService {
 
         LOG.infof("Starting reconciliation cycle with correlation_id=%s, source=%s", correlationId, source);
 
+        // The batch total grows as pages are diffed
+        SyncBatch batch = createSyncBatch(correlationId, startedAt, source, 0);
+        // Principals claimed from the webhook executor whose upsert has not completed yet
+        Set<String> claims = new HashSet<>();
         try {
-            // Step 2: Fetch all users from Keycloak
-            LOG.info("Fetching users from Keycloak...");
-            List<KeycloakUserInfo> keycloakUsers = keycloakUserFetcher.fetchAllUsers();
-            LOG.infof("Fetched %d users from Keycloak", keycloakUsers.size());
-
-            // Record Keycloak fetch metric
-            syncMetrics.incrementKeycloakFetch(realm, source);
-
-            // Step 3: Fetch all SCRAM principals from Kafka
+            // Step 2: Fetch all SCRAM principals from Kafka (needed to diff each Keycloak page)
             LOG.info("Fetching SCRAM principals from Kafka...");
             Map<String, List<ScramCredentialInfo>> kafkaCredentials = kafkaScramManager.describeUserScramCredentials();
             Set<String> kafkaPrincipals = kafkaCredentials.keySet();
             LOG.infof("Fetched %d principals from Kafka", kafkaPrincipals.size());
 
-            // Step 4: Compute diff using SyncDiffEngine
-            LOG.info("Computing synchronization diff...");
-            SyncPlan syncPlan = syncDiffEngine.computeDiff(keycloakUsers, kafkaPrincipals);
-            LOG.infof("Sync plan: %d upsert(s), %d delete(s)", syncPlan.getUpsertCount(), syncPlan.getDeleteCount());
-
-            // If plan is empty, log and return early
-            if (syncPlan.isEmpty()) {
-                LOG.info("No synchronization operations needed - systems are in sync");
-                LocalDateTime finishedAt = LocalDateTime.now();
-
-                // Create empty batch record for audit trail
-                SyncBatch batch = createSyncBatch(correlationId, startedAt, source, 0);
-                batch.setFinishedAt(finishedAt);
-                entityManager.persist(batch);
-
-                syncMetrics.recordReconciliationDuration(reconciliationTimer, realm, clusterId, source);
-                syncMetrics.updateLastSuccessEpoch();
-
-                return new ReconciliationResult(correlationId, startedAt, finishedAt, source, 0, 0, 0);
-            }
-
-            // Step 5: Create sync_batch record
-            int totalOperations = syncPlan.getTotalOperations();
-            SyncBatch batch = createSyncBatch(correlationId, startedAt, source, totalOperations);
-            entityManager.persist(batch);
-            entityManager.flush(); // Ensure batch ID is available
-
-            int successCount = 0;
-            int errorCount = 0;
-
-            // Step 6: Process upserts
-            if (syncPlan.getUpsertCount() > 0) {
-                LOG.infof("Processing %d upsert operation(s)...", syncPlan.getUpsertCount());
-
-                // Generate credentials for upserts
-                Map<String, CredentialSpec> credentialSpecs = new HashMap<>();
-                for (KeycloakUserInfo user : syncPlan.getUpserts()) {
-                    // Try to get real password from webhook cache first
-                    String password = com.miimetiq.keycloak.sync.webhook.PasswordWebhookResource.getPasswordForUser(user.getUsername());
-
-                    // Fallback to random password if not available
-                    if (password == null || password.isEmpty()) {
-                        password = generateRandomPassword();
-                        LOG.warnf("No password from webhook for user %s, using random password", user.getUsername());
+            Map<String, PrincipalSyncState> syncStates = principalSyncStateRepository.findAllAsMap();
+
+            // Step 3: Record the in-progress sync_batch; audit records are written
+            // behind, outside this transaction
+            auditWriteBehindService.submitBatch(batch);
+
+            // Step 4: Stream users from Keycloak page by page, diffing each page and
+            // submitting its upserts while the next page is being fetched
+            LOG.info("Streaming users from Keycloak...");
+            Set<String> keycloakUsernames = new HashSet<>();
+            Map<String, KeycloakUserInfo> pendingUpserts = new HashMap<>();
+            Map<String, List<ScramMechanism>> staleMechanisms = new HashMap<>();
+            Map<String, Long> passwordReceivedNanos = new HashMap<>();
+            KafkaScramManager.AlterationPipeline upsertPipeline = kafkaScramManager.openPipeline(
+                    (principals, errors) -> {
+                        persistUpsertResults(correlationId, clusterId, batch, syncStates, pendingUpserts,
+                                staleMechanisms, passwordReceivedNanos, principals, errors);
+                        claims.removeAll(principals);
+                        syncOperationExecutor.releaseClaims(principals);
+                    });
+            AtomicInteger upsertCount = new AtomicInteger();
+            AtomicInteger adoptedCount = new AtomicInteger();
+
+            int fetchedUsers = keycloakUserFetcher.fetchUsersPaged(page -> {
+                page.forEach(user -> keycloakUsernames.add(user.getUsername()));
+
+                List<KeycloakUserInfo> changed = reconcileConfig.incremental()
+                        ? syncDiffEngine.computeIncrementalPageUpserts(page, kafkaPrincipals, syncStates,
+                                principal -> scramCredentialPolicy.mechanisms(realm, principal),
+                                passwordStore::contains)
+                        : syncDiffEngine.computePageUpserts(page, kafkaPrincipals);
+
+                // Principals with a webhook upsert pending, in flight or done since the cycle
+                // started cannot be claimed: the webhook executor writes their real password, and
+                // upserting them here could overwrite it with a random one. Webhook upserts for
+                // claimed principals wait until the claim is released.
+                Map<String, KeycloakUserInfo> changedByName = new LinkedHashMap<>();
+                changed.forEach(user -> changedByName.put(user.getUsername(), user));
+                List<String> granted = syncOperationExecutor.claimForReconciliation(changedByName.keySet(),
+                        cycleStartNanos);
+                claims.addAll(granted);
+
+                List<KeycloakUserInfo> upserts = new ArrayList<>(granted.size());
+                List<String> adopted = new ArrayList<>();
+                for (String username : granted) {
+                    KeycloakUserInfo user = changedByName.get(username);
+                    if (reconcileConfig.incremental() && isAdoptable(realm, username, syncStates, kafkaCredentials)) {
+                        recordSyncState(syncStates, user, scramCredentialPolicy.mechanisms(realm, username),
+                                LocalDateTime.now());
+                        adopted.add(username);
                     } else {
-                        LOG.infof("Using real password from webhook for user %s", user.getUsername());
+                        upserts.add(user);
                     }
-
-                    credentialSpecs.put(user.getUsername(), new CredentialSpec(DEFAULT_MECHANISM, password, DEFAULT_ITERATIONS));
+                }
+                if (!adopted.isEmpty()) {
+                    claims.removeAll(adopted);
+                    syncOperationExecutor.releaseClaims(adopted);
+                    adoptedCount.addAndGet(adopted.size());
                 }
 
-                // Execute batch upsert to Kafka
-                AlterUserScramCredentialsResult upsertResult = kafkaScramManager.upsertUserScramCredentials(credentialSpecs);
-                Map<String, Throwable> upsertErrors = kafkaScramManager.waitForAlterations(upsertResult);
-
-                // Persist each upsert operation result
-                for (KeycloakUserInfo user : syncPlan.getUpserts()) {
-                    String principal = user.getUsername();
-                    Throwable error = upsertErrors.get(principal);
-
-                    SyncOperation operation = createSyncOperation(
-                            correlationId,
-                            principal,
-                            OpType.SCRAM_UPSERT,
-                            DEFAULT_MECHANISM,
-                            error == null ? OperationResult.SUCCESS : OperationResult.ERROR,
-                            error
-                    );
-
-                    entityManager.persist(operation);
-
-                    if (error == null) {
-                        successCount++;
-                        batch.incrementSuccess();
-                        syncMetrics.incrementKafkaScramUpsert(clusterId, DEFAULT_MECHANISM.name(), "SUCCESS");
-                    } else {
-                        errorCount++;
-                        batch.incrementError();
-                        syncMetrics.incrementKafkaScramUpsert(clusterId, DEFAULT_MECHANISM.name(), "ERROR");
-                        LOG.warnf("Failed to upsert SCRAM credential for principal '%s': %s",
-                                principal, error.getMessage());
-                    }
+                if (!upserts.isEmpty()) {
+                    upserts.forEach(user -> pendingUpserts.put(user.getUsername(), user));
+                    upsertCount.addAndGet(upserts.size());
+                    batch.setItemsTotal(batch.getItemsTotal() + upserts.size());
+                    upsertPipeline.submit(buildUpsertAlterations(realm, upserts, kafkaCredentials, staleMechanisms,
+                            passwordReceivedNanos));
                 }
+            });
+            LOG.infof("Fetched %d users from Keycloak", fetchedUsers);
+            if (adoptedCount.get() > 0) {
+                LOG.infof("Adopted %d principal(s) already present in Kafka without sync state", adoptedCount.get());
+            }
+
+            // Record Keycloak fetch metric
+            syncMetrics.incrementKeycloakFetch(realm, source);
 
+            // Step 5: Wait for the remaining upsert chunks; results were persisted per chunk
+            Map<String, Throwable> upsertErrors = upsertPipeline.finish();
+            if (upsertCount.get() > 0) {
                 LOG.infof("Completed upsert operations: %d success, %d errors",
-                        successCount, upsertErrors.size());
+                        upsertCount.get() - upsertErrors.size(), upsertErrors.size());
             }
 
+            // Step 6: Compute deletes now that every Keycloak username is known
+            List<String> deletes = syncDiffEngine.computeDeletes(keycloakUsernames, kafkaPrincipals);
+            LOG.infof("Sync plan: %d upsert(s), %d delete(s)", upsertCount.get(), deletes.size());
+
+            // Forget state for principals that vanished from both Keycloak and Kafka
+            pruneStaleSyncStates(syncStates, keycloakUsernames, kafkaPrincipals);
+
             // Step 7: Process deletes
-            if (syncPlan.getDeleteCount() > 0) {
-                LOG.infof("Processing %d delete operation(s)...", syncPlan.getDeleteCount());
+            if (!deletes.isEmpty()) {
+                LOG.infof("Processing %d delete operation(s)...", deletes.size());
+                batch.setItemsTotal(batch.getItemsTotal() + deletes.size());
 
                 // Build deletion map (principal -> list of mechanisms to delete)
                 Map<String, List<ScramMechanism>> deletionMap = new HashMap<>();
-                for (String principal : syncPlan.getDeletes()) {
+                for (String principal : deletes) {
                     // Delete all SCRAM mechanisms for this principal
                     List<ScramCredentialInfo> credentials = kafkaCredentials.get(principal);
                     List<ScramMechanism> mechanismsToDelete = new ArrayList<>();
@@ -233,57 +263,45 @@ public class ReconciliationService {
                         }
                     }
 
-                    // If no credentials found, still attempt delete with default mechanism
+                    // If no credentials found, still attempt delete with the policy's first mechanism
                     if (mechanismsToDelete.isEmpty()) {
-                        mechanismsToDelete.add(DEFAULT_MECHANISM);
+                        mechanismsToDelete.add(scramCredentialPolicy.mechanisms(realm, principal).iterator().next());
                     }
 
                     deletionMap.put(principal, mechanismsToDelete);
                 }
 
-                // Execute batch delete to Kafka
-                AlterUserScramCredentialsResult deleteResult = kafkaScramManager.deleteUserScramCredentials(deletionMap);
-                Map<String, Throwable> deleteErrors = kafkaScramManager.waitForAlterations(deleteResult);
+                // Execute chunked delete to Kafka, persisting each chunk's results as it completes
+                Map<String, Throwable> deleteErrors = kafkaScramManager.deleteUserScramCredentialsChunked(
+                        deletionMap,
+                        (principals, errors) -> persistDeleteResults(correlationId, clusterId, batch,
+                                syncStates, deletionMap, principals, errors));
 
-                // Persist each delete operation result
-                for (String principal : syncPlan.getDeletes()) {
-                    Throwable error = deleteErrors.get(principal);
-
-                    // Use the first mechanism we attempted to delete for the operation record
-                    ScramMechanism mechanism = deletionMap.get(principal).get(0);
+                LOG.infof("Completed delete operations: %d success, %d errors",
+                        deletes.size() - deleteErrors.size(), deleteErrors.size());
+            }
 
-                    SyncOperation operation = createSyncOperation(
-                            correlationId,
-                            principal,
-                            OpType.SCRAM_DELETE,
-                            mechanism,
-                            error == null ? OperationResult.SUCCESS : OperationResult.ERROR,
-                            error
-                    );
+            int totalOperations = batch.getItemsTotal();
 
-                    entityManager.persist(operation);
+            // If nothing had to change, close the empty batch and return early
+            if (totalOperations == 0) {
+                LOG.info("No synchronization operations needed - systems are in sync");
+                LocalDateTime finishedAt = LocalDateTime.now();
+                batch.setFinishedAt(finishedAt);
+                auditWriteBehindService.submitBatch(batch);
 
-                    if (error == null) {
-                        successCount++;
-                        batch.incrementSuccess();
-                        syncMetrics.incrementKafkaScramDelete(clusterId, "SUCCESS");
-                    } else {
-                        errorCount++;
-                        batch.incrementError();
-                        syncMetrics.incrementKafkaScramDelete(clusterId, "ERROR");
-                        LOG.warnf("Failed to delete SCRAM credential for principal '%s': %s",
-                                principal, error.getMessage());
-                    }
-                }
+                syncMetrics.recordReconciliationDuration(reconciliationTimer, realm, clusterId, source);
+                syncMetrics.updateLastSuccessEpoch();
 
-                LOG.infof("Completed delete operations: %d success, %d errors",
-                        syncPlan.getDeleteCount() - deleteErrors.size(), deleteErrors.size());
+                return new ReconciliationResult(correlationId, startedAt, finishedAt, source, 0, 0, 0);
             }
 
             // Step 8: Finalize batch
+            int successCount = batch.getItemsSuccess();
+            int errorCount = batch.getItemsError();
             LocalDateTime finishedAt = LocalDateTime.now();
             batch.setFinishedAt(finishedAt);
-            entityManager.merge(batch);
+            auditWriteBehindService.submitBatch(batch);
 
             LOG.infof("Reconciliation cycle completed: correlation_id=%s, total=%d, success=%d, errors=%d, duration=%dms",
                     correlationId, totalOperations, successCount, errorCount,
@@ -315,10 +333,221 @@ public class ReconciliationService {
 
         } catch (Exception e) {
             LOG.errorf(e, "Reconciliation cycle failed with correlation_id=%s", correlationId);
+            // Keep the audit of what was already applied to Kafka
+            batch.setFinishedAt(LocalDateTime.now());
+            auditWriteBehindService.submitBatch(batch);
             // Still record the timer even on failure
             syncMetrics.recordReconciliationDuration(reconciliationTimer, realm, clusterId, source);
             throw new ReconciliationException("Reconciliation failed: " + e.getMessage(), e);
+        } finally {
+            if (!claims.isEmpty()) {
+                syncOperationExecutor.releaseClaims(claims);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a principal can be adopted without an upsert: it has no sync state, no
+     * pending password, and already has every mechanism of its policy in Kafka, e.g. because
+     * the password webhook wrote its real password before reconciliation ever saw it.
+     *
+     * @param realm            realm of the principal
+     * @param principal        the principal
+     * @param syncStates       states loaded for this cycle, keyed by principal
+     * @param kafkaCredentials credentials currently in Kafka keyed by principal
+     * @return true if the principal's Kafka credentials can be recorded as synced as they are
+     */
+    private boolean isAdoptable(String realm, String principal, Map<String, PrincipalSyncState> syncStates,
+                                Map<String, List<ScramCredentialInfo>> kafkaCredentials) {
+        List<ScramCredentialInfo> credentials = kafkaCredentials.get(principal);
+        if (syncStates.containsKey(principal) || credentials == null || passwordStore.contains(principal)) {
+            return false;
+        }
+        Set<ScramMechanism> present = new HashSet<>();
+        for (ScramCredentialInfo credential : credentials) {
+            present.add(convertFromKafkaScramMechanism(credential.mechanism()));
         }
+        return present.containsAll(scramCredentialPolicy.mechanisms(realm, principal));
+    }
+
+    /**
+     * Builds the alterations of a page of upserts: every policy mechanism of each user, plus the
+     * deletion of mechanisms the user has in Kafka but the policy no longer lists.
+     *
+     * @param realm            realm of the users
+     * @param users            the users to upsert
+     * @param kafkaCredentials credentials currently in Kafka keyed by principal
+     * @param staleMechanisms  receives the mechanisms submitted for deletion keyed by principal
+     * @param passwordReceived receives the webhook receipt time of each password taken from the store
+     * @return alterations grouped by principal, in user order
+     */
+    private List<UserScramCredentialAlteration> buildUpsertAlterations(
+            String realm, List<KeycloakUserInfo> users, Map<String, List<ScramCredentialInfo>> kafkaCredentials,
+            Map<String, List<ScramMechanism>> staleMechanisms, Map<String, Long> passwordReceived) {
+        Map<String, CredentialSpec> specs = buildCredentialSpecs(realm, users, passwordReceived);
+
+        Map<String, List<ScramMechanism>> stale = new LinkedHashMap<>();
+        specs.forEach((principal, spec) -> {
+            List<ScramMechanism> extra = new ArrayList<>();
+            for (ScramCredentialInfo credential : kafkaCredentials.getOrDefault(principal, List.of())) {
+                ScramMechanism mechanism = convertFromKafkaScramMechanism(credential.mechanism());
+                if (!spec.mechanisms.containsKey(mechanism)) {
+                    extra.add(mechanism);
+                }
+            }
+            if (!extra.isEmpty()) {
+                stale.put(principal, extra);
+            }
+        });
+        staleMechanisms.putAll(stale);
+
+        List<UserScramCredentialAlteration> alterations = new ArrayList<>(kafkaScramManager.buildUpsertions(specs));
+        alterations.addAll(kafkaScramManager.buildDeletions(stale));
+        return alterations;
+    }
+
+    /**
+     * Builds credential specs for a set of users, preferring passwords received via webhook.
+     *
+     * @param realm            realm of the users
+     * @param users            the users to upsert
+     * @param passwordReceived receives the webhook receipt time of each password taken from the store
+     * @return map of principal to credential spec, in user order
+     */
+    private Map<String, CredentialSpec> buildCredentialSpecs(String realm, List<KeycloakUserInfo> users,
+                                                             Map<String, Long> passwordReceived) {
+        List<String> usernames = new ArrayList<>(users.size());
+        users.forEach(user -> usernames.add(user.getUsername()));
+        // Try to get real passwords from the webhook password store first. The users are already
+        // claimed from the webhook executor, so a password arriving after this point is written
+        // by the executor once the claim is released, after the random password below.
+        Map<String, Handoff> handoffs = passwordStore.takeAll(usernames);
+
+        Map<String, CredentialSpec> credentialSpecs = new LinkedHashMap<>();
+        for (KeycloakUserInfo user : users) {
+            Handoff handoff = handoffs.get(user.getUsername());
+            String password;
+
+            // Fallback to random password if not available
+            if (handoff == null || handoff.password().isEmpty()) {
+                password = generateRandomPassword();
+                LOG.warnf("No password from webhook for user %s, using random password", user.getUsername());
+            } else {
+                password = handoff.password();
+                passwordReceived.put(user.getUsername(), handoff.receivedNanos());
+                LOG.infof("Using real password from webhook for user %s", user.getUsername());
+            }
+
+            credentialSpecs.put(user.getUsername(),
+                    scramCredentialPolicy.credentialSpec(realm, user.getUsername(), password));
+        }
+        return credentialSpecs;
+    }
+
+    /**
+     * Persists the results of one completed upsert chunk, with one operation per mechanism.
+     * <p>
+     * Kafka reports one result per principal, which applies to every mechanism written or
+     * removed for it.
+     *
+     * @param correlationId    correlation ID for this batch
+     * @param clusterId        the Kafka cluster ID used for metrics
+     * @param batch            the batch whose counters are updated
+     * @param syncStates       current sync states keyed by principal
+     * @param usersByPrincipal in-flight Keycloak users keyed by principal; entries are removed once persisted
+     * @param staleMechanisms  mechanisms removed alongside the upsert keyed by principal; entries are removed once persisted
+     * @param passwordReceived webhook receipt time of the passwords written keyed by principal; entries are removed once persisted
+     * @param principals       principals contained in the completed chunk
+     * @param errors           errors of the failed principals in the chunk
+     */
+    private void persistUpsertResults(String correlationId, String clusterId, SyncBatch batch,
+                                      Map<String, PrincipalSyncState> syncStates,
+                                      Map<String, KeycloakUserInfo> usersByPrincipal,
+                                      Map<String, List<ScramMechanism>> staleMechanisms,
+                                      Map<String, Long> passwordReceived,
+                                      Set<String> principals, Map<String, Throwable> errors) {
+        List<SyncOperation> operations = new ArrayList<>(principals.size());
+        String result = null;
+        for (String principal : principals) {
+            Throwable error = errors.get(principal);
+            KeycloakUserInfo user = usersByPrincipal.remove(principal);
+            List<ScramMechanism> removed = staleMechanisms.remove(principal);
+            Long receivedNanos = passwordReceived.remove(principal);
+            Set<ScramMechanism> mechanisms = scramCredentialPolicy.mechanisms(keycloakConfig.realm(), principal);
+            OperationResult operationResult = error == null ? OperationResult.SUCCESS : OperationResult.ERROR;
+            result = error == null ? "SUCCESS" : "ERROR";
+
+            for (ScramMechanism mechanism : mechanisms) {
+                operations.add(createSyncOperation(correlationId, principal, OpType.SCRAM_UPSERT, mechanism,
+                        operationResult, error));
+                syncMetrics.incrementKafkaScramUpsert(clusterId, mechanism.name(), result);
+            }
+            if (removed != null) {
+                for (ScramMechanism mechanism : removed) {
+                    operations.add(createSyncOperation(correlationId, principal, OpType.SCRAM_DELETE, mechanism,
+                            operationResult, error));
+                    syncMetrics.incrementKafkaScramDelete(clusterId, result);
+                }
+            }
+
+            if (error == null) {
+                batch.incrementSuccess();
+                if (receivedNanos != null) {
+                    syncMetrics.recordPasswordPropagation("RECONCILE", System.nanoTime() - receivedNanos);
+                }
+                recordSyncState(syncStates, user, mechanisms, operations.get(operations.size() - 1).getOccurredAt());
+            } else {
+                batch.incrementError();
+                LOG.warnf("Failed to upsert SCRAM credentials %s for principal '%s': %s",
+                        mechanisms, principal, error.getMessage());
+            }
+        }
+        auditWriteBehindService.submitOperations(operations);
+    }
+
+    /**
+     * Persists the results of one completed delete chunk.
+     *
+     * @param correlationId correlation ID for this batch
+     * @param clusterId     the Kafka cluster ID used for metrics
+     * @param batch         the batch whose counters are updated
+     * @param syncStates    current sync states keyed by principal
+     * @param deletionMap   mechanisms submitted for deletion keyed by principal
+     * @param principals    principals contained in the completed chunk
+     * @param errors        errors of the failed principals in the chunk
+     */
+    private void persistDeleteResults(String correlationId, String clusterId, SyncBatch batch,
+                                      Map<String, PrincipalSyncState> syncStates,
+                                      Map<String, List<ScramMechanism>> deletionMap,
+                                      Set<String> principals, Map<String, Throwable> errors) {
+        List<SyncOperation> operations = new ArrayList<>(principals.size());
+        for (String principal : principals) {
+            Throwable error = errors.get(principal);
+
+            // One operation record per mechanism we attempted to delete
+            for (ScramMechanism mechanism : deletionMap.get(principal)) {
+                operations.add(createSyncOperation(
+                        correlationId,
+                        principal,
+                        OpType.SCRAM_DELETE,
+                        mechanism,
+                        error == null ? OperationResult.SUCCESS : OperationResult.ERROR,
+                        error
+                ));
+            }
+
+            if (error == null) {
+                batch.incrementSuccess();
+                forgetSyncState(syncStates, principal);
+                syncMetrics.incrementKafkaScramDelete(clusterId, "SUCCESS");
+            } else {
+                batch.incrementError();
+                syncMetrics.incrementKafkaScramDelete(clusterId, "ERROR");
+                LOG.warnf("Failed to delete SCRAM credential for principal '%s': %s",
+                        principal, error.getMessage());
+            }
+        }
+        auditWriteBehindService.submitOperations(operations);
     }
 
     /**
@@ -378,6 +607,59 @@ public class ReconciliationService {
         return operation;
     }
 
+    /**
+     * Records a successful credential write in the principal sync state table.
+     *
+     * @param syncStates states loaded for this cycle, keyed by principal
+     * @param user       the user whose credential was written
+     * @param mechanisms the mechanisms that were written
+     * @param syncedAt   when the write was acknowledged
+     */
+    private void recordSyncState(Map<String, PrincipalSyncState> syncStates, KeycloakUserInfo user,
+                                 Set<ScramMechanism> mechanisms, LocalDateTime syncedAt) {
+        PrincipalSyncState state = syncStates.get(user.getUsername());
+        if (state == null) {
+            state = new PrincipalSyncState(user.getUsername(), user.getId(), user.isEnabled(),
+                    mechanisms, syncedAt);
+            syncStates.put(user.getUsername(), state);
+        }
+        state.recordSync(user.getId(), user.isEnabled(), mechanisms, syncedAt);
+        principalSyncStateRepository.persist(state);
+    }
+
+    /**
+     * Removes the sync state for a principal whose credentials were deleted.
+     *
+     * @param syncStates states loaded for this cycle, keyed by principal
+     * @param principal  the deleted principal
+     */
+    private void forgetSyncState(Map<String, PrincipalSyncState> syncStates, String principal) {
+        PrincipalSyncState state = syncStates.remove(principal);
+        if (state != null) {
+            principalSyncStateRepository.delete(state);
+        }
+    }
+
+    /**
+     * Removes sync state rows for principals that no longer exist in Keycloak or Kafka.
+     *
+     * @param syncStates      states loaded for this cycle, keyed by principal
+     * @param keycloakUsernames usernames fetched from Keycloak
+     * @param kafkaPrincipals   principals currently present in Kafka
+     */
+    private void pruneStaleSyncStates(Map<String, PrincipalSyncState> syncStates,
+                                      Set<String> keycloakUsernames, Set<String> kafkaPrincipals) {
+        List<String> stale = syncStates.keySet().stream()
+                .filter(principal -> !keycloakUsernames.contains(principal) && !kafkaPrincipals.contains(principal))
+                .toList();
+
+        if (!stale.isEmpty()) {
+            long removed = principalSyncStateRepository.deleteByPrincipals(stale);
+            stale.forEach(syncStates::remove);
+            LOG.debugf("Pruned %d stale principal sync state row(s)", removed);
+        }
+    }
+
     /**
      * Generates a cryptographically secure random password.
      *
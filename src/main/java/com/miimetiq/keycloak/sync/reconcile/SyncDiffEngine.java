@@ -1,12 +1,16 @@
 package com.miimetiq.keycloak.sync.reconcile;
 
 import com.miimetiq.keycloak.sync.domain.KeycloakUserInfo;
+import com.miimetiq.keycloak.sync.domain.entity.PrincipalSyncState;
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +27,8 @@ import java.util.stream.Collectors;
  * Features:
  * - Configurable exclusion patterns for system accounts
  * - Optional "always upsert" mode to refresh all credentials
+ * - Incremental mode driven by persisted per-principal sync state
+ * - Page-level upsert selection for streaming reconciliation
  * - Dry-run mode for validation without execution
  * - Performance optimized for large user bases (10,000+ users)
  */
@@ -161,6 +167,178 @@ public class SyncDiffEngine {
         return computeDiff(keycloakUsers, kafkaPrincipals, false);
     }
 
+    /**
+     * Computes an incremental diff driven by the persisted per-principal sync state.
+     * <p>
+     * Unlike {@link #computeDiff(List, Set, boolean)}, the always-upsert setting is ignored:
+     * a Keycloak user is only upserted when something relevant changed since the last
+     * successful write, namely:
+     * - The principal is missing from Kafka (new user or external removal)
+     * - No sync state exists for the principal
+     * - The Keycloak user ID, enabled flag or required mechanism set differs from the state
+     * - A new password is pending for the principal (password changed)
+     * <p>
+     * Deletes are computed exactly as in the full diff.
+     *
+     * @param keycloakUsers      list of users from Keycloak (source of truth)
+     * @param kafkaPrincipals    set of SCRAM principal names in Kafka (current state)
+     * @param syncStates         last synced state keyed by principal
+     * @param mechanisms         mechanisms every principal is expected to have
+     * @param hasPendingPassword predicate telling whether a new password is waiting for a principal
+     * @param dryRun             whether this is a dry-run (validation only)
+     * @return SyncPlan containing only changed upserts and orphaned deletes
+     */
+    public SyncPlan computeIncrementalDiff(List<KeycloakUserInfo> keycloakUsers,
+                                           Set<String> kafkaPrincipals,
+                                           Map<String, PrincipalSyncState> syncStates,
+                                           Set<ScramMechanism> mechanisms,
+                                           Predicate<String> hasPendingPassword,
+                                           boolean dryRun) {
+
+        LOG.infof("Computing incremental sync diff: keycloakUsers=%d, kafkaPrincipals=%d, syncStates=%d, dryRun=%s",
+                keycloakUsers.size(), kafkaPrincipals.size(), syncStates.size(), dryRun);
+
+        long startTime = System.currentTimeMillis();
+
+        Set<String> keycloakUsernames = keycloakUsers.stream()
+                .map(KeycloakUserInfo::getUsername)
+                .collect(Collectors.toSet());
+
+        Set<String> filteredKafkaPrincipals = kafkaPrincipals.stream()
+                .filter(this::shouldIncludePrincipal)
+                .collect(Collectors.toSet());
+
+        // Upsert only users whose credential-relevant state changed
+        List<KeycloakUserInfo> upserts = computeIncrementalPageUpserts(keycloakUsers, filteredKafkaPrincipals,
+                syncStates, mechanisms, hasPendingPassword);
+
+        LOG.debugf("Upsert mode: INCREMENTAL - %d changed, %d unchanged",
+                upserts.size(), keycloakUsers.size() - upserts.size());
+
+        List<String> deletes = computeDeletes(keycloakUsernames, filteredKafkaPrincipals);
+
+        SyncPlan plan = new SyncPlan(upserts, deletes, dryRun);
+
+        long durationMs = System.currentTimeMillis() - startTime;
+        LOG.infof("Computed incremental sync diff in %dms: %s (%d unchanged skipped)",
+                durationMs, plan.getSummary(), keycloakUsers.size() - upserts.size());
+
+        return plan;
+    }
+
+    /**
+     * Computes an incremental diff with default dry-run mode (false).
+     *
+     * @param keycloakUsers      list of users from Keycloak
+     * @param kafkaPrincipals    set of SCRAM principal names in Kafka
+     * @param syncStates         last synced state keyed by principal
+     * @param mechanisms         mechanisms every principal is expected to have
+     * @param hasPendingPassword predicate telling whether a new password is waiting for a principal
+     * @return SyncPlan containing only changed upserts and orphaned deletes
+     */
+    public SyncPlan computeIncrementalDiff(List<KeycloakUserInfo> keycloakUsers,
+                                           Set<String> kafkaPrincipals,
+                                           Map<String, PrincipalSyncState> syncStates,
+                                           Set<ScramMechanism> mechanisms,
+                                           Predicate<String> hasPendingPassword) {
+        return computeIncrementalDiff(keycloakUsers, kafkaPrincipals, syncStates, mechanisms, hasPendingPassword, false);
+    }
+
+    /**
+     * Selects the upserts for a single page of Keycloak users using the full-diff rules.
+     * <p>
+     * Used by streaming reconciliation, where users arrive page by page and the whole
+     * realm is never materialized. Honors the always-upsert setting exactly like
+     * {@link #computeDiff(List, Set, boolean)}.
+     *
+     * @param page            one page of users from Keycloak
+     * @param kafkaPrincipals set of SCRAM principal names in Kafka
+     * @return users of the page that need an upsert
+     */
+    public List<KeycloakUserInfo> computePageUpserts(List<KeycloakUserInfo> page, Set<String> kafkaPrincipals) {
+        if (alwaysUpsert) {
+            return new ArrayList<>(page);
+        }
+        return page.stream()
+                .filter(user -> !isSyncedPrincipal(user.getUsername(), kafkaPrincipals))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Selects the upserts for a single page of Keycloak users using the incremental rules.
+     * <p>
+     * See {@link #computeIncrementalDiff(List, Set, Map, Set, Predicate, boolean)} for the
+     * conditions under which a user is upserted.
+     *
+     * @param page               one page of users from Keycloak
+     * @param kafkaPrincipals    set of SCRAM principal names in Kafka
+     * @param syncStates         last synced state keyed by principal
+     * @param mechanisms         mechanisms every principal is expected to have
+     * @param hasPendingPassword predicate telling whether a new password is waiting for a principal
+     * @return users of the page that changed since the last sync
+     */
+    public List<KeycloakUserInfo> computeIncrementalPageUpserts(List<KeycloakUserInfo> page,
+                                                                Set<String> kafkaPrincipals,
+                                                                Map<String, PrincipalSyncState> syncStates,
+                                                                Set<ScramMechanism> mechanisms,
+                                                                Predicate<String> hasPendingPassword) {
+        return computeIncrementalPageUpserts(page, kafkaPrincipals, syncStates, principal -> mechanisms,
+                hasPendingPassword);
+    }
+
+    /**
+     * Selects the upserts for a single page of Keycloak users using the incremental rules,
+     * with the expected mechanisms resolved per principal.
+     *
+     * @param page               one page of users from Keycloak
+     * @param kafkaPrincipals    set of SCRAM principal names in Kafka
+     * @param syncStates         last synced state keyed by principal
+     * @param mechanismsFor      mechanisms each principal is expected to have, by principal name
+     * @param hasPendingPassword predicate telling whether a new password is waiting for a principal
+     * @return users of the page that changed since the last sync
+     */
+    public List<KeycloakUserInfo> computeIncrementalPageUpserts(List<KeycloakUserInfo> page,
+                                                                Set<String> kafkaPrincipals,
+                                                                Map<String, PrincipalSyncState> syncStates,
+                                                                Function<String, Set<ScramMechanism>> mechanismsFor,
+                                                                Predicate<String> hasPendingPassword) {
+        List<KeycloakUserInfo> upserts = new ArrayList<>();
+        for (KeycloakUserInfo user : page) {
+            String username = user.getUsername();
+            PrincipalSyncState state = syncStates.get(username);
+
+            if (!isSyncedPrincipal(username, kafkaPrincipals)
+                    || state == null
+                    || !state.matches(user.getId(), user.isEnabled(), mechanismsFor.apply(username))
+                    || hasPendingPassword.test(username)) {
+                upserts.add(user);
+            }
+        }
+        return upserts;
+    }
+
+    /**
+     * Computes the orphaned Kafka principals once every Keycloak username is known.
+     *
+     * @param keycloakUsernames all usernames seen in Keycloak
+     * @param kafkaPrincipals   set of SCRAM principal names in Kafka
+     * @return sorted principals to delete, excluding system accounts
+     */
+    public List<String> computeDeletes(Set<String> keycloakUsernames, Set<String> kafkaPrincipals) {
+        return kafkaPrincipals.stream()
+                .filter(this::shouldIncludePrincipal)
+                .filter(principal -> !keycloakUsernames.contains(principal))
+                .sorted() // Sort for deterministic order
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks whether a username already exists in Kafka as a non-excluded principal.
+     */
+    private boolean isSyncedPrincipal(String username, Set<String> kafkaPrincipals) {
+        return kafkaPrincipals.contains(username) && shouldIncludePrincipal(username);
+    }
+
     /**
      * Checks if a principal should be included in sync operations.
      * <p>
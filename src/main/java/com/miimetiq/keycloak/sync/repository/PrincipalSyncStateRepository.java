@@ -0,0 +1,46 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.PrincipalSyncState;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository for managing PrincipalSyncState entities.
+ * <p>
+ * Provides data access methods for the principal_sync_state table, which records
+ * the last credential state written to Kafka for each principal.
+ * Uses Quarkus Panache for simplified repository implementation.
+ */
+@ApplicationScoped
+public class PrincipalSyncStateRepository implements PanacheRepositoryBase<PrincipalSyncState, String> {
+
+    /**
+     * Loads all principal states keyed by principal name.
+     *
+     * @return mutable map of principal to its last synced state
+     */
+    public Map<String, PrincipalSyncState> findAllAsMap() {
+        Map<String, PrincipalSyncState> states = new HashMap<>();
+        for (PrincipalSyncState state : listAll()) {
+            states.put(state.getPrincipal(), state);
+        }
+        return states;
+    }
+
+    /**
+     * Deletes the state rows for the given principals.
+     *
+     * @param principals the principals to forget
+     * @return number of rows deleted
+     */
+    public long deleteByPrincipals(Collection<String> principals) {
+        if (principals == null || principals.isEmpty()) {
+            return 0;
+        }
+        return delete("principal in ?1", principals);
+    }
+}
@@ -0,0 +1,171 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Bulk writer for sync_operation audit rows.
+ * <p>
+ * {@link SyncOperation} uses an IDENTITY key, which prevents Hibernate from batching
+ * inserts, so persisting operations one by one costs a statement round trip per row.
+ * This writer instead issues multi-row {@code INSERT ... VALUES (...), (...)} statements
+ * of up to {@code audit.batch-size} rows on the connection of the current transaction.
+ * <p>
+ * Rows are written directly through JDBC and are not attached to the persistence context.
+ * Generated IDs are assigned back to the given entities from SQLite's last_insert_rowid(),
+ * relying on SQLite assigning consecutive rowids within a single statement.
+ */
+@ApplicationScoped
+public class SyncOperationBatchWriter {
+
+    private static final Logger LOG = Logger.getLogger(SyncOperationBatchWriter.class);
+
+    private static final String INSERT_PREFIX = "INSERT INTO sync_operation (" +
+            "correlation_id, occurred_at, realm, cluster_id, principal, op_type, " +
+            "mechanism, result, error_code, error_message, duration_ms) VALUES ";
+
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMN_COUNT = 11;
+
+    // SQLite limits bound parameters per statement (SQLITE_MAX_VARIABLE_NUMBER, 32766 since 3.32)
+    private static final int MAX_ROWS_PER_STATEMENT = 32766 / COLUMN_COUNT;
+
+    @Inject
+    EntityManager entityManager;
+
+    @ConfigProperty(name = "audit.batch-size", defaultValue = "500")
+    int batchSize;
+
+    /**
+     * Inserts the given operations within the current transaction.
+     *
+     * @param operations the operations to insert; IDs are set on success
+     * @return number of rows inserted
+     */
+    public int insertAll(List<SyncOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int rowsPerStatement = effectiveBatchSize(batchSize);
+
+        entityManager.unwrap(Session.class).doWork(connection -> insert(connection, operations, rowsPerStatement));
+
+        LOG.debugf("Inserted %d sync_operation row(s) in %dms (batch size %d)",
+                operations.size(), System.currentTimeMillis() - startTime, rowsPerStatement);
+
+        return operations.size();
+    }
+
+    /**
+     * Writes operations on a JDBC connection in multi-row statements.
+     *
+     * @param connection       the connection to write on (transaction managed by the caller)
+     * @param operations       the operations to insert
+     * @param rowsPerStatement maximum rows per INSERT statement
+     * @throws SQLException if any statement fails
+     */
+    static void insert(Connection connection, List<SyncOperation> operations, int rowsPerStatement)
+            throws SQLException {
+        String fullSql = buildSql(rowsPerStatement);
+
+        try (PreparedStatement full = connection.prepareStatement(fullSql)) {
+            int offset = 0;
+            while (offset < operations.size()) {
+                int rows = Math.min(rowsPerStatement, operations.size() - offset);
+                List<SyncOperation> slice = operations.subList(offset, offset + rows);
+
+                if (rows == rowsPerStatement) {
+                    bindAndExecute(connection, full, slice);
+                } else {
+                    // Trailing partial slice needs its own statement shape
+                    try (PreparedStatement partial = connection.prepareStatement(buildSql(rows))) {
+                        bindAndExecute(connection, partial, slice);
+                    }
+                }
+
+                offset += rows;
+            }
+        }
+    }
+
+    /**
+     * Clamps the configured batch size to what a single SQLite statement can bind.
+     */
+    static int effectiveBatchSize(int configured) {
+        return Math.max(1, Math.min(configured, MAX_ROWS_PER_STATEMENT));
+    }
+
+    private static void bindAndExecute(Connection connection, PreparedStatement statement,
+                                       List<SyncOperation> slice) throws SQLException {
+        int index = 1;
+        for (SyncOperation operation : slice) {
+            statement.setString(index++, operation.getCorrelationId());
+            // Bound as java.sql.Timestamp, matching how Hibernate writes LocalDateTime
+            statement.setTimestamp(index++, Timestamp.valueOf(operation.getOccurredAt()));
+            statement.setString(index++, operation.getRealm());
+            statement.setString(index++, operation.getClusterId());
+            statement.setString(index++, operation.getPrincipal());
+            statement.setString(index++, operation.getOpType().name());
+            setNullableString(statement, index++,
+                    operation.getMechanism() != null ? operation.getMechanism().name() : null);
+            statement.setString(index++, operation.getResult().name());
+            setNullableString(statement, index++, operation.getErrorCode());
+            setNullableString(statement, index++, operation.getErrorMessage());
+            statement.setInt(index++, operation.getDurationMs() != null ? operation.getDurationMs() : 0);
+        }
+
+        statement.executeUpdate();
+        assignIds(connection, slice);
+    }
+
+    private static void assignIds(Connection connection, List<SyncOperation> slice) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT last_insert_rowid()")) {
+            if (rs.next()) {
+                long lastId = rs.getLong(1);
+                long firstId = lastId - slice.size() + 1;
+                for (int i = 0; i < slice.size(); i++) {
+                    slice.get(i).setId(firstId + i);
+                }
+            }
+        }
+    }
+
+    private static void setNullableString(PreparedStatement statement, int index, String value)
+            throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+
+    private static String buildSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDER.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.WebhookDeadLetter;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+
+/**
+ * Repository for managing WebhookDeadLetter entities.
+ * <p>
+ * Provides data access methods for the webhook_dead_letter table.
+ * Uses Quarkus Panache for simplified repository implementation.
+ */
+@ApplicationScoped
+public class WebhookDeadLetterRepository implements PanacheRepository<WebhookDeadLetter> {
+
+    /**
+     * Finds dead letters, newest first, optionally for one principal.
+     *
+     * @param principal partition key (principal) to filter by, or null for all
+     * @param page      page number (0-indexed)
+     * @param pageSize  page size
+     * @return dead letters ordered by failure time descending
+     */
+    public List<WebhookDeadLetter> findPaged(String principal, int page, int pageSize) {
+        Sort sort = Sort.by("failedAt").descending();
+        if (principal == null) {
+            return findAll(sort).page(Page.of(page, pageSize)).list();
+        }
+        return find("partitionKey", sort, principal).page(Page.of(page, pageSize)).list();
+    }
+
+    /**
+     * Counts dead letters, optionally for one principal.
+     *
+     * @param principal partition key (principal) to filter by, or null for all
+     * @return number of dead letters
+     */
+    public long countByPrincipal(String principal) {
+        return principal == null ? count() : count("partitionKey", principal);
+    }
+}
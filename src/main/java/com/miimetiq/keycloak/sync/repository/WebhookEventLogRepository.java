@@ -0,0 +1,59 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.WebhookEventRecord;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for managing WebhookEventRecord entities.
+ * <p>
+ * Provides data access methods for the webhook_event_log table, the durable
+ * backing store of the webhook event queue.
+ * Uses Quarkus Panache for simplified repository implementation.
+ */
+@ApplicationScoped
+public class WebhookEventLogRepository implements PanacheRepository<WebhookEventRecord> {
+
+    /**
+     * Finds the oldest records with an ID greater than the given one.
+     *
+     * @param afterId exclusive lower bound of the ID
+     * @param limit   maximum number of records to return
+     * @return records in ID (append) order
+     */
+    public List<WebhookEventRecord> findAfter(long afterId, int limit) {
+        return find("id > ?1", Sort.by("id"), afterId)
+                .page(Page.ofSize(limit))
+                .list();
+    }
+
+    /**
+     * Highest event sequence stored in the log.
+     *
+     * @return the highest sequence, or 0 if the log is empty
+     */
+    public long maxSequence() {
+        Long max = getEntityManager()
+                .createQuery("SELECT MAX(r.sequence) FROM WebhookEventRecord r", Long.class)
+                .getSingleResult();
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Deletes the records with the given IDs.
+     *
+     * @param ids the IDs to delete
+     * @return number of rows deleted
+     */
+    public long deleteByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        return delete("id in ?1", ids);
+    }
+}
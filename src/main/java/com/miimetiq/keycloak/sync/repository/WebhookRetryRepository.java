@@ -0,0 +1,16 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.WebhookRetryRecord;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Repository for managing WebhookRetryRecord entities.
+ * <p>
+ * Provides data access methods for the webhook_retry table, the persisted state
+ * of scheduled webhook retries.
+ * Uses Quarkus Panache for simplified repository implementation.
+ */
+@ApplicationScoped
+public class WebhookRetryRepository implements PanacheRepository<WebhookRetryRecord> {
+}
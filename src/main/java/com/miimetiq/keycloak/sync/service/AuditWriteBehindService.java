@@ -0,0 +1,366 @@
+package com.miimetiq.keycloak.sync.service;
+
+import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
+import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.repository.SyncBatchRepository;
+import com.miimetiq.keycloak.sync.repository.SyncOperationBatchWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind pipeline for sync_batch and sync_operation audit records.
+ * <p>
+ * Reconciliation hands audit records to this service instead of persisting them in its
+ * own transaction, so Kafka-facing latency is never coupled to SQLite write latency and
+ * a database hiccup cannot roll back the audit of credentials already applied to Kafka.
+ * <p>
+ * Records are buffered in a bounded in-memory queue and drained by a single writer thread
+ * in group commits: each group is written in one short transaction, with batch snapshots
+ * upserted by correlation ID and operations inserted through {@link SyncOperationBatchWriter}.
+ * When the queue is full, producers wait up to {@code audit.enqueue-timeout-ms} before the
+ * record is dropped; both events are counted. Pending records are flushed on shutdown.
+ */
+@ApplicationScoped
+public class AuditWriteBehindService {
+
+    private static final Logger LOG = Logger.getLogger(AuditWriteBehindService.class);
+
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+    private static final long INITIAL_RETRY_BACKOFF_MS = 200;
+
+    @ConfigProperty(name = "audit.queue.capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "audit.group-commit-size", defaultValue = "1000")
+    int groupCommitSize;
+
+    @ConfigProperty(name = "audit.flush-interval-ms", defaultValue = "200")
+    long flushIntervalMs;
+
+    @ConfigProperty(name = "audit.enqueue-timeout-ms", defaultValue = "1000")
+    long enqueueTimeoutMs;
+
+    @ConfigProperty(name = "audit.shutdown-timeout-seconds", defaultValue = "30")
+    long shutdownTimeoutSeconds;
+
+    @Inject
+    SyncBatchRepository batchRepository;
+
+    @Inject
+    SyncOperationBatchWriter operationBatchWriter;
+
+    @Inject
+    SyncMetrics metrics;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private BlockingQueue<AuditEntry> queue;
+    private Thread writerThread;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final Object completionMonitor = new Object();
+
+    /**
+     * Start the writer thread on application startup.
+     */
+    void onStart(@Observes StartupEvent event) {
+        start();
+    }
+
+    /**
+     * Flush pending records and stop the writer thread on application shutdown.
+     */
+    void onShutdown(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Creates the queue, registers gauges and starts the writer thread.
+     */
+    void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        if (meterRegistry != null) {
+            Gauge.builder("sync_audit_queue_depth", queue, BlockingQueue::size)
+                    .description("Number of audit records waiting to be written")
+                    .register(meterRegistry);
+            Gauge.builder("sync_audit_queue_remaining_capacity", queue, BlockingQueue::remainingCapacity)
+                    .description("Free slots in the audit write-behind queue")
+                    .register(meterRegistry);
+        }
+
+        running.set(true);
+        writerThread = new Thread(this::runWriter, "audit-write-behind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        LOG.infof("Audit write-behind started: capacity=%d, group-commit-size=%d, flush-interval=%dms",
+                queueCapacity, groupCommitSize, flushIntervalMs);
+    }
+
+    /**
+     * Stops accepting records, drains the queue and waits for the writer thread.
+     */
+    void stop() {
+        if (!running.getAndSet(false)) {
+            return;
+        }
+
+        LOG.infof("Shutting down audit write-behind, %d record(s) pending", queue.size());
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+            if (writerThread.isAlive()) {
+                LOG.warnf("Audit writer did not finish in time, %d record(s) not written", queue.size());
+                writerThread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while flushing audit records", e);
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        LOG.info("Audit write-behind stopped");
+    }
+
+    /**
+     * Queues a snapshot of the batch; later snapshots of the same batch overwrite earlier ones.
+     *
+     * @param batch the batch whose current state should be recorded
+     * @return true if the snapshot was queued, false if it was dropped
+     */
+    public boolean submitBatch(SyncBatch batch) {
+        return enqueue(BatchSnapshot.of(batch));
+    }
+
+    /**
+     * Queues operations for insertion.
+     *
+     * @param operations the operations to record
+     * @return number of operations dropped because the queue stayed full
+     */
+    public int submitOperations(List<SyncOperation> operations) {
+        int dropped = 0;
+        for (SyncOperation operation : operations) {
+            if (!enqueue(new OperationEntry(operation))) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Waits until every record submitted so far has been written or given up on.
+     *
+     * @param timeout maximum time to wait
+     * @return true if all records were processed within the timeout
+     */
+    public boolean flush(Duration timeout) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (completionMonitor) {
+            while (completed.get() < target) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                try {
+                    completionMonitor.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of records waiting to be written.
+     *
+     * @return current queue depth
+     */
+    public int getPendingCount() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    private boolean enqueue(AuditEntry entry) {
+        if (queue == null || !running.get()) {
+            LOG.warn("Audit write-behind is not running, dropping audit record");
+            metrics.incrementAuditDropped(1);
+            return false;
+        }
+
+        if (queue.offer(entry)) {
+            submitted.incrementAndGet();
+            return true;
+        }
+
+        // Queue is full: apply bounded backpressure to the producer
+        metrics.incrementAuditBackpressure();
+        try {
+            if (queue.offer(entry, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                submitted.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        metrics.incrementAuditDropped(1);
+        LOG.warnf("Audit queue full (capacity=%d) for %dms, dropping audit record", queueCapacity, enqueueTimeoutMs);
+        return false;
+    }
+
+    /**
+     * Writer loop: waits for the first record, then drains up to a group's worth and commits it.
+     */
+    private void runWriter() {
+        int maxGroup = Math.max(1, groupCommitSize);
+        List<AuditEntry> group = new ArrayList<>(maxGroup);
+
+        while (running.get() || !queue.isEmpty()) {
+            try {
+                AuditEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroup - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                markCompleted(group.size());
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Commits a group with bounded retries; a group that keeps failing is counted and dropped.
+     */
+    private void writeGroup(List<AuditEntry> group) throws InterruptedException {
+        long backoffMs = INITIAL_RETRY_BACKOFF_MS;
+
+        for (int attempt = 1; attempt <= MAX_COMMIT_ATTEMPTS; attempt++) {
+            Timer.Sample sample = metrics.startAuditFlushTimer();
+            try {
+                commitGroup(group);
+                metrics.recordAuditFlush(sample, group.size());
+                LOG.debugf("Committed audit group of %d record(s)", group.size());
+                return;
+            } catch (Exception e) {
+                if (attempt == MAX_COMMIT_ATTEMPTS) {
+                    metrics.incrementAuditWriteFailures(group.size());
+                    LOG.errorf(e, "Failed to write audit group of %d record(s) after %d attempts",
+                            group.size(), MAX_COMMIT_ATTEMPTS);
+                    return;
+                }
+                LOG.warnf("Audit group commit attempt %d/%d failed, retrying in %dms: %s",
+                        attempt, MAX_COMMIT_ATTEMPTS, backoffMs, e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    /**
+     * Writes one group in a single transaction.
+     * <p>
+     * Batch snapshots are collapsed to the latest per correlation ID and upserted
+     * before the operations are bulk-inserted.
+     *
+     * @param group the records to write, in submission order
+     */
+    void commitGroup(List<AuditEntry> group) {
+        Map<String, BatchSnapshot> batches = new LinkedHashMap<>();
+        List<SyncOperation> operations = new ArrayList<>();
+        for (AuditEntry entry : group) {
+            if (entry instanceof BatchSnapshot snapshot) {
+                batches.put(snapshot.correlationId(), snapshot);
+            } else if (entry instanceof OperationEntry operationEntry) {
+                operations.add(operationEntry.operation());
+            }
+        }
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            batches.values().forEach(this::upsertBatch);
+            operationBatchWriter.insertAll(operations);
+        });
+    }
+
+    private void upsertBatch(BatchSnapshot snapshot) {
+        Optional<SyncBatch> existing = batchRepository.findByCorrelationId(snapshot.correlationId());
+        SyncBatch batch = existing.orElseGet(() ->
+                new SyncBatch(snapshot.correlationId(), snapshot.startedAt(), snapshot.source(), snapshot.itemsTotal()));
+
+        batch.setItemsTotal(snapshot.itemsTotal());
+        batch.setItemsSuccess(snapshot.itemsSuccess());
+        batch.setItemsError(snapshot.itemsError());
+        batch.setFinishedAt(snapshot.finishedAt());
+
+        if (existing.isEmpty()) {
+            batchRepository.persist(batch);
+        }
+    }
+
+    private void markCompleted(int count) {
+        if (count == 0) {
+            return;
+        }
+        completed.addAndGet(count);
+        synchronized (completionMonitor) {
+            completionMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * A record waiting in the write-behind queue.
+     */
+    sealed interface AuditEntry permits BatchSnapshot, OperationEntry {
+    }
+
+    /**
+     * Immutable copy of a batch's state at submission time.
+     */
+    record BatchSnapshot(String correlationId, LocalDateTime startedAt, LocalDateTime finishedAt, String source,
+                         int itemsTotal, int itemsSuccess, int itemsError) implements AuditEntry {
+
+        static BatchSnapshot of(SyncBatch batch) {
+            return new BatchSnapshot(batch.getCorrelationId(), batch.getStartedAt(), batch.getFinishedAt(),
+                    batch.getSource(), batch.getItemsTotal(), batch.getItemsSuccess(), batch.getItemsError());
+        }
+    }
+
+    /**
+     * An operation waiting to be inserted.
+     */
+    record OperationEntry(SyncOperation operation) implements AuditEntry {
+    }
+}
@@ -3,6 +3,7 @@ package com.miimetiq.keycloak.sync.service;
 import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
 import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
 import com.miimetiq.keycloak.sync.repository.SyncBatchRepository;
+import com.miimetiq.keycloak.sync.repository.SyncOperationBatchWriter;
 import com.miimetiq.keycloak.sync.repository.SyncOperationRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -38,6 +39,9 @@ public class SyncPersistenceService {
     @Inject
     SyncOperationRepository operationRepository;
 
+    @Inject
+    SyncOperationBatchWriter operationBatchWriter;
+
     /**
      * Creates a new sync batch to track a reconciliation cycle.
      * <p>
@@ -114,15 +118,14 @@ public class SyncPersistenceService {
      * Records multiple sync operations in a batch transaction.
      * <p>
      * This is more efficient than calling {@link #recordOperation} multiple times
-     * as it uses a single transaction for all operations.
+     * as it uses a single transaction and multi-row inserts for all operations.
+     * The operations are not attached to the persistence context.
      *
      * @param operations the list of operations to record
      */
     @Transactional
     public void recordOperations(List<SyncOperation> operations) {
-        for (SyncOperation operation : operations) {
-            operationRepository.persist(operation);
-        }
+        operationBatchWriter.insertAll(operations);
 
         LOG.infof("Recorded %d sync operations", operations.size());
     }
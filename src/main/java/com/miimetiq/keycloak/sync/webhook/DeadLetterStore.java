@@ -0,0 +1,73 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.sync.domain.entity.WebhookDeadLetter;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.repository.WebhookDeadLetterRepository;
+import com.miimetiq.keycloak.sync.webhook.DownstreamLimiter.Downstream;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+
+/**
+ * Store of webhook events that failed permanently after exhausting their retries.
+ * <p>
+ * Dead letters are kept in the agent database and can be listed through
+ * {@code GET /api/dead-letters}; they are not retried automatically. Credentials in the
+ * event's representation are removed before it is stored.
+ */
+@ApplicationScoped
+public class DeadLetterStore {
+
+    private static final Logger LOG = Logger.getLogger(DeadLetterStore.class);
+
+    @Inject
+    WebhookDeadLetterRepository repository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DownstreamLimiter downstreamLimiter;
+
+    @Inject
+    SyncMetrics metrics;
+
+    /**
+     * Stores a permanently failed event with its last error.
+     * <p>
+     * Failures to write are logged and swallowed; the event has already been given up.
+     *
+     * @param event the failed event
+     * @param error the error of the last attempt
+     */
+    public void store(WebhookEvent event, Throwable error) {
+        try {
+            KeycloakAdminEvent adminEvent = event.getEvent();
+            WebhookDeadLetter deadLetter = new WebhookDeadLetter(
+                    event.getCorrelationId(),
+                    event.getPartitionKey(),
+                    adminEvent != null ? adminEvent.getResourceType() : null,
+                    adminEvent != null ? adminEvent.getOperationType() : null,
+                    objectMapper.writeValueAsString(adminEvent != null ? adminEvent.withMaskedRepresentation() : null),
+                    event.getRetryCount() + 1,
+                    LocalDateTime.now());
+            if (error != null) {
+                deadLetter.setErrorCode(error.getClass().getSimpleName());
+                String message = error.getMessage();
+                deadLetter.setErrorMessage(message != null && message.length() > 500
+                        ? message.substring(0, 497) + "..." : message);
+            }
+
+            downstreamLimiter.run(Downstream.SQLITE,
+                    () -> QuarkusTransaction.requiringNew().run(() -> repository.persist(deadLetter)));
+            metrics.incrementWebhookDeadLetters();
+            LOG.warnf("[%s] Stored failed event as dead letter %d", event.getCorrelationId(), deadLetter.getId());
+        } catch (Exception e) {
+            LOG.errorf(e, "[%s] Failed to store dead letter for event: %s", event.getCorrelationId(), event);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Execution mode and downstream concurrency limits of the webhook pipeline.
+ * <p>
+ * With {@code webhook.queue.executor=platform} (default) webhook work runs on fixed pools of
+ * platform threads sized by the worker and execution thread settings. With
+ * {@code webhook.queue.executor=virtual} every task gets its own virtual thread, so the number
+ * of blocking calls in flight is no longer capped by a pool size; instead each downstream
+ * system is protected by its own semaphore ({@code webhook.downstream.*.max-concurrency}).
+ * The semaphores apply in both modes.
+ */
+@ApplicationScoped
+public class DownstreamLimiter {
+
+    private static final Logger LOG = Logger.getLogger(DownstreamLimiter.class);
+
+    /**
+     * Downstream systems called from the webhook pipeline.
+     */
+    public enum Downstream {
+        KAFKA,
+        SQLITE
+    }
+
+    @ConfigProperty(name = "webhook.queue.executor", defaultValue = "platform")
+    String executorMode;
+
+    @ConfigProperty(name = "webhook.downstream.kafka.max-concurrency", defaultValue = "16")
+    int kafkaMaxConcurrency;
+
+    @ConfigProperty(name = "webhook.downstream.sqlite.max-concurrency", defaultValue = "4")
+    int sqliteMaxConcurrency;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<Downstream, Semaphore> permits = new EnumMap<>(Downstream.class);
+    private final Map<Downstream, AtomicInteger> inFlight = new EnumMap<>(Downstream.class);
+
+    @PostConstruct
+    void init() {
+        register(Downstream.KAFKA, kafkaMaxConcurrency);
+        register(Downstream.SQLITE, sqliteMaxConcurrency);
+
+        if (!isVirtual() && !"platform".equalsIgnoreCase(executorMode)) {
+            LOG.warnf("Unknown webhook.queue.executor '%s', using 'platform'", executorMode);
+        }
+        LOG.infof("Webhook executor mode: %s (max concurrency: kafka=%d, sqlite=%d)",
+                isVirtual() ? "virtual" : "platform", kafkaMaxConcurrency, sqliteMaxConcurrency);
+    }
+
+    private void register(Downstream downstream, int maxConcurrency) {
+        permits.put(downstream, new Semaphore(Math.max(1, maxConcurrency), true));
+        AtomicInteger counter = new AtomicInteger();
+        inFlight.put(downstream, counter);
+        Gauge.builder("sync_downstream_in_flight", counter, AtomicInteger::get)
+                .description("Number of webhook calls in flight per downstream system")
+                .tag("downstream", downstream.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether webhook work runs on virtual threads.
+     *
+     * @return true in virtual mode
+     */
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
+
+    /**
+     * Creates an executor for webhook work in the configured mode.
+     *
+     * @param name            thread name (prefix in virtual mode)
+     * @param platformThreads pool size in platform mode; ignored in virtual mode
+     * @return a thread-per-task executor of virtual threads, or a fixed pool of daemon threads
+     */
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a call while holding a permit of the downstream, waiting for one if all are taken.
+     *
+     * @param downstream the downstream system called
+     * @param call       the blocking call
+     * @return the call's result
+     * @throws DownstreamLimitException if interrupted while waiting for a permit
+     */
+    public <T> T call(Downstream downstream, Supplier<T> call) {
+        Semaphore semaphore = permits.get(downstream);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownstreamLimitException("Interrupted while waiting for a " + downstream + " permit", e);
+        }
+
+        AtomicInteger counter = inFlight.get(downstream);
+        counter.incrementAndGet();
+        try {
+            return call.get();
+        } finally {
+            counter.decrementAndGet();
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Runs a call without result while holding a permit of the downstream.
+     *
+     * @param downstream the downstream system called
+     * @param call       the blocking call
+     */
+    public void run(Downstream downstream, Runnable call) {
+        call(downstream, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Number of calls currently in flight against a downstream.
+     *
+     * @param downstream the downstream system
+     * @return calls holding a permit
+     */
+    public int inFlight(Downstream downstream) {
+        return inFlight.get(downstream).get();
+    }
+
+    /**
+     * Exception thrown when a downstream permit cannot be obtained.
+     */
+    public static class DownstreamLimitException extends RuntimeException {
+        public DownstreamLimitException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
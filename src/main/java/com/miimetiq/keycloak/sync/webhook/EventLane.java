@@ -0,0 +1,55 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One lane of the webhook event queue.
+ * <p>
+ * Lanes do not enforce the queue capacity themselves; {@link EventQueueService} reserves
+ * a capacity slot before offering an event, so {@link #offer(WebhookEvent)} only fails if
+ * a bounded lane is smaller than the queue capacity.
+ */
+interface EventLane {
+
+    /**
+     * Adds an event to the tail of the lane.
+     *
+     * @param event the event to add
+     * @return true if the event was added
+     */
+    boolean offer(WebhookEvent event);
+
+    /**
+     * Removes the head of the lane without waiting.
+     *
+     * @return the event, or null if the lane is empty
+     */
+    WebhookEvent poll();
+
+    /**
+     * Removes the head of the lane, waiting up to the timeout for an event to arrive.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout
+     * @return the event, or null if the timeout expires
+     * @throws InterruptedException if interrupted while waiting
+     */
+    WebhookEvent poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Removes up to {@code maxEvents} events from the head of the lane without waiting.
+     *
+     * @param target collection the events are added to, in lane order
+     * @param maxEvents the maximum number of events to remove
+     * @return the number of events removed
+     */
+    int drainTo(Collection<? super WebhookEvent> target, int maxEvents);
+
+    /**
+     * Number of events in the lane; may be approximate while producers and consumers are active.
+     *
+     * @return number of events
+     */
+    int size();
+}
@@ -67,6 +67,27 @@ public class EventMapper {
         return Optional.empty();
     }
 
+    /**
+     * Resolve the principal an event refers to, without mapping the operation.
+     * <p>
+     * Used to partition events so that all events of one principal are processed in order.
+     *
+     * @param event the Keycloak admin event
+     * @return the principal (username or client ID), or null if the event does not refer to one
+     */
+    public String resolvePrincipal(KeycloakAdminEvent event) {
+        if (event == null || event.getResourceType() == null || event.getResourcePath() == null) {
+            return null;
+        }
+        if ("USER".equalsIgnoreCase(event.getResourceType())) {
+            return extractPrincipalFromPath(event.getResourcePath(), USER_PATH_PATTERN);
+        }
+        if ("CLIENT".equalsIgnoreCase(event.getResourceType())) {
+            return extractPrincipalFromPath(event.getResourcePath(), CLIENT_PATH_PATTERN);
+        }
+        return null;
+    }
+
     /**
      * Map a USER event to a sync operation.
      *
@@ -16,8 +16,25 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Asynchronous processor for webhook events.
  * <p>
- * Runs worker threads that continuously poll the event queue and process
- * events asynchronously. Supports graceful shutdown and configurable worker count.
+ * Runs worker threads that continuously drain batches from the event queue and process
+ * events asynchronously. Mapped operations are handed to {@link SyncOperationExecutor},
+ * which groups them into micro-batches against Kafka and reports each event's outcome
+ * back for retry handling. Supports graceful shutdown and configurable worker count.
+ * <p>
+ * Each worker owns one lane of the partitioned {@link EventQueueService}, so events of a
+ * principal are submitted in arrival order. A failed event that is waiting for its retry
+ * is superseded by any newer event of the same principal and dropped when it comes back,
+ * so a retry never overwrites the effect of a later event. The {@link SupersessionTracker}
+ * keeps the principal's newest sequence until all of its events, including pending
+ * retries, have finished.
+ * <p>
+ * Retries are scheduled with jittered backoff on the {@link RetryScheduler}; events that
+ * still fail after {@code webhook.retry.max-attempts} go to the {@link DeadLetterStore}.
+ * <p>
+ * Workers run on platform threads or, with {@code webhook.queue.executor=virtual}, on virtual
+ * threads (see {@link DownstreamLimiter}). Events of one lane are still handled one after
+ * another to keep the per-principal order; the blocking downstream work happens in the
+ * micro-batches of {@link SyncOperationExecutor}.
  */
 @ApplicationScoped
 public class EventProcessor {
@@ -27,6 +44,9 @@ public class EventProcessor {
     @ConfigProperty(name = "webhook.queue.worker-threads", defaultValue = "2")
     int workerThreadCount;
 
+    @ConfigProperty(name = "webhook.batch.max-size", defaultValue = "500")
+    int drainBatchSize;
+
     @Inject
     EventQueueService queueService;
 
@@ -39,8 +59,22 @@ public class EventProcessor {
     @Inject
     EventMapper eventMapper;
 
+    @Inject
+    SyncOperationExecutor syncOperationExecutor;
+
+    @Inject
+    DownstreamLimiter downstreamLimiter;
+
+    @Inject
+    RetryScheduler retryScheduler;
+
+    @Inject
+    DeadLetterStore deadLetterStore;
+
+    @Inject
+    SupersessionTracker supersessionTracker;
+
     private ExecutorService executorService;
-    private ScheduledExecutorService retryExecutor;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final List<Worker> workers = new ArrayList<>();
 
@@ -48,14 +82,15 @@ public class EventProcessor {
      * Start worker threads on application startup.
      */
     void onStart(@Observes StartupEvent event) {
-        LOG.infof("Starting EventProcessor with %d worker threads", workerThreadCount);
+        // One worker per queue lane
+        int laneCount = queueService.laneCount();
+        LOG.infof("Starting EventProcessor with %d worker threads", laneCount);
 
-        executorService = Executors.newFixedThreadPool(workerThreadCount);
-        retryExecutor = Executors.newScheduledThreadPool(1);
+        executorService = downstreamLimiter.newExecutor("webhook-worker", laneCount);
         running.set(true);
 
         // Start worker threads
-        for (int i = 0; i < workerThreadCount; i++) {
+        for (int i = 0; i < laneCount; i++) {
             Worker worker = new Worker(i);
             workers.add(worker);
             executorService.submit(worker);
@@ -85,25 +120,11 @@ public class EventProcessor {
             }
         }
 
-        if (retryExecutor != null) {
-            retryExecutor.shutdown();
-            try {
-                if (!retryExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
-                    LOG.warn("Retry executor did not terminate in time, forcing shutdown");
-                    retryExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                LOG.error("Interrupted during retry executor shutdown", e);
-                retryExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
         LOG.info("EventProcessor stopped");
     }
 
     /**
-     * Worker thread that polls and processes events.
+     * Worker thread that drains and processes events.
      */
     private class Worker implements Runnable {
         private final int workerId;
@@ -118,11 +139,10 @@ public class EventProcessor {
 
             while (running.get()) {
                 try {
-                    // Poll queue with timeout to allow periodic checks of running flag
-                    Optional<WebhookEvent> eventOpt = queueService.poll(1, TimeUnit.SECONDS);
+                    // Drain a batch from this worker's lane with timeout to allow periodic checks of running flag
+                    List<WebhookEvent> events = queueService.drainLane(workerId, drainBatchSize, 1, TimeUnit.SECONDS);
 
-                    if (eventOpt.isPresent()) {
-                        WebhookEvent webhookEvent = eventOpt.get();
+                    for (WebhookEvent webhookEvent : events) {
                         processEvent(webhookEvent);
                     }
 
@@ -159,6 +179,7 @@ public class EventProcessor {
                 if (syncOpOpt.isEmpty()) {
                     LOG.infof("[%s] Event ignored (unsupported or unmappable): resourceType=%s, operationType=%s, resourcePath=%s",
                             correlationId, event.getResourceType(), event.getOperationType(), event.getResourcePath());
+                    queueService.acknowledge(webhookEvent);
                     return;
                 }
 
@@ -166,17 +187,37 @@ public class EventProcessor {
                 LOG.infof("[%s] Mapped to sync operation: type=%s, realm=%s, principal=%s, passwordChange=%s",
                         correlationId, syncOp.getType(), syncOp.getRealm(), syncOp.getPrincipal(), syncOp.isPasswordChange());
 
-                // TODO: Execute sync operation (integrate with existing sync logic)
-                // For now, just log the operation
-                // This will be integrated with KafkaScramManager and ReconciliationService
-                // in a future task to avoid duplication with scheduled reconciliation
+                if (supersessionTracker.isSuperseded(webhookEvent)) {
+                    LOG.infof("[%s] Dropping retry superseded by a newer event for principal '%s'",
+                            correlationId, syncOp.getPrincipal());
+                    metrics.incrementRetryAttempts("SUPERSEDED", retryCount + 1);
+                    supersessionTracker.finish(webhookEvent);
+                    queueService.acknowledge(webhookEvent);
+                    return;
+                }
+                supersessionTracker.track(webhookEvent);
+
+                // Execute asynchronously so the worker can keep draining the queue while
+                // operations for the same principal are coalesced
+                syncOperationExecutor.submit(correlationId, syncOp).whenComplete((ignored, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause() : failure;
+                        LOG.errorf(cause, "[%s] Failed to execute sync operation (attempt %d/%d): %s",
+                                correlationId, retryCount + 1, retryPolicy.getMaxAttempts(), cause.getMessage());
+                        handleFailure(webhookEvent, cause instanceof Exception ex ? ex : new RuntimeException(cause));
+                        return;
+                    }
 
-                LOG.infof("[%s] Worker %d completed processing successfully: %s", correlationId, workerId, syncOp);
+                    LOG.infof("[%s] Completed processing successfully: %s", correlationId, syncOp);
+                    supersessionTracker.finish(webhookEvent);
+                    queueService.acknowledge(webhookEvent);
 
-                // Record successful retry if this was a retry attempt
-                if (retryCount > 0) {
-                    metrics.incrementRetryAttempts("SUCCESS", retryCount + 1);
-                }
+                    // Record successful retry if this was a retry attempt
+                    if (retryCount > 0) {
+                        metrics.incrementRetryAttempts("SUCCESS", retryCount + 1);
+                    }
+                });
 
             } catch (Exception e) {
                 LOG.errorf(e, "[%s] Worker %d failed to process event (attempt %d/%d): %s",
@@ -195,38 +236,38 @@ public class EventProcessor {
             String correlationId = webhookEvent.getCorrelationId();
             int retryCount = webhookEvent.getRetryCount();
 
+            if (supersessionTracker.isSuperseded(webhookEvent)) {
+                // A newer event for the principal was already submitted; retrying would reorder them
+                LOG.warnf("[%s] Not retrying, superseded by a newer event for the same principal", correlationId);
+                metrics.incrementRetryAttempts("SUPERSEDED", retryCount + 1);
+                supersessionTracker.finish(webhookEvent);
+                queueService.acknowledge(webhookEvent);
+                return;
+            }
+
             if (retryPolicy.shouldRetry(retryCount)) {
                 // Increment retry count
                 webhookEvent.incrementRetryCount();
                 int newRetryCount = webhookEvent.getRetryCount();
 
-                // Calculate backoff delay
-                long delayMs = retryPolicy.calculateBackoffDelay(newRetryCount);
+                // Calculate jittered backoff delay
+                long delayMs = retryPolicy.calculateRetryDelay(newRetryCount, webhookEvent.getRetryDelayMs());
+                webhookEvent.setRetryDelayMs(delayMs);
 
                 LOG.warnf("[%s] Scheduling retry attempt %d/%d after %dms delay",
                         correlationId, newRetryCount + 1, retryPolicy.getMaxAttempts(), delayMs);
 
-                // Schedule retry with exponential backoff
-                retryExecutor.schedule(
-                        () -> {
-                            try {
-                                queueService.enqueue(webhookEvent);
-                                metrics.incrementRetryAttempts("SCHEDULED", newRetryCount + 1);
-                            } catch (Exception e) {
-                                LOG.errorf(e, "[%s] Failed to re-enqueue event for retry", correlationId);
-                                metrics.incrementRetryAttempts("ENQUEUE_ERROR", newRetryCount + 1);
-                            }
-                        },
-                        delayMs,
-                        TimeUnit.MILLISECONDS
-                );
+                // Keep the principal tracked while the retry waits, even if the event failed before submission
+                supersessionTracker.track(webhookEvent);
+                retryScheduler.schedule(webhookEvent, delayMs);
             } else {
                 // Max retries exceeded - log permanent failure
                 LOG.errorf(error, "[%s] Event processing failed permanently after %d attempts: %s",
                         correlationId, retryCount + 1, error.getMessage());
                 metrics.incrementRetryAttempts("MAX_RETRIES_EXCEEDED", retryCount + 1);
-
-                // TODO: Store failed event for later analysis/manual intervention
+                supersessionTracker.finish(webhookEvent);
+                deadLetterStore.store(webhookEvent, error);
+                queueService.acknowledge(webhookEvent);
             }
         }
     }
@@ -3,64 +3,180 @@ package com.miimetiq.keycloak.sync.webhook;
 import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service for managing the webhook event processing queue.
  * <p>
  * Provides a bounded in-memory queue that decouples webhook ingestion
  * from event processing. Supports configurable capacity and overflow behavior.
+ * <p>
+ * The queue is partitioned into one lane per worker thread. Events are routed to a
+ * lane by the hash of their principal, so all events of one principal are consumed
+ * by the same worker in arrival order while different principals are processed in
+ * parallel. Capacity is shared across lanes.
+ * <p>
+ * {@code webhook.queue.implementation} selects the lane backend: {@code linked} (default)
+ * uses linked blocking queues, {@code ring} uses preallocated lock-free ring buffers
+ * ({@link RingBufferEventLane}) that avoid lock contention and per-event allocation under
+ * bursts. Each ring holds its share of the capacity, {@code capacity / lanes} rounded up to
+ * a power of two, so a single principal can fill its own lane before the queue as a whole
+ * is full; with {@code DROP_OLDEST} the head of that lane then makes room.
+ * <p>
+ * With {@code webhook.queue.durable} enabled, every new event is first appended to the
+ * {@link WebhookEventLog} and only then accepted, and events stay in the log until they are
+ * acknowledged. The in-memory lanes then act as a window onto the log: once they are full,
+ * new events are kept on disk only (up to {@code webhook.queue.durable.max-events}) and are
+ * paged back in, in append order, as the lanes drain. Unacknowledged events are replayed
+ * on startup.
  */
 @ApplicationScoped
 public class EventQueueService {
 
     private static final Logger LOG = Logger.getLogger(EventQueueService.class);
 
+    // Wait slice when polling across all lanes
+    private static final long ANY_LANE_POLL_SLICE_MS = 10;
+
     @ConfigProperty(name = "webhook.queue.capacity", defaultValue = "1000")
     int queueCapacity;
 
     @ConfigProperty(name = "webhook.queue.overflow-strategy", defaultValue = "REJECT")
     String overflowStrategy;
 
+    @ConfigProperty(name = "webhook.queue.worker-threads", defaultValue = "2")
+    int laneCount;
+
+    @ConfigProperty(name = "webhook.queue.implementation", defaultValue = "linked")
+    String implementation;
+
+    @ConfigProperty(name = "webhook.queue.durable", defaultValue = "false")
+    boolean durable;
+
+    @ConfigProperty(name = "webhook.queue.durable.max-events", defaultValue = "1000000")
+    long durableMaxEvents;
+
     @Inject
     MeterRegistry meterRegistry;
 
     @Inject
     SyncMetrics metrics;
 
-    private BlockingQueue<WebhookEvent> queue;
+    @Inject
+    EventMapper eventMapper;
+
+    @Inject
+    WebhookEventLog eventLog;
+
+    private List<EventLane> lanes;
+    private final AtomicInteger size = new AtomicInteger(0);
     private final AtomicInteger droppedEvents = new AtomicInteger(0);
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    // Durable mode: unacknowledged events in the log, and the paging state guarded by logLock.
+    // A ReentrantLock rather than a monitor: it is held across SQLite calls made by workers that
+    // may run on virtual threads, which must not pin their carrier thread while blocked.
+    private final AtomicLong logSize = new AtomicLong(0);
+    private final ReentrantLock logLock = new ReentrantLock();
+    private boolean spilling;
+    private long loadedUpTo;
 
     /**
      * Initialize the queue and metrics on startup.
      */
     @PostConstruct
     public void init() {
-        // Initialize queue with configured capacity
-        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        // Initialize one lane per worker; capacity is enforced across all lanes
+        int count = Math.max(1, laneCount);
+        int laneCapacity = Math.max(1, (queueCapacity + count - 1) / count);
+        this.lanes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lanes.add(createLane(laneCapacity));
+        }
 
         // Register queue backlog gauge
-        Gauge.builder("sync_queue_backlog", queue, BlockingQueue::size)
+        Gauge.builder("sync_queue_backlog", size, AtomicInteger::get)
                 .description("Number of webhook events waiting in the processing queue")
                 .register(meterRegistry);
 
+        // Register per-lane depth gauges
+        for (int i = 0; i < count; i++) {
+            Gauge.builder("sync_queue_lane_depth", lanes.get(i), EventLane::size)
+                    .description("Number of webhook events waiting in a processing queue lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+
         // Register dropped events counter
         Gauge.builder("sync_queue_dropped_total", droppedEvents, AtomicInteger::get)
                 .description("Total number of events dropped due to queue overflow")
                 .register(meterRegistry);
 
-        LOG.infof("Event queue initialized: capacity=%d, overflow-strategy=%s",
-                queueCapacity, overflowStrategy);
+        if (durable) {
+            Gauge.builder("sync_queue_durable_backlog", logSize, AtomicLong::get)
+                    .description("Number of unacknowledged webhook events in the durable event log")
+                    .register(meterRegistry);
+        }
+
+        LOG.infof("Event queue initialized: capacity=%d, lanes=%d, implementation=%s, overflow-strategy=%s, durable=%s",
+                queueCapacity, count, implementation, overflowStrategy, durable);
+    }
+
+    /**
+     * Creates a lane of the configured implementation.
+     *
+     * @param laneCapacity the lane's share of the queue capacity, used by preallocated lanes
+     */
+    private EventLane createLane(int laneCapacity) {
+        if ("ring".equalsIgnoreCase(implementation)) {
+            return new RingBufferEventLane(laneCapacity);
+        }
+        if (!"linked".equalsIgnoreCase(implementation)) {
+            LOG.warnf("Unknown webhook.queue.implementation '%s', using 'linked'", implementation);
+        }
+        return new LinkedEventLane();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (durable) {
+            replay();
+        }
+    }
+
+    /**
+     * Loads unacknowledged events from the durable log into the lanes.
+     */
+    void replay() {
+        long pendingEvents = eventLog.count();
+        // Events received from now on must be newer than those still in the log
+        advanceSequence(eventLog.maxSequence());
+        logLock.lock();
+        try {
+            logSize.set(pendingEvents);
+            loadedUpTo = 0;
+            spilling = true;
+            refill();
+        } finally {
+            logLock.unlock();
+        }
+        if (pendingEvents > 0) {
+            LOG.infof("Replaying %d unacknowledged webhook event(s) from the durable log (%d loaded into memory)",
+                    pendingEvents, size.get());
+        }
     }
 
     /**
@@ -69,6 +185,9 @@ public class EventQueueService {
      * Behavior depends on overflow strategy:
      * - REJECT: Reject new events when queue is full (returns false)
      * - DROP_OLDEST: Remove oldest event and add new one (always returns true)
+     * <p>
+     * On first enqueue the event is assigned its partition key and sequence number;
+     * retried events keep both and therefore return to the same lane.
      *
      * @param event the webhook event to enqueue
      * @return true if event was enqueued, false if rejected
@@ -79,50 +198,179 @@ public class EventQueueService {
             return false;
         }
 
-        boolean enqueued;
+        if (event.getSequence() == 0) {
+            String principal = eventMapper.resolvePrincipal(event.getEvent());
+            event.setPartitionKey(principal != null ? principal : event.getCorrelationId());
+            event.setSequence(sequence.incrementAndGet());
+        }
 
-        if ("DROP_OLDEST".equalsIgnoreCase(overflowStrategy)) {
-            // Try to offer, if full, remove oldest and try again
-            enqueued = queue.offer(event);
-            if (!enqueued) {
-                WebhookEvent dropped = queue.poll();
-                if (dropped != null) {
-                    droppedEvents.incrementAndGet();
-                    LOG.warnf("[%s] Queue full, dropped oldest event [%s] to make room",
-                            event.getCorrelationId(), dropped.getCorrelationId());
-                }
-                enqueued = queue.offer(event);
+        if (durable) {
+            return enqueueDurable(event);
+        }
+
+        boolean enqueued = reserveSlot();
+
+        if (!enqueued && "DROP_OLDEST".equalsIgnoreCase(overflowStrategy)) {
+            // Queue full: remove the head of the longest lane and take its slot
+            WebhookEvent dropped = pollLongestLane();
+            if (dropped != null) {
+                droppedEvents.incrementAndGet();
+                LOG.warnf("[%s] Queue full, dropped oldest event [%s] to make room",
+                        event.getCorrelationId(), dropped.getCorrelationId());
+                enqueued = true;
+            } else {
+                enqueued = reserveSlot();
             }
-        } else {
+        } else if (!enqueued) {
             // REJECT strategy: fail if queue is full
-            enqueued = queue.offer(event);
-            if (!enqueued) {
-                LOG.warnf("[%s] Queue full (capacity=%d), rejecting event",
-                        event.getCorrelationId(), queueCapacity);
-            }
+            LOG.warnf("[%s] Queue full (capacity=%d), rejecting event",
+                    event.getCorrelationId(), queueCapacity);
         }
 
         if (enqueued) {
-            LOG.debugf("[%s] Event enqueued, queue size: %d",
-                    event.getCorrelationId(), queue.size());
+            int lane = laneFor(event.getPartitionKey());
+            if (!addToLane(event, "DROP_OLDEST".equalsIgnoreCase(overflowStrategy))) {
+                LOG.warnf("[%s] Queue lane %d full, rejecting event", event.getCorrelationId(), lane);
+                return false;
+            }
+            LOG.debugf("[%s] Event enqueued in lane %d, queue size: %d",
+                    event.getCorrelationId(), lane, size.get());
         }
 
         return enqueued;
     }
 
     /**
-     * Poll an event from the queue with timeout.
+     * Durable enqueue: append to the log first, then place the event in memory if there is room.
+     */
+    private boolean enqueueDurable(WebhookEvent event) {
+        if (event.getLogId() != 0) {
+            // Retry of an event that is already in the log; it was admitted before, so never reject it
+            // for capacity. If its lane is full it stays in the log and is replayed on restart.
+            size.incrementAndGet();
+            return addToLane(event);
+        }
+
+        logLock.lock();
+        try {
+            if (logSize.get() >= durableMaxEvents) {
+                LOG.warnf("[%s] Durable event log full (max-events=%d), rejecting event",
+                        event.getCorrelationId(), durableMaxEvents);
+                return false;
+            }
+
+            try {
+                event.setLogId(eventLog.append(event));
+            } catch (Exception e) {
+                LOG.errorf(e, "[%s] Failed to append event to the durable event log", event.getCorrelationId());
+                return false;
+            }
+            logSize.incrementAndGet();
+
+            // While events are waiting on disk, newer ones must queue behind them to keep order
+            if (!spilling && reserveSlot() && addToLane(event)) {
+                loadedUpTo = event.getLogId();
+            } else {
+                spilling = true;
+                LOG.debugf("[%s] Queue full, event kept in the durable log only", event.getCorrelationId());
+            }
+        } finally {
+            logLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Pages events that are waiting on disk back into the lanes, up to the free capacity.
+     * Must be called while holding logLock.
+     */
+    private void refill() {
+        if (!spilling) {
+            return;
+        }
+
+        int room = queueCapacity - size.get();
+        List<WebhookEvent> events = eventLog.readAfter(loadedUpTo, room);
+        for (WebhookEvent event : events) {
+            if (event.getPartitionKey() == null) {
+                String principal = eventMapper.resolvePrincipal(event.getEvent());
+                event.setPartitionKey(principal != null ? principal : event.getCorrelationId());
+            }
+            // Retries appended again after their backoff keep their original arrival order
+            if (event.getSequence() == 0) {
+                event.setSequence(sequence.incrementAndGet());
+            }
+            size.incrementAndGet();
+            if (!addToLane(event)) {
+                return;
+            }
+            loadedUpTo = event.getLogId();
+        }
+
+        if (events.size() < room) {
+            spilling = false;
+        }
+    }
+
+    /**
+     * Moves the sequence counter past a sequence assigned before a restart, so that events
+     * received from now on are newer than restored ones.
+     *
+     * @param restored a sequence read back from the agent database
+     */
+    public void advanceSequence(long restored) {
+        sequence.accumulateAndGet(restored, Math::max);
+    }
+
+    /**
+     * Acknowledge that an event has been processed for good (succeeded, ignored or given up).
      * <p>
-     * Blocks until an event is available or timeout expires.
+     * In durable mode the event is removed from the log by its next compaction; otherwise
+     * this is a no-op.
+     *
+     * @param event the finished event
+     */
+    public void acknowledge(WebhookEvent event) {
+        if (durable && event.getLogId() != 0) {
+            eventLog.acknowledge(event.getLogId());
+            logSize.decrementAndGet();
+        }
+    }
+
+    /**
+     * Poll an event from any lane with timeout.
+     * <p>
+     * Blocks until an event is available or timeout expires. Workers drain their own
+     * lane with {@link #drainLane(int, int, long, TimeUnit)}; this method is meant for
+     * callers that do not care about partitioning.
      *
      * @param timeout the maximum time to wait
      * @param unit the time unit of the timeout
      * @return the event, or empty if timeout expires
      */
     public Optional<WebhookEvent> poll(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int start = 0;
         try {
-            WebhookEvent event = queue.poll(timeout, unit);
-            return Optional.ofNullable(event);
+            while (true) {
+                for (int i = 0; i < lanes.size(); i++) {
+                    WebhookEvent event = takeFrom(lanes.get((start + i) % lanes.size()).poll());
+                    if (event != null) {
+                        return Optional.of(event);
+                    }
+                }
+
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return Optional.empty();
+                }
+                start = (start + 1) % lanes.size();
+                WebhookEvent event = takeFrom(lanes.get(start)
+                        .poll(Math.min(remainingMs, ANY_LANE_POLL_SLICE_MS), TimeUnit.MILLISECONDS));
+                if (event != null) {
+                    return Optional.of(event);
+                }
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             LOG.warn("Interrupted while polling queue", e);
@@ -130,13 +378,72 @@ public class EventQueueService {
         }
     }
 
+    /**
+     * Drain up to {@code maxEvents} events from one lane.
+     * <p>
+     * Blocks until at least one event is available in the lane or the timeout expires,
+     * then takes whatever else is already queued in the lane without waiting further.
+     *
+     * @param lane the lane index, between 0 and {@link #laneCount()} - 1
+     * @param maxEvents the maximum number of events to return
+     * @param timeout the maximum time to wait for the first event
+     * @param unit the time unit of the timeout
+     * @return the drained events in lane order, empty if the timeout expires
+     */
+    public List<WebhookEvent> drainLane(int lane, int maxEvents, long timeout, TimeUnit unit) {
+        List<WebhookEvent> events = new ArrayList<>();
+        EventLane queue = lanes.get(lane);
+        try {
+            WebhookEvent first = takeFrom(queue.poll(timeout, unit));
+            if (first != null) {
+                events.add(first);
+                int drained = queue.drainTo(events, Math.max(0, maxEvents - 1));
+                size.addAndGet(-drained);
+                refillIfDrained();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while draining queue lane", e);
+        }
+        return events;
+    }
+
+    /**
+     * Lane an event with the given partition key is routed to.
+     *
+     * @param partitionKey the event's partition key
+     * @return the lane index
+     */
+    public int laneFor(String partitionKey) {
+        return partitionKey == null ? 0 : Math.floorMod(partitionKey.hashCode(), lanes.size());
+    }
+
+    /**
+     * Get the number of lanes.
+     *
+     * @return number of queue lanes
+     */
+    public int laneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Get the number of events waiting in one lane.
+     *
+     * @param lane the lane index
+     * @return number of events in the lane
+     */
+    public int laneSize(int lane) {
+        return lanes.get(lane).size();
+    }
+
     /**
      * Get current queue size.
      *
      * @return number of events in queue
      */
     public int size() {
-        return queue.size();
+        return size.get();
     }
 
     /**
@@ -170,7 +477,86 @@ public class EventQueueService {
      * Clear all events from the queue (for testing).
      */
     public void clear() {
-        queue.clear();
+        for (EventLane lane : lanes) {
+            List<WebhookEvent> removed = new ArrayList<>();
+            size.addAndGet(-lane.drainTo(removed, Integer.MAX_VALUE));
+        }
         LOG.debug("Queue cleared");
     }
+
+    /**
+     * Pages spilled events back in once the lanes have drained to half their capacity.
+     */
+    private void refillIfDrained() {
+        if (durable && size.get() <= queueCapacity / 2) {
+            logLock.lock();
+            try {
+                refill();
+            } catch (Exception e) {
+                // Events stay in the log; the next drain tries again
+                LOG.warnf(e, "Failed to read spilled events from the durable event log: %s", e.getMessage());
+            } finally {
+                logLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds an event to its lane; the caller must have reserved a capacity slot for it,
+     * which is released again if the lane is full.
+     */
+    private boolean addToLane(WebhookEvent event) {
+        return addToLane(event, false);
+    }
+
+    /**
+     * Adds an event to its lane like {@link #addToLane(WebhookEvent)}; with {@code dropOldest}
+     * a full lane drops its own head to make room instead of rejecting the event.
+     */
+    private boolean addToLane(WebhookEvent event, boolean dropOldest) {
+        EventLane lane = lanes.get(laneFor(event.getPartitionKey()));
+        while (!lane.offer(event)) {
+            WebhookEvent dropped = dropOldest ? takeFrom(lane.poll()) : null;
+            if (dropped == null) {
+                size.decrementAndGet();
+                return false;
+            }
+            droppedEvents.incrementAndGet();
+            LOG.warnf("[%s] Queue lane full, dropped oldest event [%s] to make room",
+                    event.getCorrelationId(), dropped.getCorrelationId());
+        }
+        return true;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= queueCapacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the head of the longest lane, keeping its capacity slot reserved for the caller.
+     */
+    private WebhookEvent pollLongestLane() {
+        EventLane longest = lanes.get(0);
+        for (EventLane lane : lanes) {
+            if (lane.size() > longest.size()) {
+                longest = lane;
+            }
+        }
+        return longest.poll();
+    }
+
+    private WebhookEvent takeFrom(WebhookEvent event) {
+        if (event != null) {
+            size.decrementAndGet();
+        }
+        return event;
+    }
 }
@@ -0,0 +1,134 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for a large number of coarse-grained timeouts.
+ * <p>
+ * Timeouts are hashed by their deadline tick into a fixed ring of buckets; a timeout more
+ * than one revolution away counts down the remaining rounds each time its bucket comes
+ * up. Adding is O(1) and thread-safe (items are handed over through a lock-free queue),
+ * while {@link #advance(long, Consumer)} must only be called from a single thread. Items
+ * expire at the first tick boundary at or after their deadline, never before it.
+ *
+ * @param <T> type of the scheduled items
+ */
+class HashedTimerWheel<T> {
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    private final List<List<Entry<T>>> buckets;
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Number of ticks processed; only touched by the advancing thread
+    private long tick;
+
+    /**
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param tickDuration  length of one tick
+     * @param unit          time unit of the tick duration
+     * @param startNanos    {@link System#nanoTime()} the wheel starts at
+     */
+    HashedTimerWheel(int ticksPerWheel, long tickDuration, TimeUnit unit, long startNanos) {
+        if (ticksPerWheel <= 0 || tickDuration <= 0) {
+            throw new IllegalArgumentException("Wheel size and tick duration must be positive");
+        }
+        int wheelSize = Integer.highestOneBit(Math.max(2, ticksPerWheel) - 1) << 1;
+        this.mask = wheelSize - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = startNanos;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules an item; may be called from any thread.
+     *
+     * @param item          the item
+     * @param deadlineNanos {@link System#nanoTime()} at which the item expires
+     */
+    void add(T item, long deadlineNanos) {
+        incoming.add(new Entry<>(item, deadlineNanos - startNanos));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Processes all ticks that have fully elapsed and hands expired items to the consumer.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @param expired  receives expired items in tick order
+     * @return number of expired items
+     */
+    int advance(long nowNanos, Consumer<T> expired) {
+        int count = 0;
+        while (nowNanos - startNanos >= (tick + 1) * tickNanos) {
+            transferIncoming();
+
+            Iterator<Entry<T>> iterator = buckets.get((int) (tick & mask)).iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.remainingRounds <= 0) {
+                    iterator.remove();
+                    size.decrementAndGet();
+                    expired.accept(entry.item);
+                    count++;
+                } else {
+                    entry.remainingRounds--;
+                }
+            }
+            tick++;
+        }
+        return count;
+    }
+
+    /**
+     * {@link System#nanoTime()} at which the next tick elapses.
+     *
+     * @return deadline of the next tick
+     */
+    long nextTickNanos() {
+        return startNanos + (tick + 1) * tickNanos;
+    }
+
+    /**
+     * Number of scheduled items that have not expired yet.
+     *
+     * @return pending item count
+     */
+    int size() {
+        return size.get();
+    }
+
+    private void transferIncoming() {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            long calculated = Math.max(0, entry.deadline) / tickNanos;
+            entry.remainingRounds = (calculated - tick) / buckets.size();
+            // Deadlines already in the past expire on the current tick
+            long ticks = Math.max(calculated, tick);
+            buckets.get((int) (ticks & mask)).add(entry);
+        }
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final long deadline;
+        long remainingRounds;
+
+        Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
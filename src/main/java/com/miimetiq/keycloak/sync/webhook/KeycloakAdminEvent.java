@@ -2,6 +2,7 @@ package com.miimetiq.keycloak.sync.webhook;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.miimetiq.keycloak.sync.config.SensitiveDataMasker;
 
 /**
  * DTO representing a Keycloak Admin Event received via webhook.
@@ -129,6 +130,21 @@ public class KeycloakAdminEvent {
         this.error = error;
     }
 
+    /**
+     * Copy of this event that is safe to persist: the representation has its credentials
+     * removed and its secrets masked with {@link SensitiveDataMasker#maskJson(String)}.
+     * Processing does not read the representation, so the copy replays like the original.
+     *
+     * @return the masked copy
+     */
+    public KeycloakAdminEvent withMaskedRepresentation() {
+        KeycloakAdminEvent copy = new KeycloakAdminEvent(id, time, realmId, resourceType, operationType, resourcePath);
+        copy.setAuthDetails(authDetails);
+        copy.setRepresentation(SensitiveDataMasker.maskJson(representation));
+        copy.setError(error);
+        return copy;
+    }
+
     /**
      * Nested DTO for authentication details within an admin event.
      */
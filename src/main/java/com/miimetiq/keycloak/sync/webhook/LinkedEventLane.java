@@ -0,0 +1,38 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unbounded lane backed by a {@link LinkedBlockingQueue}.
+ */
+class LinkedEventLane implements EventLane {
+
+    private final LinkedBlockingQueue<WebhookEvent> queue = new LinkedBlockingQueue<>();
+
+    @Override
+    public boolean offer(WebhookEvent event) {
+        return queue.offer(event);
+    }
+
+    @Override
+    public WebhookEvent poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public WebhookEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(Collection<? super WebhookEvent> target, int maxEvents) {
+        return queue.drainTo(target, maxEvents);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
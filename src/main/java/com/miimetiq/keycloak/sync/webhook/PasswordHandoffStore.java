@@ -0,0 +1,368 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded store handing plain-text passwords from the password webhook to the next SCRAM upsert.
+ * <p>
+ * Each password is kept as UTF-8 in its own direct buffer outside the Java heap and is
+ * overwritten with zeros as soon as it is taken, replaced or expires, so it does not linger as
+ * a heap {@code String} until the garbage collector gets to it. The store holds at most
+ * {@code webhook.password-store.max-entries} passwords; further passwords for new users are
+ * rejected until entries are taken or expire. Entries expire {@code webhook.password-store.ttl-ms}
+ * after they were stored, driven by a {@link HashedTimerWheel} advanced every
+ * {@code webhook.password-store.tick-ms}; a password taken after its deadline but before the
+ * wheel reached it counts as a miss.
+ * <p>
+ * {@link #takeAll(Collection)} looks up a whole page of principals at once and updates the
+ * hit and miss counters once per page. Each password is returned with the time it was
+ * received, so its consumer can measure how long it took to reach Kafka.
+ */
+@ApplicationScoped
+public class PasswordHandoffStore {
+
+    private static final Logger LOG = Logger.getLogger(PasswordHandoffStore.class);
+
+    private static final int WHEEL_SIZE = 512;
+
+    @ConfigProperty(name = "webhook.password-store.max-entries", defaultValue = "100000")
+    int maxEntries;
+
+    @ConfigProperty(name = "webhook.password-store.ttl-ms", defaultValue = "900000")
+    long ttlMs;
+
+    @ConfigProperty(name = "webhook.password-store.tick-ms", defaultValue = "1000")
+    long tickMs;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger occupancy = new AtomicInteger();
+    private final AtomicLong occupiedBytes = new AtomicLong();
+
+    private HashedTimerWheel<Entry> wheel;
+    private Counter hits;
+    private Counter misses;
+    private Counter expired;
+    private Counter rejected;
+
+    private volatile boolean running;
+    private Thread wheelThread;
+
+    @PostConstruct
+    void init() {
+        wheel = new HashedTimerWheel<>(WHEEL_SIZE, tickMs, TimeUnit.MILLISECONDS, System.nanoTime());
+
+        hits = Counter.builder("sync_password_store_lookups_total")
+                .description("Password lookups in the webhook password store")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("sync_password_store_lookups_total")
+                .description("Password lookups in the webhook password store")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        expired = Counter.builder("sync_password_store_evictions_total")
+                .description("Passwords removed from the webhook password store without being used")
+                .tag("reason", "expired")
+                .register(meterRegistry);
+        rejected = Counter.builder("sync_password_store_evictions_total")
+                .description("Passwords removed from the webhook password store without being used")
+                .tag("reason", "capacity")
+                .register(meterRegistry);
+        Gauge.builder("sync_password_store_entries", occupancy, AtomicInteger::get)
+                .description("Passwords waiting in the webhook password store")
+                .register(meterRegistry);
+        Gauge.builder("sync_password_store_bytes", occupiedBytes, AtomicLong::get)
+                .description("Off-heap bytes held by passwords in the webhook password store")
+                .register(meterRegistry);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        start();
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Starts the expiry thread.
+     */
+    void start() {
+        running = true;
+        wheelThread = new Thread(this::runWheel, "password-store-wheel");
+        wheelThread.setDaemon(true);
+        wheelThread.start();
+
+        LOG.infof("PasswordHandoffStore started: max %d entries, TTL %dms", maxEntries, ttlMs);
+    }
+
+    /**
+     * Stops the expiry thread and zeroes all stored passwords.
+     */
+    void stop() {
+        if (running) {
+            running = false;
+            LockSupport.unpark(wheelThread);
+            try {
+                wheelThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Stores a password, replacing a password still waiting for the same user.
+     *
+     * @param username the username the password belongs to
+     * @param password the plain-text password
+     * @return false if the store is full and the password was rejected
+     */
+    public boolean put(String username, String password) {
+        if (occupancy.incrementAndGet() > maxEntries && !entries.containsKey(username)) {
+            occupancy.decrementAndGet();
+            rejected.increment();
+            LOG.warnf("Password store full (%d entries), rejected password for user: %s", maxEntries, username);
+            return false;
+        }
+
+        Entry entry = newEntry(username, password, System.nanoTime());
+        Entry previous = entries.put(username, entry);
+        if (previous != null) {
+            release(previous);
+        }
+        wheel.add(entry, entry.deadlineNanos);
+        return true;
+    }
+
+    /**
+     * Puts back a password that was taken but could not be written to Kafka.
+     * <p>
+     * A newer password received in the meantime takes precedence and is kept.
+     *
+     * @param username the username the password belongs to
+     * @param handoff  the password as it was taken
+     */
+    public void restore(String username, Handoff handoff) {
+        if (occupancy.incrementAndGet() > maxEntries) {
+            occupancy.decrementAndGet();
+            rejected.increment();
+            LOG.warnf("Password store full (%d entries), could not restore password for user: %s",
+                    maxEntries, username);
+            return;
+        }
+
+        Entry entry = newEntry(username, handoff.password(), handoff.receivedNanos());
+        if (entries.putIfAbsent(username, entry) == null) {
+            wheel.add(entry, entry.deadlineNanos);
+            LOG.debugf("Restored password for user: %s", username);
+        } else {
+            release(entry);
+        }
+    }
+
+    /**
+     * Takes a password out of the store.
+     *
+     * @param username the username
+     * @return the password, or null if none is waiting
+     */
+    public String take(String username) {
+        Handoff handoff = remove(username, System.nanoTime());
+        (handoff != null ? hits : misses).increment();
+        return handoff != null ? handoff.password() : null;
+    }
+
+    /**
+     * Takes the passwords of several users out of the store.
+     *
+     * @param usernames the usernames, e.g. the upserts of one reconciliation page
+     * @return passwords keyed by username, in the order given, for the users that had one
+     */
+    public Map<String, Handoff> takeAll(Collection<String> usernames) {
+        long nowNanos = System.nanoTime();
+        Map<String, Handoff> passwords = new LinkedHashMap<>();
+        for (String username : usernames) {
+            Handoff handoff = remove(username, nowNanos);
+            if (handoff != null) {
+                passwords.put(username, handoff);
+            }
+        }
+        hits.increment(passwords.size());
+        misses.increment(usernames.size() - passwords.size());
+        return passwords;
+    }
+
+    /**
+     * Checks whether a password is waiting for a user without taking it.
+     *
+     * @param username the username
+     * @return true if a password is stored for the user
+     */
+    public boolean contains(String username) {
+        Entry entry = entries.get(username);
+        return entry != null && entry.deadlineNanos - System.nanoTime() > 0;
+    }
+
+    /**
+     * Number of stored passwords.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return occupancy.get();
+    }
+
+    /**
+     * Zeroes and removes all stored passwords.
+     */
+    public void clear() {
+        int cleared = 0;
+        for (Entry entry : entries.values()) {
+            if (entries.remove(entry.username, entry)) {
+                release(entry);
+                cleared++;
+            }
+        }
+        if (cleared > 0) {
+            LOG.infof("Cleared password store (%d entries removed)", cleared);
+        }
+    }
+
+    /**
+     * Expires the entries whose deadline passed up to the given time.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return number of entries expired
+     */
+    int expire(long nowNanos) {
+        int[] count = {0};
+        wheel.advance(nowNanos, entry -> {
+            // Entries taken or replaced in the meantime are no longer mapped
+            if (entries.remove(entry.username, entry)) {
+                release(entry);
+                count[0]++;
+            }
+        });
+        if (count[0] > 0) {
+            expired.increment(count[0]);
+            LOG.debugf("Expired %d unused password(s)", count[0]);
+        }
+        return count[0];
+    }
+
+    private void runWheel() {
+        while (running) {
+            long waitNanos = wheel.nextTickNanos() - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+
+            try {
+                expire(System.nanoTime());
+            } catch (Exception e) {
+                LOG.errorf(e, "Password store expiry failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    private Handoff remove(String username, long nowNanos) {
+        Entry entry = entries.remove(username);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.deadlineNanos - nowNanos <= 0) {
+            release(entry);
+            expired.increment();
+            return null;
+        }
+
+        byte[] bytes = new byte[entry.value.capacity()];
+        try {
+            entry.value.get(0, bytes);
+            return new Handoff(new String(bytes, StandardCharsets.UTF_8), entry.receivedNanos);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+            release(entry);
+        }
+    }
+
+    private Entry newEntry(String username, String password, long receivedNanos) {
+        byte[] bytes = password.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer value = ByteBuffer.allocateDirect(bytes.length);
+        value.put(0, bytes);
+        Arrays.fill(bytes, (byte) 0);
+        occupiedBytes.addAndGet(bytes.length);
+        return new Entry(username, value, receivedNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+    }
+
+    /**
+     * Zeroes an entry that is no longer mapped and gives back its share of the occupancy.
+     */
+    private void release(Entry entry) {
+        ByteBuffer value = entry.value;
+        for (int i = 0; i < value.capacity(); i++) {
+            value.put(i, (byte) 0);
+        }
+        occupancy.decrementAndGet();
+        occupiedBytes.addAndGet(-value.capacity());
+    }
+
+    /**
+     * A stored password; compared by identity so expiry only removes the entry it scheduled.
+     */
+    private static final class Entry {
+        final String username;
+        final ByteBuffer value;
+        final long receivedNanos;
+        final long deadlineNanos;
+
+        Entry(String username, ByteBuffer value, long receivedNanos, long deadlineNanos) {
+            this.username = username;
+            this.value = value;
+            this.receivedNanos = receivedNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * A password taken from the store.
+     *
+     * @param password      the plain-text password
+     * @param receivedNanos {@link System#nanoTime()} at which the webhook delivered it
+     */
+    public record Handoff(String password, long receivedNanos) {
+
+        @Override
+        public String toString() {
+            // Don't log password!
+            return "Handoff{password=***, receivedNanos=" + receivedNanos + "}";
+        }
+    }
+}
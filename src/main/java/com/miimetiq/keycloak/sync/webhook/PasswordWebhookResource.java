@@ -1,12 +1,22 @@
 package com.miimetiq.keycloak.sync.webhook;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * REST endpoint for receiving password reset events from Keycloak Password Sync SPI.
@@ -19,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * <p>
  * Endpoints:
  * - POST /api/webhook/password: receive password reset events from Keycloak SPI
+ * - POST /api/webhook/password/batch: receive many events as a JSON array or NDJSON stream
  */
 @Path("/api/webhook/password")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,10 +38,21 @@ public class PasswordWebhookResource {
 
     private static final Logger LOG = Logger.getLogger(PasswordWebhookResource.class);
 
-    // Store passwords temporarily (in-memory cache)
-    // Key: username, Value: plain-text password
+    static final String NDJSON = "application/x-ndjson";
+
+    // Holds passwords until the next upsert uses them
     // TODO: In production, use secure secret management (HashiCorp Vault, AWS Secrets Manager, etc.)
-    private static final Map<String, String> PASSWORD_CACHE = new ConcurrentHashMap<>();
+    @Inject
+    PasswordHandoffStore passwordStore;
+
+    @Inject
+    SyncOperationExecutor syncOperationExecutor;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "webhook.password.push-immediately", defaultValue = "true")
+    boolean pushImmediately;
 
     /**
      * Receive a password reset event from Keycloak Password Sync SPI.
@@ -38,11 +60,16 @@ public class PasswordWebhookResource {
      * The Keycloak SPI intercepts password reset operations and sends the
      * plain-text password to this endpoint BEFORE Keycloak hashes it.
      * <p>
-     * The password is stored temporarily in memory until the next reconciliation
-     * cycle uses it to create matching Kafka SCRAM credentials.
+     * The password is stored temporarily in the {@link PasswordHandoffStore} and an upsert
+     * for the user is submitted to the {@link SyncOperationExecutor}, which writes it to Kafka
+     * with the next webhook micro-batch instead of waiting for the next reconciliation cycle.
+     * The response does not wait for Kafka; if the upsert fails, the password is kept for the
+     * retry or the next reconciliation. With {@code webhook.password.push-immediately} disabled
+     * only the reconciliation writes stored passwords.
      * <p>
      * Returns 200 OK if the password is successfully stored.
      * Returns 400 Bad Request if the payload is malformed.
+     * Returns 503 Service Unavailable if the password store is full.
      *
      * @param event the password event from Keycloak SPI
      * @return response indicating success or failure
@@ -50,40 +77,32 @@ public class PasswordWebhookResource {
     @POST
     public Response receivePassword(PasswordEvent event) {
         try {
-            // Validate payload
-            if (event == null) {
-                LOG.warn("Received null password event");
+            // Validate payload and required fields
+            String invalid = validationError(event);
+            if (invalid != null) {
+                LOG.warnf("Rejected password event: %s (%s)", invalid, event);
                 return Response
                         .status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("Password event is required"))
+                        .entity(new ErrorResponse(invalid))
                         .build();
             }
 
-            // Validate required fields
-            if (event.username == null || event.username.isBlank()) {
-                LOG.warnf("Received password event with missing username: %s", event);
-                return Response
-                        .status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("Username is required"))
-                        .build();
-            }
+            // Log received event (don't log the actual password!)
+            LOG.infof("Received password event for user: %s (realmId: %s, userId: %s)",
+                    event.username, event.realmId, event.userId);
 
-            if (event.password == null || event.password.isBlank()) {
-                LOG.warnf("Received password event with missing password for user: %s", event.username);
+            // Store password for reconciliation
+            if (!passwordStore.put(event.username, event.password)) {
                 return Response
-                        .status(Response.Status.BAD_REQUEST)
-                        .entity(new ErrorResponse("Password is required"))
+                        .status(Response.Status.SERVICE_UNAVAILABLE)
+                        .entity(new ErrorResponse("Password store is full"))
                         .build();
             }
+            LOG.debugf("Stored password for user: %s (store size: %d)", event.username, passwordStore.size());
 
-            // Log received event (don't log the actual password!)
-            LOG.infof("Received password event for user: %s (realmId: %s, userId: %s)",
-                    event.username, event.realmId, event.userId);
-
-            // Store password in cache for reconciliation
-            PASSWORD_CACHE.put(event.username, event.password);
-            LOG.debugf("Stored password in cache for user: %s (cache size: %d)",
-                    event.username, PASSWORD_CACHE.size());
+            if (pushImmediately) {
+                pushPassword(event);
+            }
 
             // Return success
             return Response
@@ -100,43 +119,136 @@ public class PasswordWebhookResource {
     }
 
     /**
-     * Retrieve and remove a password from the cache.
+     * Receive many password events in one request, e.g. from a bulk user import.
      * <p>
-     * This method is called by ReconciliationService during sync operations.
-     * The password is returned once and then removed from the cache.
+     * The body is either a JSON array of password events or newline-delimited JSON
+     * ({@value #NDJSON}) with one event per line. It is read with Jackson's streaming
+     * parser and every event is validated and stored as soon as it has been parsed, so the
+     * body is never held in memory as a whole. Stored passwords are pushed to Kafka as with
+     * the single-event endpoint.
      * <p>
-     * Thread-safe: Uses ConcurrentHashMap.remove() for atomic get-and-remove.
+     * Returns 200 OK with one result per event, in body order; invalid events and events
+     * rejected by a full password store are reported in their result without affecting
+     * the others. Returns 400 Bad Request if the body is not well-formed JSON; events
+     * before the error were stored and are listed in the results.
      *
-     * @param username the username to retrieve password for
-     * @return the plain-text password, or null if not found
+     * @param body the request body
+     * @return per-event results
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    public Response receivePasswordBatch(InputStream body) {
+        BatchResponse response = new BatchResponse();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                int index = response.results.size();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    response.add(new ItemResult(index, null, ItemResult.INVALID, "Password event must be a JSON object"));
+                } else {
+                    response.add(ingest(index, readEvent(parser)));
+                }
+                token = parser.nextToken();
+            }
+            if (array && token == null) {
+                throw new JsonParseException(parser, "Unexpected end of JSON array");
+            }
+        } catch (JsonProcessingException e) {
+            LOG.warnf("Malformed password batch after %d event(s): %s", response.received, e.getOriginalMessage());
+            response.error = "Malformed JSON after " + response.received + " event(s): " + e.getOriginalMessage();
+            return Response.status(Response.Status.BAD_REQUEST).entity(response).build();
+        } catch (IOException e) {
+            LOG.errorf(e, "Failed to read password batch: %s", e.getMessage());
+            response.error = "Failed to read password batch: " + e.getMessage();
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(response).build();
+        }
+
+        LOG.infof("Received password batch: %d event(s), %d stored, %d failed",
+                response.received, response.stored, response.failed);
+        return Response.ok(response).build();
+    }
+
+    /**
+     * Reads the fields of one password event; the parser is positioned on its START_OBJECT.
      */
-    public static String getPasswordForUser(String username) {
-        String password = PASSWORD_CACHE.remove(username);
-        if (password != null) {
-            LOG.debugf("Retrieved and removed password from cache for user: %s (cache size: %d)",
-                    username, PASSWORD_CACHE.size());
-        } else {
-            LOG.debugf("No password found in cache for user: %s", username);
-        }
-        return password;
+    private static PasswordEvent readEvent(JsonParser parser) throws IOException {
+        PasswordEvent event = new PasswordEvent();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!value.isScalarValue()) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+            switch (field) {
+                case "realmId" -> event.realmId = text;
+                case "username" -> event.username = text;
+                case "userId" -> event.userId = text;
+                case "password" -> event.password = text;
+                default -> {
+                    // Ignore unknown fields
+                }
+            }
+        }
+        return event;
     }
 
     /**
-     * Clear all passwords from the cache.
-     * <p>
-     * Useful for testing or periodic cleanup.
+     * Validates and stores one event of a batch.
      */
-    public static void clearPasswordCache() {
-        int size = PASSWORD_CACHE.size();
-        PASSWORD_CACHE.clear();
-        LOG.infof("Cleared password cache (%d entries removed)", size);
+    private ItemResult ingest(int index, PasswordEvent event) {
+        String invalid = validationError(event);
+        if (invalid != null) {
+            return new ItemResult(index, event.username, ItemResult.INVALID, invalid);
+        }
+        if (!passwordStore.put(event.username, event.password)) {
+            return new ItemResult(index, event.username, ItemResult.REJECTED, "Password store is full");
+        }
+        if (pushImmediately) {
+            pushPassword(event);
+        }
+        return new ItemResult(index, event.username, ItemResult.STORED, null);
+    }
+
+    /**
+     * Checks the required fields of a password event.
+     *
+     * @return the validation error, or null if the event is valid
+     */
+    private static String validationError(PasswordEvent event) {
+        if (event == null) {
+            return "Password event is required";
+        }
+        if (event.username == null || event.username.isBlank()) {
+            return "Username is required";
+        }
+        if (event.password == null || event.password.isBlank()) {
+            return "Password is required";
+        }
+        return null;
     }
 
     /**
-     * Get current cache size (for monitoring/testing).
+     * Submits the upsert writing a just stored password to Kafka.
      */
-    public static int getCacheSize() {
-        return PASSWORD_CACHE.size();
+    private void pushPassword(PasswordEvent event) {
+        String correlationId = UUID.randomUUID().toString();
+        syncOperationExecutor.submit(correlationId,
+                        new SyncOperation(SyncOperation.Type.UPSERT, event.realmId, event.username, true))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        LOG.warnf("[%s] Immediate password push failed for user %s, left to reconciliation: %s",
+                                correlationId, event.username, error.getMessage());
+                    }
+                });
     }
 
     /**
@@ -182,6 +294,51 @@ public class PasswordWebhookResource {
         }
     }
 
+    /**
+     * Response DTO for password batches.
+     */
+    public static class BatchResponse {
+        public int received;
+        public int stored;
+        public int failed;
+        public String error;
+        public List<ItemResult> results = new ArrayList<>();
+
+        void add(ItemResult result) {
+            results.add(result);
+            received++;
+            if (ItemResult.STORED.equals(result.status)) {
+                stored++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    /**
+     * Result of one event of a password batch.
+     */
+    public static class ItemResult {
+        public static final String STORED = "STORED";
+        public static final String INVALID = "INVALID";
+        public static final String REJECTED = "REJECTED";
+
+        public int index;
+        public String username;
+        public String status;
+        public String error;
+
+        public ItemResult() {
+        }
+
+        public ItemResult(int index, String username, String status, String error) {
+            this.index = index;
+            this.username = username;
+            this.status = status;
+            this.error = error;
+        }
+    }
+
     /**
      * Response DTO for errors.
      */
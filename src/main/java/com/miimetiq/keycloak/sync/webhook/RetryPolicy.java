@@ -3,11 +3,17 @@ package com.miimetiq.keycloak.sync.webhook;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Retry policy with exponential backoff for failed event processing.
  * <p>
  * Implements exponential backoff with a base delay and maximum delay cap.
  * Formula: delay = min(base_delay * 2^(attempt - 1), max_delay)
+ * <p>
+ * With {@code webhook.retry.jitter=decorrelated} (default) retries use decorrelated jitter
+ * instead, so events that failed together do not all come back at the same instant.
+ * Formula: delay = min(max_delay, random(base_delay, previous_delay * 3))
  */
 @ApplicationScoped
 public class RetryPolicy {
@@ -21,6 +27,9 @@ public class RetryPolicy {
     @ConfigProperty(name = "webhook.retry.max-delay-ms", defaultValue = "30000")
     long maxDelayMs;
 
+    @ConfigProperty(name = "webhook.retry.jitter", defaultValue = "decorrelated")
+    String jitter;
+
     /**
      * Check if an event should be retried based on its retry count.
      *
@@ -57,6 +66,30 @@ public class RetryPolicy {
         return Math.min(delay, maxDelayMs);
     }
 
+    /**
+     * Calculate the delay of the next retry, with jitter if enabled.
+     * <p>
+     * Decorrelated jitter draws the delay uniformly between the base delay and three times
+     * the previous delay, capped at the maximum delay. Without jitter this is
+     * {@link #calculateBackoffDelay(int)}.
+     *
+     * @param retryCount      retry count of the upcoming retry (1 for the first retry)
+     * @param previousDelayMs delay before the previous retry, 0 if there was none
+     * @return delay in milliseconds before the next retry
+     */
+    public long calculateRetryDelay(int retryCount, long previousDelayMs) {
+        if (!"decorrelated".equalsIgnoreCase(jitter)) {
+            return calculateBackoffDelay(retryCount);
+        }
+
+        long previous = Math.max(baseDelayMs, previousDelayMs);
+        long upper = Math.min(maxDelayMs, previous * 3);
+        if (upper <= baseDelayMs) {
+            return Math.min(baseDelayMs, maxDelayMs);
+        }
+        return ThreadLocalRandom.current().nextLong(baseDelayMs, upper + 1);
+    }
+
     /**
      * Get maximum number of retry attempts.
      *
@@ -0,0 +1,313 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.sync.domain.entity.WebhookRetryRecord;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.repository.WebhookRetryRepository;
+import com.miimetiq.keycloak.sync.webhook.DownstreamLimiter.Downstream;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Schedules retries of failed webhook events on a {@link HashedTimerWheel}.
+ * <p>
+ * A single thread advances the wheel every {@code webhook.retry.tick-ms}. Retries that
+ * have come due are handed back to the {@link EventQueueService} at no more than
+ * {@code webhook.retry.release-rate} events per second, so a burst of failures during an
+ * outage does not come back as a burst; due retries that find the queue full wait for
+ * the next tick.
+ * <p>
+ * With {@code webhook.retry.persistent} enabled (default) every pending retry is stored with
+ * its due time and sequence in the agent database, with the credentials in its representation
+ * removed, and rescheduled on startup. Restored retries keep their sequence and are tracked by
+ * the {@link SupersessionTracker} again, so a newer event of the same principal received after
+ * the restart still supersedes them. An event from the durable
+ * event log is acknowledged there once its retry has been stored, since the retry record
+ * now owns it.
+ */
+@ApplicationScoped
+public class RetryScheduler {
+
+    private static final Logger LOG = Logger.getLogger(RetryScheduler.class);
+
+    @ConfigProperty(name = "webhook.retry.tick-ms", defaultValue = "100")
+    long tickMs;
+
+    @ConfigProperty(name = "webhook.retry.wheel-size", defaultValue = "512")
+    int wheelSize;
+
+    @ConfigProperty(name = "webhook.retry.release-rate", defaultValue = "200")
+    int releaseRate;
+
+    @ConfigProperty(name = "webhook.retry.persistent", defaultValue = "true")
+    boolean persistent;
+
+    @Inject
+    EventQueueService queueService;
+
+    @Inject
+    SupersessionTracker supersessionTracker;
+
+    @Inject
+    WebhookRetryRepository repository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DownstreamLimiter downstreamLimiter;
+
+    @Inject
+    SyncMetrics metrics;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private HashedTimerWheel<PendingRetry> wheel;
+
+    // Retries that have come due but were not released yet; only touched by the wheel thread
+    private final Deque<PendingRetry> due = new ArrayDeque<>();
+    private volatile int dueCount;
+
+    private volatile boolean running;
+    private Thread wheelThread;
+
+    void onStart(@Observes StartupEvent event) {
+        start();
+        if (persistent) {
+            restore();
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Starts the wheel thread.
+     */
+    void start() {
+        wheel = new HashedTimerWheel<>(wheelSize, tickMs, TimeUnit.MILLISECONDS, System.nanoTime());
+        Gauge.builder("sync_retry_pending", this, RetryScheduler::getPendingCount)
+                .description("Number of webhook events waiting for their retry")
+                .register(meterRegistry);
+
+        running = true;
+        wheelThread = new Thread(this::runWheel, "webhook-retry-wheel");
+        wheelThread.setDaemon(true);
+        wheelThread.start();
+
+        LOG.infof("RetryScheduler started: tick %dms, wheel size %d, release rate %d/s, persistent=%s",
+                tickMs, wheelSize, releaseRate, persistent);
+    }
+
+    /**
+     * Stops the wheel thread. Persisted retries are rescheduled on the next start.
+     */
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(wheelThread);
+        try {
+            wheelThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int pending = getPendingCount();
+        if (pending > 0) {
+            LOG.infof("RetryScheduler stopped with %d pending retr%s%s", pending, pending == 1 ? "y" : "ies",
+                    persistent ? " (persisted)" : " (discarded)");
+        }
+    }
+
+    /**
+     * Schedules the retry of a failed event.
+     *
+     * @param event   the failed event, with its retry count already incremented
+     * @param delayMs delay before the event is handed back to the queue
+     */
+    public void schedule(WebhookEvent event, long delayMs) {
+        Long recordId = persistent ? persist(event, delayMs) : null;
+        if (recordId != null && event.getLogId() != 0) {
+            // The retry record owns the event now; release it from the durable event log
+            queueService.acknowledge(event);
+            event.setLogId(0);
+        }
+        wheel.add(new PendingRetry(event, recordId), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+    }
+
+    /**
+     * Number of retries scheduled or due but not yet handed back to the queue.
+     *
+     * @return pending retry count
+     */
+    public int getPendingCount() {
+        return wheel == null ? 0 : wheel.size() + dueCount;
+    }
+
+    private void runWheel() {
+        while (running) {
+            long waitNanos = wheel.nextTickNanos() - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+
+            try {
+                tick();
+            } catch (Exception e) {
+                LOG.errorf(e, "Retry wheel tick failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Collects the retries that have come due and releases as many as the rate allows.
+     */
+    void tick() {
+        wheel.advance(System.nanoTime(), due::addLast);
+        release();
+    }
+
+    /**
+     * Hands due retries back to the queue, up to the per-tick share of the release rate.
+     */
+    private void release() {
+        long budget = Math.max(1, releaseRate * tickMs / 1000);
+        List<Long> releasedRecords = new ArrayList<>();
+
+        while (budget > 0 && !due.isEmpty()) {
+            PendingRetry retry = due.peekFirst();
+            WebhookEvent event = retry.event();
+            int attempt = event.getRetryCount() + 1;
+            try {
+                if (!queueService.enqueue(event)) {
+                    // Queue full: keep this and the remaining due retries for the next tick
+                    LOG.debugf("[%s] Queue full, holding back retry", event.getCorrelationId());
+                    break;
+                }
+                metrics.incrementRetryAttempts("SCHEDULED", attempt);
+            } catch (Exception e) {
+                LOG.errorf(e, "[%s] Failed to re-enqueue event for retry", event.getCorrelationId());
+                metrics.incrementRetryAttempts("ENQUEUE_ERROR", attempt);
+            }
+
+            due.pollFirst();
+            budget--;
+            if (retry.recordId() != null) {
+                releasedRecords.add(retry.recordId());
+            }
+        }
+        dueCount = due.size();
+
+        if (!releasedRecords.isEmpty()) {
+            deleteRecords(releasedRecords);
+        }
+    }
+
+    /**
+     * Reschedules the retries persisted by a previous run.
+     */
+    void restore() {
+        List<WebhookRetryRecord> records;
+        try {
+            records = downstreamLimiter.call(Downstream.SQLITE,
+                    () -> QuarkusTransaction.requiringNew().call(() -> repository.listAll()));
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to load persisted webhook retries: %s", e.getMessage());
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long nowNanos = System.nanoTime();
+        List<Long> unreadable = new ArrayList<>();
+        for (WebhookRetryRecord record : records) {
+            KeycloakAdminEvent adminEvent;
+            try {
+                adminEvent = objectMapper.readValue(record.getPayload(), KeycloakAdminEvent.class);
+            } catch (Exception e) {
+                LOG.errorf(e, "[%s] Dropping unreadable webhook retry record %d",
+                        record.getCorrelationId(), record.getId());
+                unreadable.add(record.getId());
+                continue;
+            }
+
+            WebhookEvent event = new WebhookEvent(record.getCorrelationId(), adminEvent);
+            event.setPartitionKey(record.getPartitionKey());
+            event.setSequence(record.getSequence());
+            event.setRetryCount(record.getRetryCount());
+            event.setRetryDelayMs(record.getLastDelayMs());
+            if (record.getSequence() > 0) {
+                queueService.advanceSequence(record.getSequence());
+                supersessionTracker.track(event);
+            }
+
+            long delayMs = Math.max(0, Duration.between(now, record.getDueAt()).toMillis());
+            wheel.add(new PendingRetry(event, record.getId()), nowNanos + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        }
+
+        if (!unreadable.isEmpty()) {
+            deleteRecords(unreadable);
+        }
+        if (!records.isEmpty()) {
+            LOG.infof("Restored %d persisted webhook retr%s", records.size() - unreadable.size(),
+                    records.size() - unreadable.size() == 1 ? "y" : "ies");
+        }
+    }
+
+    private Long persist(WebhookEvent event, long delayMs) {
+        try {
+            WebhookRetryRecord record = new WebhookRetryRecord(
+                    event.getCorrelationId(),
+                    event.getPartitionKey(),
+                    event.getSequence(),
+                    objectMapper.writeValueAsString(event.getEvent().withMaskedRepresentation()),
+                    event.getRetryCount(),
+                    event.getRetryDelayMs(),
+                    LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+            downstreamLimiter.run(Downstream.SQLITE,
+                    () -> QuarkusTransaction.requiringNew().run(() -> repository.persist(record)));
+            return record.getId();
+        } catch (Exception e) {
+            // The retry still happens, it just does not survive a restart
+            LOG.warnf(e, "[%s] Failed to persist webhook retry: %s", event.getCorrelationId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void deleteRecords(List<Long> ids) {
+        try {
+            downstreamLimiter.run(Downstream.SQLITE, () -> QuarkusTransaction.requiringNew()
+                    .run(() -> repository.delete("id in ?1", ids)));
+        } catch (Exception e) {
+            // Left-over records are rescheduled on the next start and superseded or re-applied then
+            LOG.warnf(e, "Failed to delete %d released webhook retry record(s): %s", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * A scheduled retry and the ID of its persisted record, if any.
+     */
+    record PendingRetry(WebhookEvent event, Long recordId) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, preallocated, lock-free multi-producer/multi-consumer lane.
+ * <p>
+ * A ring of slots, each with a sequence number telling whose turn it is: a slot at position
+ * {@code p} is free for the producer claiming {@code p} when its sequence is {@code p}, and
+ * holds an event for the consumer claiming {@code p} when its sequence is {@code p + 1}.
+ * Producers and consumers claim positions with a CAS on the tail and head counters, so no
+ * locks are taken and no nodes are allocated per event. A batched drain claims a whole run
+ * of published slots with a single CAS.
+ * <p>
+ * Waiting consumers spin briefly and then park in short slices; there is no signalling
+ * from producers.
+ */
+class RingBufferEventLane implements EventLane {
+
+    // Spins before a waiting consumer starts parking
+    private static final int SPIN_TRIES = 100;
+
+    // Longest single park of a waiting consumer
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final AtomicReferenceArray<WebhookEvent> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity minimum number of events the lane can hold, rounded up to a power of two
+     */
+    RingBufferEventLane(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(WebhookEvent event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The slot still holds an event from the previous round: full
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @Override
+    public WebhookEvent poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    return take(index, position);
+                }
+            } else if (difference < 0) {
+                // The slot has not been published yet: empty
+                return null;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @Override
+    public WebhookEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int tries = 0;
+        long parkNanos = 1_000;
+        while (true) {
+            WebhookEvent event = poll();
+            if (event != null) {
+                return event;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (tries++ < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, Math.min(remaining, parkNanos));
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super WebhookEvent> target, int maxEvents) {
+        while (maxEvents > 0) {
+            long position = head.get();
+
+            // Count the run of published slots starting at the head
+            int available = 0;
+            while (available < maxEvents && available <= mask
+                    && sequences.get((int) (position + available) & mask) == position + available + 1) {
+                available++;
+            }
+            if (available == 0) {
+                return 0;
+            }
+
+            if (head.compareAndSet(position, position + available)) {
+                for (int i = 0; i < available; i++) {
+                    target.add(take((int) (position + i) & mask, position + i));
+                }
+                return available;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1L));
+    }
+
+    /**
+     * Capacity of the ring after rounding.
+     *
+     * @return number of slots
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    private WebhookEvent take(int index, long position) {
+        WebhookEvent event = buffer.get(index);
+        buffer.lazySet(index, null);
+        // Hand the slot to the producer of the next round
+        sequences.set(index, position + mask + 1);
+        return event;
+    }
+}
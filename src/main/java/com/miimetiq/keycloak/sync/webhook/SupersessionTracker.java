@@ -0,0 +1,88 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks, per principal, the newest event sequence and the events that have not finished yet.
+ * <p>
+ * An event counts as unfinished from the first time it is submitted (or restored from a
+ * persisted retry) until it succeeds, is dropped or is given up, including the time it waits
+ * for a retry. The principal's entry is kept while any of its events is unfinished, so a
+ * retry coming back after a newer event of the same principal has already completed is
+ * still recognized as superseded.
+ */
+@ApplicationScoped
+public class SupersessionTracker {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a newer event of the same principal has been tracked after this one.
+     *
+     * @param event the event
+     * @return true if the event must not be applied
+     */
+    public boolean isSuperseded(WebhookEvent event) {
+        String key = event.getPartitionKey();
+        if (key == null) {
+            return false;
+        }
+        Entry entry = entries.get(key);
+        return entry != null && entry.latest > event.getSequence();
+    }
+
+    /**
+     * Records the event as unfinished; tracking an event again, e.g. when its retry comes
+     * back, has no effect.
+     *
+     * @param event the submitted or restored event
+     */
+    public void track(WebhookEvent event) {
+        String key = event.getPartitionKey();
+        if (key == null || event.isTracked()) {
+            return;
+        }
+        event.setTracked(true);
+        entries.compute(key, (k, entry) -> {
+            Entry updated = entry != null ? entry : new Entry();
+            updated.latest = Math.max(updated.latest, event.getSequence());
+            updated.unfinished++;
+            return updated;
+        });
+    }
+
+    /**
+     * Records that the event finished for good; the principal is forgotten once none of its
+     * events is unfinished.
+     *
+     * @param event the finished event
+     */
+    public void finish(WebhookEvent event) {
+        String key = event.getPartitionKey();
+        if (key == null || !event.isTracked()) {
+            return;
+        }
+        event.setTracked(false);
+        entries.computeIfPresent(key, (k, entry) -> --entry.unfinished > 0 ? entry : null);
+    }
+
+    /**
+     * Number of principals with unfinished events.
+     *
+     * @return tracked principal count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Newest sequence and unfinished event count of a principal, only mutated inside the map's compute calls.
+     */
+    private static class Entry {
+        long latest;
+        int unfinished;
+    }
+}
@@ -0,0 +1,660 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
+import com.miimetiq.keycloak.sync.domain.enums.OpType;
+import com.miimetiq.keycloak.sync.domain.enums.OperationResult;
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import com.miimetiq.keycloak.sync.kafka.KafkaConfig;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.ChunkListener;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.CredentialSpec;
+import com.miimetiq.keycloak.sync.kafka.ScramCredentialPolicy;
+import com.miimetiq.keycloak.sync.keycloak.KeycloakConfig;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.service.AuditWriteBehindService;
+import com.miimetiq.keycloak.sync.webhook.DownstreamLimiter.Downstream;
+import com.miimetiq.keycloak.sync.webhook.PasswordHandoffStore.Handoff;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.UserScramCredentialAlteration;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executes webhook sync operations against Kafka in coalesced micro-batches.
+ * <p>
+ * Operations are collected per principal: an operation for a principal that is already
+ * pending is merged into it (the latest operation type wins) and every caller receives
+ * the outcome of the single resulting alteration. Pending principals are flushed as one
+ * micro-batch as soon as {@code webhook.batch.max-size} of them are ready, or once the
+ * oldest has waited {@code webhook.coalesce-window-ms}. Each micro-batch is sent as a single
+ * alteration request (chunked by {@link KafkaScramManager} beyond its chunk size) and the
+ * per-principal results are fanned back out to the callers' futures.
+ * <p>
+ * A principal is never part of two micro-batches at once: operations arriving while its
+ * alteration is in flight wait for the next batch, so writes for one principal are never
+ * reordered.
+ * <p>
+ * Upserts write the password handed over by the password webhook, for every mechanism of
+ * the principal's {@link ScramCredentialPolicy}; the password webhook submits one as soon as
+ * it stores a password. Without a pending password there is nothing new to write and the
+ * operation completes without touching Kafka; missing principals are still created by the
+ * scheduled reconciliation. Reconciliation claims each principal it upserts for as long as its
+ * alteration is in flight (see {@link #claimForReconciliation}); operations for a claimed
+ * principal wait until the claim is released, so a password arriving while reconciliation
+ * writes a random one is written after it. Principals queued here or written here since the
+ * reconciliation cycle started cannot be claimed.
+ * Deletes remove every SCRAM mechanism the principal currently has in Kafka.
+ * <p>
+ * Micro-batches run on {@code webhook.execution-threads} platform threads, or on one virtual
+ * thread each in virtual executor mode; Kafka calls always hold a {@link DownstreamLimiter} permit.
+ * The pending state is guarded by a {@link ReentrantLock} rather than a monitor, since callers
+ * and batches run on virtual threads that must not pin their carrier while waiting.
+ */
+@ApplicationScoped
+public class SyncOperationExecutor {
+
+    private static final Logger LOG = Logger.getLogger(SyncOperationExecutor.class);
+
+    @ConfigProperty(name = "webhook.coalesce-window-ms", defaultValue = "100")
+    long coalesceWindowMs;
+
+    @ConfigProperty(name = "webhook.batch.max-size", defaultValue = "500")
+    int batchMaxSize;
+
+    @ConfigProperty(name = "webhook.execution-threads", defaultValue = "2")
+    int executionThreads;
+
+    @Inject
+    KafkaScramManager kafkaScramManager;
+
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @Inject
+    KeycloakConfig keycloakConfig;
+
+    @Inject
+    SyncMetrics metrics;
+
+    @Inject
+    AuditWriteBehindService auditWriteBehindService;
+
+    @Inject
+    DownstreamLimiter downstreamLimiter;
+
+    @Inject
+    ScramCredentialPolicy scramPolicy;
+
+    @Inject
+    PasswordHandoffStore passwordStore;
+
+    // Guarded by lock and signalled through changed; insertion order approximates arrival order of principals
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, PendingOperation> pending = new LinkedHashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private final Set<String> claimed = new HashSet<>();
+    private boolean running;
+
+    // Principal -> System.nanoTime() of its last successful upsert
+    private final Map<String, Long> lastUpserted = new ConcurrentHashMap<>();
+
+    private ExecutorService executionPool;
+    private Thread batcherThread;
+
+    void onStart(@Observes StartupEvent event) {
+        start();
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Starts the batcher and execution threads.
+     */
+    void start() {
+        int threads = Math.max(1, executionThreads);
+        executionPool = downstreamLimiter.newExecutor("webhook-sync-executor", threads);
+
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        batcherThread = new Thread(this::runBatcher, "webhook-sync-batcher");
+        batcherThread.setDaemon(true);
+        batcherThread.start();
+
+        LOG.infof("SyncOperationExecutor started: batch max size %d, coalesce window %dms, %s",
+                batchMaxSize, coalesceWindowMs,
+                downstreamLimiter.isVirtual() ? "virtual threads" : threads + " execution thread(s)");
+    }
+
+    /**
+     * Flushes pending operations without waiting for their window and stops all threads.
+     */
+    void stop() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            batcherThread.join(TimeUnit.SECONDS.toMillis(10));
+            executionPool.shutdown();
+            if (!executionPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warn("SyncOperationExecutor did not terminate in time, forcing shutdown");
+                executionPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executionPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submits an operation for execution.
+     *
+     * @param correlationId correlation ID of the webhook event
+     * @param operation     the mapped sync operation
+     * @return future completed once the (possibly coalesced) alteration finished
+     */
+    public CompletableFuture<Void> submit(String correlationId, SyncOperation operation) {
+        lock.lock();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(
+                        new SyncExecutionException("SyncOperationExecutor is not running", null));
+            }
+
+            String principal = operation.getPrincipal();
+            PendingOperation existing = pending.get(principal);
+            if (existing != null) {
+                existing.merge(correlationId, operation);
+                LOG.debugf("[%s] Coalesced %s for principal '%s' into pending operation",
+                        correlationId, operation.getType(), principal);
+                metrics.incrementWebhookCoalesced();
+                return existing.future;
+            }
+
+            PendingOperation created = new PendingOperation(correlationId, operation);
+            pending.put(principal, created);
+            changed.signalAll();
+            return created.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether an operation for a principal is waiting or in flight.
+     * <p>
+     * Reconciliation leaves such principals to this executor, so that it does not overwrite
+     * a password this executor is about to write with a random one.
+     *
+     * @param principal the principal
+     * @return true if the principal has a pending or in-flight operation
+     */
+    public boolean isQueued(String principal) {
+        lock.lock();
+        try {
+            return pending.containsKey(principal) || inFlight.contains(principal);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Claims principals for a reconciliation upsert.
+     * <p>
+     * A principal is claimed unless it has an operation pending or in flight here, is already
+     * claimed, or was upserted here at or after {@code cycleStartNanos}. Until its claim is
+     * released, operations submitted for it are held back, so they are applied after the
+     * reconciliation's alteration and not concurrently with it. Once stopped, the executor
+     * flushes held-back operations regardless of claims.
+     *
+     * @param principals      the principals reconciliation wants to upsert
+     * @param cycleStartNanos {@link System#nanoTime()} at which the reconciliation cycle started
+     * @return the principals claimed, in the given order
+     */
+    public List<String> claimForReconciliation(Collection<String> principals, long cycleStartNanos) {
+        lock.lock();
+        try {
+            List<String> granted = new ArrayList<>(principals.size());
+            for (String principal : principals) {
+                if (!isQueued(principal) && !claimed.contains(principal)
+                        && !wasWrittenSince(principal, cycleStartNanos)) {
+                    claimed.add(principal);
+                    granted.add(principal);
+                }
+            }
+            return granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases principals claimed by {@link #claimForReconciliation} once their alteration completed.
+     *
+     * @param principals the principals to release
+     */
+    public void releaseClaims(Collection<String> principals) {
+        lock.lock();
+        try {
+            if (claimed.removeAll(principals)) {
+                // Operations held back for these principals may be ready now
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a password was upserted for a principal since the given time.
+     * <p>
+     * Reconciliation compares Keycloak against the Kafka credentials and sync states it
+     * loaded when its cycle started; a principal written here afterwards already has its
+     * real password in Kafka and must not be upserted again with a random one.
+     *
+     * @param principal  the principal
+     * @param sinceNanos {@link System#nanoTime()} to compare against
+     * @return true if an upsert for the principal succeeded at or after {@code sinceNanos}
+     */
+    public boolean wasWrittenSince(String principal, long sinceNanos) {
+        Long upsertedNanos = lastUpserted.get(principal);
+        return upsertedNanos != null && upsertedNanos - sinceNanos >= 0;
+    }
+
+    /**
+     * Forgets upserts older than the given time, which no reconciliation will ask about.
+     *
+     * @param nanos {@link System#nanoTime()} before which upserts are forgotten
+     */
+    public void forgetUpsertsBefore(long nanos) {
+        lastUpserted.values().removeIf(upsertedNanos -> upsertedNanos - nanos < 0);
+    }
+
+    /**
+     * Number of principals waiting to be sent to Kafka.
+     *
+     * @return pending principal count
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runBatcher() {
+        while (true) {
+            List<PendingOperation> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == null) {
+                return;
+            }
+
+            try {
+                executionPool.execute(() -> executeBatch(batch));
+            } catch (RejectedExecutionException e) {
+                fail(batch, new SyncExecutionException("SyncOperationExecutor is shut down", e));
+                release(batch);
+            }
+        }
+    }
+
+    /**
+     * Waits until a micro-batch is due and claims its principals.
+     *
+     * @return the next batch, or null once stopped with nothing left to flush
+     */
+    List<PendingOperation> nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                List<PendingOperation> ready = new ArrayList<>();
+                for (PendingOperation operation : pending.values()) {
+                    if (!inFlight.contains(operation.principal)
+                            && (!running || !claimed.contains(operation.principal))) {
+                        ready.add(operation);
+                    }
+                }
+
+                if (ready.isEmpty()) {
+                    if (!running && pending.isEmpty()) {
+                        return null;
+                    }
+                    // Woken by new submissions, completed batches and released claims
+                    changed.await();
+                    continue;
+                }
+
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ready.get(0).firstSubmittedNanos);
+                long remainingMs = coalesceWindowMs - waitedMs;
+                int maxSize = Math.max(1, batchMaxSize);
+
+                if (ready.size() >= maxSize || remainingMs <= 0 || !running) {
+                    List<PendingOperation> batch = new ArrayList<>(ready.subList(0, Math.min(maxSize, ready.size())));
+                    for (PendingOperation operation : batch) {
+                        pending.remove(operation.principal);
+                        inFlight.add(operation.principal);
+                    }
+                    return batch;
+                }
+
+                changed.await(remainingMs, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends one micro-batch to Kafka and completes each operation's future with its own result.
+     */
+    void executeBatch(List<PendingOperation> batch) {
+        String batchId = UUID.randomUUID().toString();
+        metrics.recordWebhookBatchSize(batch.size());
+
+        Map<String, PendingOperation> byPrincipal = new LinkedHashMap<>();
+        Map<String, CredentialSpec> upserts = new LinkedHashMap<>();
+        Map<String, Handoff> passwords = new LinkedHashMap<>();
+        Map<String, List<ScramMechanism>> deletions = new LinkedHashMap<>();
+        List<com.miimetiq.keycloak.sync.domain.entity.SyncOperation> records = new ArrayList<>();
+        SyncBatch auditBatch = new SyncBatch(batchId, LocalDateTime.now(), "WEBHOOK", 0);
+
+        try {
+            List<String> deletePrincipals = new ArrayList<>();
+            List<PendingOperation> upsertOperations = new ArrayList<>();
+            for (PendingOperation operation : batch) {
+                byPrincipal.put(operation.principal, operation);
+                if (operation.type == SyncOperation.Type.DELETE) {
+                    deletePrincipals.add(operation.principal);
+                } else {
+                    upsertOperations.add(operation);
+                }
+            }
+
+            Map<String, Handoff> stored = upsertOperations.isEmpty() ? Map.of()
+                    : passwordStore.takeAll(upsertOperations.stream().map(operation -> operation.principal).toList());
+            for (PendingOperation operation : upsertOperations) {
+                Handoff password = stored.get(operation.principal);
+                if (password == null || password.password().isEmpty()) {
+                    LOG.debugf("[%s] No pending password for principal '%s', nothing to write",
+                            operation.correlationId, operation.principal);
+                    operation.future.complete(null);
+                    continue;
+                }
+                passwords.put(operation.principal, password);
+                upserts.put(operation.principal, scramPolicy.credentialSpec(realmOf(operation),
+                        operation.principal, password.password()));
+            }
+
+            if (!deletePrincipals.isEmpty()) {
+                collectDeletions(deletePrincipals, byPrincipal, deletions);
+            }
+
+            List<UserScramCredentialAlteration> alterations = new ArrayList<>();
+            alterations.addAll(kafkaScramManager.buildUpsertions(upserts));
+            alterations.addAll(kafkaScramManager.buildDeletions(deletions));
+            if (alterations.isEmpty()) {
+                return;
+            }
+
+            auditBatch.setItemsTotal(upserts.size() + deletions.size());
+            LOG.infof("[%s] Applying webhook micro-batch: %d upsert(s), %d delete(s)",
+                    batchId, upserts.size(), deletions.size());
+
+            ChunkListener listener = (principals, errors) -> {
+                for (String principal : principals) {
+                    Throwable error = errors.get(principal);
+                    PendingOperation operation = byPrincipal.get(principal);
+                    if (upserts.containsKey(principal)) {
+                        completeUpsert(batchId, auditBatch, operation, upserts.get(principal),
+                                passwords.get(principal), error, records);
+                    } else {
+                        completeDelete(batchId, auditBatch, operation, deletions.get(principal), error, records);
+                    }
+                }
+            };
+            downstreamLimiter.call(Downstream.KAFKA,
+                    () -> kafkaScramManager.alterUserScramCredentialsChunked(alterations, listener));
+        } catch (Exception e) {
+            LOG.errorf(e, "[%s] Webhook micro-batch failed: %s", batchId, e.getMessage());
+            passwords.forEach((principal, password) -> {
+                if (!byPrincipal.get(principal).future.isDone()) {
+                    passwordStore.restore(principal, password);
+                }
+            });
+            fail(batch, new SyncExecutionException("Webhook micro-batch failed: " + e.getMessage(), e));
+        } finally {
+            if (!records.isEmpty()) {
+                auditBatch.setFinishedAt(LocalDateTime.now());
+                auditWriteBehindService.submitBatch(auditBatch);
+                auditWriteBehindService.submitOperations(records);
+            }
+            release(batch);
+        }
+    }
+
+    /**
+     * Looks up the mechanisms to delete; principals without credentials complete immediately.
+     */
+    private void collectDeletions(List<String> principals, Map<String, PendingOperation> byPrincipal,
+                                  Map<String, List<ScramMechanism>> deletions) {
+        Map<String, List<ScramCredentialInfo>> existing = downstreamLimiter.call(Downstream.KAFKA,
+                () -> kafkaScramManager.describeCachedUserScramCredentials(principals));
+
+        for (String principal : principals) {
+            List<ScramMechanism> mechanisms = new ArrayList<>();
+            for (ScramCredentialInfo credential : existing.getOrDefault(principal, List.of())) {
+                ScramMechanism mechanism = convertFromKafkaScramMechanism(credential.mechanism());
+                if (mechanism != null) {
+                    mechanisms.add(mechanism);
+                } else {
+                    LOG.warnf("Skipping deletion of unsupported SCRAM mechanism %s for principal '%s'",
+                            credential.mechanism(), principal);
+                }
+            }
+            if (mechanisms.isEmpty()) {
+                LOG.debugf("Principal '%s' has no SCRAM credentials, nothing to delete", principal);
+                byPrincipal.get(principal).future.complete(null);
+                continue;
+            }
+            deletions.put(principal, mechanisms);
+        }
+    }
+
+    /**
+     * Converts Kafka's ScramMechanism enum to our domain ScramMechanism enum.
+     *
+     * @param kafkaMechanism Kafka's ScramMechanism
+     * @return our domain ScramMechanism, or null for mechanisms this service cannot manage (UNKNOWN)
+     */
+    private static ScramMechanism convertFromKafkaScramMechanism(
+            org.apache.kafka.clients.admin.ScramMechanism kafkaMechanism) {
+        return switch (kafkaMechanism) {
+            case SCRAM_SHA_256 -> ScramMechanism.SCRAM_SHA_256;
+            case SCRAM_SHA_512 -> ScramMechanism.SCRAM_SHA_512;
+            default -> null;
+        };
+    }
+
+    private void completeUpsert(String batchId, SyncBatch auditBatch, PendingOperation operation,
+                                CredentialSpec spec, Handoff password, Throwable error,
+                                List<com.miimetiq.keycloak.sync.domain.entity.SyncOperation> records) {
+        countOnBatch(auditBatch, error);
+        for (ScramMechanism mechanism : spec.mechanisms.keySet()) {
+            metrics.incrementKafkaScramUpsert(kafkaConfig.bootstrapServers(), mechanism.name(),
+                    error == null ? "SUCCESS" : "ERROR");
+            records.add(createRecord(batchId, operation, OpType.SCRAM_UPSERT, mechanism, error));
+        }
+
+        if (error == null) {
+            LOG.debugf("[%s] Upserted SCRAM credentials %s for principal '%s' (%d event(s) coalesced)",
+                    operation.correlationId, spec.mechanisms.keySet(), operation.principal, operation.eventCount);
+            long now = System.nanoTime();
+            lastUpserted.put(operation.principal, now);
+            metrics.recordPasswordPropagation("WEBHOOK", now - password.receivedNanos());
+            operation.future.complete(null);
+        } else {
+            // Keep the password for the retry or the next reconciliation
+            passwordStore.restore(operation.principal, password);
+            operation.future.completeExceptionally(new SyncExecutionException(
+                    "Failed to upsert SCRAM credential for principal '" + operation.principal + "': "
+                            + error.getMessage(), error));
+        }
+    }
+
+    private void completeDelete(String batchId, SyncBatch auditBatch, PendingOperation operation,
+                                List<ScramMechanism> mechanisms, Throwable error,
+                                List<com.miimetiq.keycloak.sync.domain.entity.SyncOperation> records) {
+        countOnBatch(auditBatch, error);
+        metrics.incrementKafkaScramDelete(kafkaConfig.bootstrapServers(), error == null ? "SUCCESS" : "ERROR");
+        for (ScramMechanism mechanism : mechanisms) {
+            records.add(createRecord(batchId, operation, OpType.SCRAM_DELETE, mechanism, error));
+        }
+
+        if (error == null) {
+            LOG.debugf("[%s] Deleted SCRAM credentials for principal '%s'",
+                    operation.correlationId, operation.principal);
+            operation.future.complete(null);
+        } else {
+            operation.future.completeExceptionally(new SyncExecutionException(
+                    "Failed to delete SCRAM credentials for principal '" + operation.principal + "': "
+                            + error.getMessage(), error));
+        }
+    }
+
+    private String realmOf(PendingOperation operation) {
+        return operation.realm != null ? operation.realm : keycloakConfig.realm();
+    }
+
+    /**
+     * Counts one principal's alteration on the batch.
+     */
+    private static void countOnBatch(SyncBatch auditBatch, Throwable error) {
+        if (error == null) {
+            auditBatch.incrementSuccess();
+        } else {
+            auditBatch.incrementError();
+        }
+    }
+
+    /**
+     * Creates the audit record of one mechanism of a principal's alteration.
+     */
+    private com.miimetiq.keycloak.sync.domain.entity.SyncOperation createRecord(
+            String batchId, PendingOperation operation, OpType opType, ScramMechanism mechanism, Throwable error) {
+        com.miimetiq.keycloak.sync.domain.entity.SyncOperation record =
+                new com.miimetiq.keycloak.sync.domain.entity.SyncOperation(
+                        batchId, LocalDateTime.now(), realmOf(operation),
+                        kafkaConfig.bootstrapServers(),
+                        operation.principal, opType,
+                        error == null ? OperationResult.SUCCESS : OperationResult.ERROR, 0);
+        record.setMechanism(mechanism);
+
+        if (error != null) {
+            record.setErrorCode(error.getClass().getSimpleName());
+            String message = error.getMessage();
+            record.setErrorMessage(message != null && message.length() > 500
+                    ? message.substring(0, 497) + "..." : message);
+        }
+        return record;
+    }
+
+    private void fail(List<PendingOperation> batch, Throwable error) {
+        for (PendingOperation operation : batch) {
+            operation.future.completeExceptionally(error);
+        }
+    }
+
+    private void release(List<PendingOperation> batch) {
+        lock.lock();
+        try {
+            for (PendingOperation operation : batch) {
+                inFlight.remove(operation.principal);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Operations of one principal merged while waiting for a micro-batch.
+     */
+    static final class PendingOperation {
+        final String principal;
+        final long firstSubmittedNanos = System.nanoTime();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        String correlationId;
+        String realm;
+        SyncOperation.Type type;
+        int eventCount = 1;
+
+        PendingOperation(String correlationId, SyncOperation operation) {
+            this.principal = operation.getPrincipal();
+            this.correlationId = correlationId;
+            this.realm = operation.getRealm();
+            this.type = operation.getType();
+        }
+
+        void merge(String correlationId, SyncOperation operation) {
+            this.correlationId = correlationId;
+            if (operation.getRealm() != null) {
+                this.realm = operation.getRealm();
+            }
+            this.type = operation.getType();
+            this.eventCount++;
+        }
+    }
+
+    /**
+     * Exception thrown when a webhook sync operation could not be applied to Kafka.
+     */
+    public static class SyncExecutionException extends RuntimeException {
+        public SyncExecutionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
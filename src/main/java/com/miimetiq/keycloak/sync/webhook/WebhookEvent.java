@@ -15,6 +15,11 @@ public class WebhookEvent {
     private final Instant enqueuedAt;
     private int retryCount;
     private Instant lastAttemptAt;
+    private String partitionKey;
+    private long sequence;
+    private long logId;
+    private long retryDelayMs;
+    private boolean tracked;
 
     /**
      * Create a new webhook event wrapper.
@@ -51,6 +56,10 @@ public class WebhookEvent {
         this.lastAttemptAt = Instant.now();
     }
 
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
     public Instant getLastAttemptAt() {
         return lastAttemptAt;
     }
@@ -59,6 +68,71 @@ public class WebhookEvent {
         this.lastAttemptAt = lastAttemptAt;
     }
 
+    /**
+     * Key used to route the event to its queue lane (the principal, when known).
+     *
+     * @return the partition key, or null before the event is first enqueued
+     */
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    /**
+     * Arrival order of the event, assigned when it is first enqueued and kept across retries.
+     *
+     * @return the sequence number, or 0 before the event is first enqueued
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * ID of the event in the durable event log.
+     *
+     * @return the log ID, or 0 if the event was not written to the log
+     */
+    public long getLogId() {
+        return logId;
+    }
+
+    public void setLogId(long logId) {
+        this.logId = logId;
+    }
+
+    /**
+     * Delay before the most recent retry, the input of the next jittered delay.
+     *
+     * @return the last retry delay in milliseconds, or 0 before the first retry
+     */
+    public long getRetryDelayMs() {
+        return retryDelayMs;
+    }
+
+    public void setRetryDelayMs(long retryDelayMs) {
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * Whether the event is counted as unfinished by the {@link SupersessionTracker}.
+     *
+     * @return true while the event is tracked
+     */
+    public boolean isTracked() {
+        return tracked;
+    }
+
+    public void setTracked(boolean tracked) {
+        this.tracked = tracked;
+    }
+
     @Override
     public String toString() {
         return "WebhookEvent{" +
@@ -67,6 +141,10 @@ public class WebhookEvent {
                 ", enqueuedAt=" + enqueuedAt +
                 ", retryCount=" + retryCount +
                 ", lastAttemptAt=" + lastAttemptAt +
+                ", partitionKey='" + partitionKey + '\'' +
+                ", sequence=" + sequence +
+                ", logId=" + logId +
+                ", retryDelayMs=" + retryDelayMs +
                 '}';
     }
 }
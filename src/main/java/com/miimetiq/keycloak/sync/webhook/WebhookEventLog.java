@@ -0,0 +1,189 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.sync.domain.entity.WebhookEventRecord;
+import com.miimetiq.keycloak.sync.repository.WebhookEventLogRepository;
+import com.miimetiq.keycloak.sync.webhook.DownstreamLimiter.Downstream;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable, append-only log of accepted webhook events, stored in the agent's SQLite database.
+ * <p>
+ * Events are appended in their own committed transaction before the webhook request is
+ * acknowledged. Once an event has been processed for good it is acknowledged; acknowledged
+ * records are deleted in bulk by a periodic compaction rather than one by one, so a crash
+ * between processing and compaction replays a few already-applied events, which the
+ * idempotent sync operations tolerate.
+ * <p>
+ * Database access holds a {@link DownstreamLimiter} SQLite permit. Credentials in an event's
+ * representation are removed before it is appended.
+ */
+@ApplicationScoped
+public class WebhookEventLog {
+
+    private static final Logger LOG = Logger.getLogger(WebhookEventLog.class);
+
+    @Inject
+    WebhookEventLogRepository repository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DownstreamLimiter downstreamLimiter;
+
+    private final Set<Long> acknowledged = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Durably appends an event.
+     *
+     * @param event the event to append
+     * @return the log ID assigned to the event
+     * @throws WebhookEventLogException if the event cannot be serialized or written
+     */
+    public long append(WebhookEvent event) {
+        String payload;
+        try {
+            KeycloakAdminEvent adminEvent = event.getEvent();
+            payload = objectMapper.writeValueAsString(adminEvent != null ? adminEvent.withMaskedRepresentation() : null);
+        } catch (JsonProcessingException e) {
+            throw new WebhookEventLogException("Failed to serialize webhook event " + event.getCorrelationId(), e);
+        }
+
+        WebhookEventRecord record = new WebhookEventRecord(event.getCorrelationId(), event.getPartitionKey(),
+                event.getSequence(), payload, LocalDateTime.ofInstant(event.getEnqueuedAt(), ZoneId.systemDefault()));
+        try {
+            downstreamLimiter.run(Downstream.SQLITE,
+                    () -> QuarkusTransaction.requiringNew().run(() -> repository.persist(record)));
+        } catch (Exception e) {
+            throw new WebhookEventLogException("Failed to append webhook event " + event.getCorrelationId(), e);
+        }
+        return record.getId();
+    }
+
+    /**
+     * Reads the oldest events appended after the given log ID.
+     *
+     * @param afterId exclusive lower bound of the log ID (0 reads from the start)
+     * @param limit   maximum number of events to read
+     * @return events in append order, with log ID, partition key and sequence restored
+     */
+    public List<WebhookEvent> readAfter(long afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        List<WebhookEventRecord> records = downstreamLimiter.call(Downstream.SQLITE,
+                () -> QuarkusTransaction.requiringNew().call(() -> repository.findAfter(afterId, limit)));
+
+        List<WebhookEvent> events = new ArrayList<>(records.size());
+        for (WebhookEventRecord record : records) {
+            KeycloakAdminEvent adminEvent;
+            try {
+                adminEvent = objectMapper.readValue(record.getPayload(), KeycloakAdminEvent.class);
+            } catch (JsonProcessingException e) {
+                // An unreadable record can never be processed; drop it instead of replaying it forever
+                LOG.errorf(e, "[%s] Dropping unreadable webhook event log record %d",
+                        record.getCorrelationId(), record.getId());
+                acknowledge(record.getId());
+                continue;
+            }
+
+            WebhookEvent event = new WebhookEvent(record.getCorrelationId(), adminEvent);
+            event.setPartitionKey(record.getPartitionKey());
+            event.setSequence(record.getSequence());
+            event.setLogId(record.getId());
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Marks an event as processed; its record is removed by the next compaction.
+     *
+     * @param logId the log ID of the event
+     */
+    public void acknowledge(long logId) {
+        acknowledged.add(logId);
+    }
+
+    /**
+     * Periodic compaction of acknowledged records.
+     */
+    @Scheduled(every = "${webhook.queue.durable.compact-interval:5s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledCompact() {
+        compact();
+    }
+
+    /**
+     * Deletes all acknowledged records.
+     *
+     * @return number of records deleted
+     */
+    public long compact() {
+        if (acknowledged.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(acknowledged);
+        try {
+            long deleted = downstreamLimiter.call(Downstream.SQLITE,
+                    () -> QuarkusTransaction.requiringNew().call(() -> repository.deleteByIds(ids)));
+            ids.forEach(acknowledged::remove);
+            LOG.debugf("Compacted %d acknowledged webhook event log record(s)", deleted);
+            return deleted;
+        } catch (Exception e) {
+            // Keep the IDs; the next compaction retries
+            LOG.warnf(e, "Failed to compact webhook event log: %s", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the records in the log, including acknowledged ones not yet compacted.
+     *
+     * @return number of records
+     */
+    public long count() {
+        return downstreamLimiter.call(Downstream.SQLITE,
+                () -> QuarkusTransaction.requiringNew().call(() -> repository.count()));
+    }
+
+    /**
+     * Highest sequence of the events in the log.
+     *
+     * @return the highest sequence, or 0 if the log is empty
+     */
+    public long maxSequence() {
+        return downstreamLimiter.call(Downstream.SQLITE,
+                () -> QuarkusTransaction.requiringNew().call(() -> repository.maxSequence()));
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        compact();
+    }
+
+    /**
+     * Exception thrown when the event log cannot be written.
+     */
+    public static class WebhookEventLogException extends RuntimeException {
+        public WebhookEventLogException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Per-principal record of the last credential state written to Kafka.
+-- Used by incremental reconciliation to skip principals that did not change.
+CREATE TABLE principal_sync_state (
+    principal          TEXT    PRIMARY KEY NOT NULL,
+    keycloak_user_id   TEXT    NOT NULL,
+    enabled            INTEGER NOT NULL,
+    mechanisms         TEXT    NOT NULL,
+    credential_version INTEGER NOT NULL DEFAULT 0,
+    last_synced_at     TEXT    NOT NULL
+);
+
+CREATE INDEX idx_principal_sync_state_user ON principal_sync_state(keycloak_user_id);
@@ -0,0 +1,14 @@
+-- Durable log of accepted webhook events, appended before the HTTP request is acknowledged.
+-- Rows are deleted (compacted) once their event has been processed for good; whatever is
+-- left on startup is replayed into the in-memory queue.
+-- AUTOINCREMENT keeps ids strictly increasing even after every row was deleted, which the
+-- queue relies on to page spilled events back in order. The sequence is the event's arrival
+-- order, kept for retries that are appended again after their backoff.
+CREATE TABLE webhook_event_log (
+    id             INTEGER PRIMARY KEY AUTOINCREMENT,
+    correlation_id TEXT    NOT NULL,
+    partition_key  TEXT,
+    sequence       INTEGER NOT NULL DEFAULT 0,
+    payload        TEXT    NOT NULL,
+    received_at    TEXT    NOT NULL
+);
@@ -0,0 +1,30 @@
+-- Pending retries of failed webhook events with their due time, so they survive a restart.
+-- A row is deleted when its retry is handed back to the queue. The event's sequence is kept
+-- so a restored retry stays older than events received after the restart.
+CREATE TABLE webhook_retry (
+    id             INTEGER PRIMARY KEY AUTOINCREMENT,
+    correlation_id TEXT    NOT NULL,
+    partition_key  TEXT,
+    sequence       INTEGER NOT NULL DEFAULT 0,
+    payload        TEXT    NOT NULL,
+    retry_count    INTEGER NOT NULL,
+    last_delay_ms  INTEGER NOT NULL,
+    due_at         TEXT    NOT NULL
+);
+
+-- Webhook events that failed permanently after exhausting their retries.
+CREATE TABLE webhook_dead_letter (
+    id             INTEGER PRIMARY KEY AUTOINCREMENT,
+    correlation_id TEXT    NOT NULL,
+    partition_key  TEXT,
+    resource_type  TEXT,
+    operation_type TEXT,
+    payload        TEXT    NOT NULL,
+    attempts       INTEGER NOT NULL,
+    error_code     TEXT,
+    error_message  TEXT,
+    failed_at      TEXT    NOT NULL
+);
+
+CREATE INDEX idx_webhook_dead_letter_failed_at ON webhook_dead_letter(failed_at);
+CREATE INDEX idx_webhook_dead_letter_partition_key ON webhook_dead_letter(partition_key);
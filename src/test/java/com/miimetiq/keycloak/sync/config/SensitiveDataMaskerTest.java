@@ -63,6 +63,23 @@ public class SensitiveDataMaskerTest {
         assertFalse(masked.contains("password"));
     }
 
+    @Test
+    public void testMaskJsonRemovesCredentials() {
+        String input = "{\"username\":\"alice\",\"credentials\":[{\"type\":\"password\",\"value\":\"s3cret\"}],"
+                + "\"attributes\":{\"clientSecret\":\"abc123\"}}";
+        String masked = SensitiveDataMasker.maskJson(input);
+        assertFalse(masked.contains("s3cret"));
+        assertFalse(masked.contains("abc123"));
+        assertTrue(masked.contains("\"username\":\"alice\""));
+        assertTrue(masked.contains("\"clientSecret\":\"***\""));
+    }
+
+    @Test
+    public void testMaskJsonFallsBackForNonJson() {
+        String masked = SensitiveDataMasker.maskJson("password=admin-secret");
+        assertFalse(masked.contains("admin-secret"));
+    }
+
     @Test
     public void testMaskNull() {
         String masked = SensitiveDataMasker.mask(null);
@@ -2,6 +2,7 @@ package com.miimetiq.keycloak.sync.crypto;
 
 import com.miimetiq.keycloak.sync.domain.ScramCredential;
 import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -11,7 +12,17 @@ import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -267,6 +278,120 @@ class ScramCredentialGeneratorTest {
 
     // Helper methods for manual SCRAM computation in tests
 
+    /**
+     * Tests that the per-thread crypto contexts yield correct keys when reused, interleaved
+     * across mechanisms and used from several threads at once.
+     */
+    @Test
+    void testReusedContexts_MatchIndependentComputation() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String password = "password-" + i;
+                futures.add(pool.submit(() -> {
+                    generator.generateScramSha512(password);
+                    ScramCredential credential = generator.generateScramSha256(password);
+
+                    byte[] salt = Base64.getDecoder().decode(credential.getSalt());
+                    byte[] saltedPassword = pbkdf2Sha256(password, salt, 4096);
+                    assertEquals(Base64.getEncoder().encodeToString(sha256(hmacSha256(saltedPassword, "Client Key"))),
+                            credential.getStoredKey());
+                    assertEquals(Base64.getEncoder().encodeToString(hmacSha256(saltedPassword, "Server Key")),
+                            credential.getServerKey());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGenerateBatch_ResultsInInputOrderAndCounted() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        generator.meterRegistry = registry;
+        generator.batchParallelism = 4;
+        generator.batchCpuBudget = 1.0;
+        generator.init();
+        Map<String, String> passwords = new LinkedHashMap<>();
+        for (int i = 20; i > 0; i--) {
+            passwords.put("user-" + i, "password-" + i);
+        }
+
+        try {
+            // When
+            Map<String, ScramCredential> credentials = generator
+                    .generateBatch(passwords, ScramMechanism.SCRAM_SHA_512, 4096)
+                    .get(60, TimeUnit.SECONDS);
+
+            // Then
+            assertEquals(new ArrayList<>(passwords.keySet()), new ArrayList<>(credentials.keySet()));
+            ScramCredential credential = credentials.get("user-7");
+            assertEquals(ScramMechanism.SCRAM_SHA_512, credential.getMechanism());
+            byte[] salt = Base64.getDecoder().decode(credential.getSalt());
+            byte[] saltedPassword = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512")
+                    .generateSecret(new PBEKeySpec("password-7".toCharArray(), salt, 4096, 512)).getEncoded();
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(saltedPassword, "HmacSHA512"));
+            assertEquals(Base64.getEncoder().encodeToString(mac.doFinal("Server Key".getBytes(StandardCharsets.UTF_8))),
+                    credential.getServerKey());
+
+            assertEquals(20.0, registry.get("sync_scram_batch_credentials_total")
+                    .tag("mechanism", "SCRAM_SHA_512").functionCounter().count());
+            assertEquals(0.0, registry.get("sync_scram_batch_pending").gauge().value());
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    void testGenerateBatch_CancelStopsRemainingWork() throws Exception {
+        // Given: a batch far longer than the test waits for
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        generator.meterRegistry = registry;
+        generator.init();
+        Map<String, String> passwords = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            passwords.put("user-" + i, "password-" + i);
+        }
+
+        try {
+            // When
+            CompletableFuture<Map<String, ScramCredential>> batch =
+                    generator.generateBatch(passwords, ScramMechanism.SCRAM_SHA_512, 16384);
+            Thread.sleep(100);
+            assertTrue(batch.cancel(true));
+
+            // Then: workers stop after their current credential and release the pending count
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.get("sync_scram_batch_pending").gauge().value() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0.0, registry.get("sync_scram_batch_pending").gauge().value());
+            assertTrue(registry.get("sync_scram_batch_credentials_total")
+                    .tag("mechanism", "SCRAM_SHA_512").functionCounter().count() < 500);
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    void testBatchParallelism_CappedByCpuBudget() {
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        generator.batchParallelism = 1000;
+        generator.batchCpuBudget = 1.0;
+        assertEquals(processors, generator.getBatchParallelism());
+
+        generator.batchCpuBudget = 0.0;
+        assertEquals(1, generator.getBatchParallelism());
+    }
+
     private byte[] pbkdf2Sha256(String password, byte[] salt, int iterations) throws Exception {
         SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
         PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 256);
@@ -298,4 +423,15 @@ class ScramCredentialGeneratorTest {
         }
         return data;
     }
+
+    @Test
+    void testGenerateSalt_RandomAndFullLength() {
+        // When
+        byte[] first = ScramCredentialGenerator.generateSalt();
+        byte[] second = ScramCredentialGenerator.generateSalt();
+
+        // Then
+        assertEquals(32, first.length);
+        assertFalse(Arrays.equals(first, second));
+    }
 }
@@ -0,0 +1,94 @@
+package com.miimetiq.keycloak.sync.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScramHi.
+ * <p>
+ * Validated against the PBKDF2-HMAC-SHA256 vectors of RFC 7914, the SCRAM-SHA-256 exchange of
+ * RFC 7677 and the JCE PBKDF2 implementation.
+ */
+class ScramHiTest {
+
+    @Test
+    void testRfc7914Vectors() throws Exception {
+        ScramHi hi = new ScramHi("SHA-256");
+
+        // Hi() is the first block of the RFC's 64-byte outputs
+        assertEquals("55ac046e56e3089fec1691c22544b605f94185216dde0465e68b9d57c20dacbc",
+                hex(hi.hi(bytes("passwd"), bytes("salt"), 1)));
+        assertEquals("4ddcd8f60b98be21830cee5ef22701f9641a4418d04c0414aeff08876b34ab56",
+                hex(hi.hi(bytes("Password"), bytes("NaCl"), 80000)));
+    }
+
+    @Test
+    void testRfc7677ScramSha256Exchange() throws Exception {
+        // Given: the example exchange of RFC 7677 section 3
+        byte[] salt = Base64.getDecoder().decode("W22ZaJ0SNY7soEsUEjb6gQ==");
+        String authMessage = "n=user,r=rOprNGfwEbeRWgbNEkqO,"
+                + "r=rOprNGfwEbeRWgbNEkqO%hvYDpWUa2RaTCAfuxFIlj)hNlF$k0,s=W22ZaJ0SNY7soEsUEjb6gQ==,i=4096,"
+                + "c=biws,r=rOprNGfwEbeRWgbNEkqO%hvYDpWUa2RaTCAfuxFIlj)hNlF$k0";
+
+        // When
+        byte[] saltedPassword = new ScramHi("SHA-256").hi(bytes("pencil"), salt, 4096);
+        byte[] clientKey = hmac(saltedPassword, bytes("Client Key"));
+        byte[] storedKey = MessageDigest.getInstance("SHA-256").digest(clientKey);
+        byte[] clientSignature = hmac(storedKey, bytes(authMessage));
+        byte[] clientProof = new byte[clientKey.length];
+        for (int i = 0; i < clientProof.length; i++) {
+            clientProof[i] = (byte) (clientKey[i] ^ clientSignature[i]);
+        }
+        byte[] serverSignature = hmac(hmac(saltedPassword, bytes("Server Key")), bytes(authMessage));
+
+        // Then
+        assertEquals("dHzbZapWIk4jUhN+Ute9ytag9zjfMHgsqmmiz7AndVQ=", Base64.getEncoder().encodeToString(clientProof));
+        assertEquals("6rriTRBi23WpRR/wtup+mMhUZUn/dB5nLTJRsjl95G4=", Base64.getEncoder().encodeToString(serverSignature));
+    }
+
+    @Test
+    void testMatchesJcePbkdf2() throws Exception {
+        ScramHi sha256 = new ScramHi("SHA-256");
+        ScramHi sha512 = new ScramHi("SHA-512");
+        byte[] salt = ScramCredentialGenerator.generateSalt();
+
+        // Short, multi-byte and longer-than-a-block passwords, reusing the same engines
+        for (String password : new String[]{"pencil", "pässwörd-€", "x".repeat(200)}) {
+            assertArrayEquals(jce("PBKDF2WithHmacSHA256", password, salt, 4096, 256),
+                    sha256.hi(bytes(password), salt, 4096), password);
+            assertArrayEquals(jce("PBKDF2WithHmacSHA512", password, salt, 4096, 512),
+                    sha512.hi(bytes(password), salt, 4096), password);
+        }
+    }
+
+    private static byte[] jce(String algorithm, String password, byte[] salt, int iterations, int bits)
+            throws Exception {
+        return SecretKeyFactory.getInstance(algorithm)
+                .generateSecret(new PBEKeySpec(password.toCharArray(), salt, iterations, bits))
+                .getEncoded();
+    }
+
+    private static byte[] hmac(byte[] key, byte[] message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(message);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String hex(byte[] value) {
+        return HexFormat.of().formatHex(value);
+    }
+}
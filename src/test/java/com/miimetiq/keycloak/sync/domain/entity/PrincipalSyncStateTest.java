@@ -0,0 +1,85 @@
+package com.miimetiq.keycloak.sync.domain.entity;
+
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PrincipalSyncState entity.
+ * Tests mechanism encoding, version tracking, and change detection.
+ */
+class PrincipalSyncStateTest {
+
+    @Test
+    void testDefaultConstructor() {
+        PrincipalSyncState state = new PrincipalSyncState();
+        assertNull(state.getPrincipal());
+        assertEquals(0L, state.getCredentialVersion(), "Credential version should default to 0");
+        assertTrue(state.getMechanismSet().isEmpty(), "Mechanism set should be empty");
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        LocalDateTime now = LocalDateTime.now();
+
+        PrincipalSyncState state = new PrincipalSyncState("alice", "id-1", true,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_512, ScramMechanism.SCRAM_SHA_256), now);
+
+        assertEquals("alice", state.getPrincipal());
+        assertEquals("id-1", state.getKeycloakUserId());
+        assertTrue(state.getEnabled());
+        assertEquals("SCRAM_SHA_256,SCRAM_SHA_512", state.getMechanisms(), "Mechanisms should encode in enum order");
+        assertEquals(0L, state.getCredentialVersion());
+        assertEquals(now, state.getLastSyncedAt());
+    }
+
+    @Test
+    void testRecordSyncIncrementsVersion() {
+        LocalDateTime first = LocalDateTime.now();
+        LocalDateTime second = first.plusMinutes(2);
+        PrincipalSyncState state = new PrincipalSyncState("alice", "id-1", true,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256), first);
+
+        state.recordSync("id-1", true, List.of(ScramMechanism.SCRAM_SHA_256), first);
+        state.recordSync("id-2", true, List.of(ScramMechanism.SCRAM_SHA_512), second);
+
+        assertEquals(2L, state.getCredentialVersion());
+        assertEquals("id-2", state.getKeycloakUserId());
+        assertEquals(Set.of(ScramMechanism.SCRAM_SHA_512), state.getMechanismSet());
+        assertEquals(second, state.getLastSyncedAt());
+    }
+
+    @Test
+    void testMatchesDetectsChanges() {
+        PrincipalSyncState state = new PrincipalSyncState("alice", "id-1", true,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256), LocalDateTime.now());
+        Set<ScramMechanism> sha256 = EnumSet.of(ScramMechanism.SCRAM_SHA_256);
+
+        assertTrue(state.matches("id-1", true, sha256), "Unchanged user should match");
+        assertFalse(state.matches("id-2", true, sha256), "Recreated user should not match");
+        assertFalse(state.matches("id-1", false, sha256), "Disabled user should not match");
+        assertFalse(state.matches("id-1", true,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256, ScramMechanism.SCRAM_SHA_512)),
+                "Changed mechanism set should not match");
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        PrincipalSyncState state1 = new PrincipalSyncState();
+        state1.setPrincipal("alice");
+        PrincipalSyncState state2 = new PrincipalSyncState();
+        state2.setPrincipal("alice");
+        PrincipalSyncState state3 = new PrincipalSyncState();
+        state3.setPrincipal("bob");
+
+        assertEquals(state1, state2);
+        assertEquals(state1.hashCode(), state2.hashCode());
+        assertNotEquals(state1, state3);
+    }
+}
@@ -14,6 +14,7 @@ import com.miimetiq.keycloak.sync.reconcile.SyncDiffEngine;
 import com.miimetiq.keycloak.sync.reconcile.SyncPlan;
 import com.miimetiq.keycloak.sync.repository.SyncBatchRepository;
 import com.miimetiq.keycloak.sync.repository.SyncOperationRepository;
+import com.miimetiq.keycloak.sync.service.AuditWriteBehindService;
 import com.miimetiq.keycloak.sync.service.SyncPersistenceService;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
@@ -25,6 +26,7 @@ import org.keycloak.admin.client.Keycloak;
 import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -79,6 +81,9 @@ class ReconciliationIntegrationTest {
     @Inject
     SyncMetrics syncMetrics;
 
+    @Inject
+    AuditWriteBehindService auditWriteBehindService;
+
     private static final String TEST_USER_PREFIX = "reconcile-test-";
     private static final List<String> TEST_USERNAMES = new ArrayList<>();
 
@@ -146,6 +151,7 @@ class ReconciliationIntegrationTest {
 
         // When: triggering reconciliation
         ReconciliationResult result = reconciliationService.performReconciliation("PERSISTENCE_TEST");
+        assertTrue(auditWriteBehindService.flush(Duration.ofSeconds(10)), "Audit records should be flushed");
 
         // Then: sync_batch record should be created
         Optional<SyncBatch> batch = persistenceService.getBatch(result.getCorrelationId());
@@ -311,6 +317,7 @@ class ReconciliationIntegrationTest {
 
         // When: performing complete reconciliation
         ReconciliationResult result = reconciliationService.performReconciliation("COMPLETE_FLOW");
+        assertTrue(auditWriteBehindService.flush(Duration.ofSeconds(10)), "Audit records should be flushed");
 
         // Then: validate all components
         // 1. Result should be successful
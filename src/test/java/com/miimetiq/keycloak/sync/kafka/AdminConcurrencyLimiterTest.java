@@ -0,0 +1,130 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AdminConcurrencyLimiter.
+ */
+@DisplayName("AdminConcurrencyLimiter Unit Tests")
+class AdminConcurrencyLimiterTest {
+
+    static AdminConcurrencyLimiter createLimiter(String algorithm, int initialLimit, long latencyThresholdMs) {
+        KafkaConfig config = mock(KafkaConfig.class);
+        when(config.scramLimiterAlgorithm()).thenReturn(algorithm);
+        when(config.scramLimiterInitialLimit()).thenReturn(initialLimit);
+        when(config.scramLimiterMinLimit()).thenReturn(1);
+        when(config.scramLimiterMaxLimit()).thenReturn(32);
+        when(config.scramLimiterLatencyThresholdMs()).thenReturn(latencyThresholdMs);
+        when(config.scramLimiterBackoffRatio()).thenReturn(0.5);
+        when(config.defaultApiTimeoutMs()).thenReturn(60000);
+
+        AdminConcurrencyLimiter limiter = new AdminConcurrencyLimiter();
+        limiter.kafkaConfig = config;
+        limiter.meterRegistry = new SimpleMeterRegistry();
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    @DisplayName("AIMD grows the limit while saturated and halves it on overload")
+    void testAimdIncreaseAndBackoff() {
+        AdminConcurrencyLimiter limiter = createLimiter("aimd", 4, 60000);
+
+        // Each saturated success adds 1/limit; nine full windows take the limit from 4 to 8
+        for (int window = 0; window < 9; window++) {
+            List<AdminConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                permits.add(limiter.acquire());
+            }
+            permits.forEach(permit -> permit.release(false));
+        }
+        assertEquals(8, limiter.getLimit());
+
+        limiter.acquire().release(true);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("AIMD only counts latency from when the request was sent")
+    void testAimdLatencyExcludesWorkBeforeSend() throws Exception {
+        AdminConcurrencyLimiter limiter = createLimiter("aimd", 4, 100);
+
+        // Local work (e.g. deriving salted passwords) longer than the threshold before sending
+        AdminConcurrencyLimiter.Permit permit = limiter.acquire();
+        Thread.sleep(200);
+        permit.markSent();
+        permit.release(false);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("AIMD does not grow the limit while requests use less than half of it")
+    void testAimdIgnoresIdleCapacity() {
+        AdminConcurrencyLimiter limiter = createLimiter("aimd", 8, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire().release(false);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("AIMD treats requests slower than the latency threshold as overload")
+    void testAimdLatencyThreshold() throws Exception {
+        AdminConcurrencyLimiter limiter = createLimiter("aimd", 4, 1);
+
+        AdminConcurrencyLimiter.Permit permit = limiter.acquire();
+        Thread.sleep(5);
+        permit.release(false);
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Fixed algorithm keeps the initial limit")
+    void testFixedLimit() {
+        AdminConcurrencyLimiter limiter = createLimiter("fixed", 3, 60000);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().release(true);
+        }
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Acquire blocks at the limit until a permit is released")
+    void testAcquireBlocksAtLimit() throws Exception {
+        AdminConcurrencyLimiter limiter = createLimiter("fixed", 1, 60000);
+        AdminConcurrencyLimiter.Permit first = limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            limiter.acquire().release(false);
+            acquired.countDown();
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS), "Second request must wait for a permit");
+
+        first.release(false);
+        first.release(false); // second release is ignored
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -21,10 +21,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,6 +47,9 @@ class KafkaScramManagerTest {
     @Inject
     KafkaScramManager scramManager;
 
+    @Inject
+    AdminConcurrencyLimiter adminLimiter;
+
     private AdminClient adminClient;
     private SyncMetrics syncMetrics;
 
@@ -381,4 +387,109 @@ class KafkaScramManagerTest {
         // Verify interrupt status was restored
         assertTrue(Thread.interrupted(), "Thread interrupt flag should be set");
     }
+
+    @Test
+    @DisplayName("partitionByPrincipal keeps all mechanisms of a principal in the same chunk")
+    void testPartitionByPrincipal_GroupsMechanisms() {
+        // Given: three principals, one of them with two mechanisms
+        List<UserScramCredentialAlteration> alterations = List.of(
+                new UserScramCredentialDeletion("alice", org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_256),
+                new UserScramCredentialDeletion("bob", org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_256),
+                new UserScramCredentialDeletion("alice", org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_512),
+                new UserScramCredentialDeletion("carol", org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_256)
+        );
+
+        // When: partitioning with two principals per chunk
+        List<List<UserScramCredentialAlteration>> chunks = KafkaScramManager.partitionByPrincipal(alterations, 2);
+
+        // Then: alice and bob share the first chunk, carol gets the second
+        assertEquals(2, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(List.of("alice", "alice", "bob"),
+                chunks.get(0).stream().map(UserScramCredentialAlteration::user).sorted().toList());
+        assertEquals(1, chunks.get(1).size());
+        assertEquals("carol", chunks.get(1).get(0).user());
+    }
+
+    @Test
+    @DisplayName("upsertUserScramCredentialsChunked reports per-principal results to the listener")
+    void testUpsertUserScramCredentialsChunked_ReportsResults() {
+        // Given: alice succeeds and bob fails
+        KafkaFuture<Void> successFuture = KafkaFuture.completedFuture(null);
+        org.apache.kafka.common.internals.KafkaFutureImpl<Void> failureFuture =
+                new org.apache.kafka.common.internals.KafkaFutureImpl<>();
+        failureFuture.completeExceptionally(new RuntimeException("Broker rejected"));
+
+        AlterUserScramCredentialsResult mockResult = mock(AlterUserScramCredentialsResult.class);
+        when(mockResult.values()).thenReturn(Map.of("alice", successFuture, "bob", failureFuture));
+        when(adminClient.alterUserScramCredentials(any())).thenReturn(mockResult);
+
+        Map<String, KafkaScramManager.CredentialSpec> credentials = new LinkedHashMap<>();
+        credentials.put("alice", new KafkaScramManager.CredentialSpec(ScramMechanism.SCRAM_SHA_256, "pw1", 4096));
+        credentials.put("bob", new KafkaScramManager.CredentialSpec(ScramMechanism.SCRAM_SHA_256, "pw2", 4096));
+
+        List<Set<String>> reportedChunks = new ArrayList<>();
+        Map<String, Throwable> reportedErrors = new HashMap<>();
+
+        // When: upserting in chunks
+        Map<String, Throwable> errors = scramManager.upsertUserScramCredentialsChunked(credentials,
+                (principals, chunkErrors) -> {
+                    reportedChunks.add(principals);
+                    reportedErrors.putAll(chunkErrors);
+                });
+
+        // Then: the listener saw both principals and only bob failed
+        assertEquals(1, reportedChunks.size());
+        assertEquals(Set.of("alice", "bob"), reportedChunks.get(0));
+        assertEquals(Set.of("bob"), errors.keySet());
+        assertEquals(errors.keySet(), reportedErrors.keySet());
+        assertTrue(errors.get("bob").getMessage().contains("Broker rejected"));
+        verify(syncMetrics).recordAdminOpDuration(timerSample, "upsert");
+    }
+
+    @Test
+    @DisplayName("deleteUserScramCredentialsChunked marks the whole chunk failed when submission throws")
+    void testDeleteUserScramCredentialsChunked_SubmissionFailure() {
+        // Given: AdminClient throws on submission
+        when(adminClient.alterUserScramCredentials(any())).thenThrow(new RuntimeException("Connection refused"));
+
+        Map<String, List<ScramMechanism>> deletions = new LinkedHashMap<>();
+        deletions.put("alice", List.of(ScramMechanism.SCRAM_SHA_256));
+        deletions.put("bob", List.of(ScramMechanism.SCRAM_SHA_256, ScramMechanism.SCRAM_SHA_512));
+
+        // When: deleting in chunks
+        Map<String, Throwable> errors = scramManager.deleteUserScramCredentialsChunked(deletions, null);
+
+        // Then: every principal of the chunk is reported as failed instead of throwing
+        assertEquals(Set.of("alice", "bob"), errors.keySet());
+        verify(syncMetrics).recordAdminOpDuration(timerSample, "delete");
+    }
+
+    @Test
+    @DisplayName("A chunk that fails locally does not shrink the admin concurrency limit")
+    void testChunkedLocalFailureKeepsAdminLimit() {
+        // Given: AdminClient rejects the request before sending it
+        when(adminClient.alterUserScramCredentials(any())).thenThrow(new IllegalArgumentException("Invalid mechanism"));
+        int limitBefore = adminLimiter.getLimit();
+
+        // When
+        Map<String, Throwable> errors = scramManager.deleteUserScramCredentialsChunked(
+                Map.of("alice", List.of(ScramMechanism.SCRAM_SHA_256)), null);
+
+        // Then: the principal failed, but the limiter saw no overload
+        assertEquals(Set.of("alice"), errors.keySet());
+        assertTrue(adminLimiter.getLimit() >= limitBefore);
+        assertEquals(0, adminLimiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("alterUserScramCredentialsChunked returns empty map for empty input")
+    void testAlterUserScramCredentialsChunked_EmptyInput() {
+        // When: no alterations are provided
+        Map<String, Throwable> errors = scramManager.alterUserScramCredentialsChunked(Collections.emptyList(), null);
+
+        // Then: nothing is submitted
+        assertTrue(errors.isEmpty());
+        verify(adminClient, never()).alterUserScramCredentials(any());
+    }
 }
@@ -0,0 +1,125 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.ScramMechanism;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ScramCredentialCache.
+ */
+@DisplayName("ScramCredentialCache Unit Tests")
+class ScramCredentialCacheTest {
+
+    private static final ScramCredentialInfo SHA256 = new ScramCredentialInfo(ScramMechanism.SCRAM_SHA_256, 4096);
+    private static final ScramCredentialInfo SHA512 = new ScramCredentialInfo(ScramMechanism.SCRAM_SHA_512, 4096);
+
+    private ScramCredentialCache createCache(long ttlMs) {
+        KafkaConfig config = mock(KafkaConfig.class);
+        when(config.scramCacheTtlMs()).thenReturn(ttlMs);
+
+        ScramCredentialCache cache = new ScramCredentialCache();
+        cache.kafkaConfig = config;
+        cache.syncMetrics = mock(SyncMetrics.class);
+        cache.meterRegistry = new SimpleMeterRegistry();
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    @DisplayName("Described principals are hits, including those without credentials")
+    void testLoadAndLookup() {
+        ScramCredentialCache cache = createCache(60000);
+        cache.load(System.nanoTime(), List.of("alice", "bob"), Map.of("alice", List.of(SHA256)));
+
+        Map<String, List<ScramCredentialInfo>> hits = new HashMap<>();
+        List<String> misses = cache.lookup(List.of("alice", "bob", "carol"), hits);
+
+        assertEquals(List.of("carol"), misses);
+        assertEquals(List.of(SHA256), hits.get("alice"));
+        assertEquals(List.of(), hits.get("bob"));
+        verify(cache.syncMetrics).incrementScramCacheLookups("hit", 2);
+        verify(cache.syncMetrics).incrementScramCacheLookups("miss", 1);
+    }
+
+    @Test
+    @DisplayName("Own upserts and deletions keep cached entries current")
+    void testAlterationsUpdateEntries() {
+        ScramCredentialCache cache = createCache(60000);
+        cache.load(System.nanoTime(), List.of("alice", "bob"), Map.of("alice", List.of(SHA256)));
+
+        cache.upserted("alice", ScramMechanism.SCRAM_SHA_512, 4096);
+        cache.upserted("bob", ScramMechanism.SCRAM_SHA_256, 8192);
+        cache.deleted("alice", ScramMechanism.SCRAM_SHA_256);
+
+        Map<String, List<ScramCredentialInfo>> hits = new HashMap<>();
+        assertTrue(cache.lookup(List.of("alice", "bob"), hits).isEmpty());
+        assertEquals(List.of(SHA512), hits.get("alice"));
+        assertEquals(List.of(new ScramCredentialInfo(ScramMechanism.SCRAM_SHA_256, 8192)), hits.get("bob"));
+    }
+
+    @Test
+    @DisplayName("An upsert of an uncached principal does not make it a hit")
+    void testUpsertOfUnknownPrincipalStaysMiss() {
+        ScramCredentialCache cache = createCache(60000);
+
+        cache.upserted("alice", ScramMechanism.SCRAM_SHA_256, 4096);
+
+        assertEquals(List.of("alice"), cache.lookup(List.of("alice"), new HashMap<>()));
+    }
+
+    @Test
+    @DisplayName("A describe started before an alteration does not overwrite it")
+    void testStaleDescribeIsIgnored() {
+        ScramCredentialCache cache = createCache(60000);
+        long describeStarted = System.nanoTime();
+        cache.load(describeStarted - 1, List.of("alice"), Map.of());
+
+        cache.upserted("alice", ScramMechanism.SCRAM_SHA_256, 4096);
+        cache.load(describeStarted, List.of("alice"), Map.of());
+        cache.loadAll(describeStarted, Map.of());
+
+        Map<String, List<ScramCredentialInfo>> hits = new HashMap<>();
+        cache.lookup(List.of("alice"), hits);
+        assertEquals(List.of(SHA256), hits.get("alice"));
+    }
+
+    @Test
+    @DisplayName("Failed alterations invalidate the principal")
+    void testInvalidate() {
+        ScramCredentialCache cache = createCache(60000);
+        cache.load(System.nanoTime(), List.of("alice"), Map.of("alice", List.of(SHA256)));
+
+        cache.invalidate("alice");
+
+        assertEquals(List.of("alice"), cache.lookup(List.of("alice"), new HashMap<>()));
+    }
+
+    @Test
+    @DisplayName("Entries expire after the TTL and a TTL of 0 disables the cache")
+    void testExpiry() throws Exception {
+        ScramCredentialCache cache = createCache(20);
+        cache.load(System.nanoTime(), List.of("alice"), Map.of("alice", List.of(SHA256)));
+        Thread.sleep(40);
+
+        assertEquals(List.of("alice"), cache.lookup(List.of("alice"), new HashMap<>()));
+        cache.evictExpired();
+        assertEquals(0, cache.size());
+
+        ScramCredentialCache disabled = createCache(0);
+        disabled.load(System.nanoTime(), List.of("alice"), Map.of("alice", List.of(SHA256)));
+        assertFalse(disabled.isEnabled());
+        assertEquals(List.of("alice"), disabled.lookup(List.of("alice"), new HashMap<>()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.CredentialSpec;
+import com.miimetiq.keycloak.sync.kafka.ScramCredentialPolicy.ScramPolicyException;
+import org.apache.kafka.clients.admin.UserScramCredentialAlteration;
+import org.apache.kafka.clients.admin.UserScramCredentialUpsertion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ScramCredentialPolicy.
+ */
+@DisplayName("ScramCredentialPolicy Unit Tests")
+public class ScramCredentialPolicyTest {
+
+    /**
+     * Creates a policy with default mechanisms and no named policies.
+     */
+    public static ScramCredentialPolicy createPolicy(String... mechanisms) {
+        return createPolicy(List.of(mechanisms), 4096, Map.of());
+    }
+
+    static ScramCredentialPolicy createPolicy(List<String> mechanisms, int iterations,
+                                              Map<String, ScramPolicyConfig.Policy> policies) {
+        ScramPolicyConfig config = mock(ScramPolicyConfig.class);
+        when(config.mechanisms()).thenReturn(mechanisms);
+        when(config.iterations()).thenReturn(iterations);
+        when(config.policies()).thenReturn(policies);
+
+        ScramCredentialPolicy policy = new ScramCredentialPolicy();
+        policy.config = config;
+        policy.init();
+        return policy;
+    }
+
+    private static ScramPolicyConfig.Policy policy(String realm, String pattern, List<String> mechanisms,
+                                                   Integer iterations) {
+        ScramPolicyConfig.Policy policy = mock(ScramPolicyConfig.Policy.class);
+        when(policy.realm()).thenReturn(Optional.ofNullable(realm));
+        when(policy.principalPattern()).thenReturn(Optional.ofNullable(pattern));
+        when(policy.mechanisms()).thenReturn(mechanisms);
+        when(policy.iterations()).thenReturn(Optional.ofNullable(iterations));
+        return policy;
+    }
+
+    @Test
+    @DisplayName("Principals no policy matches get the default mechanisms")
+    void testDefaults() {
+        ScramCredentialPolicy policy = createPolicy(List.of("SCRAM-SHA-256", "SHA-512"), 8192, Map.of());
+
+        assertEquals(Map.of(ScramMechanism.SCRAM_SHA_256, 8192, ScramMechanism.SCRAM_SHA_512, 8192),
+                policy.resolve("master", "alice"));
+    }
+
+    @Test
+    @DisplayName("Named policies match realm and principal pattern in name order")
+    void testPolicyMatching() {
+        ScramCredentialPolicy policy = createPolicy(List.of("SCRAM-SHA-256"), 4096, Map.of(
+                "b-services", policy(null, "svc-.*", List.of("SCRAM-SHA-512"), null),
+                "a-legacy", policy("legacy", "svc-.*", List.of("SCRAM-SHA-256", "SCRAM-SHA-512"), 16384)));
+
+        assertEquals(Map.of(ScramMechanism.SCRAM_SHA_256, 16384, ScramMechanism.SCRAM_SHA_512, 16384),
+                policy.resolve("legacy", "svc-billing"));
+        assertEquals(Map.of(ScramMechanism.SCRAM_SHA_512, 4096), policy.resolve("master", "svc-billing"));
+        assertEquals(Map.of(ScramMechanism.SCRAM_SHA_256, 4096), policy.resolve("legacy", "alice"));
+    }
+
+    @Test
+    @DisplayName("Mechanism names are accepted in several spellings")
+    void testParseMechanism() {
+        assertEquals(ScramMechanism.SCRAM_SHA_512, ScramCredentialPolicy.parseMechanism("SCRAM-SHA-512"));
+        assertEquals(ScramMechanism.SCRAM_SHA_512, ScramCredentialPolicy.parseMechanism("scram_sha_512"));
+        assertEquals(ScramMechanism.SCRAM_SHA_256, ScramCredentialPolicy.parseMechanism(" SHA-256 "));
+        assertThrows(ScramPolicyException.class, () -> ScramCredentialPolicy.parseMechanism("SCRAM-SHA-1"));
+    }
+
+    @Test
+    @DisplayName("Invalid configuration is rejected at startup")
+    void testInvalidConfiguration() {
+        assertThrows(ScramPolicyException.class, () -> createPolicy(List.of("SCRAM-SHA-256"), 1000, Map.of()));
+        assertThrows(ScramPolicyException.class, () -> createPolicy(List.of(), 4096, Map.of()));
+        assertThrows(ScramPolicyException.class, () -> createPolicy(List.of("SCRAM-SHA-256"), 4096,
+                Map.of("broken", policy(null, "svc-[", List.of("SCRAM-SHA-256"), null))));
+    }
+
+    @Test
+    @DisplayName("A multi-mechanism credential spec yields one upsertion per mechanism")
+    void testCredentialSpecBuildsAllMechanisms() {
+        ScramCredentialPolicy policy = createPolicy("SCRAM-SHA-256", "SCRAM-SHA-512");
+        CredentialSpec spec = policy.credentialSpec("master", "alice", "secret");
+
+        List<UserScramCredentialAlteration> alterations =
+                new KafkaScramManager().buildUpsertions(Map.of("alice", spec));
+
+        assertEquals(2, alterations.size());
+        assertEquals(org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_256,
+                ((UserScramCredentialUpsertion) alterations.get(0)).credentialInfo().mechanism());
+        assertEquals(org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_512,
+                ((UserScramCredentialUpsertion) alterations.get(1)).credentialInfo().mechanism());
+    }
+}
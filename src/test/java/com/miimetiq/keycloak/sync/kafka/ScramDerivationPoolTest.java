@@ -0,0 +1,78 @@
+package com.miimetiq.keycloak.sync.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ScramDerivationPool.
+ */
+@DisplayName("ScramDerivationPool Unit Tests")
+class ScramDerivationPoolTest {
+
+    private ScramDerivationPool pool;
+
+    private ScramDerivationPool createPool(int parallelism) {
+        return createPool(parallelism, 1.0);
+    }
+
+    private ScramDerivationPool createPool(int parallelism, double cpuBudget) {
+        KafkaConfig config = mock(KafkaConfig.class);
+        when(config.scramDerivationParallelism()).thenReturn(parallelism);
+
+        pool = new ScramDerivationPool();
+        pool.kafkaConfig = config;
+        pool.cpuBudget = cpuBudget;
+        pool.meterRegistry = new SimpleMeterRegistry();
+        pool.init();
+        return pool;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Parallelism defaults to the available processors")
+    void testParallelism() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        assertEquals(processors, createPool(0).getParallelism());
+        pool.shutdown();
+        assertEquals(Math.min(3, processors), createPool(3).getParallelism());
+    }
+
+    @Test
+    @DisplayName("Parallelism is capped to the CPU budget")
+    void testParallelismCappedToCpuBudget() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        assertEquals(Math.max(1, processors / 2), createPool(0, 0.5).getParallelism());
+        pool.shutdown();
+        assertEquals(1, createPool(processors * 2, 0.0).getParallelism());
+    }
+
+    @Test
+    @DisplayName("Tasks run on derivation threads and failures complete the future exceptionally")
+    void testSubmit() throws Exception {
+        createPool(2);
+
+        String thread = pool.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        assertTrue(thread.startsWith("scram-derivation-"), thread);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> pool.submit(() -> {
+                    throw new IllegalStateException("boom");
+                }).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -298,6 +298,109 @@ class KeycloakUserFetcherTest {
         assertEquals(1234567890L, userInfo.getCreatedTimestamp());
     }
 
+    @Test
+    void testFetchUsersPaged_DeliversEachPageInOrder() {
+        // Given - 250 users across 3 pages (100, 100, 50)
+        when(usersResource.list(0, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(100, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(200, 100)).thenReturn(createMockUsers(50));
+
+        // When
+        List<Integer> pageSizes = new ArrayList<>();
+        int total = fetcher.fetchUsersPaged(page -> pageSizes.add(page.size()));
+
+        // Then - each page is handed over separately
+        assertEquals(250, total);
+        assertEquals(Arrays.asList(100, 100, 50), pageSizes);
+    }
+
+    @Test
+    void testFetchUsersPaged_RetriesOnlyFailingPage() {
+        // Given - the second page fails once
+        when(usersResource.list(0, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(100, 100))
+                .thenThrow(new RuntimeException("Transient network error"))
+                .thenReturn(createMockUsers(20));
+
+        // When
+        List<Integer> pageSizes = new ArrayList<>();
+        int total = fetcher.fetchUsersPaged(page -> pageSizes.add(page.size()));
+
+        // Then - first page is not fetched again
+        assertEquals(120, total);
+        assertEquals(Arrays.asList(100, 20), pageSizes);
+        verify(usersResource, times(1)).list(0, 100);
+        verify(usersResource, times(2)).list(100, 100);
+    }
+
+    @Test
+    void testFetchUsersPaged_ConsumerFailureIsNotRetried() {
+        // Given
+        when(usersResource.list(0, 100)).thenReturn(createMockUsers(10));
+
+        // When/Then - consumer exception propagates without re-fetching
+        assertThrows(IllegalStateException.class,
+                () -> fetcher.fetchUsersPaged(page -> {
+                    throw new IllegalStateException("Downstream failure");
+                }));
+        verify(usersResource, times(1)).list(0, 100);
+    }
+
+    @Test
+    void testFetchUsersPaged_ParallelDeliversPagesInOffsetOrder() {
+        // Given - 250 users, the first page is the slowest to arrive
+        when(reconcileConfig.fetchParallelism()).thenReturn(3);
+        when(usersResource.count()).thenReturn(250);
+        when(usersResource.list(0, 100)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return createNamedUsers("a", 100);
+        });
+        when(usersResource.list(100, 100)).thenReturn(createNamedUsers("b", 100));
+        when(usersResource.list(200, 100)).thenReturn(createNamedUsers("c", 50));
+
+        // When
+        List<String> firstUsernames = new ArrayList<>();
+        int total = fetcher.fetchUsersPaged(page -> firstUsernames.add(page.get(0).getUsername()));
+
+        // Then - order matches the sequential fetch regardless of completion order
+        assertEquals(250, total);
+        assertEquals(Arrays.asList("a0", "b0", "c0"), firstUsernames);
+    }
+
+    @Test
+    void testFetchUsersPaged_ParallelContinuesWhenRealmGrew() {
+        // Given - count says 200 but a third page appeared meanwhile
+        when(reconcileConfig.fetchParallelism()).thenReturn(4);
+        when(usersResource.count()).thenReturn(200);
+        when(usersResource.list(0, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(100, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(200, 100)).thenReturn(createMockUsers(5));
+
+        // When
+        List<KeycloakUserInfo> result = new ArrayList<>();
+        fetcher.fetchUsersPaged(result::addAll);
+
+        // Then - the extra page is picked up sequentially
+        assertEquals(205, result.size());
+        verify(usersResource, times(1)).list(200, 100);
+    }
+
+    @Test
+    void testFetchUsersPaged_ParallelPropagatesPageFailure() {
+        // Given - one page keeps failing
+        when(reconcileConfig.fetchParallelism()).thenReturn(2);
+        when(usersResource.count()).thenReturn(150);
+        when(usersResource.list(0, 100)).thenReturn(createMockUsers(100));
+        when(usersResource.list(100, 100)).thenThrow(new RuntimeException("Persistent error"));
+
+        // When/Then
+        KeycloakUserFetcher.KeycloakFetchException exception = assertThrows(
+                KeycloakUserFetcher.KeycloakFetchException.class,
+                () -> fetcher.fetchUsersPaged(page -> { })
+        );
+        assertTrue(exception.getMessage().contains("Failed after 3 attempts"));
+    }
+
     // Helper methods
 
     private List<UserRepresentation> createMockUsers(int count) {
@@ -313,6 +416,14 @@ class KeycloakUserFetcherTest {
         return users;
     }
 
+    private List<UserRepresentation> createNamedUsers(String prefix, int count) {
+        List<UserRepresentation> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(createUser(prefix + "-id-" + i, prefix + i, prefix + i + "@example.com", true));
+        }
+        return users;
+    }
+
     private UserRepresentation createUser(String id, String username, String email, Boolean enabled) {
         UserRepresentation user = new UserRepresentation();
         user.setId(id);
@@ -0,0 +1,144 @@
+package com.miimetiq.keycloak.sync.reconcile;
+
+import com.miimetiq.keycloak.sync.domain.KeycloakUserInfo;
+import com.miimetiq.keycloak.sync.domain.entity.PrincipalSyncState;
+import com.miimetiq.keycloak.sync.kafka.KafkaConfig;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager;
+import com.miimetiq.keycloak.sync.kafka.ScramCredentialPolicyTest;
+import com.miimetiq.keycloak.sync.keycloak.KeycloakConfig;
+import com.miimetiq.keycloak.sync.keycloak.KeycloakUserFetcher;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.repository.PrincipalSyncStateRepository;
+import com.miimetiq.keycloak.sync.retention.RetentionScheduler;
+import com.miimetiq.keycloak.sync.service.AuditWriteBehindService;
+import com.miimetiq.keycloak.sync.webhook.PasswordHandoffStore;
+import com.miimetiq.keycloak.sync.webhook.SyncOperationExecutor;
+import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.ScramMechanism;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReconciliationService with mocked Keycloak, Kafka and database access,
+ * covering principals whose password was pushed by the password webhook.
+ */
+class ReconciliationServiceTest {
+
+    private ReconciliationService service;
+    private KafkaScramManager.AlterationPipeline pipeline;
+    private final Map<String, PrincipalSyncState> syncStates = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new ReconciliationService();
+        service.keycloakUserFetcher = mock(KeycloakUserFetcher.class);
+        service.kafkaScramManager = mock(KafkaScramManager.class);
+        pipeline = mock(KafkaScramManager.AlterationPipeline.class);
+        when(service.kafkaScramManager.openPipeline(any())).thenReturn(pipeline);
+        service.keycloakConfig = mock(KeycloakConfig.class);
+        when(service.keycloakConfig.realm()).thenReturn("master");
+        service.kafkaConfig = mock(KafkaConfig.class);
+        when(service.kafkaConfig.bootstrapServers()).thenReturn("localhost:9092");
+        service.scramCredentialPolicy = ScramCredentialPolicyTest.createPolicy("SCRAM-SHA-256");
+        service.passwordStore = mock(PasswordHandoffStore.class);
+        service.syncOperationExecutor = mock(SyncOperationExecutor.class);
+        when(service.syncOperationExecutor.claimForReconciliation(any(), anyLong()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>>getArgument(0)));
+        service.syncMetrics = mock(SyncMetrics.class);
+        service.reconcileConfig = mock(ReconcileConfig.class);
+        when(service.reconcileConfig.incremental()).thenReturn(true);
+        service.principalSyncStateRepository = mock(PrincipalSyncStateRepository.class);
+        when(service.principalSyncStateRepository.findAllAsMap()).thenReturn(syncStates);
+        service.auditWriteBehindService = mock(AuditWriteBehindService.class);
+        service.retentionScheduler = mock(RetentionScheduler.class);
+
+        SyncDiffEngine diffEngine = new SyncDiffEngine();
+        diffEngine.excludedPrincipalsConfig = Optional.empty();
+        diffEngine.init();
+        service.syncDiffEngine = diffEngine;
+    }
+
+    @Test
+    void testPrincipalPushedByWebhookIsAdoptedWithoutRandomPassword() {
+        // Given: the webhook wrote alice's real password to Kafka, but never a sync state
+        kafkaHas("alice", ScramMechanism.SCRAM_SHA_256);
+        keycloakHas(user("alice"));
+
+        // When
+        service.performReconciliation("SCHEDULED");
+
+        // Then: the credential is recorded as synced instead of being overwritten
+        verify(pipeline, never()).submit(any());
+        verify(service.syncOperationExecutor).releaseClaims(List.of("alice"));
+        ArgumentCaptor<PrincipalSyncState> state = ArgumentCaptor.forClass(PrincipalSyncState.class);
+        verify(service.principalSyncStateRepository).persist(state.capture());
+        assertEquals("alice", state.getValue().getPrincipal());
+        assertTrue(state.getValue().matches("id-alice", true,
+                List.of(com.miimetiq.keycloak.sync.domain.enums.ScramMechanism.SCRAM_SHA_256)));
+    }
+
+    @Test
+    void testPrincipalPushedByWebhookDuringCycleIsNotUpserted() {
+        // Given: Kafka was described before the webhook created alice's credential
+        when(service.kafkaScramManager.describeUserScramCredentials()).thenReturn(Map.of());
+        keycloakHas(user("alice"));
+        doReturn(List.of()).when(service.syncOperationExecutor).claimForReconciliation(any(), anyLong());
+
+        // When
+        service.performReconciliation("SCHEDULED");
+
+        // Then
+        verify(pipeline, never()).submit(any());
+        verify(service.passwordStore, never()).takeAll(any());
+    }
+
+    @Test
+    void testPrincipalMissingPolicyMechanismIsStillUpserted() {
+        // Given: Kafka only has a mechanism the policy does not list
+        kafkaHas("alice", ScramMechanism.SCRAM_SHA_512);
+        keycloakHas(user("alice"));
+        when(service.passwordStore.takeAll(any())).thenReturn(Map.of());
+
+        // When
+        service.performReconciliation("SCHEDULED");
+
+        // Then: the claim is held while the upsert is in flight and released afterwards
+        InOrder order = inOrder(pipeline, service.syncOperationExecutor);
+        order.verify(pipeline).submit(any());
+        order.verify(service.syncOperationExecutor).releaseClaims(Set.of("alice"));
+    }
+
+    private void kafkaHas(String principal, ScramMechanism mechanism) {
+        when(service.kafkaScramManager.describeUserScramCredentials())
+                .thenReturn(Map.of(principal, List.of(new ScramCredentialInfo(mechanism, 4096))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void keycloakHas(KeycloakUserInfo... users) {
+        when(service.keycloakUserFetcher.fetchUsersPaged(any())).thenAnswer(invocation -> {
+            Consumer<List<KeycloakUserInfo>> consumer = invocation.getArgument(0);
+            consumer.accept(List.of(users));
+            return users.length;
+        });
+    }
+
+    private static KeycloakUserInfo user(String username) {
+        return new KeycloakUserInfo("id-" + username, username, null, true, null);
+    }
+}
@@ -1,11 +1,14 @@
 package com.miimetiq.keycloak.sync.reconcile;
 
 import com.miimetiq.keycloak.sync.domain.KeycloakUserInfo;
+import com.miimetiq.keycloak.sync.domain.entity.PrincipalSyncState;
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.IntStream;
 
@@ -276,6 +279,104 @@ class SyncDiffEngineTest {
         assertTrue(mixed.getSummary().contains("[DRY-RUN]"));
     }
 
+    @Test
+    void testComputeIncrementalDiff_SkipsUnchangedUsers() {
+        // Given: two users already synced with matching state
+        KeycloakUserInfo user1 = createUser("user1");
+        KeycloakUserInfo user2 = createUser("user2");
+        keycloakUsers = List.of(user1, user2);
+        kafkaPrincipals = Set.of("user1", "user2");
+        Map<String, PrincipalSyncState> states = Map.of(
+                "user1", createState(user1),
+                "user2", createState(user2)
+        );
+
+        // When: computing incremental diff with no pending passwords
+        SyncPlan plan = diffEngine.computeIncrementalDiff(keycloakUsers, kafkaPrincipals, states,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256), principal -> false);
+
+        // Then: nothing to do, regardless of alwaysUpsert
+        assertTrue(plan.isEmpty(), "Unchanged users should not be upserted");
+    }
+
+    @Test
+    void testComputeIncrementalDiff_DetectsChanges() {
+        // Given: one unchanged user, one recreated user, one with a pending password,
+        // one without state, one missing from Kafka and one orphan
+        KeycloakUserInfo unchanged = createUser("unchanged");
+        KeycloakUserInfo recreated = createUser("recreated");
+        KeycloakUserInfo passwordChanged = createUser("password-changed");
+        KeycloakUserInfo noState = createUser("no-state");
+        KeycloakUserInfo missingInKafka = createUser("missing-in-kafka");
+        keycloakUsers = List.of(unchanged, recreated, passwordChanged, noState, missingInKafka);
+        kafkaPrincipals = Set.of("unchanged", "recreated", "password-changed", "no-state", "orphan");
+
+        Map<String, PrincipalSyncState> states = new HashMap<>();
+        states.put("unchanged", createState(unchanged));
+        states.put("recreated", createState(createUser("recreated")));
+        states.put("password-changed", createState(passwordChanged));
+        states.put("missing-in-kafka", createState(missingInKafka));
+
+        // When: computing incremental diff
+        SyncPlan plan = diffEngine.computeIncrementalDiff(keycloakUsers, kafkaPrincipals, states,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256), "password-changed"::equals);
+
+        // Then: only changed users are upserted and the orphan is deleted
+        Set<String> upserted = new HashSet<>();
+        plan.getUpserts().forEach(u -> upserted.add(u.getUsername()));
+        assertEquals(Set.of("recreated", "password-changed", "no-state", "missing-in-kafka"), upserted);
+        assertEquals(List.of("orphan"), plan.getDeletes());
+    }
+
+    @Test
+    void testComputeIncrementalDiff_MechanismChangeTriggersUpsert() {
+        // Given: a user synced with SHA-256 only
+        KeycloakUserInfo user = createUser("user1");
+        keycloakUsers = List.of(user);
+        kafkaPrincipals = Set.of("user1");
+        Map<String, PrincipalSyncState> states = Map.of("user1", createState(user));
+
+        // When: SHA-512 is now also required
+        SyncPlan plan = diffEngine.computeIncrementalDiff(keycloakUsers, kafkaPrincipals, states,
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256, ScramMechanism.SCRAM_SHA_512), principal -> false);
+
+        // Then: user is upserted
+        assertEquals(1, plan.getUpsertCount());
+    }
+
+    @Test
+    void testComputeIncrementalPageUpserts_OnlyChangedUsersOfPage() {
+        // Given: a page with one unchanged and one new user
+        KeycloakUserInfo unchanged = createUser("unchanged");
+        KeycloakUserInfo fresh = createUser("fresh");
+        kafkaPrincipals = Set.of("unchanged");
+        Map<String, PrincipalSyncState> states = Map.of("unchanged", createState(unchanged));
+
+        // When: selecting upserts for the page
+        List<KeycloakUserInfo> upserts = diffEngine.computeIncrementalPageUpserts(List.of(unchanged, fresh),
+                kafkaPrincipals, states, EnumSet.of(ScramMechanism.SCRAM_SHA_256), principal -> false);
+
+        // Then: only the new user is selected
+        assertEquals(List.of(fresh), upserts);
+    }
+
+    @Test
+    void testComputeDeletes_UsesAllSeenUsernamesAndExclusions() {
+        // Given: Kafka has an orphan, a system account and a synced user
+        kafkaPrincipals = Set.of("alice", "orphan", "admin");
+
+        // When: computing deletes after all pages were seen
+        List<String> deletes = diffEngine.computeDeletes(Set.of("alice"), kafkaPrincipals);
+
+        // Then: only the orphan is deleted
+        assertEquals(List.of("orphan"), deletes);
+    }
+
+    private PrincipalSyncState createState(KeycloakUserInfo user) {
+        return new PrincipalSyncState(user.getUsername(), user.getId(), user.isEnabled(),
+                EnumSet.of(ScramMechanism.SCRAM_SHA_256), LocalDateTime.now());
+    }
+
     // Helper method to create test users
     private KeycloakUserInfo createUser(String username) {
         return new KeycloakUserInfo(
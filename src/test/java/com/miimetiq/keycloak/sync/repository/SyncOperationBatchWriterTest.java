@@ -0,0 +1,110 @@
+package com.miimetiq.keycloak.sync.repository;
+
+import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
+import com.miimetiq.keycloak.sync.domain.enums.OpType;
+import com.miimetiq.keycloak.sync.domain.enums.OperationResult;
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SyncOperationBatchWriter against an in-memory SQLite database.
+ */
+class SyncOperationBatchWriterTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sync_operation (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, correlation_id TEXT NOT NULL, " +
+                    "occurred_at TIMESTAMP NOT NULL, realm TEXT NOT NULL, cluster_id TEXT NOT NULL, " +
+                    "principal TEXT NOT NULL, op_type TEXT NOT NULL, mechanism TEXT, result TEXT NOT NULL, " +
+                    "error_code TEXT, error_message TEXT, duration_ms INTEGER NOT NULL)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testInsert_WritesAllRowsAcrossPartialBatches() throws Exception {
+        // Given: 7 operations and 3 rows per statement (3 + 3 + 1)
+        List<SyncOperation> operations = createOperations(7);
+
+        // When
+        SyncOperationBatchWriter.insert(connection, operations, 3);
+
+        // Then: every row is present and IDs are assigned in order
+        assertEquals(7, countRows());
+        for (int i = 0; i < operations.size(); i++) {
+            assertEquals(i + 1L, operations.get(i).getId());
+        }
+    }
+
+    @Test
+    void testInsert_PreservesColumnValues() throws Exception {
+        // Given: a failed operation without mechanism
+        SyncOperation operation = new SyncOperation("corr-1", LocalDateTime.now(), "master",
+                "localhost:9092", "alice", OpType.SCRAM_DELETE, OperationResult.ERROR, 12);
+        operation.setErrorCode("TimeoutException");
+        operation.setErrorMessage("timed out");
+
+        // When
+        SyncOperationBatchWriter.insert(connection, List.of(operation), 500);
+
+        // Then
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM sync_operation")) {
+            assertTrue(rs.next());
+            assertEquals("alice", rs.getString("principal"));
+            assertEquals("SCRAM_DELETE", rs.getString("op_type"));
+            assertNull(rs.getString("mechanism"));
+            assertEquals("ERROR", rs.getString("result"));
+            assertEquals("TimeoutException", rs.getString("error_code"));
+            assertEquals("timed out", rs.getString("error_message"));
+            assertEquals(12, rs.getInt("duration_ms"));
+        }
+    }
+
+    @Test
+    void testEffectiveBatchSize_ClampsToSqliteParameterLimit() {
+        assertEquals(1, SyncOperationBatchWriter.effectiveBatchSize(0));
+        assertEquals(500, SyncOperationBatchWriter.effectiveBatchSize(500));
+        assertEquals(32766 / 11, SyncOperationBatchWriter.effectiveBatchSize(100_000));
+    }
+
+    private int countRows() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM sync_operation")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private List<SyncOperation> createOperations(int count) {
+        List<SyncOperation> operations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SyncOperation operation = new SyncOperation("corr-1", LocalDateTime.now(), "master",
+                    "localhost:9092", "user" + i, OpType.SCRAM_UPSERT, OperationResult.SUCCESS, 0);
+            operation.setMechanism(ScramMechanism.SCRAM_SHA_256);
+            operations.add(operation);
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,158 @@
+package com.miimetiq.keycloak.sync.service;
+
+import com.miimetiq.keycloak.sync.domain.entity.SyncBatch;
+import com.miimetiq.keycloak.sync.domain.entity.SyncOperation;
+import com.miimetiq.keycloak.sync.domain.enums.OpType;
+import com.miimetiq.keycloak.sync.domain.enums.OperationResult;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.inject.Vetoed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AuditWriteBehindService with the database commit replaced by an in-memory recorder.
+ */
+class AuditWriteBehindServiceTest {
+
+    private RecordingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.release.countDown();
+            service.stop();
+        }
+    }
+
+    @Test
+    void testOperationsAreWrittenInGroupCommits() {
+        // Given: the writer is held back while records pile up
+        service = createService(100, 50);
+        CountDownLatch hold = new CountDownLatch(1);
+        service.release = hold;
+        service.submitBatch(new SyncBatch("corr-1", LocalDateTime.now(), "MANUAL", 10));
+        service.submitOperations(createOperations(10));
+
+        // When: the writer is released
+        hold.countDown();
+
+        // Then: all records are committed, the backlog in as few groups as possible
+        assertTrue(service.flush(Duration.ofSeconds(5)));
+        assertEquals(11, service.writtenCount());
+        assertTrue(service.groups.size() <= 2, "Expected group commits but got " + service.groups.size());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    void testFullQueueAppliesBackpressureThenDrops() {
+        // Given: a tiny queue and a blocked writer
+        service = createService(2, 1);
+        service.enqueueTimeoutMs = 50;
+        service.release = new CountDownLatch(1);
+
+        // When: submitting more than the queue and in-flight group can hold
+        int dropped = service.submitOperations(createOperations(6));
+
+        // Then: overflow is counted instead of blocking forever
+        assertTrue(dropped > 0);
+        verify(service.metrics, atLeastOnce()).incrementAuditBackpressure();
+        verify(service.metrics, times(dropped)).incrementAuditDropped(1);
+    }
+
+    @Test
+    void testStopFlushesPendingRecords() {
+        // Given
+        service = createService(100, 10);
+        service.submitOperations(createOperations(25));
+
+        // When
+        service.stop();
+
+        // Then: nothing submitted before shutdown is lost
+        assertEquals(25, service.writtenCount());
+    }
+
+    @Test
+    void testFailedGroupIsRetriedThenCounted() {
+        // Given: every commit fails
+        service = createService(100, 10);
+        service.failCommits = true;
+
+        // When
+        service.submitOperations(createOperations(3));
+
+        // Then
+        assertTrue(service.flush(Duration.ofSeconds(5)));
+        // The writer may pick up the first record before the others are queued, splitting the group
+        ArgumentCaptor<Integer> failures = ArgumentCaptor.forClass(Integer.class);
+        verify(service.metrics, atLeastOnce()).incrementAuditWriteFailures(failures.capture());
+        assertEquals(3, failures.getAllValues().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private RecordingService createService(int capacity, int groupSize) {
+        RecordingService recording = new RecordingService();
+        recording.queueCapacity = capacity;
+        recording.groupCommitSize = groupSize;
+        recording.flushIntervalMs = 20;
+        recording.enqueueTimeoutMs = 1000;
+        recording.shutdownTimeoutSeconds = 10;
+        recording.metrics = mock(SyncMetrics.class);
+        when(recording.metrics.startAuditFlushTimer()).thenReturn(mock(Timer.Sample.class));
+        doNothing().when(recording.metrics).incrementAuditDropped(anyInt());
+        recording.start();
+        return recording;
+    }
+
+    private List<SyncOperation> createOperations(int count) {
+        List<SyncOperation> operations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            operations.add(new SyncOperation("corr-1", LocalDateTime.now(), "master", "localhost:9092",
+                    "user" + i, OpType.SCRAM_UPSERT, OperationResult.SUCCESS, 0));
+        }
+        return operations;
+    }
+
+    /**
+     * Records committed groups instead of writing them to the database.
+     * Vetoed so the inherited bean-defining annotation does not make it a CDI bean.
+     */
+    @Vetoed
+    private static class RecordingService extends AuditWriteBehindService {
+        final List<List<AuditEntry>> groups = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile boolean failCommits;
+
+        @Override
+        void commitGroup(List<AuditEntry> group) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failCommits) {
+                throw new IllegalStateException("database is locked");
+            }
+            groups.add(new ArrayList<>(group));
+        }
+
+        int writtenCount() {
+            synchronized (groups) {
+                return groups.stream().mapToInt(List::size).sum();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.webhook.DownstreamLimiter.Downstream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DownstreamLimiter.
+ */
+class DownstreamLimiterTest {
+
+    @Test
+    void testVirtualModeRunsEachTaskOnItsOwnVirtualThread() throws Exception {
+        // Given
+        DownstreamLimiter limiter = createLimiter("virtual", 2);
+
+        // When
+        ExecutorService executor = limiter.newExecutor("webhook-test", 1);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertTrue(limiter.isVirtual());
+            assertTrue(thread.isVirtual());
+            assertTrue(thread.getName().startsWith("webhook-test-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPlatformModeUsesNamedDaemonThreads() throws Exception {
+        // Given
+        DownstreamLimiter limiter = createLimiter("platform", 2);
+
+        // When
+        ExecutorService executor = limiter.newExecutor("webhook-test", 1);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertFalse(thread.isVirtual());
+            assertTrue(thread.isDaemon());
+            assertEquals("webhook-test", thread.getName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentCallsAreLimitedPerDownstream() throws Exception {
+        // Given: two Kafka permits and many virtual threads blocking in Kafka calls
+        DownstreamLimiter limiter = createLimiter("virtual", 2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = limiter.newExecutor("webhook-test", 1);
+
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(executor.submit(() -> limiter.run(Downstream.KAFKA, () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.decrementAndGet();
+                })));
+            }
+            while (limiter.inFlight(Downstream.KAFKA) < 2) {
+                Thread.sleep(5);
+            }
+            // SQLite permits are independent of Kafka's
+            assertEquals("ok", limiter.call(Downstream.SQLITE, () -> "ok"));
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            // Then
+            assertEquals(2, maxActive.get());
+            assertEquals(0, limiter.inFlight(Downstream.KAFKA));
+            assertEquals(0.0, limiter.meterRegistry.get("sync_downstream_in_flight")
+                    .tag("downstream", "kafka").gauge().value());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static DownstreamLimiter createLimiter(String mode, int kafkaMaxConcurrency) {
+        DownstreamLimiter limiter = new DownstreamLimiter();
+        limiter.executorMode = mode;
+        limiter.kafkaMaxConcurrency = kafkaMaxConcurrency;
+        limiter.sqliteMaxConcurrency = 1;
+        limiter.meterRegistry = new SimpleMeterRegistry();
+        limiter.init();
+        return limiter;
+    }
+}
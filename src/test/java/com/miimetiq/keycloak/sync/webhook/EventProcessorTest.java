@@ -0,0 +1,152 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EventProcessor with a real queue and a mocked SyncOperationExecutor,
+ * covering retries that are superseded by newer events of the same principal.
+ */
+class EventProcessorTest {
+
+    private EventProcessor processor;
+    private final List<CompletableFuture<Void>> submitted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        EventQueueService queue = new EventQueueService();
+        queue.laneCount = 1;
+        queue.queueCapacity = 100;
+        queue.overflowStrategy = "REJECT";
+        queue.implementation = "linked";
+        queue.meterRegistry = new SimpleMeterRegistry();
+        queue.metrics = mock(SyncMetrics.class);
+        queue.eventMapper = new EventMapper();
+        queue.eventLog = mock(WebhookEventLog.class);
+        queue.init();
+
+        processor = new EventProcessor();
+        processor.drainBatchSize = 10;
+        processor.queueService = queue;
+        processor.retryPolicy = mock(RetryPolicy.class);
+        when(processor.retryPolicy.shouldRetry(anyInt())).thenReturn(true);
+        when(processor.retryPolicy.calculateRetryDelay(anyInt(), anyLong())).thenReturn(10L);
+        processor.metrics = mock(SyncMetrics.class);
+        processor.eventMapper = new EventMapper();
+        processor.syncOperationExecutor = mock(SyncOperationExecutor.class);
+        when(processor.syncOperationExecutor.submit(anyString(), any())).thenAnswer(invocation -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            submitted.add(future);
+            return future;
+        });
+        processor.downstreamLimiter = mock(DownstreamLimiter.class);
+        when(processor.downstreamLimiter.newExecutor(anyString(), anyInt()))
+                .thenAnswer(invocation -> Executors.newFixedThreadPool(invocation.getArgument(1)));
+        processor.retryScheduler = mock(RetryScheduler.class);
+        processor.deadLetterStore = mock(DeadLetterStore.class);
+        processor.supersessionTracker = new SupersessionTracker();
+        processor.onStart(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.onShutdown(null);
+    }
+
+    @Test
+    void testFailedEventIsNotRetriedWhileNewerEventIsInFlight() throws Exception {
+        // Given: a delete for alice is submitted after her update
+        processor.queueService.enqueue(userEvent("alice", "UPDATE"));
+        waitUntil(() -> submitted.size() == 1);
+        processor.queueService.enqueue(userEvent("alice", "DELETE"));
+        waitUntil(() -> submitted.size() == 2);
+
+        // When: the update fails
+        submitted.get(0).completeExceptionally(new RuntimeException("broker unavailable"));
+
+        // Then
+        verify(processor.metrics, timeout(2000)).incrementRetryAttempts("SUPERSEDED", 1);
+        verify(processor.retryScheduler, never()).schedule(any(), anyLong());
+
+        submitted.get(1).complete(null);
+        waitUntil(() -> processor.supersessionTracker.size() == 0);
+    }
+
+    @Test
+    void testRetryIsDroppedWhenNewerEventCompletedDuringBackoff() throws Exception {
+        // Given: alice's update failed and waits for its retry
+        WebhookEvent update = userEvent("alice", "UPDATE");
+        processor.queueService.enqueue(update);
+        waitUntil(() -> submitted.size() == 1);
+        submitted.get(0).completeExceptionally(new RuntimeException("broker unavailable"));
+        verify(processor.retryScheduler, timeout(2000)).schedule(eq(update), anyLong());
+
+        // And: a newer delete for alice completes during the backoff
+        processor.queueService.enqueue(userEvent("alice", "DELETE"));
+        waitUntil(() -> submitted.size() == 2);
+        submitted.get(1).complete(null);
+
+        // When: the retry comes back
+        processor.queueService.enqueue(update);
+        waitUntil(() -> processor.supersessionTracker.size() == 0);
+
+        // Then: the stale update is not applied over the delete
+        verify(processor.metrics).incrementRetryAttempts("SUPERSEDED", 2);
+        verify(processor.syncOperationExecutor, times(2)).submit(anyString(), any());
+    }
+
+    @Test
+    void testRetryIsAppliedWhenNoNewerEventArrived() throws Exception {
+        // Given
+        WebhookEvent update = userEvent("alice", "UPDATE");
+        processor.queueService.enqueue(update);
+        waitUntil(() -> submitted.size() == 1);
+        submitted.get(0).completeExceptionally(new RuntimeException("broker unavailable"));
+
+        verify(processor.retryScheduler, timeout(2000)).schedule(eq(update), anyLong());
+
+        // When
+        processor.queueService.enqueue(update);
+        waitUntil(() -> submitted.size() == 2);
+        submitted.get(1).complete(null);
+
+        // Then
+        verify(processor.metrics, timeout(2000)).incrementRetryAttempts("SUCCESS", 2);
+        assertEquals(0, processor.supersessionTracker.size());
+    }
+
+    private WebhookEvent userEvent(String username, String operationType) {
+        KeycloakAdminEvent event = new KeycloakAdminEvent();
+        event.setRealmId("master");
+        event.setResourceType("USER");
+        event.setOperationType(operationType);
+        event.setResourcePath("users/" + username);
+        return new WebhookEvent(UUID.randomUUID().toString(), event);
+    }
+
+    private void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+}
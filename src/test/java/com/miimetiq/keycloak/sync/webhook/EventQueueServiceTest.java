@@ -0,0 +1,332 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the partitioned EventQueueService.
+ */
+class EventQueueServiceTest {
+
+    @Test
+    void testEventsOfOnePrincipalShareALaneInArrivalOrder() {
+        // Given
+        EventQueueService queue = createQueue(4, 100, "REJECT");
+        WebhookEvent create = userEvent("alice", "CREATE");
+        WebhookEvent delete = userEvent("alice", "DELETE");
+
+        // When
+        queue.enqueue(create);
+        queue.enqueue(userEvent("bob", "CREATE"));
+        queue.enqueue(delete);
+
+        // Then: both alice events come out of her lane in order
+        int lane = queue.laneFor("alice");
+        List<WebhookEvent> drained = queue.drainLane(lane, 10, 100, TimeUnit.MILLISECONDS).stream()
+                .filter(event -> "alice".equals(event.getPartitionKey()))
+                .toList();
+        assertEquals(List.of(create, delete), drained);
+        assertTrue(create.getSequence() < delete.getSequence());
+    }
+
+    @Test
+    void testCapacityIsSharedAcrossLanes() {
+        // Given
+        EventQueueService queue = createQueue(4, 3, "REJECT");
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.enqueue(userEvent("user" + i, "CREATE")));
+        }
+
+        // Then
+        assertFalse(queue.enqueue(userEvent("user9", "CREATE")));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    void testDropOldestKeepsSizeAtCapacity() {
+        // Given
+        EventQueueService queue = createQueue(2, 2, "DROP_OLDEST");
+        queue.enqueue(userEvent("alice", "CREATE"));
+        queue.enqueue(userEvent("alice", "UPDATE"));
+
+        // When
+        assertTrue(queue.enqueue(userEvent("bob", "CREATE")));
+
+        // Then
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    void testLaneDepthGaugeIsRegisteredPerLane() {
+        // Given
+        EventQueueService queue = createQueue(3, 100, "REJECT");
+        queue.enqueue(userEvent("alice", "CREATE"));
+
+        // Then
+        int lane = queue.laneFor("alice");
+        assertEquals(1.0, queue.meterRegistry.get("sync_queue_lane_depth")
+                .tag("lane", String.valueOf(lane)).gauge().value());
+        assertEquals(3, queue.meterRegistry.get("sync_queue_lane_depth").gauges().size());
+    }
+
+    @Test
+    void testRingBufferLanesKeepOrderAndDropOldest() {
+        // Given
+        EventQueueService queue = createQueue(1, 2, "DROP_OLDEST");
+        queue.implementation = "ring";
+        queue.init();
+        WebhookEvent update = userEvent("alice", "UPDATE");
+        WebhookEvent delete = userEvent("alice", "DELETE");
+
+        // When
+        queue.enqueue(userEvent("alice", "CREATE"));
+        queue.enqueue(update);
+        queue.enqueue(delete);
+
+        // Then: the oldest event made room and the rest stay in order
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(List.of(update, delete), queue.drainLane(0, 10, 100, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testRingBufferLanesHoldTheirShareOfTheCapacity() {
+        // Given: 4 slots over 2 lanes, 2 per ring
+        EventQueueService queue = createQueue(2, 4, "REJECT");
+        queue.implementation = "ring";
+        queue.init();
+
+        // When
+        assertTrue(queue.enqueue(userEvent("alice", "CREATE")));
+        assertTrue(queue.enqueue(userEvent("alice", "UPDATE")));
+
+        // Then: alice's lane is full although the queue is not
+        assertFalse(queue.enqueue(userEvent("alice", "DELETE")));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void testRingBufferLaneDropsItsOwnOldestWhenFull() {
+        // Given
+        EventQueueService queue = createQueue(2, 4, "DROP_OLDEST");
+        queue.implementation = "ring";
+        queue.init();
+        WebhookEvent update = userEvent("alice", "UPDATE");
+        WebhookEvent delete = userEvent("alice", "DELETE");
+
+        // When
+        queue.enqueue(userEvent("alice", "CREATE"));
+        queue.enqueue(update);
+        assertTrue(queue.enqueue(delete));
+
+        // Then
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(2, queue.size());
+        assertEquals(List.of(update, delete),
+                queue.drainLane(queue.laneFor("alice"), 10, 100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testDurableEnqueueAppendsBeforeAccepting() {
+        // Given
+        EventQueueService queue = createQueue(2, 10, "REJECT");
+        queue.durable = true;
+        when(queue.eventLog.append(any())).thenReturn(42L);
+        WebhookEvent event = userEvent("alice", "CREATE");
+
+        // When
+        assertTrue(queue.enqueue(event));
+
+        // Then
+        verify(queue.eventLog).append(event);
+        assertEquals(42L, event.getLogId());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testDurableEnqueueRejectsWhenAppendFails() {
+        // Given
+        EventQueueService queue = createQueue(2, 10, "REJECT");
+        queue.durable = true;
+        when(queue.eventLog.append(any()))
+                .thenThrow(new WebhookEventLog.WebhookEventLogException("disk full", null));
+
+        // Then
+        assertFalse(queue.enqueue(userEvent("alice", "CREATE")));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testDurableQueueSpillsWhenFullAndRefillsInAppendOrder() {
+        // Given: room for two events in memory, the rest spill to the log
+        EventQueueService queue = createQueue(1, 2, "REJECT");
+        queue.durable = true;
+        List<WebhookEvent> log = new ArrayList<>();
+        AtomicLong ids = new AtomicLong();
+        when(queue.eventLog.append(any())).thenAnswer(invocation -> {
+            WebhookEvent appended = invocation.getArgument(0);
+            log.add(appended);
+            return ids.incrementAndGet();
+        });
+        when(queue.eventLog.readAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return log.stream().filter(event -> event.getLogId() > afterId).limit(limit).toList();
+        });
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.enqueue(userEvent("user" + i, "CREATE")), "Spilled events are still accepted");
+        }
+
+        // Then: only two are held in memory, the others come back as the lane drains
+        assertEquals(2, queue.size());
+        List<String> drained = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queue.drainLane(0, 10, 100, TimeUnit.MILLISECONDS)
+                    .forEach(event -> drained.add(event.getPartitionKey()));
+        }
+        assertEquals(List.of("user0", "user1", "user2", "user3", "user4"), drained);
+    }
+
+    @Test
+    void testRetryAppendedWhileSpillingKeepsItsSequence() {
+        // Given: alice's update was processed once and failed
+        EventQueueService queue = createQueue(1, 1, "REJECT");
+        queue.durable = true;
+        List<WebhookEvent> log = new ArrayList<>();
+        AtomicLong ids = new AtomicLong();
+        when(queue.eventLog.append(any())).thenAnswer(invocation -> {
+            log.add(invocation.getArgument(0));
+            return ids.incrementAndGet();
+        });
+        when(queue.eventLog.readAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            // The retry is appended again as the same object; read it at its new log ID
+            return log.stream().distinct().filter(event -> event.getLogId() > afterId)
+                    .sorted(Comparator.comparingLong(WebhookEvent::getLogId)).limit(limit).toList();
+        });
+        WebhookEvent update = userEvent("alice", "UPDATE");
+        queue.enqueue(update);
+        queue.drainLane(0, 10, 100, TimeUnit.MILLISECONDS);
+        update.setLogId(0);
+
+        // When: newer events arrive during the backoff and the released retry spills behind them
+        queue.enqueue(userEvent("bob", "CREATE"));
+        WebhookEvent delete = userEvent("alice", "DELETE");
+        queue.enqueue(delete);
+        queue.enqueue(update);
+        List<WebhookEvent> drained = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            drained.addAll(queue.drainLane(0, 10, 100, TimeUnit.MILLISECONDS));
+        }
+
+        // Then: the retry still looks older than the delete
+        assertEquals(List.of(delete, update), drained.subList(1, 3));
+        assertTrue(update.getSequence() < delete.getSequence());
+    }
+
+    @Test
+    void testReplayKeepsStoredSequencesAndNewEventsAreNewer() {
+        // Given: a retry with its original sequence and a record without one, left by a previous run
+        EventQueueService queue = createQueue(2, 10, "REJECT");
+        queue.durable = true;
+        WebhookEvent retry = userEvent("alice", "UPDATE");
+        retry.setLogId(7);
+        retry.setSequence(40);
+        WebhookEvent legacy = userEvent("bob", "CREATE");
+        legacy.setLogId(8);
+        when(queue.eventLog.count()).thenReturn(2L);
+        when(queue.eventLog.maxSequence()).thenReturn(40L);
+        when(queue.eventLog.readAfter(0, 10)).thenReturn(List.of(retry, legacy));
+
+        // When
+        queue.replay();
+        WebhookEvent received = userEvent("alice", "DELETE");
+        queue.enqueue(received);
+
+        // Then
+        assertEquals(40, retry.getSequence());
+        assertTrue(legacy.getSequence() > 40);
+        assertTrue(received.getSequence() > legacy.getSequence());
+    }
+
+    @Test
+    void testReplayLoadsUnacknowledgedEvents() {
+        // Given: two events left in the log by a previous run
+        EventQueueService queue = createQueue(2, 10, "REJECT");
+        queue.durable = true;
+        WebhookEvent first = userEvent("alice", "CREATE");
+        first.setLogId(7);
+        WebhookEvent second = userEvent("bob", "CREATE");
+        second.setLogId(8);
+        when(queue.eventLog.count()).thenReturn(2L);
+        when(queue.eventLog.readAfter(0, 10)).thenReturn(List.of(first, second));
+
+        // When
+        queue.replay();
+
+        // Then
+        assertEquals(2, queue.size());
+        assertEquals("alice", first.getPartitionKey());
+        assertTrue(first.getSequence() < second.getSequence());
+    }
+
+    @Test
+    void testAcknowledgeIsForwardedToTheLogOnlyInDurableMode() {
+        // Given
+        EventQueueService queue = createQueue(2, 10, "REJECT");
+        WebhookEvent event = userEvent("alice", "CREATE");
+        event.setLogId(3);
+
+        // When
+        queue.acknowledge(event);
+        queue.durable = true;
+        queue.acknowledge(event);
+
+        // Then
+        verify(queue.eventLog, times(1)).acknowledge(3);
+    }
+
+    private EventQueueService createQueue(int lanes, int capacity, String overflowStrategy) {
+        EventQueueService queue = new EventQueueService();
+        queue.laneCount = lanes;
+        queue.queueCapacity = capacity;
+        queue.overflowStrategy = overflowStrategy;
+        queue.implementation = "linked";
+        queue.meterRegistry = new SimpleMeterRegistry();
+        queue.metrics = mock(SyncMetrics.class);
+        queue.eventMapper = new EventMapper();
+        queue.eventLog = mock(WebhookEventLog.class);
+        queue.durableMaxEvents = 1_000_000;
+        queue.init();
+        return queue;
+    }
+
+    private WebhookEvent userEvent(String username, String operationType) {
+        KeycloakAdminEvent event = new KeycloakAdminEvent();
+        event.setRealmId("master");
+        event.setResourceType("USER");
+        event.setOperationType(operationType);
+        event.setResourcePath("users/" + username);
+        return new WebhookEvent(UUID.randomUUID().toString(), event);
+    }
+}
@@ -0,0 +1,70 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HashedTimerWheel, driven with a synthetic clock.
+ */
+class HashedTimerWheelTest {
+
+    private static final long START = 1_000_000_000L;
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void testItemsExpireAtFirstTickAfterDeadlineInOrder() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(8, 10, TimeUnit.MILLISECONDS, START);
+        wheel.add("late", START + 35 * 1_000_000L);
+        wheel.add("early", START + 12 * 1_000_000L);
+        List<String> expired = new ArrayList<>();
+
+        // When / Then: nothing before the deadline
+        assertEquals(0, wheel.advance(START + TICK, expired::add));
+        assertEquals(2, wheel.size());
+
+        wheel.advance(START + 2 * TICK, expired::add);
+        assertEquals(List.of("early"), expired);
+
+        wheel.advance(START + 4 * TICK, expired::add);
+        assertEquals(List.of("early", "late"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDeadlinesBeyondOneRevolutionWaitForTheirRound() {
+        // Given: a 4-bucket wheel and a deadline 2.5 revolutions away
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(4, 10, TimeUnit.MILLISECONDS, START);
+        wheel.add("far", START + 10 * TICK + 1);
+        List<String> expired = new ArrayList<>();
+
+        // When
+        wheel.advance(START + 10 * TICK, expired::add);
+
+        // Then: its bucket came up twice already, but the deadline has not passed
+        assertTrue(expired.isEmpty());
+        wheel.advance(START + 11 * TICK, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void testPastDeadlinesExpireOnNextTick() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(8, 10, TimeUnit.MILLISECONDS, START);
+        wheel.advance(START + 5 * TICK, item -> { });
+        wheel.add("overdue", START);
+        List<String> expired = new ArrayList<>();
+
+        // When
+        wheel.advance(START + 6 * TICK, expired::add);
+
+        // Then
+        assertEquals(List.of("overdue"), expired);
+        assertEquals(START + 7 * TICK, wheel.nextTickNanos());
+    }
+}
@@ -0,0 +1,127 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.webhook.PasswordHandoffStore.Handoff;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHandoffStore; expiry is driven explicitly instead of by the wheel thread.
+ */
+class PasswordHandoffStoreTest {
+
+    /**
+     * Creates an initialized store without starting its expiry thread.
+     */
+    static PasswordHandoffStore createStore(int maxEntries, long ttlMs) {
+        PasswordHandoffStore store = new PasswordHandoffStore();
+        store.maxEntries = maxEntries;
+        store.ttlMs = ttlMs;
+        store.tickMs = 10;
+        store.meterRegistry = new SimpleMeterRegistry();
+        store.init();
+        return store;
+    }
+
+    @Test
+    void testPasswordIsTakenOnce() {
+        PasswordHandoffStore store = createStore(10, 60_000);
+
+        assertTrue(store.put("alice", "pässwörd"));
+        assertTrue(store.contains("alice"));
+
+        assertEquals("pässwörd", store.take("alice"));
+        assertNull(store.take("alice"));
+        assertEquals(0, store.size());
+        assertEquals(0, gauge(store, "sync_password_store_bytes"));
+        assertEquals(1, lookups(store, "hit"));
+        assertEquals(1, lookups(store, "miss"));
+    }
+
+    @Test
+    void testTakeAllReturnsStoredPasswordsInRequestOrder() {
+        PasswordHandoffStore store = createStore(10, 60_000);
+        store.put("carol", "c");
+        store.put("alice", "a");
+
+        Map<String, Handoff> passwords = store.takeAll(List.of("alice", "bob", "carol"));
+
+        assertEquals(List.of("alice", "carol"), List.copyOf(passwords.keySet()));
+        assertEquals("c", passwords.get("carol").password());
+        assertEquals(2, lookups(store, "hit"));
+        assertEquals(1, lookups(store, "miss"));
+    }
+
+    @Test
+    void testNewerPasswordWinsOverRestore() {
+        PasswordHandoffStore store = createStore(10, 60_000);
+        store.put("alice", "old");
+        store.put("alice", "new");
+        assertEquals(1, store.size());
+
+        store.restore("alice", new Handoff("older", System.nanoTime()));
+
+        assertEquals("new", store.take("alice"));
+        store.restore("alice", new Handoff("retry", System.nanoTime()));
+        assertEquals("retry", store.take("alice"));
+    }
+
+    @Test
+    void testFullStoreRejectsNewUsersButAcceptsReplacements() {
+        PasswordHandoffStore store = createStore(2, 60_000);
+        assertTrue(store.put("alice", "a"));
+        assertTrue(store.put("bob", "b"));
+
+        assertFalse(store.put("carol", "c"));
+        assertTrue(store.put("alice", "a2"));
+
+        assertEquals(2, store.size());
+        assertEquals(1, evictions(store, "capacity"));
+        assertFalse(store.contains("carol"));
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        PasswordHandoffStore store = createStore(10, 50);
+        store.put("alice", "a");
+        store.put("bob", "b");
+        store.take("bob");
+
+        // Nothing is due before the TTL; taken entries are not expired again
+        assertEquals(0, store.expire(System.nanoTime()));
+        assertEquals(1, store.expire(System.nanoTime() + TimeUnit.SECONDS.toNanos(1)));
+
+        assertEquals(0, store.size());
+        assertFalse(store.contains("alice"));
+        assertEquals(1, evictions(store, "expired"));
+    }
+
+    @Test
+    void testExpiredEntryIsAMissBeforeTheWheelRemovesIt() throws Exception {
+        PasswordHandoffStore store = createStore(10, 1);
+        store.put("alice", "a");
+        Thread.sleep(5);
+
+        assertFalse(store.contains("alice"));
+        assertNull(store.take("alice"));
+        assertEquals(0, store.size());
+        assertEquals(1, evictions(store, "expired"));
+    }
+
+    private static double lookups(PasswordHandoffStore store, String result) {
+        return store.meterRegistry.get("sync_password_store_lookups_total").tag("result", result).counter().count();
+    }
+
+    private static double evictions(PasswordHandoffStore store, String reason) {
+        return store.meterRegistry.get("sync_password_store_evictions_total").tag("reason", reason).counter().count();
+    }
+
+    private static double gauge(PasswordHandoffStore store, String name) {
+        return store.meterRegistry.get(name).gauge().value();
+    }
+}
@@ -0,0 +1,96 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.sync.webhook.PasswordWebhookResource.BatchResponse;
+import com.miimetiq.keycloak.sync.webhook.PasswordWebhookResource.ItemResult;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the batch endpoint of PasswordWebhookResource.
+ */
+class PasswordWebhookResourceTest {
+
+    private PasswordWebhookResource resource;
+
+    @BeforeEach
+    void setUp() {
+        resource = new PasswordWebhookResource();
+        resource.objectMapper = new ObjectMapper();
+        resource.passwordStore = PasswordHandoffStoreTest.createStore(3, 60_000);
+        resource.syncOperationExecutor = mock(SyncOperationExecutor.class);
+        when(resource.syncOperationExecutor.submit(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        resource.pushImmediately = true;
+    }
+
+    @Test
+    void testJsonArrayIsStoredPerItem() {
+        // Given: a valid event, one without a password and one that is not an object
+        String body = """
+                [{"realmId":"master","username":"alice","userId":"1","password":"a","extra":{"x":[1]}},
+                 {"realmId":"master","username":"bob","password":null},
+                 "carol"]
+                """;
+
+        // When
+        Response response = resource.receivePasswordBatch(stream(body));
+
+        // Then
+        assertEquals(200, response.getStatus());
+        BatchResponse batch = (BatchResponse) response.getEntity();
+        assertEquals(3, batch.received);
+        assertEquals(1, batch.stored);
+        assertEquals(ItemResult.STORED, batch.results.get(0).status);
+        assertEquals("Password is required", batch.results.get(1).error);
+        assertEquals(ItemResult.INVALID, batch.results.get(2).status);
+        assertEquals("a", resource.passwordStore.take("alice"));
+        verify(resource.syncOperationExecutor, times(1)).submit(any(), any());
+    }
+
+    @Test
+    void testNdjsonReportsItemsRejectedByFullStore() {
+        String body = """
+                {"username":"u1","password":"p1"}
+                {"username":"u2","password":"p2"}
+                {"username":"u3","password":"p3"}
+                {"username":"u4","password":"p4"}
+                """;
+
+        BatchResponse batch = (BatchResponse) resource.receivePasswordBatch(stream(body)).getEntity();
+
+        assertEquals(4, batch.received);
+        assertEquals(3, batch.stored);
+        assertEquals(ItemResult.REJECTED, batch.results.get(3).status);
+        assertEquals("u4", batch.results.get(3).username);
+    }
+
+    @Test
+    void testMalformedBodyKeepsEarlierItems() {
+        String body = "[{\"username\":\"alice\",\"password\":\"a\"}, {\"username\":";
+
+        Response response = resource.receivePasswordBatch(stream(body));
+
+        assertEquals(400, response.getStatus());
+        BatchResponse batch = (BatchResponse) response.getEntity();
+        assertEquals(1, batch.stored);
+        assertNotNull(batch.error);
+        assertTrue(resource.passwordStore.contains("alice"));
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -112,6 +112,29 @@ class RetryPolicyTest {
                 "Third retry: 4 seconds");
     }
 
+    @Test
+    @DisplayName("calculateRetryDelay draws decorrelated jitter between base and three times the previous delay")
+    void testCalculateRetryDelay_DecorrelatedJitter() {
+        long baseDelay = retryPolicy.getBaseDelayMs();
+        long previous = baseDelay * 2;
+
+        for (int i = 0; i < 100; i++) {
+            long delay = retryPolicy.calculateRetryDelay(2, previous);
+            assertTrue(delay >= baseDelay, "Delay should not be below base delay: " + delay);
+            assertTrue(delay <= Math.min(previous * 3, retryPolicy.getMaxDelayMs()),
+                    "Delay should not exceed three times the previous delay: " + delay);
+        }
+    }
+
+    @Test
+    @DisplayName("calculateRetryDelay respects maximum delay")
+    void testCalculateRetryDelay_MaxCap() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(retryPolicy.calculateRetryDelay(10, retryPolicy.getMaxDelayMs()) <= retryPolicy.getMaxDelayMs(),
+                    "Jittered delay should be capped at maximum");
+        }
+    }
+
     @Test
     @DisplayName("Configuration values are accessible")
     void testConfigurationAccessors() {
@@ -0,0 +1,154 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miimetiq.keycloak.sync.domain.entity.WebhookRetryRecord;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RetryScheduler without persistence, and for restoring persisted retries.
+ */
+class RetrySchedulerTest {
+
+    private RetryScheduler scheduler;
+    private final List<WebhookEvent> enqueued = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new RetryScheduler();
+        scheduler.tickMs = 10;
+        scheduler.wheelSize = 64;
+        scheduler.releaseRate = 1000;
+        scheduler.persistent = false;
+        scheduler.queueService = mock(EventQueueService.class);
+        when(scheduler.queueService.enqueue(any())).thenAnswer(invocation -> enqueued.add(invocation.getArgument(0)));
+        scheduler.metrics = mock(SyncMetrics.class);
+        scheduler.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void testRetriesAreReleasedAfterTheirDelayInDueOrder() throws Exception {
+        // Given
+        scheduler.start();
+        WebhookEvent later = event();
+        WebhookEvent sooner = event();
+
+        // When
+        scheduler.schedule(later, 500);
+        scheduler.schedule(sooner, 30);
+
+        // Then
+        waitUntil(() -> enqueued.size() == 2);
+        assertEquals(List.of(sooner, later), enqueued);
+        verify(scheduler.metrics, times(2)).incrementRetryAttempts("SCHEDULED", 2);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    void testReleaseRateLimitsEventsPerTick() {
+        // Given: 10 per second at 100ms ticks releases one event per tick
+        scheduler.tickMs = 100;
+        scheduler.releaseRate = 10;
+        scheduler.start();
+        scheduler.stop();
+        for (int i = 0; i < 5; i++) {
+            scheduler.schedule(event(), 0);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        // When: one tick's worth is released
+        scheduler.tick();
+
+        // Then
+        assertEquals(1, enqueued.size());
+        assertEquals(4, scheduler.getPendingCount());
+    }
+
+    @Test
+    void testDueRetriesWaitWhileTheQueueIsFull() {
+        // Given: the queue rejects the first attempt
+        doReturn(false).doAnswer(invocation -> enqueued.add(invocation.getArgument(0)))
+                .when(scheduler.queueService).enqueue(any());
+        scheduler.start();
+        scheduler.stop();
+        scheduler.schedule(event(), 0);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        scheduler.tick();
+        assertEquals(1, scheduler.getPendingCount());
+        scheduler.tick();
+
+        // Then
+        assertEquals(1, enqueued.size());
+        assertEquals(0, scheduler.getPendingCount());
+        verify(scheduler.metrics, never()).incrementRetryAttempts(eq("ENQUEUE_ERROR"), anyInt());
+    }
+
+    @Test
+    void testRestoredRetryIsSupersededByEventReceivedAfterRestart() throws Exception {
+        // Given: a retry of alice's update persisted by the previous run with sequence 5
+        scheduler.supersessionTracker = new SupersessionTracker();
+        scheduler.objectMapper = new ObjectMapper();
+        scheduler.downstreamLimiter = mock(DownstreamLimiter.class);
+        KeycloakAdminEvent update = new KeycloakAdminEvent("1", 0L, "master", "USER", "UPDATE", "users/alice");
+        WebhookRetryRecord record = new WebhookRetryRecord("retry-1", "alice", 5L,
+                scheduler.objectMapper.writeValueAsString(update), 1, 1000L, LocalDateTime.now().plusSeconds(1));
+        doReturn(List.of(record)).when(scheduler.downstreamLimiter).call(any(), any());
+
+        // When: the agent restarts, and a delete for alice arrives and completes before the retry is due
+        scheduler.start();
+        scheduler.restore();
+        verify(scheduler.queueService).advanceSequence(5);
+        WebhookEvent delete = new WebhookEvent("delete-1", new KeycloakAdminEvent());
+        delete.setPartitionKey("alice");
+        delete.setSequence(6);
+        scheduler.supersessionTracker.track(delete);
+        scheduler.supersessionTracker.finish(delete);
+
+        // Then: the restored retry keeps its sequence and is dropped as superseded
+        waitUntil(() -> enqueued.size() == 1);
+        WebhookEvent restored = enqueued.get(0);
+        assertEquals(5, restored.getSequence());
+        assertTrue(scheduler.supersessionTracker.isSuperseded(restored));
+    }
+
+    private WebhookEvent event() {
+        WebhookEvent event = new WebhookEvent(UUID.randomUUID().toString(), new KeycloakAdminEvent());
+        event.incrementRetryCount();
+        return event;
+    }
+
+    private void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+}
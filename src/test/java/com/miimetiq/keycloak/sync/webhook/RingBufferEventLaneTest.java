@@ -0,0 +1,147 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free ring buffer lane.
+ */
+class RingBufferEventLaneTest {
+
+    @Test
+    void testCapacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(2, new RingBufferEventLane(1).capacity());
+        assertEquals(8, new RingBufferEventLane(5).capacity());
+        assertEquals(1024, new RingBufferEventLane(1000).capacity());
+    }
+
+    @Test
+    void testOfferFailsWhenFullAndPollIsFifoAcrossWrapAround() {
+        // Given
+        RingBufferEventLane lane = new RingBufferEventLane(4);
+
+        // When: fill, drain half, refill so positions wrap around the ring
+        for (int i = 0; i < 4; i++) {
+            assertTrue(lane.offer(event(i)));
+        }
+        assertFalse(lane.offer(event(99)));
+        assertEquals("0", lane.poll().getCorrelationId());
+        assertEquals("1", lane.poll().getCorrelationId());
+        assertTrue(lane.offer(event(4)));
+        assertTrue(lane.offer(event(5)));
+
+        // Then
+        List<String> order = new ArrayList<>();
+        WebhookEvent next;
+        while ((next = lane.poll()) != null) {
+            order.add(next.getCorrelationId());
+        }
+        assertEquals(List.of("2", "3", "4", "5"), order);
+        assertEquals(0, lane.size());
+    }
+
+    @Test
+    void testDrainToTakesPublishedRunUpToMax() {
+        // Given
+        RingBufferEventLane lane = new RingBufferEventLane(8);
+        for (int i = 0; i < 5; i++) {
+            lane.offer(event(i));
+        }
+
+        // When
+        List<WebhookEvent> drained = new ArrayList<>();
+        int first = lane.drainTo(drained, 3);
+        int second = lane.drainTo(drained, 10);
+
+        // Then
+        assertEquals(3, first);
+        assertEquals(2, second);
+        assertEquals(List.of("0", "1", "2", "3", "4"), drained.stream().map(WebhookEvent::getCorrelationId).toList());
+        assertEquals(0, lane.drainTo(drained, 10));
+    }
+
+    @Test
+    void testTimedPollReturnsNullAfterTimeout() throws Exception {
+        // Given
+        RingBufferEventLane lane = new RingBufferEventLane(4);
+
+        // When
+        long start = System.nanoTime();
+        WebhookEvent event = lane.poll(20, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertNull(event);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 20);
+    }
+
+    @Test
+    void testConcurrentProducersAndConsumersDeliverEachEventOnce() throws Exception {
+        // Given: 4 producers and 4 consumers sharing a small ring
+        int producers = 4;
+        int perProducer = 20_000;
+        RingBufferEventLane lane = new RingBufferEventLane(64);
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+        ExecutorService pool = Executors.newFixedThreadPool(producers * 2);
+
+        try {
+            // When
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                pool.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        WebhookEvent event = new WebhookEvent(producer + "-" + i, null);
+                        while (!lane.offer(event)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+            for (int c = 0; c < producers; c++) {
+                pool.submit(() -> {
+                    List<WebhookEvent> batch = new ArrayList<>();
+                    while (done.getCount() > 0) {
+                        batch.clear();
+                        if (lane.drainTo(batch, 16) == 0) {
+                            WebhookEvent single = lane.poll(1, TimeUnit.MILLISECONDS);
+                            if (single != null) {
+                                batch.add(single);
+                            }
+                        }
+                        for (WebhookEvent event : batch) {
+                            if (!received.add(event.getCorrelationId())) {
+                                duplicates.incrementAndGet();
+                            }
+                            done.countDown();
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            // Then
+            assertTrue(done.await(30, TimeUnit.SECONDS), "All events should be consumed");
+            assertEquals(producers * perProducer, received.size());
+            assertEquals(0, duplicates.get());
+            assertEquals(0, lane.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private WebhookEvent event(int id) {
+        return new WebhookEvent(String.valueOf(id), null);
+    }
+}
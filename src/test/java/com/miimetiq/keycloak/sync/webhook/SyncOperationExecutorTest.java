@@ -0,0 +1,349 @@
+package com.miimetiq.keycloak.sync.webhook;
+
+import com.miimetiq.keycloak.sync.domain.enums.ScramMechanism;
+import com.miimetiq.keycloak.sync.kafka.KafkaConfig;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager;
+import com.miimetiq.keycloak.sync.kafka.KafkaScramManager.ChunkListener;
+import com.miimetiq.keycloak.sync.kafka.ScramCredentialPolicyTest;
+import com.miimetiq.keycloak.sync.keycloak.KeycloakConfig;
+import com.miimetiq.keycloak.sync.metrics.SyncMetrics;
+import com.miimetiq.keycloak.sync.service.AuditWriteBehindService;
+import org.apache.kafka.clients.admin.ScramCredentialInfo;
+import org.apache.kafka.clients.admin.UserScramCredentialAlteration;
+import org.apache.kafka.clients.admin.UserScramCredentialDeletion;
+import org.apache.kafka.clients.admin.UserScramCredentialUpsertion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SyncOperationExecutor with a mocked KafkaScramManager.
+ */
+class SyncOperationExecutorTest {
+
+    private SyncOperationExecutor executor;
+    private KafkaScramManager kafkaScramManager;
+    private final List<List<UserScramCredentialAlteration>> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Throwable> kafkaErrors = new HashMap<>();
+    private final List<Thread> kafkaCallers = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        kafkaScramManager = mock(KafkaScramManager.class);
+        when(kafkaScramManager.buildUpsertions(anyMap())).thenCallRealMethod();
+        when(kafkaScramManager.buildDeletions(anyMap())).thenCallRealMethod();
+        when(kafkaScramManager.alterUserScramCredentialsChunked(anyList(), any())).thenAnswer(invocation -> {
+            List<UserScramCredentialAlteration> alterations = invocation.getArgument(0);
+            ChunkListener listener = invocation.getArgument(1);
+            requests.add(alterations);
+            kafkaCallers.add(Thread.currentThread());
+
+            Set<String> principals = new LinkedHashSet<>();
+            alterations.forEach(alteration -> principals.add(alteration.user()));
+            Map<String, Throwable> errors = new HashMap<>(kafkaErrors);
+            errors.keySet().retainAll(principals);
+            listener.onChunkComplete(principals, errors);
+            return errors;
+        });
+
+        executor = new SyncOperationExecutor();
+        executor.coalesceWindowMs = 100;
+        executor.batchMaxSize = 500;
+        executor.executionThreads = 1;
+        executor.kafkaScramManager = kafkaScramManager;
+        executor.kafkaConfig = mock(KafkaConfig.class);
+        when(executor.kafkaConfig.bootstrapServers()).thenReturn("localhost:9092");
+        executor.keycloakConfig = mock(KeycloakConfig.class);
+        when(executor.keycloakConfig.realm()).thenReturn("master");
+        executor.metrics = mock(SyncMetrics.class);
+        executor.auditWriteBehindService = mock(AuditWriteBehindService.class);
+        executor.downstreamLimiter = DownstreamLimiterTest.createLimiter("platform", 16);
+        executor.scramPolicy = ScramCredentialPolicyTest.createPolicy("SCRAM-SHA-256");
+        executor.passwordStore = PasswordHandoffStoreTest.createStore(100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+        executor.passwordStore.clear();
+    }
+
+    @Test
+    void testBurstForSamePrincipalIsCoalescedIntoOneUpsert() throws Exception {
+        // Given: a password handed over for alice
+        executor.start();
+        storePassword("alice", "secret");
+
+        // When: several events for alice arrive within one window
+        CompletableFuture<Void> first = executor.submit("corr-1", upsert("alice"));
+        CompletableFuture<Void> second = executor.submit("corr-2", upsert("alice"));
+        CompletableFuture<Void> third = executor.submit("corr-3", upsert("alice"));
+
+        // Then: all callers share one Kafka alteration using the webhook password
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+        assertSame(first, third);
+        assertEquals(1, requests.size());
+        UserScramCredentialUpsertion upsertion = (UserScramCredentialUpsertion) requests.get(0).get(0);
+        assertEquals("alice", upsertion.user());
+        verify(executor.metrics, times(2)).incrementWebhookCoalesced();
+    }
+
+    @Test
+    void testEventsForManyPrincipalsShareOneAlterationRequest() throws Exception {
+        // Given: passwords for three users and an existing credential for a fourth
+        executor.start();
+        storePassword("alice", "a");
+        storePassword("bob", "b");
+        storePassword("carol", "c");
+        when(kafkaScramManager.describeCachedUserScramCredentials(List.of("dave"))).thenReturn(Map.of(
+                "dave", List.of(new ScramCredentialInfo(
+                        org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_512, 4096))));
+
+        // When
+        List<CompletableFuture<Void>> futures = List.of(
+                executor.submit("corr-1", upsert("alice")),
+                executor.submit("corr-2", upsert("bob")),
+                executor.submit("corr-3", upsert("carol")),
+                executor.submit("corr-4", new SyncOperation(SyncOperation.Type.DELETE, "master", "dave", false)));
+
+        // Then: a single request carries upserts and the delete
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(1, requests.size());
+        assertEquals(4, requests.get(0).size());
+        UserScramCredentialDeletion deletion = (UserScramCredentialDeletion) requests.get(0).get(3);
+        assertEquals("dave", deletion.user());
+        assertEquals(org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_512, deletion.mechanism());
+        verify(executor.metrics).recordWebhookBatchSize(4);
+    }
+
+    @Test
+    void testFullBatchIsFlushedBeforeWindowCloses() throws Exception {
+        // Given: a long window and a batch size of two
+        executor.coalesceWindowMs = 60_000;
+        executor.batchMaxSize = 2;
+        executor.start();
+        storePassword("alice", "a");
+        storePassword("bob", "b");
+
+        // When
+        CompletableFuture<Void> alice = executor.submit("corr-1", upsert("alice"));
+        CompletableFuture<Void> bob = executor.submit("corr-2", upsert("bob"));
+
+        // Then: the batch does not wait for the window
+        CompletableFuture.allOf(alice, bob).get(5, TimeUnit.SECONDS);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void testLatestOperationInWindowWins() throws Exception {
+        // Given: alice has a SHA-256 credential in Kafka
+        executor.start();
+        when(kafkaScramManager.describeCachedUserScramCredentials(List.of("alice"))).thenReturn(Map.of(
+                "alice", List.of(new ScramCredentialInfo(
+                        org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_256, 4096))));
+
+        // When: an upsert is followed by a delete within the window
+        executor.submit("corr-1", upsert("alice"));
+        executor.submit("corr-2", new SyncOperation(SyncOperation.Type.DELETE, "master", "alice", false))
+                .get(5, TimeUnit.SECONDS);
+
+        // Then: only the delete is executed
+        verify(kafkaScramManager).buildDeletions(Map.of("alice", List.of(ScramMechanism.SCRAM_SHA_256)));
+        assertEquals(1, requests.size());
+        assertInstanceOf(UserScramCredentialDeletion.class, requests.get(0).get(0));
+    }
+
+    @Test
+    void testDeleteSkipsUnknownMechanisms() throws Exception {
+        // Given: bob has a credential of a mechanism this client does not know, carol only such a credential
+        executor.start();
+        when(kafkaScramManager.describeCachedUserScramCredentials(List.of("bob", "carol"))).thenReturn(Map.of(
+                "bob", List.of(
+                        new ScramCredentialInfo(org.apache.kafka.clients.admin.ScramMechanism.UNKNOWN, 4096),
+                        new ScramCredentialInfo(org.apache.kafka.clients.admin.ScramMechanism.SCRAM_SHA_512, 4096)),
+                "carol", List.of(
+                        new ScramCredentialInfo(org.apache.kafka.clients.admin.ScramMechanism.UNKNOWN, 4096))));
+
+        // When
+        CompletableFuture<Void> bob = executor.submit("corr-1",
+                new SyncOperation(SyncOperation.Type.DELETE, "master", "bob", false));
+        CompletableFuture<Void> carol = executor.submit("corr-2",
+                new SyncOperation(SyncOperation.Type.DELETE, "master", "carol", false));
+
+        // Then: only bob's known mechanism is deleted and both callers complete
+        CompletableFuture.allOf(bob, carol).get(5, TimeUnit.SECONDS);
+        verify(kafkaScramManager).buildDeletions(Map.of("bob", List.of(ScramMechanism.SCRAM_SHA_512)));
+        assertEquals(1, requests.size());
+        assertEquals(1, requests.get(0).size());
+    }
+
+    @Test
+    void testUpsertWithoutPendingPasswordLeavesKafkaUntouched() throws Exception {
+        // When
+        executor.start();
+        executor.submit("corr-1", upsert("bob")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(kafkaScramManager, never()).alterUserScramCredentialsChunked(anyList(), any());
+    }
+
+    @Test
+    void testFailureIsFannedOutOnlyToAffectedPrincipal() throws Exception {
+        // Given: Kafka rejects carol's alteration but accepts alice's
+        executor.start();
+        storePassword("alice", "a");
+        storePassword("carol", "c");
+        kafkaErrors.put("carol", new IllegalStateException("broker unavailable"));
+
+        // When
+        CompletableFuture<Void> alice = executor.submit("corr-1", upsert("alice"));
+        CompletableFuture<Void> carol = executor.submit("corr-2", upsert("carol"));
+
+        // Then
+        alice.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> carol.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SyncOperationExecutor.SyncExecutionException.class, e.getCause());
+        verify(executor.metrics).incrementKafkaScramUpsert("localhost:9092", "SCRAM_SHA_256", "ERROR");
+        assertTrue(executor.passwordStore.contains("carol"), "Password should be kept for the retry");
+        assertFalse(executor.passwordStore.contains("alice"));
+    }
+
+    @Test
+    void testAllPolicyMechanismsAreWrittenInOneAlteration() throws Exception {
+        // Given: a policy writing both mechanisms
+        executor.scramPolicy = ScramCredentialPolicyTest.createPolicy("SCRAM-SHA-256", "SCRAM-SHA-512");
+        executor.start();
+        storePassword("alice", "a");
+
+        // When
+        executor.submit("corr-1", upsert("alice")).get(5, TimeUnit.SECONDS);
+
+        // Then: one request carries both upsertions and each mechanism is counted
+        assertEquals(1, requests.size());
+        assertEquals(2, requests.get(0).size());
+        verify(executor.metrics).incrementKafkaScramUpsert("localhost:9092", "SCRAM_SHA_256", "SUCCESS");
+        verify(executor.metrics).incrementKafkaScramUpsert("localhost:9092", "SCRAM_SHA_512", "SUCCESS");
+    }
+
+    @Test
+    void testVirtualModeExecutesBatchesOnVirtualThreads() throws Exception {
+        // Given
+        executor.downstreamLimiter = DownstreamLimiterTest.createLimiter("virtual", 16);
+        executor.start();
+        storePassword("alice", "a");
+
+        // When
+        executor.submit("corr-1", upsert("alice")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, kafkaCallers.size());
+        assertTrue(kafkaCallers.get(0).isVirtual());
+    }
+
+    @Test
+    void testPasswordWebhookPushesPasswordImmediately() throws Exception {
+        // Given
+        executor.start();
+        PasswordWebhookResource resource = new PasswordWebhookResource();
+        resource.passwordStore = executor.passwordStore;
+        resource.syncOperationExecutor = executor;
+        resource.pushImmediately = true;
+
+        // When: a password arrives with no admin event or reconciliation
+        resource.receivePassword(new PasswordWebhookResource.PasswordEvent("master", "alice", "id-alice", "secret"));
+
+        // Then: the principal is owned by the executor until Kafka acknowledged the upsert
+        assertTrue(executor.isQueued("alice"));
+        verify(executor.metrics, timeout(5000)).recordPasswordPropagation(eq("WEBHOOK"), anyLong());
+        assertEquals(1, requests.size());
+        assertEquals("alice", requests.get(0).get(0).user());
+        assertFalse(executor.passwordStore.contains("alice"));
+    }
+
+    @Test
+    void testUpsertedPrincipalIsReportedToReconciliation() throws Exception {
+        // Given
+        executor.start();
+        long beforePush = System.nanoTime();
+        storePassword("alice", "secret");
+
+        // When
+        executor.submit("corr-1", upsert("alice")).get(5, TimeUnit.SECONDS);
+
+        // Then: a cycle started before the push must leave alice alone, a later one may adopt her
+        assertTrue(executor.wasWrittenSince("alice", beforePush));
+        assertFalse(executor.wasWrittenSince("alice", System.nanoTime()));
+        assertFalse(executor.wasWrittenSince("bob", beforePush));
+
+        executor.forgetUpsertsBefore(System.nanoTime());
+        assertFalse(executor.wasWrittenSince("alice", beforePush));
+    }
+
+    @Test
+    void testUpsertForClaimedPrincipalWaitsForReconciliation() throws Exception {
+        // Given: reconciliation is writing a random password for alice
+        executor.start();
+        assertEquals(List.of("alice"), executor.claimForReconciliation(List.of("alice"), System.nanoTime()));
+
+        // When: her real password arrives meanwhile
+        storePassword("alice", "secret");
+        CompletableFuture<Void> future = executor.submit("corr-1", upsert("alice"));
+
+        // Then: it is only written once reconciliation released her
+        Thread.sleep(300);
+        assertFalse(future.isDone());
+        assertTrue(requests.isEmpty());
+
+        executor.releaseClaims(List.of("alice"));
+        future.get(5, TimeUnit.SECONDS);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void testQueuedOrRecentlyWrittenPrincipalsCannotBeClaimed() throws Exception {
+        // Given
+        executor.start();
+        long cycleStart = System.nanoTime();
+        storePassword("alice", "secret");
+        executor.submit("corr-1", upsert("alice")).get(5, TimeUnit.SECONDS);
+        storePassword("bob", "secret");
+        executor.submit("corr-2", upsert("bob"));
+
+        // When
+        List<String> granted = executor.claimForReconciliation(List.of("alice", "bob", "carol"), cycleStart);
+
+        // Then
+        assertEquals(List.of("carol"), granted);
+        assertTrue(executor.claimForReconciliation(List.of("carol"), cycleStart).isEmpty());
+    }
+
+    private SyncOperation upsert(String principal) {
+        return new SyncOperation(SyncOperation.Type.UPSERT, "master", principal, true);
+    }
+
+    private void storePassword(String username, String password) {
+        PasswordWebhookResource resource = new PasswordWebhookResource();
+        resource.passwordStore = executor.passwordStore;
+        resource.receivePassword(
+                new PasswordWebhookResource.PasswordEvent("master", username, "id-" + username, password));
+    }
+}